@@ -0,0 +1,48 @@
+package com.baidu.gallery.car.debug.standin;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * 通过adb触发压测（接收器要求DUMP权限，只有adb shell可以发送）：
+ * adb shell am broadcast -a com.baidu.gallery.car.debug.RUN_PAN_HARNESS \
+ *     --ei depth 3 --ei fan_out 10 --ei files_per_dir 100 \
+ *     --el latency_ms 80 --ef errno_rate 0.05 --ef http_fault_rate 0.01 --ei play_samples 20
+ * 结果见logcat（TAG: PanLoadHarness）和应用私有目录下的 pan_harness_report.json
+ */
+public class PanHarnessReceiver extends BroadcastReceiver {
+    private static final String TAG = "PanHarnessReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        PanStandInServer server = PanStandInServer.getInstance();
+        if (server == null) {
+            Log.e(TAG, "替身服务器未启动，请使用 -PpanStandInPort=<端口> 构建debug包");
+            return;
+        }
+
+        PanStandInConfig config = new PanStandInConfig()
+                .tree(intent.getIntExtra("depth", 3),
+                      intent.getIntExtra("fan_out", 10),
+                      intent.getIntExtra("files_per_dir", 100))
+                .mediaMix(intent.getIntExtra("image_percent", 50), intent.getIntExtra("video_percent", 30))
+                .latency(intent.getLongExtra("latency_ms", 0), intent.getLongExtra("latency_jitter_ms", 0))
+                .errnoFaults(intent.getFloatExtra("errno_rate", 0f), intent.getIntExtra("errno", 31034))
+                .httpFaults(intent.getFloatExtra("http_fault_rate", 0f))
+                .dlinkBandwidth(intent.getLongExtra("dlink_bytes_per_second", 0))
+                .sampleVideo(intent.getStringExtra("sample_video"));
+        server.applyConfig(config);
+
+        int playSamples = intent.getIntExtra("play_samples", 20);
+        Context appContext = context.getApplicationContext();
+        new Thread(() -> {
+            try {
+                new PanLoadHarness(appContext, server, playSamples).run();
+            } catch (Exception e) {
+                Log.e(TAG, "压测执行失败", e);
+            }
+        }, "PanLoadHarness").start();
+    }
+}
@@ -0,0 +1,295 @@
+package com.baidu.gallery.car.debug.standin;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.baidu.gallery.car.auth.BaiduAuthService;
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.Playlist;
+import com.baidu.gallery.car.network.RequestPriority;
+import com.baidu.gallery.car.repository.FileRepository;
+import com.baidu.gallery.car.repository.PlaylistRepository;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 基于替身服务器的遍历/刷新/播放压测
+ * 走真实的FileRepository、PlaylistRepository代码路径，测量：
+ * 1. 遍历吞吐：fetchFilesRecursive 的文件数/秒、目录数/秒
+ * 2. 刷新耗时：refreshPlaylist 从开始到提交的时间
+ * 3. 点击到播放：获取dlink + 拿到媒体首字节的时间（不含解码和渲染）
+ * 遍历结果必须完整：文件数等于替身目录树的文件总数且没有失败子树，否则报告中passed为false
+ * 必须在后台线程调用run()
+ */
+public class PanLoadHarness {
+    private static final String TAG = "PanLoadHarness";
+
+    // 替身服务器接受任意token
+    private static final String STAND_IN_TOKEN = "standin-token";
+    private static final long STEP_TIMEOUT_MINUTES = 10;
+
+    private final Context context;
+    private final PanStandInServer server;
+    private final int playSamples;
+
+    public PanLoadHarness(Context context, PanStandInServer server, int playSamples) {
+        this.context = context.getApplicationContext();
+        this.server = server;
+        this.playSamples = playSamples;
+    }
+
+    /**
+     * 依次执行三项测量，结果写入日志和 files/pan_harness_report.json
+     */
+    public JSONObject run() throws JSONException, InterruptedException {
+        JSONObject report = new JSONObject();
+        SyntheticPanTree tree = server.getTree();
+        report.put("treeDirs", tree.getTotalDirs());
+        report.put("treeFiles", tree.getTotalFiles());
+
+        List<FileInfo> crawled = measureCrawl(report, tree);
+        measureRefresh(report);
+        measureClickToPlay(report, crawled);
+        report.put("passed", report.getJSONObject("crawl").getBoolean("passed"));
+
+        Log.i(TAG, "压测结果: " + report.toString(2));
+        writeReport(report);
+        return report;
+    }
+
+    private List<FileInfo> measureCrawl(JSONObject report, SyntheticPanTree tree)
+            throws JSONException, InterruptedException {
+        server.resetStats();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<List<FileInfo>> result = new AtomicReference<>(Collections.emptyList());
+        AtomicReference<String> error = new AtomicReference<>();
+        AtomicInteger failedSubtrees = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        FileRepository.getInstance().fetchFilesRecursive(STAND_IN_TOKEN, server.getTree().getRootPath(),
+                new FileRepository.FileListCallback() {
+                    @Override
+                    public void onSuccess(List<FileInfo> files) {
+                        result.set(files);
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String message) {
+                        error.set(message);
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onIncomplete(List<FileInfo> files, List<String> failedDirs) {
+                        result.set(files);
+                        failedSubtrees.set(failedDirs.size());
+                        error.set("失败子目录: " + failedDirs.size());
+                        latch.countDown();
+                    }
+                });
+        boolean finished = latch.await(STEP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+        List<FileInfo> files = result.get();
+        long listRequests = 0;
+        for (Map.Entry<String, Long> entry : server.getRequestCounts().entrySet()) {
+            if (entry.getKey().contains("method=list")) {
+                listRequests += entry.getValue();
+            }
+        }
+        JSONObject crawl = new JSONObject()
+                .put("finished", finished)
+                .put("elapsedMs", elapsed)
+                .put("files", files.size())
+                .put("filesPerSecond", files.size() * 1000.0 / elapsed)
+                .put("listRequests", listRequests)
+                .put("injectedFaults", server.getFaultCount());
+        if (error.get() != null) {
+            crawl.put("error", error.get());
+        }
+
+        // 注入故障时遍历也必须拿到完整结果
+        boolean passed = finished && error.get() == null
+                && files.size() == tree.getTotalFiles() && failedSubtrees.get() == 0;
+        crawl.put("expectedFiles", tree.getTotalFiles())
+                .put("failedSubtrees", failedSubtrees.get())
+                .put("passed", passed);
+        if (!passed) {
+            Log.e(TAG, "遍历结果不完整: 文件数=" + files.size() + "/" + tree.getTotalFiles() +
+                    ", 失败子树=" + failedSubtrees.get() + ", 完成=" + finished);
+        }
+        report.put("crawl", crawl);
+        return files;
+    }
+
+    private void measureRefresh(JSONObject report) throws JSONException, InterruptedException {
+        // 刷新流程从BaiduAuthService读取token，需要先通过替身服务器完成一次登录
+        if (BaiduAuthService.getInstance(context).getAccessToken() == null) {
+            report.put("refresh", new JSONObject().put("skipped", "未登录，请先在替身服务器模式下完成设备码登录"));
+            return;
+        }
+
+        PlaylistRepository repository = new PlaylistRepository(context);
+        Playlist playlist = new Playlist();
+        playlist.setName("替身压测");
+        playlist.setCreatedAt(System.currentTimeMillis());
+        playlist.setSourcePaths(new JSONArray().put(server.getTree().getRootPath()).toString());
+
+        CountDownLatch inserted = new CountDownLatch(1);
+        AtomicReference<Long> playlistId = new AtomicReference<>();
+        repository.insertPlaylist(playlist, new PlaylistRepository.InsertCallback() {
+            @Override
+            public void onSuccess(long id) {
+                playlistId.set(id);
+                inserted.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                inserted.countDown();
+            }
+        });
+        inserted.await(STEP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        if (playlistId.get() == null) {
+            report.put("refresh", new JSONObject().put("skipped", "创建临时播放列表失败"));
+            return;
+        }
+        playlist.setId(playlistId.get());
+
+        server.resetStats();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        AtomicBoolean success = new AtomicBoolean(false);
+        long start = System.currentTimeMillis();
+        repository.refreshPlaylist(playlist, () -> {
+            success.set(true);
+            refreshed.countDown();
+        }, refreshed::countDown);
+        boolean finished = refreshed.await(STEP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        long elapsed = System.currentTimeMillis() - start;
+
+        report.put("refresh", new JSONObject()
+                .put("finished", finished)
+                .put("success", success.get())
+                .put("elapsedMs", elapsed)
+                .put("items", repository.getPlaylistItemCount(playlistId.get()))
+                .put("injectedFaults", server.getFaultCount()));
+
+        CountDownLatch deleted = new CountDownLatch(1);
+        repository.deletePlaylist(playlist, deleted::countDown, deleted::countDown);
+        deleted.await(STEP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private void measureClickToPlay(JSONObject report, List<FileInfo> crawled)
+            throws JSONException, InterruptedException {
+        List<FileInfo> videos = new ArrayList<>();
+        for (FileInfo file : crawled) {
+            if (file.isVideo()) {
+                videos.add(file);
+                if (videos.size() >= playSamples) {
+                    break;
+                }
+            }
+        }
+        if (videos.isEmpty()) {
+            report.put("clickToPlay", new JSONObject().put("skipped", "遍历结果中没有视频"));
+            return;
+        }
+
+        OkHttpClient client = new OkHttpClient();
+        List<Long> dlinkTimes = new ArrayList<>();
+        List<Long> firstByteTimes = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (FileInfo video : videos) {
+            long start = System.currentTimeMillis();
+            CountDownLatch latch = new CountDownLatch(1);
+            AtomicReference<String> dlink = new AtomicReference<>();
+            FileRepository.getInstance().fetchFileDetail(STAND_IN_TOKEN, video.getFsId(), RequestPriority.FOREGROUND,
+                    new FileRepository.FileDetailCallback() {
+                        @Override
+                        public void onSuccess(FileInfo fileInfo) {
+                            dlink.set(fileInfo.getDlink());
+                            latch.countDown();
+                        }
+
+                        @Override
+                        public void onFailure(String error) {
+                            latch.countDown();
+                        }
+                    });
+            latch.await(STEP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            long dlinkAt = System.currentTimeMillis();
+            if (dlink.get() == null) {
+                failures.incrementAndGet();
+                continue;
+            }
+
+            // 与播放器一样带上access_token和UA，只取开头一段
+            Request request = new Request.Builder()
+                    .url(dlink.get() + "?access_token=" + STAND_IN_TOKEN)
+                    .header("User-Agent", "pan.baidu.com")
+                    .header("Range", "bytes=0-65535")
+                    .build();
+            try (Response response = client.newCall(request).execute()) {
+                InputStream body = response.body() != null ? response.body().byteStream() : null;
+                if (!response.isSuccessful() || body == null || body.read() < 0) {
+                    failures.incrementAndGet();
+                    continue;
+                }
+            } catch (IOException e) {
+                failures.incrementAndGet();
+                continue;
+            }
+            dlinkTimes.add(dlinkAt - start);
+            firstByteTimes.add(System.currentTimeMillis() - start);
+        }
+
+        report.put("clickToPlay", new JSONObject()
+                .put("samples", videos.size())
+                .put("failures", failures.get())
+                .put("dlinkP50Ms", percentile(dlinkTimes, 50))
+                .put("dlinkP90Ms", percentile(dlinkTimes, 90))
+                .put("firstByteP50Ms", percentile(firstByteTimes, 50))
+                .put("firstByteP90Ms", percentile(firstByteTimes, 90)));
+    }
+
+    private static long percentile(List<Long> values, int percentile) {
+        if (values.isEmpty()) {
+            return -1;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private void writeReport(JSONObject report) {
+        File file = new File(context.getFilesDir(), "pan_harness_report.json");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(report.toString(2).getBytes(StandardCharsets.UTF_8));
+            Log.i(TAG, "压测报告已写入: " + file.getAbsolutePath());
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "写入压测报告失败", e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.baidu.gallery.car.debug.standin;
+
+/**
+ * 网盘替身服务器配置
+ * 默认生成 1111 个目录 × 100 个文件 ≈ 11 万个文件，无故障注入
+ */
+public class PanStandInConfig {
+
+    // 目录树
+    int treeDepth = 3;
+    int fanOut = 10;
+    int filesPerDir = 100;
+    int imagePercent = 50;
+    int videoPercent = 30;
+    String rootPath = "/standin";
+
+    // 合成媒体
+    int imageWidth = 1920;
+    int imageHeight = 1080;
+    long syntheticVideoSize = 64L * 1024 * 1024;
+    String sampleVideoPath;
+
+    // 故障注入
+    long latencyMs = 0;
+    long latencyJitterMs = 0;
+    double errnoFaultRate = 0;
+    int faultErrno = 31034;
+    double httpFaultRate = 0;
+    long dlinkBytesPerSecond = 0;
+    int devicePendingPolls = 0;
+
+    /**
+     * 目录树形状
+     * @param depth 根目录下的目录层数
+     * @param fanOut 每个目录的子目录数
+     * @param filesPerDir 每个目录的文件数
+     */
+    public PanStandInConfig tree(int depth, int fanOut, int filesPerDir) {
+        this.treeDepth = depth;
+        this.fanOut = fanOut;
+        this.filesPerDir = filesPerDir;
+        return this;
+    }
+
+    /**
+     * 媒体比例（百分比），剩余部分为文档
+     */
+    public PanStandInConfig mediaMix(int imagePercent, int videoPercent) {
+        this.imagePercent = imagePercent;
+        this.videoPercent = videoPercent;
+        return this;
+    }
+
+    public PanStandInConfig rootPath(String rootPath) {
+        this.rootPath = rootPath;
+        return this;
+    }
+
+    public PanStandInConfig imageSize(int width, int height) {
+        this.imageWidth = width;
+        this.imageHeight = height;
+        return this;
+    }
+
+    /**
+     * 用真实视频文件作为所有视频的内容（可用于测量首帧），为空时返回合成字节
+     */
+    public PanStandInConfig sampleVideo(String path) {
+        this.sampleVideoPath = path;
+        return this;
+    }
+
+    /**
+     * API响应延迟
+     */
+    public PanStandInConfig latency(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = jitterMs;
+        return this;
+    }
+
+    /**
+     * 按概率返回errno错误（默认31034频控）
+     */
+    public PanStandInConfig errnoFaults(double rate, int errno) {
+        this.errnoFaultRate = rate;
+        this.faultErrno = errno;
+        return this;
+    }
+
+    /**
+     * 按概率返回HTTP 503
+     */
+    public PanStandInConfig httpFaults(double rate) {
+        this.httpFaultRate = rate;
+        return this;
+    }
+
+    /**
+     * 下载链接限速，0表示不限速
+     */
+    public PanStandInConfig dlinkBandwidth(long bytesPerSecond) {
+        this.dlinkBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * 设备码授权前返回authorization_pending的次数
+     */
+    public PanStandInConfig devicePendingPolls(int polls) {
+        this.devicePendingPolls = polls;
+        return this;
+    }
+}
@@ -0,0 +1,64 @@
+package com.baidu.gallery.car.debug.standin;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.BuildConfig;
+
+import java.io.IOException;
+
+/**
+ * 在Application.onCreate之前启动替身服务器
+ * 只有使用 -PpanStandInPort 构建时（BuildConfig.PAN_STAND_IN_PORT > 0）才会启动
+ */
+public class PanStandInInitializer extends ContentProvider {
+    private static final String TAG = "PanStandInInitializer";
+
+    @Override
+    public boolean onCreate() {
+        if (BuildConfig.PAN_STAND_IN_PORT > 0) {
+            try {
+                PanStandInServer.start(BuildConfig.PAN_STAND_IN_PORT, new PanStandInConfig());
+            } catch (IOException e) {
+                Log.e(TAG, "替身服务器启动失败", e);
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
+                        @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        return null;
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        return 0;
+    }
+}
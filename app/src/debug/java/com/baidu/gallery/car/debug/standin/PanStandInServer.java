@@ -0,0 +1,657 @@
+package com.baidu.gallery.car.debug.standin;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.net.Uri;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地网盘替身服务器（仅debug构建）
+ * 在127.0.0.1上模拟百度网盘的以下接口：
+ * - rest/2.0/xpan/file?method=list
+ * - rest/2.0/xpan/multimedia?method=listall / filemetas
+ * - rest/2.0/xpan/nas?method=uinfo
+ * - oauth/2.0/device/code、oauth/2.0/token
+ * - file/{fsId}：dlink下载，支持Range；thumb/{fsId}：缩略图
+ * 可注入延迟、errno错误和HTTP错误，用于在没有真实账号时测量遍历和播放性能
+ */
+public class PanStandInServer {
+    private static final String TAG = "PanStandInServer";
+
+    private static volatile PanStandInServer instance;
+
+    private final int port;
+    private volatile PanStandInConfig config;
+    private volatile SyntheticPanTree tree;
+    private volatile byte[][] imageVariants;
+    private volatile byte[] thumbBytes;
+    private final Random random = new Random();
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+    private final AtomicInteger devicePolls = new AtomicInteger();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong faultCount = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private ServerSocket serverSocket;
+
+    private PanStandInServer(int port, PanStandInConfig config) {
+        this.port = port;
+        applyConfig(config);
+    }
+
+    /**
+     * 启动（或返回已启动的）替身服务器
+     */
+    public static synchronized PanStandInServer start(int port, PanStandInConfig config) throws IOException {
+        if (instance == null) {
+            PanStandInServer server = new PanStandInServer(port, config);
+            server.listen();
+            instance = server;
+        }
+        return instance;
+    }
+
+    /**
+     * 获取已启动的服务器，未启动时返回null
+     */
+    public static PanStandInServer getInstance() {
+        return instance;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public SyntheticPanTree getTree() {
+        return tree;
+    }
+
+    /**
+     * 替换配置（目录树会按新配置重建），用于在两轮测量之间切换故障注入
+     */
+    public synchronized void applyConfig(PanStandInConfig newConfig) {
+        this.config = newConfig;
+        this.tree = new SyntheticPanTree(newConfig.rootPath, newConfig.treeDepth, newConfig.fanOut,
+                newConfig.filesPerDir, newConfig.imagePercent, newConfig.videoPercent);
+        this.imageVariants = null;
+        devicePolls.set(0);
+        Log.d(TAG, "配置已更新: 目录数=" + tree.getTotalDirs() + ", 文件数=" + tree.getTotalFiles());
+    }
+
+    /**
+     * 各接口的请求次数
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> snapshot = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : requestCounts.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        return snapshot;
+    }
+
+    public long getFaultCount() {
+        return faultCount.get();
+    }
+
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    public void resetStats() {
+        requestCounts.clear();
+        faultCount.set(0);
+        bytesServed.set(0);
+    }
+
+    private void listen() throws IOException {
+        serverSocket = new ServerSocket(port, 64, InetAddress.getByName("127.0.0.1"));
+        Thread acceptThread = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connectionExecutor.execute(() -> handleConnection(socket));
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) {
+                        Log.e(TAG, "accept失败", e);
+                    }
+                }
+            }
+        }, "PanStandInServer");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        Log.i(TAG, "替身服务器已启动: http://127.0.0.1:" + port + "/");
+    }
+
+    // ========== HTTP处理 ==========
+
+    /**
+     * 处理一个连接上的多个请求（HTTP/1.1 keep-alive）
+     */
+    private void handleConnection(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            while (true) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return;
+                }
+                Map<String, String> headers = new HashMap<>();
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US),
+                                line.substring(colon + 1).trim());
+                    }
+                }
+                String[] parts = requestLine.split(" ");
+                if (parts.length < 2) {
+                    return;
+                }
+                boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection"));
+                handleRequest(parts[0], Uri.parse(parts[1]), headers, out);
+                out.flush();
+                if (!keepAlive) {
+                    return;
+                }
+            }
+        } catch (SocketException e) {
+            // 客户端断开（例如播放器切换Range），忽略
+        } catch (IOException e) {
+            Log.w(TAG, "连接处理失败: " + e.getMessage());
+        }
+    }
+
+    private void handleRequest(String method, Uri uri, Map<String, String> headers, OutputStream out)
+            throws IOException {
+        String path = uri.getPath() != null ? uri.getPath() : "/";
+        String apiMethod = uri.getQueryParameter("method");
+        String endpoint = apiMethod != null ? path + "?method=" + apiMethod : path;
+        if (path.startsWith("/file/")) {
+            countRequest("/file");
+            serveFile(method, uri, headers, out);
+            return;
+        }
+        if (path.startsWith("/thumb/")) {
+            countRequest("/thumb");
+            serveThumb(out);
+            return;
+        }
+        countRequest(endpoint);
+
+        PanStandInConfig cfg = config;
+        injectLatency(cfg);
+        if (roll(cfg.httpFaultRate)) {
+            faultCount.incrementAndGet();
+            writeResponse(out, 503, "Service Unavailable", "application/json",
+                    "{\"error\":\"stand-in injected 503\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        try {
+            JSONObject body;
+            int status = 200;
+            if (path.endsWith("/oauth/2.0/device/code")) {
+                body = deviceCode();
+            } else if (path.endsWith("/oauth/2.0/token")) {
+                body = token(uri, cfg);
+                if (body.has("error")) {
+                    status = 400;
+                }
+            } else if (roll(cfg.errnoFaultRate)) {
+                faultCount.incrementAndGet();
+                body = new JSONObject().put("errno", cfg.faultErrno).put("request_id", System.nanoTime());
+            } else if (path.endsWith("/xpan/file") && "list".equals(apiMethod)) {
+                body = list(uri);
+            } else if (path.endsWith("/xpan/multimedia") && "listall".equals(apiMethod)) {
+                body = listAll(uri);
+            } else if (path.endsWith("/xpan/multimedia") && "filemetas".equals(apiMethod)) {
+                body = fileMetas(uri);
+            } else if (path.endsWith("/xpan/nas") && "uinfo".equals(apiMethod)) {
+                body = userInfo();
+            } else {
+                writeResponse(out, 404, "Not Found", "application/json",
+                        "{\"errno\":2}".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            writeResponse(out, status, status == 200 ? "OK" : "Bad Request", "application/json",
+                    body.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            writeResponse(out, 500, "Internal Server Error", "text/plain",
+                    e.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // ========== 网盘接口 ==========
+
+    private JSONObject list(Uri uri) throws JSONException {
+        SyntheticPanTree currentTree = tree;
+        long dirId = currentTree.dirIdOf(uri.getQueryParameter("dir"));
+        if (dirId < 0) {
+            return new JSONObject().put("errno", -9);
+        }
+        int start = intParam(uri, "start", 0);
+        int limit = Math.min(intParam(uri, "limit", 1000), 10000);
+        return listResponse(currentTree.list(dirId, start, limit), limit, false);
+    }
+
+    private JSONObject listAll(Uri uri) throws JSONException {
+        SyntheticPanTree currentTree = tree;
+        long dirId = currentTree.dirIdOf(uri.getQueryParameter("path"));
+        if (dirId < 0) {
+            return new JSONObject().put("errno", -9);
+        }
+        int start = intParam(uri, "start", 0);
+        int limit = Math.min(intParam(uri, "limit", 1000), 10000);
+        JSONObject response = listResponse(currentTree.listAll(dirId, start, limit), limit, false);
+        response.put("has_more", response.getJSONArray("list").length() == limit ? 1 : 0);
+        response.put("cursor", start + response.getJSONArray("list").length());
+        return response;
+    }
+
+    private JSONObject fileMetas(Uri uri) throws JSONException {
+        JSONArray fsIds = new JSONArray(uri.getQueryParameter("fsids"));
+        boolean withDlink = intParam(uri, "dlink", 0) == 1;
+        JSONArray list = new JSONArray();
+        for (int i = 0; i < fsIds.length(); i++) {
+            SyntheticPanTree.Node node = tree.findByFsId(fsIds.getLong(i));
+            if (node != null) {
+                list.put(nodeJson(node, withDlink));
+            }
+        }
+        if (list.length() == 0) {
+            return new JSONObject().put("errno", 31066);
+        }
+        return new JSONObject().put("errno", 0).put("list", list).put("request_id", System.nanoTime());
+    }
+
+    private JSONObject userInfo() throws JSONException {
+        return new JSONObject()
+                .put("errno", 0)
+                .put("errmsg", "succ")
+                .put("baidu_name", "standin")
+                .put("netdisk_name", "替身账号")
+                .put("avatar_url", "")
+                .put("vip_type", 2)
+                .put("uk", 1);
+    }
+
+    private JSONObject deviceCode() throws JSONException {
+        devicePolls.set(0);
+        return new JSONObject()
+                .put("device_code", "standin-device-code")
+                .put("user_code", "STANDIN")
+                .put("verification_url", "http://127.0.0.1:" + port + "/device")
+                .put("expires_in", 300)
+                .put("interval", 1);
+    }
+
+    private JSONObject token(Uri uri, PanStandInConfig cfg) throws JSONException {
+        if ("device_token".equals(uri.getQueryParameter("grant_type")) &&
+            devicePolls.incrementAndGet() <= cfg.devicePendingPolls) {
+            return new JSONObject()
+                    .put("error", "authorization_pending")
+                    .put("error_description", "User has not yet completed the authorization");
+        }
+        return new JSONObject()
+                .put("access_token", "standin-token-" + System.currentTimeMillis())
+                .put("refresh_token", "standin-refresh")
+                .put("expires_in", 2592000)
+                .put("scope", "basic netdisk");
+    }
+
+    private JSONObject listResponse(List<SyntheticPanTree.Node> nodes, int limit, boolean withDlink)
+            throws JSONException {
+        JSONArray list = new JSONArray();
+        for (SyntheticPanTree.Node node : nodes) {
+            list.put(nodeJson(node, withDlink));
+        }
+        return new JSONObject()
+                .put("errno", 0)
+                .put("guid_info", "")
+                .put("list", list)
+                .put("request_id", System.nanoTime())
+                .put("has_more", nodes.size() == limit ? 1 : 0);
+    }
+
+    private JSONObject nodeJson(SyntheticPanTree.Node node, boolean withDlink) throws JSONException {
+        long now = System.currentTimeMillis() / 1000;
+        JSONObject json = new JSONObject()
+                .put("fs_id", node.fsId)
+                .put("path", node.path)
+                .put("server_filename", node.name)
+                .put("size", node.isDir ? 0 : sizeOf(node))
+                .put("server_mtime", now)
+                .put("server_ctime", now)
+                .put("local_mtime", now)
+                .put("local_ctime", now)
+                .put("isdir", node.isDir ? 1 : 0)
+                .put("category", node.category);
+        if (node.isDir) {
+            json.put("dir_empty", 0);
+            return json;
+        }
+        json.put("md5", node.md5());
+        if (node.category == SyntheticPanTree.CATEGORY_IMAGE || node.category == SyntheticPanTree.CATEGORY_VIDEO) {
+            String thumb = "http://127.0.0.1:" + port + "/thumb/" + node.fsId;
+            json.put("thumbs", new JSONObject()
+                    .put("icon", thumb + "?size=c60_u60")
+                    .put("url1", thumb + "?size=c140_u90")
+                    .put("url2", thumb + "?size=c360_u270")
+                    .put("url3", thumb + "?size=c850_u580"));
+        }
+        if (withDlink) {
+            json.put("dlink", "http://127.0.0.1:" + port + "/file/" + node.fsId);
+        }
+        return json;
+    }
+
+    // ========== 文件下载 ==========
+
+    private long sizeOf(SyntheticPanTree.Node node) {
+        switch (node.category) {
+            case SyntheticPanTree.CATEGORY_IMAGE:
+                return imageBytes(node.fsId).length;
+            case SyntheticPanTree.CATEGORY_VIDEO:
+                File sample = sampleVideo();
+                return sample != null ? sample.length() : config.syntheticVideoSize;
+            default:
+                return node.size;
+        }
+    }
+
+    private File sampleVideo() {
+        String samplePath = config.sampleVideoPath;
+        if (samplePath == null) {
+            return null;
+        }
+        File file = new File(samplePath);
+        return file.isFile() ? file : null;
+    }
+
+    private void serveFile(String method, Uri uri, Map<String, String> headers, OutputStream out)
+            throws IOException {
+        long fsId;
+        try {
+            fsId = Long.parseLong(uri.getLastPathSegment());
+        } catch (NumberFormatException e) {
+            writeResponse(out, 404, "Not Found", "text/plain", new byte[0]);
+            return;
+        }
+        SyntheticPanTree.Node node = tree.findByFsId(fsId);
+        if (node == null || node.isDir) {
+            writeResponse(out, 404, "Not Found", "text/plain", new byte[0]);
+            return;
+        }
+
+        long total = sizeOf(node);
+        long start = 0;
+        long end = total - 1;
+        boolean partial = false;
+        String range = headers.get("range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring(6).split("-", -1);
+            try {
+                if (!bounds[0].isEmpty()) {
+                    start = Long.parseLong(bounds[0]);
+                    if (bounds.length > 1 && !bounds[1].isEmpty()) {
+                        end = Math.min(Long.parseLong(bounds[1]), total - 1);
+                    }
+                } else if (bounds.length > 1 && !bounds[1].isEmpty()) {
+                    // bytes=-N 表示最后N字节
+                    start = Math.max(0, total - Long.parseLong(bounds[1]));
+                }
+            } catch (NumberFormatException e) {
+                start = total;
+            }
+            if (start >= total || start > end) {
+                String header = "HTTP/1.1 416 Range Not Satisfiable\r\n" +
+                        "Content-Range: bytes */" + total + "\r\n" +
+                        "Content-Length: 0\r\n\r\n";
+                out.write(header.getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            partial = true;
+        }
+
+        long length = end - start + 1;
+        StringBuilder header = new StringBuilder();
+        header.append(partial ? "HTTP/1.1 206 Partial Content\r\n" : "HTTP/1.1 200 OK\r\n");
+        header.append("Content-Type: ").append(mimeOf(node)).append("\r\n");
+        header.append("Accept-Ranges: bytes\r\n");
+        header.append("Content-Length: ").append(length).append("\r\n");
+        if (partial) {
+            header.append("Content-Range: bytes ").append(start).append('-').append(end)
+                  .append('/').append(total).append("\r\n");
+        }
+        header.append("\r\n");
+        out.write(header.toString().getBytes(StandardCharsets.US_ASCII));
+        if ("HEAD".equals(method)) {
+            return;
+        }
+
+        if (node.category == SyntheticPanTree.CATEGORY_IMAGE) {
+            writeThrottled(out, imageBytes(fsId), (int) start, (int) length);
+        } else if (node.category == SyntheticPanTree.CATEGORY_VIDEO && sampleVideo() != null) {
+            writeFileRange(out, sampleVideo(), start, length);
+        } else {
+            writeSyntheticRange(out, fsId, start, length);
+        }
+    }
+
+    private void serveThumb(OutputStream out) throws IOException {
+        byte[] thumb = thumbBytes;
+        if (thumb == null) {
+            thumb = imageVariant(0, 320, 180);
+            thumbBytes = thumb;
+        }
+        writeResponse(out, 200, "OK", "image/jpeg", thumb);
+    }
+
+    private String mimeOf(SyntheticPanTree.Node node) {
+        switch (node.category) {
+            case SyntheticPanTree.CATEGORY_IMAGE:
+                return "image/jpeg";
+            case SyntheticPanTree.CATEGORY_VIDEO:
+                return "video/mp4";
+            default:
+                return "application/octet-stream";
+        }
+    }
+
+    private void writeSyntheticRange(OutputStream out, long fsId, long start, long length) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long offset = start;
+        long remaining = length;
+        while (remaining > 0) {
+            int chunk = (int) Math.min(buffer.length, remaining);
+            for (int i = 0; i < chunk; i++) {
+                buffer[i] = (byte) ((offset + i) * 31 + fsId);
+            }
+            writeThrottled(out, buffer, 0, chunk);
+            offset += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    private void writeFileRange(OutputStream out, File file, long start, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(start);
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = raf.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                writeThrottled(out, buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * 按配置的带宽限速写出
+     */
+    private void writeThrottled(OutputStream out, byte[] data, int offset, int length) throws IOException {
+        long bytesPerSecond = config.dlinkBytesPerSecond;
+        int position = offset;
+        int end = offset + length;
+        while (position < end) {
+            int chunk = bytesPerSecond > 0 ? (int) Math.min(end - position, Math.max(1024, bytesPerSecond / 20)) : end - position;
+            out.write(data, position, chunk);
+            bytesServed.addAndGet(chunk);
+            position += chunk;
+            if (bytesPerSecond > 0) {
+                sleepQuietly(chunk * 1000L / bytesPerSecond);
+            }
+        }
+    }
+
+    // ========== 合成图片 ==========
+
+    private byte[] imageBytes(long fsId) {
+        byte[][] variants = imageVariants;
+        if (variants == null) {
+            synchronized (this) {
+                if (imageVariants == null) {
+                    byte[][] generated = new byte[8][];
+                    for (int i = 0; i < generated.length; i++) {
+                        generated[i] = imageVariant(i, config.imageWidth, config.imageHeight);
+                    }
+                    imageVariants = generated;
+                }
+                variants = imageVariants;
+            }
+        }
+        return variants[(int) (fsId % variants.length)];
+    }
+
+    /**
+     * 生成一张带渐变和编号的JPEG，保证解码和取色有真实的工作量
+     */
+    private static byte[] imageVariant(int index, int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        float hue = index * 45f;
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        for (int y = 0; y < height; y += 8) {
+            paint.setColor(Color.HSVToColor(new float[]{(hue + y * 60f / height) % 360, 0.6f, 0.4f + 0.5f * y / height}));
+            canvas.drawRect(0, y, width, y + 8, paint);
+        }
+        paint.setColor(Color.WHITE);
+        paint.setTextSize(height / 6f);
+        canvas.drawText("STAND-IN " + index, width / 10f, height / 2f, paint);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, 85, stream);
+        bitmap.recycle();
+        return stream.toByteArray();
+    }
+
+    // ========== 工具方法 ==========
+
+    private void countRequest(String endpoint) {
+        AtomicLong counter = requestCounts.get(endpoint);
+        if (counter == null) {
+            requestCounts.putIfAbsent(endpoint, new AtomicLong());
+            counter = requestCounts.get(endpoint);
+        }
+        counter.incrementAndGet();
+    }
+
+    private void injectLatency(PanStandInConfig cfg) {
+        long delay = cfg.latencyMs;
+        if (cfg.latencyJitterMs > 0) {
+            synchronized (random) {
+                delay += (long) (random.nextDouble() * cfg.latencyJitterMs);
+            }
+        }
+        if (delay > 0) {
+            sleepQuietly(delay);
+        }
+    }
+
+    private boolean roll(double rate) {
+        if (rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    private static int intParam(Uri uri, String name, int defaultValue) {
+        String value = uri.getQueryParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeResponse(OutputStream out, int code, String reason, String contentType, byte[] body)
+            throws IOException {
+        String header = "HTTP/1.1 " + code + " " + reason + "\r\n" +
+                "Content-Type: " + contentType + "\r\n" +
+                "Content-Length: " + body.length + "\r\n\r\n";
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = builder.length();
+                if (length > 0 && builder.charAt(length - 1) == '\r') {
+                    builder.setLength(length - 1);
+                }
+                return builder.toString();
+            }
+            builder.append((char) c);
+        }
+        return builder.length() > 0 ? builder.toString() : null;
+    }
+}
@@ -0,0 +1,409 @@
+package com.baidu.gallery.car.debug.standin;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.effects.ImageEffectFactory;
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.ImageEffect;
+import com.baidu.gallery.car.network.RequestPriority;
+import com.baidu.gallery.car.repository.FileRepository;
+import com.baidu.gallery.car.ui.playback.PlaybackActivity;
+import com.baidu.gallery.car.utils.BackgroundCache;
+import com.baidu.gallery.car.utils.FrameTimeStats;
+import com.baidu.gallery.car.utils.ImageBackgroundUtils.BackgroundMode;
+import com.baidu.gallery.car.utils.PlaylistCache;
+import com.baidu.gallery.car.utils.PreferenceUtils;
+import com.bumptech.glide.Glide;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 幻灯片帧耗时基准
+ * 用替身服务器生成的图片作为固定素材，对每种 特效 × 背景模式（Android 13及以上再分GPU/View两种特效实现）
+ * 启动一次真实的PlaybackActivity按脚本播放，测量：
+ * 1. 帧耗时：第一张图显示之后整段播放期间的所有帧（切换动画、背景提取和模糊、图片上屏），平均值、P50/P95/P99、最大值
+ * 2. 掉帧比例：超过一个刷新周期的帧占比，与FrameTimeStats的达标线一致
+ * 3. 内存峰值：播放期间定时采样的总PSS、Java堆、Native堆、图形内存的最大值
+ * 每一轮之前清空Glide内存缓存和背景缓存，保证各组合都从解码开始；结束后恢复原来的设置。
+ * 必须在后台线程调用run()
+ */
+public class SlideshowBenchmark {
+    private static final String TAG = "SlideshowBenchmark";
+
+    // 替身服务器接受任意token
+    private static final String STAND_IN_TOKEN = "standin-token";
+    private static final long STEP_TIMEOUT_SECONDS = 30;
+    // 内存采样间隔（读取smaps有一定开销，不宜太密）
+    private static final long MEMORY_SAMPLE_INTERVAL_MS = 500;
+    // Activity结束后等待最后几帧的回调
+    private static final long FRAME_METRICS_DRAIN_MS = 300;
+
+    private final Context context;
+    private final PanStandInServer server;
+    private final int slides;
+    private final int displayMs;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final List<ImageEffect> effects;
+    private final List<BackgroundMode> modes;
+    private final boolean compareGpu;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 当前一轮的播放界面
+    private volatile Activity playbackActivity;
+    private volatile CountDownLatch resumedLatch;
+    private volatile CountDownLatch destroyedLatch;
+
+    /**
+     * @param slides 每轮播放的图片数（第一张作为预热不计入）
+     * @param displayMs 每张图片的展示时长
+     * @param effects 参与测量的特效，为空时测量除RANDOM外的全部特效
+     * @param modes 参与测量的背景模式，为空时测量全部
+     * @param compareGpu 支持着色器特效时是否GPU和View两种实现都测
+     */
+    public SlideshowBenchmark(Context context, PanStandInServer server, int slides, int displayMs,
+                              int imageWidth, int imageHeight, @Nullable List<ImageEffect> effects,
+                              @Nullable List<BackgroundMode> modes, boolean compareGpu) {
+        this.context = context.getApplicationContext();
+        this.server = server;
+        this.slides = Math.max(2, slides);
+        this.displayMs = Math.max(1000, displayMs);
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.effects = effects != null && !effects.isEmpty() ? effects : allEffects();
+        this.modes = modes != null && !modes.isEmpty() ? modes : allModes();
+        this.compareGpu = compareGpu;
+    }
+
+    /**
+     * 依次测量所有组合，结果写入日志和 files/slideshow_benchmark_report.json
+     */
+    public JSONObject run() throws JSONException, InterruptedException {
+        JSONObject report = new JSONObject()
+                .put("device", Build.MANUFACTURER + " " + Build.MODEL)
+                .put("sdk", Build.VERSION.SDK_INT)
+                .put("slides", slides)
+                .put("displayMs", displayMs)
+                .put("imageSize", imageWidth + "x" + imageHeight);
+
+        ArrayList<FileInfo> fixtures = prepareFixtures();
+        if (fixtures.size() < slides) {
+            report.put("skipped", "素材准备失败，只拿到 " + fixtures.size() + " 张图片");
+            Log.e(TAG, "基准结果: " + report.toString(2));
+            writeReport(report);
+            return report;
+        }
+
+        List<Boolean> gpuSettings = new ArrayList<>();
+        if (ImageEffectFactory.isShaderEffectSupported()) {
+            gpuSettings.add(true);
+            if (compareGpu) {
+                gpuSettings.add(false);
+            }
+        } else {
+            gpuSettings.add(false);
+        }
+
+        int savedEffect = PreferenceUtils.getImageEffect(context);
+        int savedMode = PreferenceUtils.getBackgroundMode(context);
+        int savedDisplay = PreferenceUtils.getImageDisplayDuration(context);
+        boolean savedGpu = PreferenceUtils.getGpuEffectsEnabled(context);
+        Application application = (Application) context;
+        Application.ActivityLifecycleCallbacks callbacks = new PlaybackTracker();
+        application.registerActivityLifecycleCallbacks(callbacks);
+
+        JSONArray runs = new JSONArray();
+        try {
+            for (boolean gpu : gpuSettings) {
+                for (BackgroundMode mode : modes) {
+                    for (ImageEffect effect : effects) {
+                        JSONObject run = measure(fixtures, effect, mode, gpu);
+                        Log.i(TAG, "单轮结果: " + run);
+                        runs.put(run);
+                    }
+                }
+            }
+        } finally {
+            application.unregisterActivityLifecycleCallbacks(callbacks);
+            PreferenceUtils.saveImageEffect(context, savedEffect);
+            PreferenceUtils.saveBackgroundMode(context, savedMode);
+            PreferenceUtils.saveImageDisplayDuration(context, savedDisplay);
+            PreferenceUtils.saveGpuEffectsEnabled(context, savedGpu);
+        }
+        report.put("runs", runs);
+
+        Log.i(TAG, "基准结果: " + report.toString(2));
+        writeReport(report);
+        return report;
+    }
+
+    // ========== 素材 ==========
+
+    /**
+     * 替身服务器生成一个只有图片的目录，逐个获取带dlink和缩略图的文件详情（与正常播放一样走FileRepository）
+     */
+    private ArrayList<FileInfo> prepareFixtures() throws InterruptedException {
+        server.applyConfig(new PanStandInConfig()
+                .tree(0, 1, slides)
+                .mediaMix(100, 0)
+                .imageSize(imageWidth, imageHeight));
+        SyntheticPanTree tree = server.getTree();
+
+        ArrayList<FileInfo> files = new ArrayList<>();
+        for (SyntheticPanTree.Node node : tree.list(0, 0, slides)) {
+            if (node.isDir || node.category != SyntheticPanTree.CATEGORY_IMAGE) {
+                continue;
+            }
+            CountDownLatch latch = new CountDownLatch(1);
+            AtomicReference<FileInfo> detail = new AtomicReference<>();
+            FileRepository.getInstance().fetchFileDetail(STAND_IN_TOKEN, node.fsId, RequestPriority.FOREGROUND,
+                    new FileRepository.FileDetailCallback() {
+                        @Override
+                        public void onSuccess(FileInfo fileInfo) {
+                            detail.set(fileInfo);
+                            latch.countDown();
+                        }
+
+                        @Override
+                        public void onFailure(String error) {
+                            Log.w(TAG, "获取素材详情失败: " + node.path + ", " + error);
+                            latch.countDown();
+                        }
+                    });
+            latch.await(STEP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (detail.get() != null && detail.get().getDlink() != null) {
+                files.add(detail.get());
+            }
+        }
+        return files;
+    }
+
+    // ========== 单轮测量 ==========
+
+    private JSONObject measure(ArrayList<FileInfo> fixtures, ImageEffect effect, BackgroundMode mode, boolean gpu)
+            throws JSONException, InterruptedException {
+        String label = String.format(Locale.US, "基准:%s/%s/%s", effect.name(), mode.name(), gpu ? "GPU" : "View");
+        JSONObject run = new JSONObject()
+                .put("effect", effect.name())
+                .put("background", mode.name())
+                .put("renderer", gpu ? "GPU" : "View");
+
+        PreferenceUtils.saveImageEffect(context, effect.getValue());
+        PreferenceUtils.saveBackgroundMode(context, mode.getValue());
+        PreferenceUtils.saveImageDisplayDuration(context, displayMs);
+        PreferenceUtils.saveGpuEffectsEnabled(context, gpu);
+
+        // 每轮都从解码和背景处理开始
+        runOnMain(() -> Glide.get(context).clearMemory());
+        BackgroundCache.getInstance().clear();
+        Runtime.getRuntime().gc();
+        server.resetStats();
+        // 同一组合重复运行时只统计本轮的帧
+        FrameTimeStats.getInstance().reset(label);
+
+        resumedLatch = new CountDownLatch(1);
+        destroyedLatch = new CountDownLatch(1);
+        String playlistId = UUID.randomUUID().toString();
+        PlaylistCache.getInstance().put(playlistId, fixtures);
+        Intent intent = new Intent(context, PlaybackActivity.class)
+                .putExtra("playlistId", playlistId)
+                .putExtra("startIndex", 0)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        context.startActivity(intent);
+
+        if (!resumedLatch.await(STEP_TIMEOUT_SECONDS, TimeUnit.SECONDS) || playbackActivity == null) {
+            PlaylistCache.getInstance().getAndRemove(playlistId);
+            return run.put("skipped", "播放界面未启动");
+        }
+        Activity activity = playbackActivity;
+
+        // 第一张图的加载和首次上屏作为预热，不计入
+        Thread.sleep(displayMs);
+        AtomicReference<FrameTimeStats.Session> session = new AtomicReference<>();
+        runOnMain(() -> session.set(FrameTimeStats.getInstance().start(label, activity.getWindow(),
+                activity.getWindowManager().getDefaultDisplay().getRefreshRate())));
+
+        MemoryPeak peak = new MemoryPeak();
+        long end = SystemClock.uptimeMillis() + (long) (slides - 1) * displayMs;
+        while (SystemClock.uptimeMillis() < end) {
+            peak.sample();
+            Thread.sleep(Math.min(MEMORY_SAMPLE_INTERVAL_MS, Math.max(1, end - SystemClock.uptimeMillis())));
+        }
+        peak.sample();
+
+        runOnMain(() -> {
+            if (session.get() != null) {
+                session.get().finish();
+            }
+            activity.finish();
+        });
+        destroyedLatch.await(STEP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Thread.sleep(FRAME_METRICS_DRAIN_MS);
+
+        FrameTimeStats.Result result = FrameTimeStats.getInstance().getResult(label);
+        if (result == null) {
+            run.put("frames", 0);
+        } else {
+            run.put("frames", result.frames)
+                    .put("jankFrames", result.jankFrames)
+                    .put("jankPercent", result.getJankRatio() * 100.0)
+                    .put("meetsBudget", result.meetsBudget())
+                    .put("budgetMs", result.budgetMs)
+                    .put("avgMs", result.averageMs)
+                    .put("p50Ms", result.p50Ms)
+                    .put("p95Ms", result.p95Ms)
+                    .put("p99Ms", result.p99Ms)
+                    .put("maxMs", result.maxMs)
+                    .put("droppedReports", result.droppedReports);
+        }
+        return run.put("peakPssKb", peak.totalPssKb)
+                .put("peakJavaHeapKb", peak.javaHeapKb)
+                .put("peakNativeHeapKb", peak.nativeHeapKb)
+                .put("peakGraphicsKb", peak.graphicsKb)
+                .put("bytesServed", server.getBytesServed());
+    }
+
+    /**
+     * 播放期间各项内存的最大值（KB）
+     */
+    private static final class MemoryPeak {
+        int totalPssKb;
+        int javaHeapKb;
+        int nativeHeapKb;
+        int graphicsKb;
+
+        void sample() {
+            Debug.MemoryInfo info = new Debug.MemoryInfo();
+            Debug.getMemoryInfo(info);
+            totalPssKb = Math.max(totalPssKb, info.getTotalPss());
+            javaHeapKb = Math.max(javaHeapKb, stat(info, "summary.java-heap"));
+            nativeHeapKb = Math.max(nativeHeapKb, stat(info, "summary.native-heap"));
+            graphicsKb = Math.max(graphicsKb, stat(info, "summary.graphics"));
+        }
+
+        private static int stat(Debug.MemoryInfo info, String name) {
+            String value = info.getMemoryStat(name);
+            if (value == null) {
+                return 0;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    // ========== 辅助 ==========
+
+    /**
+     * 记录基准启动的播放界面
+     */
+    private final class PlaybackTracker implements Application.ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+            if (activity instanceof PlaybackActivity && resumedLatch != null) {
+                playbackActivity = activity;
+                resumedLatch.countDown();
+            }
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+            if (activity == playbackActivity) {
+                playbackActivity = null;
+                if (destroyedLatch != null) {
+                    destroyedLatch.countDown();
+                }
+            }
+        }
+    }
+
+    private void runOnMain(Runnable runnable) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        mainHandler.post(() -> {
+            try {
+                runnable.run();
+            } finally {
+                latch.countDown();
+            }
+        });
+        latch.await(STEP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static List<ImageEffect> allEffects() {
+        List<ImageEffect> effects = new ArrayList<>();
+        for (ImageEffect effect : ImageEffect.values()) {
+            // 随机特效每张图不同，各组合之间无法比较
+            if (effect != ImageEffect.RANDOM) {
+                effects.add(effect);
+            }
+        }
+        return effects;
+    }
+
+    private static List<BackgroundMode> allModes() {
+        List<BackgroundMode> modes = new ArrayList<>();
+        for (BackgroundMode mode : BackgroundMode.values()) {
+            modes.add(mode);
+        }
+        return modes;
+    }
+
+    private void writeReport(JSONObject report) {
+        File file = new File(context.getFilesDir(), "slideshow_benchmark_report.json");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(report.toString(2).getBytes(StandardCharsets.UTF_8));
+            Log.i(TAG, "基准报告已写入: " + file.getAbsolutePath());
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "写入基准报告失败", e);
+        }
+    }
+}
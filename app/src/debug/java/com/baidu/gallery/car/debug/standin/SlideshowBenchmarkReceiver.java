@@ -0,0 +1,80 @@
+package com.baidu.gallery.car.debug.standin;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.baidu.gallery.car.model.ImageEffect;
+import com.baidu.gallery.car.utils.ImageBackgroundUtils.BackgroundMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 通过adb触发幻灯片帧耗时基准（接收器要求DUMP权限，只有adb shell可以发送）：
+ * adb shell am broadcast -a com.baidu.gallery.car.debug.RUN_SLIDESHOW_BENCHMARK \
+ *     --ei slides 6 --ei display_ms 3000 --ei image_width 4000 --ei image_height 3000 \
+ *     --es effects FADE,BLINDS --es backgrounds BLACK,BLURRED --ez compare_gpu true
+ * effects/backgrounds 为空时测量全部组合（RANDOM除外）；运行期间不要操作车机屏幕
+ * 结果见logcat（TAG: SlideshowBenchmark）和应用私有目录下的 slideshow_benchmark_report.json
+ */
+public class SlideshowBenchmarkReceiver extends BroadcastReceiver {
+    private static final String TAG = "SlideshowBenchmarkRcv";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        PanStandInServer server = PanStandInServer.getInstance();
+        if (server == null) {
+            Log.e(TAG, "替身服务器未启动，请使用 -PpanStandInPort=<端口> 构建debug包");
+            return;
+        }
+
+        List<ImageEffect> effects = new ArrayList<>();
+        for (String name : split(intent.getStringExtra("effects"))) {
+            try {
+                effects.add(ImageEffect.valueOf(name));
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "忽略未知特效: " + name);
+            }
+        }
+        List<BackgroundMode> modes = new ArrayList<>();
+        for (String name : split(intent.getStringExtra("backgrounds"))) {
+            try {
+                modes.add(BackgroundMode.valueOf(name));
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "忽略未知背景模式: " + name);
+            }
+        }
+
+        SlideshowBenchmark benchmark = new SlideshowBenchmark(context.getApplicationContext(), server,
+                intent.getIntExtra("slides", 6),
+                intent.getIntExtra("display_ms", 3000),
+                intent.getIntExtra("image_width", 4000),
+                intent.getIntExtra("image_height", 3000),
+                effects, modes,
+                intent.getBooleanExtra("compare_gpu", true));
+        new Thread(() -> {
+            try {
+                benchmark.run();
+            } catch (Exception e) {
+                Log.e(TAG, "基准执行失败", e);
+            }
+        }, "SlideshowBenchmark").start();
+    }
+
+    private static List<String> split(String value) {
+        List<String> result = new ArrayList<>();
+        if (value == null) {
+            return result;
+        }
+        for (String part : value.split(",")) {
+            String trimmed = part.trim().toUpperCase(Locale.US);
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,288 @@
+package com.baidu.gallery.car.debug.standin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 合成的网盘目录树
+ * 不在内存中展开整棵树：目录按满fanOut树编号（根为0，目录d的第i个子目录为 d*fanOut+1+i），
+ * 文件fsId由所在目录编号和序号推算，因此10万级以上的文件也只占常数内存
+ */
+public class SyntheticPanTree {
+
+    // 百度网盘category：1视频 3图片 4文档
+    public static final int CATEGORY_VIDEO = 1;
+    public static final int CATEGORY_IMAGE = 3;
+    public static final int CATEGORY_DOC = 4;
+
+    // 文件fsId = (目录编号+1) * FILE_STRIDE + 文件序号；目录fsId = 目录编号+1
+    private static final long FILE_STRIDE = 100000L;
+
+    private final String rootPath;
+    private final int depth;
+    private final int fanOut;
+    private final int filesPerDir;
+    private final int imagePercent;
+    private final int videoPercent;
+    private final long totalDirs;
+
+    /**
+     * 单个节点（目录或文件）
+     */
+    public static class Node {
+        public final long fsId;
+        public final String path;
+        public final String name;
+        public final boolean isDir;
+        public final int category;
+        public final long size;
+
+        Node(long fsId, String path, String name, boolean isDir, int category, long size) {
+            this.fsId = fsId;
+            this.path = path;
+            this.name = name;
+            this.isDir = isDir;
+            this.category = category;
+            this.size = size;
+        }
+
+        public String md5() {
+            return String.format(Locale.US, "%016x%016x", fsId * 0x9E3779B97F4A7C15L, fsId ^ 0xC2B2AE3D27D4EB4FL);
+        }
+    }
+
+    /**
+     * @param rootPath 树的根路径，例如 "/standin"
+     * @param depth 目录层数（根目录下还有几层子目录）
+     * @param fanOut 每个目录的子目录数
+     * @param filesPerDir 每个目录的文件数
+     * @param imagePercent 图片占比（0-100）
+     * @param videoPercent 视频占比（0-100），剩余为文档
+     */
+    public SyntheticPanTree(String rootPath, int depth, int fanOut, int filesPerDir,
+                            int imagePercent, int videoPercent) {
+        if (filesPerDir >= FILE_STRIDE) {
+            throw new IllegalArgumentException("filesPerDir 必须小于 " + FILE_STRIDE);
+        }
+        this.rootPath = rootPath;
+        this.depth = depth;
+        this.fanOut = fanOut;
+        this.filesPerDir = filesPerDir;
+        this.imagePercent = imagePercent;
+        this.videoPercent = videoPercent;
+
+        long dirs = 0;
+        long levelCount = 1;
+        for (int level = 0; level <= depth; level++) {
+            dirs += levelCount;
+            levelCount *= fanOut;
+        }
+        if (dirs >= FILE_STRIDE) {
+            throw new IllegalArgumentException("目录总数必须小于 " + FILE_STRIDE);
+        }
+        this.totalDirs = dirs;
+    }
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    public long getTotalDirs() {
+        return totalDirs;
+    }
+
+    public long getTotalFiles() {
+        return totalDirs * filesPerDir;
+    }
+
+    /**
+     * 路径转目录编号，不存在时返回-1
+     */
+    public long dirIdOf(String path) {
+        if (path == null) {
+            return -1;
+        }
+        if (path.endsWith("/") && path.length() > 1) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.equals(rootPath) || (path.equals("/") && rootPath.equals("/"))) {
+            return 0;
+        }
+        String prefix = rootPath.equals("/") ? "/" : rootPath + "/";
+        if (!path.startsWith(prefix)) {
+            return -1;
+        }
+        String[] segments = path.substring(prefix.length()).split("/");
+        if (segments.length > depth) {
+            return -1;
+        }
+        long dirId = 0;
+        for (String segment : segments) {
+            if (!segment.startsWith("dir_")) {
+                return -1;
+            }
+            int index;
+            try {
+                index = Integer.parseInt(segment.substring(4));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+            if (index < 0 || index >= fanOut) {
+                return -1;
+            }
+            dirId = dirId * fanOut + 1 + index;
+        }
+        return dirId;
+    }
+
+    /**
+     * 目录编号转路径
+     */
+    public String pathOf(long dirId) {
+        if (dirId == 0) {
+            return rootPath;
+        }
+        StringBuilder builder = new StringBuilder();
+        long current = dirId;
+        while (current > 0) {
+            long index = (current - 1) % fanOut;
+            builder.insert(0, "/dir_" + index);
+            current = (current - 1) / fanOut;
+        }
+        return rootPath.equals("/") ? builder.toString() : rootPath + builder;
+    }
+
+    private int levelOf(long dirId) {
+        int level = 0;
+        while (dirId > 0) {
+            dirId = (dirId - 1) / fanOut;
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * 某个目录下的直接子项数量（子目录 + 文件）
+     */
+    public int childCount(long dirId) {
+        return subDirCount(dirId) + filesPerDir;
+    }
+
+    private int subDirCount(long dirId) {
+        return levelOf(dirId) < depth ? fanOut : 0;
+    }
+
+    /**
+     * 目录下第index个直接子项，子目录在前、文件在后（与按名称排序的结果一致）
+     */
+    public Node child(long dirId, int index) {
+        int subDirs = subDirCount(dirId);
+        String parentPath = pathOf(dirId);
+        String separator = parentPath.equals("/") ? "" : "/";
+        if (index < subDirs) {
+            long childId = dirId * fanOut + 1 + index;
+            String name = "dir_" + index;
+            return new Node(childId + 1, parentPath + separator + name, name, true, 6, 0);
+        }
+        int fileIndex = index - subDirs;
+        long fsId = (dirId + 1) * FILE_STRIDE + fileIndex;
+        int category = categoryOf(fsId);
+        String name;
+        long size;
+        switch (category) {
+            case CATEGORY_IMAGE:
+                name = String.format(Locale.US, "IMG_%05d.jpg", fileIndex);
+                size = 0; // 由服务器按实际生成的图片字节数填充
+                break;
+            case CATEGORY_VIDEO:
+                name = String.format(Locale.US, "VID_%05d.mp4", fileIndex);
+                size = 0;
+                break;
+            default:
+                name = String.format(Locale.US, "DOC_%05d.pdf", fileIndex);
+                size = 64 * 1024 + (fsId % 1024) * 1024;
+                break;
+        }
+        return new Node(fsId, parentPath + separator + name, name, false, category, size);
+    }
+
+    /**
+     * 根据fsId查找文件或目录，不存在时返回null
+     */
+    public Node findByFsId(long fsId) {
+        if (fsId <= 0) {
+            return null;
+        }
+        if (fsId < FILE_STRIDE) {
+            long dirId = fsId - 1;
+            if (dirId >= totalDirs) {
+                return null;
+            }
+            String path = pathOf(dirId);
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            return new Node(fsId, path, name, true, 6, 0);
+        }
+        long dirId = fsId / FILE_STRIDE - 1;
+        int fileIndex = (int) (fsId % FILE_STRIDE);
+        if (dirId >= totalDirs || fileIndex >= filesPerDir) {
+            return null;
+        }
+        return child(dirId, subDirCount(dirId) + fileIndex);
+    }
+
+    /**
+     * 列出目录下[start, start+limit)范围的直接子项
+     */
+    public List<Node> list(long dirId, int start, int limit) {
+        List<Node> result = new ArrayList<>();
+        int count = childCount(dirId);
+        for (int i = Math.max(0, start); i < count && result.size() < limit; i++) {
+            result.add(child(dirId, i));
+        }
+        return result;
+    }
+
+    /**
+     * 深度优先列出子树下所有节点中[start, start+limit)范围的部分（对应listall）
+     * @return 结果列表；调用方根据返回数量是否等于limit判断has_more
+     */
+    public List<Node> listAll(long dirId, int start, int limit) {
+        List<Node> result = new ArrayList<>();
+        int[] skipped = {0};
+        walk(dirId, start, limit, skipped, result);
+        return result;
+    }
+
+    private boolean walk(long dirId, int start, int limit, int[] skipped, List<Node> result) {
+        int count = childCount(dirId);
+        for (int i = 0; i < count; i++) {
+            Node node = child(dirId, i);
+            if (skipped[0] < start) {
+                skipped[0]++;
+            } else {
+                result.add(node);
+                if (result.size() >= limit) {
+                    return true;
+                }
+            }
+            if (node.isDir && walk(node.fsId - 1, start, limit, skipped, result)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int categoryOf(long fsId) {
+        // 确定性的伪随机，保证同一个fsId每次得到相同类型
+        long mixed = (fsId * 2654435761L) ^ (fsId >>> 7);
+        int bucket = (int) Math.floorMod(mixed, 100L);
+        if (bucket < imagePercent) {
+            return CATEGORY_IMAGE;
+        }
+        if (bucket < imagePercent + videoPercent) {
+            return CATEGORY_VIDEO;
+        }
+        return CATEGORY_DOC;
+    }
+}
@@ -2,6 +2,8 @@ package com.baidu.gallery.car;
 
 import android.app.Application;
 import com.baidu.gallery.car.database.AppDatabase;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
+import com.baidu.gallery.car.player.MediaCache;
 
 /**
  * 车载应用主Application类
@@ -18,6 +20,12 @@ public class CarGalleryApplication extends Application {
         
         // 初始化数据库
         database = AppDatabase.getInstance(this);
+        
+        // 监听网络切换，网络质量估计随之重置
+        NetworkQualityEstimator.getInstance().init(this);
+        
+        // 视频磁盘缓存在后台扫描索引，首次播放时不阻塞主线程
+        MediaCache.warmUp(this);
     }
     
     public static CarGalleryApplication getInstance() {
@@ -11,7 +11,8 @@ import android.widget.ImageView;
  */
 public class BlackBackgroundStrategy implements ImageBackgroundStrategy {
     @Override
-    public void applyBackground(Activity activity, ImageView ivBackground, String imageUrl, Drawable imageDrawable) {
+    public void applyBackground(Activity activity, ImageView ivBackground, String imageKey, Drawable imageDrawable) {
+        ivBackground.setTag(imageKey);
         ivBackground.setBackgroundColor(Color.BLACK);
         ivBackground.setImageBitmap(null);
         ivBackground.setVisibility(View.VISIBLE);
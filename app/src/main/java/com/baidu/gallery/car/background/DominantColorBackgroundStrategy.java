@@ -1,9 +1,7 @@
 package com.baidu.gallery.car.background;
 
 import android.app.Activity;
-import android.graphics.Color;
 import android.graphics.drawable.Drawable;
-import android.util.Log;
 import android.view.View;
 import android.widget.ImageView;
 
@@ -13,32 +11,18 @@ import com.baidu.gallery.car.utils.ImageBackgroundUtils;
  * 主色调背景策略
  */
 public class DominantColorBackgroundStrategy implements ImageBackgroundStrategy {
-    private static final String TAG = "DominantColorBg";
 
     @Override
-    public void applyBackground(Activity activity, ImageView ivBackground, String imageUrl, Drawable imageDrawable) {
-        // 在后台线程中提取主色调
-        new Thread(() -> {
-            try {
-                int dominantColor = ImageBackgroundUtils.extractDominantColor(
-                    activity,
-                    imageUrl,
-                    imageDrawable
-                );
-                activity.runOnUiThread(() -> {
-                    ivBackground.setBackgroundColor(dominantColor);
-                    ivBackground.setImageBitmap(null);
-                    ivBackground.setVisibility(View.VISIBLE);
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "提取主色调失败", e);
-                activity.runOnUiThread(() -> {
-                    // 失败时回退到黑色背景
-                    ivBackground.setBackgroundColor(Color.BLACK);
-                    ivBackground.setImageBitmap(null);
-                    ivBackground.setVisibility(View.VISIBLE);
-                });
+    public void applyBackground(Activity activity, ImageView ivBackground, String imageKey, Drawable imageDrawable) {
+        // 预取时已生成的直接命中缓存；否则在后台线程提取，完成时图片已切换则丢弃
+        ivBackground.setTag(imageKey);
+        ImageBackgroundUtils.requestBackground(activity, imageKey, imageDrawable, false, (color, blurred) -> {
+            if (!imageKey.equals(ivBackground.getTag())) {
+                return;
             }
-        }).start();
+            ivBackground.setBackgroundColor(color);
+            ivBackground.setImageBitmap(null);
+            ivBackground.setVisibility(View.VISIBLE);
+        });
     }
-}
\ No newline at end of file
+}
@@ -13,8 +13,8 @@ public interface ImageBackgroundStrategy {
      *
      * @param activity     当前Activity
      * @param ivBackground 背景ImageView
-     * @param imageUrl     图片URL
+     * @param imageKey     媒体标识（缓存键，不要传带签名的URL）
      * @param imageDrawable 图片Drawable对象
      */
-    void applyBackground(Activity activity, ImageView ivBackground, String imageUrl, Drawable imageDrawable);
+    void applyBackground(Activity activity, ImageView ivBackground, String imageKey, Drawable imageDrawable);
 }
\ No newline at end of file
@@ -4,11 +4,15 @@ import android.content.Context;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.baidu.gallery.car.model.MediaMetadata;
 import com.baidu.gallery.car.model.PlaybackHistory;
+import com.baidu.gallery.car.model.PlayerOutcome;
 import com.baidu.gallery.car.model.Playlist;
 import com.baidu.gallery.car.model.PlaylistItem;
 
-@Database(entities = {PlaybackHistory.class, Playlist.class, PlaylistItem.class}, version = 5, exportSchema = false)
+@Database(entities = {PlaybackHistory.class, Playlist.class, PlaylistItem.class, MediaMetadata.class, PlayerOutcome.class}, version = 7, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     
     private static volatile AppDatabase INSTANCE;
@@ -16,6 +20,34 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract PlaybackHistoryDao playbackHistoryDao();
     public abstract PlaylistDao playlistDao();
     public abstract PlaylistItemDao playlistItemDao();
+    public abstract MediaMetadataDao mediaMetadataDao();
+    public abstract PlayerOutcomeDao playerOutcomeDao();
+    
+    // 5 -> 6：新增视频媒体信息表，保留已有的播放列表和历史记录
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `media_metadata` (" +
+                    "`fsId` INTEGER NOT NULL, `md5` TEXT, `mimeType` TEXT, `codecs` TEXT, " +
+                    "`profile` INTEGER NOT NULL, `level` INTEGER NOT NULL, " +
+                    "`width` INTEGER NOT NULL, `height` INTEGER NOT NULL, `frameRate` REAL NOT NULL, " +
+                    "`bitrate` INTEGER NOT NULL, `durationMs` INTEGER NOT NULL, `rotation` INTEGER NOT NULL, " +
+                    "`status` INTEGER NOT NULL, `indexedAt` INTEGER NOT NULL, PRIMARY KEY(`fsId`))");
+        }
+    };
+    
+    // 6 -> 7：新增播放器结果统计表
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `player_outcomes` (" +
+                    "`scopeKey` TEXT NOT NULL, `engine` TEXT NOT NULL, " +
+                    "`successCount` INTEGER NOT NULL, `failureCount` INTEGER NOT NULL, " +
+                    "`rebufferCount` INTEGER NOT NULL, `ttffTotalMs` INTEGER NOT NULL, " +
+                    "`ttffSamples` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`scopeKey`, `engine`))");
+        }
+    };
     
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
@@ -23,6 +55,7 @@ public abstract class AppDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             AppDatabase.class, "baidu_tv_player.db")
+                            .addMigrations(MIGRATION_5_6, MIGRATION_6_7)
                             .fallbackToDestructiveMigration()
                             .build();
                 }
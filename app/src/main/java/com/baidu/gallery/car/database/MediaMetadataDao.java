@@ -0,0 +1,26 @@
+package com.baidu.gallery.car.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.baidu.gallery.car.model.MediaMetadata;
+
+import java.util.List;
+
+/**
+ * 视频媒体信息DAO
+ */
+@Dao
+public interface MediaMetadataDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(MediaMetadata metadata);
+
+    @Query("SELECT * FROM media_metadata")
+    List<MediaMetadata> getAllSync();
+
+    @Query("SELECT * FROM media_metadata WHERE fsId = :fsId LIMIT 1")
+    MediaMetadata getByFsId(long fsId);
+}
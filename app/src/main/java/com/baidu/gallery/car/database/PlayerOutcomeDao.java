@@ -0,0 +1,23 @@
+package com.baidu.gallery.car.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.baidu.gallery.car.model.PlayerOutcome;
+
+import java.util.List;
+
+/**
+ * 播放器结果统计DAO
+ */
+@Dao
+public interface PlayerOutcomeDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(PlayerOutcome outcome);
+
+    @Query("SELECT * FROM player_outcomes")
+    List<PlayerOutcome> getAllSync();
+}
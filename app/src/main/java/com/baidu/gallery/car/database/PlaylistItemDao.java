@@ -37,4 +37,7 @@ public interface PlaylistItemDao {
     
     @Query("SELECT COUNT(*) FROM playlist_items WHERE playlistId = :playlistId")
     int getItemCount(long playlistId);
+    
+    @Query("UPDATE playlist_items SET duration = :durationMs WHERE fsId = :fsId")
+    void updateDurationByFsId(long fsId, long durationMs);
 }
\ No newline at end of file
@@ -1,15 +1,24 @@
 package com.baidu.gallery.car.effects;
 
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.ui.view.BlindsImageView;
 
 /**
  * 百叶窗特效策略
- * 启动自定义百叶窗动画
+ * 启动自定义百叶窗动画，在旧图上逐条展开新图
  */
 public class BlindsEffectStrategy implements ImageEffectStrategy {
     @Override
-    public void applyEffect(BlindsImageView imageView) {
-        imageView.resetBlinds();
-        imageView.post(imageView::startBlindsAnimation);
+    public void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing) {
+        // 图层已完成布局，直接开始：百叶窗逐条展开新图，未展开的部分仍是旧图
+        incoming.setBlindsDuration(getDuration());
+        incoming.startBlindsAnimation();
+        fadeOut(outgoing);
+    }
+
+    @Override
+    public long getDuration() {
+        return 1000;
     }
 }
\ No newline at end of file
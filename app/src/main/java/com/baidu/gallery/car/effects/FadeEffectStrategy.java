@@ -1,26 +1,23 @@
 package com.baidu.gallery.car.effects;
 
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.ui.view.BlindsImageView;
 
 /**
  * 淡入淡出特效策略
- * 该特效完全由Glide的CrossFade处理，不需要额外动画
+ * 新旧两个图层交叉淡化
  */
 public class FadeEffectStrategy implements ImageEffectStrategy {
     @Override
-    public void applyEffect(BlindsImageView imageView) {
-        // FADE效果完全由Glide的CrossFade处理，不需要额外动画
-        // 重置视图到默认状态
-        imageView.setScaleX(1.0f);
-        imageView.setScaleY(1.0f);
-        imageView.setTranslationX(0);
-        imageView.setTranslationY(0);
-        imageView.setRotation(0);
-        imageView.setAlpha(1.0f);
+    public void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing) {
+        // 新图层淡入，旧图层同时淡出
+        fadeIn(incoming, getDuration());
+        fadeOut(outgoing);
     }
     
     @Override
     public long getDuration() {
-        return 800; // 与Glide的CrossFade持续时间保持一致
+        return 800; // 交叉淡化时长
     }
 }
\ No newline at end of file
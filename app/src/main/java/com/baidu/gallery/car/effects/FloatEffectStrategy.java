@@ -1,6 +1,9 @@
 package com.baidu.gallery.car.effects;
 
 import android.view.animation.LinearInterpolator;
+
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.ui.view.BlindsImageView;
 
 /**
@@ -9,13 +12,23 @@ import com.baidu.gallery.car.ui.view.BlindsImageView;
  */
 public class FloatEffectStrategy implements ImageEffectStrategy {
     @Override
-    public void applyEffect(BlindsImageView imageView) {
-        imageView.animate()
+    public void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing) {
+        fadeIn(incoming, CROSS_FADE_DURATION);
+        incoming.animate()
                 .scaleX(1.1f)
                 .scaleY(1.1f)
                 .setDuration(getDuration())
                 .setInterpolator(new LinearInterpolator())
                 .start();
+        fadeOut(outgoing);
+    }
+
+    /**
+     * 放大贯穿整个显示时长，新图层淡入后即完全盖住旧图层
+     */
+    @Override
+    public long getTransitionDuration() {
+        return CROSS_FADE_DURATION;
     }
     
     @Override
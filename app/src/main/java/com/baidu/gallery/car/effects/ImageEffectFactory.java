@@ -1,6 +1,12 @@
 package com.baidu.gallery.car.effects;
 
+import android.content.Context;
+import android.os.Build;
+
+import androidx.annotation.ChecksSdkIntAtLeast;
+
 import com.baidu.gallery.car.model.ImageEffect;
+import com.baidu.gallery.car.utils.PreferenceUtils;
 
 /**
  * 图片特效工厂类
@@ -43,6 +49,30 @@ public class ImageEffectFactory {
         }
     }
     
+    /**
+     * 根据特效类型创建播放时使用的特效策略
+     * 设置中开启GPU特效且系统支持RuntimeShader（Android 13及以上）时使用着色器实现，
+     * 否则使用View属性实现
+     * @param context 上下文
+     * @param effect 特效类型（已处理随机特效）
+     * @return 特效策略对象
+     */
+    public static ImageEffectStrategy createEffectStrategy(Context context, ImageEffect effect) {
+        ImageEffectStrategy strategy = createEffectStrategy(effect);
+        if (isShaderEffectSupported() && PreferenceUtils.getGpuEffectsEnabled(context)) {
+            return new ShaderEffectStrategy(effect != null ? effect : ImageEffect.FADE, strategy);
+        }
+        return strategy;
+    }
+
+    /**
+     * 系统是否支持着色器特效
+     */
+    @ChecksSdkIntAtLeast(api = Build.VERSION_CODES.TIRAMISU)
+    public static boolean isShaderEffectSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU;
+    }
+
     /**
      * 根据特效类型创建对应的特效策略对象（处理随机特效）
      * @param effect 特效类型
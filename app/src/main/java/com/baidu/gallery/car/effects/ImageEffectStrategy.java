@@ -5,19 +5,59 @@ import android.view.animation.LinearInterpolator;
 import android.view.animation.BounceInterpolator;
 import android.view.animation.DecelerateInterpolator;
 
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.ui.view.BlindsImageView;
 
 /**
  * 图片特效策略接口
- * 定义所有图片特效的通用行为
+ * 定义所有图片特效的通用行为：在两个已就绪的图层之间切换（见ImageStageView）
  */
 public interface ImageEffectStrategy {
+    // 变换类特效中新图层淡入的时长
+    long CROSS_FADE_DURATION = 300;
+
     /**
-     * 应用特效到指定的ImageView
-     * @param imageView 目标ImageView
+     * 在两个图层之间切换
+     * 调用时新图层已解码完成、位于上层、可见，并处于中性状态（无缩放、平移、旋转，不透明）
+     * @param incoming 新图片所在的图层
+     * @param outgoing 正在显示的旧图层，没有旧图时为null；切换时长结束后由ImageStageView回收
      */
-    void applyEffect(BlindsImageView imageView);
-    
+    void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing);
+
+    /**
+     * 新图层完全盖住旧图层所需的时长（毫秒），之后旧图层被回收
+     */
+    default long getTransitionDuration() {
+        return getDuration();
+    }
+
+    /**
+     * 新图层淡入
+     */
+    default void fadeIn(BlindsImageView incoming, long duration) {
+        incoming.setAlpha(0f);
+        incoming.animate()
+                .alpha(1f)
+                .setDuration(duration)
+                .setInterpolator(new LinearInterpolator())
+                .start();
+    }
+
+    /**
+     * 旧图层在切换时长内淡出：fitCenter的图片两侧有留白，旧图不能一直留在新图下面
+     */
+    default void fadeOut(@Nullable BlindsImageView outgoing) {
+        if (outgoing == null) {
+            return;
+        }
+        outgoing.animate()
+                .alpha(0f)
+                .setDuration(getTransitionDuration())
+                .setInterpolator(new LinearInterpolator())
+                .start();
+    }
+
     /**
      * 获取默认的动画插值器
      * @return 插值器
@@ -1,6 +1,9 @@
 package com.baidu.gallery.car.effects;
 
 import android.view.animation.DecelerateInterpolator;
+
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.ui.view.BlindsImageView;
 
 /**
@@ -9,12 +12,14 @@ import com.baidu.gallery.car.ui.view.BlindsImageView;
  */
 public class RotateEffectStrategy implements ImageEffectStrategy {
     @Override
-    public void applyEffect(BlindsImageView imageView) {
-        imageView.setRotation(180f);
-        imageView.animate()
+    public void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing) {
+        fadeIn(incoming, CROSS_FADE_DURATION);
+        incoming.setRotation(180f);
+        incoming.animate()
                 .rotation(0f)
                 .setDuration(getDuration())
                 .setInterpolator(new DecelerateInterpolator())
                 .start();
+        fadeOut(outgoing);
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.baidu.gallery.car.effects;
+
+import android.animation.ValueAnimator;
+import android.graphics.RenderEffect;
+import android.graphics.RuntimeShader;
+import android.os.Build;
+import android.util.Log;
+import android.view.animation.BounceInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.baidu.gallery.car.model.ImageEffect;
+import com.baidu.gallery.car.ui.view.BlindsImageView;
+
+/**
+ * GPU着色器特效策略（Android 13及以上）
+ * 新图层的绘制结果作为RuntimeShader（AGSL）的输入，平移、缩放、旋转、百叶窗遮罩和淡入
+ * 都在一个片元着色器里完成，每帧只更新uniform：GPU开销固定为一次全屏着色器，与图片尺寸无关，
+ * 不再逐帧修改View属性或按条裁剪重绘。旧图层仍在下层，随切换淡出。
+ * 参数（时长、插值器、位移和缩放量）与对应的View属性策略一致；
+ * 图层未开启硬件加速或着色器编译失败时交给对应的View属性策略
+ */
+@RequiresApi(Build.VERSION_CODES.TIRAMISU)
+public class ShaderEffectStrategy implements ImageEffectStrategy {
+    private static final String TAG = "ShaderEffect";
+
+    // 所有特效共用的输入和采样函数：超出图层范围的位置透明
+    private static final String HEADER =
+            "uniform shader image;\n"
+            + "uniform float2 size;\n"
+            + "uniform float progress;\n"
+            + "uniform float alpha;\n"
+            + "uniform float strips;\n"
+            + "uniform float startScale;\n"
+            + "half4 sampleAt(float2 p) {\n"
+            + "    if (p.x < 0.0 || p.y < 0.0 || p.x > size.x || p.y > size.y) {\n"
+            + "        return half4(0.0);\n"
+            + "    }\n"
+            + "    return image.eval(p);\n"
+            + "}\n"
+            // 以中心为轴缩放后的采样位置
+            + "float2 unscale(float2 coord, float scale) {\n"
+            + "    float2 center = size * 0.5;\n"
+            + "    return center + (coord - center) / scale;\n"
+            + "}\n";
+
+    private static final String FADE =
+            "half4 main(float2 coord) {\n"
+            + "    return sampleAt(coord) * alpha;\n"
+            + "}\n";
+
+    // 从右侧80像素处滑入
+    private static final String EASE =
+            "half4 main(float2 coord) {\n"
+            + "    return sampleAt(coord - float2(80.0 * (1.0 - progress), 0.0)) * alpha;\n"
+            + "}\n";
+
+    // BOUNCE和ZOOM：由startScale放大到原尺寸
+    private static final String SCALE_IN =
+            "half4 main(float2 coord) {\n"
+            + "    return sampleAt(unscale(coord, mix(startScale, 1.0, progress))) * alpha;\n"
+            + "}\n";
+
+    // 缓慢放大到1.1倍
+    private static final String FLOAT =
+            "half4 main(float2 coord) {\n"
+            + "    return sampleAt(unscale(coord, mix(1.0, 1.1, progress))) * alpha;\n"
+            + "}\n";
+
+    // 从180度转回0度
+    private static final String ROTATE =
+            "half4 main(float2 coord) {\n"
+            + "    float angle = 3.14159265 * (1.0 - progress);\n"
+            + "    float2 center = size * 0.5;\n"
+            + "    float2 d = coord - center;\n"
+            + "    float c = cos(angle);\n"
+            + "    float s = sin(angle);\n"
+            + "    return sampleAt(center + float2(d.x * c + d.y * s, -d.x * s + d.y * c)) * alpha;\n"
+            + "}\n";
+
+    // 从左侧100像素处滑入，同时由0.9倍放大到原尺寸
+    private static final String SLIDE =
+            "half4 main(float2 coord) {\n"
+            + "    float2 shifted = coord + float2(100.0 * (1.0 - progress), 0.0);\n"
+            + "    return sampleAt(unscale(shifted, mix(0.9, 1.0, progress))) * alpha;\n"
+            + "}\n";
+
+    // 偶数条从左到右展开，奇数条从右到左展开，最后一条收纳除不尽的部分
+    private static final String BLINDS =
+            "half4 main(float2 coord) {\n"
+            + "    float stripHeight = floor(size.y / strips);\n"
+            + "    float index = min(floor(coord.y / stripHeight), strips - 1.0);\n"
+            + "    float visible = size.x * progress;\n"
+            + "    bool shown = mod(index, 2.0) < 1.0 ? coord.x < visible : coord.x > size.x - visible;\n"
+            + "    return shown ? image.eval(coord) : half4(0.0);\n"
+            + "}\n";
+
+    private final ImageEffect effect;
+    private final ImageEffectStrategy fallback;
+
+    public ShaderEffectStrategy(ImageEffect effect, ImageEffectStrategy fallback) {
+        this.effect = effect;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing) {
+        String body = shaderBody();
+        RuntimeShader shader = null;
+        if (body != null && incoming.isHardwareAccelerated()) {
+            try {
+                shader = new RuntimeShader(HEADER + body);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "着色器编译失败，使用View特效: " + effect + ", " + e.getMessage());
+            }
+        }
+        if (shader == null) {
+            fallback.applyEffect(incoming, outgoing);
+            return;
+        }
+
+        RuntimeShader program = shader;
+        Interpolator interpolator = getInterpolator();
+        long duration = getDuration();
+        long fadeDuration = getFadeDuration();
+        program.setFloatUniform("size", incoming.getWidth(), incoming.getHeight());
+        program.setFloatUniform("strips", incoming.getBlindsCount());
+        program.setFloatUniform("startScale", effect == ImageEffect.BOUNCE ? 0.8f : 0.7f);
+
+        ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+        animator.setDuration(duration);
+        animator.setInterpolator(new LinearInterpolator());
+        animator.addUpdateListener(animation -> {
+            float fraction = animation.getAnimatedFraction();
+            float elapsed = fraction * duration;
+            program.setFloatUniform("progress", interpolator.getInterpolation(fraction));
+            program.setFloatUniform("alpha", fadeDuration > 0 ? Math.min(1f, elapsed / fadeDuration) : 1f);
+            // RenderEffect创建时固定uniform，每帧重新包装（只是很小的对象，不重新编译着色器）
+            incoming.setRenderEffect(RenderEffect.createRuntimeShaderEffect(program, "image"));
+        });
+        // 第一帧之前就是起始状态
+        program.setFloatUniform("progress", 0f);
+        program.setFloatUniform("alpha", fadeDuration > 0 ? 0f : 1f);
+        incoming.setRenderEffect(RenderEffect.createRuntimeShaderEffect(program, "image"));
+        // 动画结束后保留最后的RenderEffect（FLOAT停在1.1倍），图层回收时清除
+        incoming.startTransitionAnimator(animator, "GPU-" + effect.getName());
+        fadeOut(outgoing);
+    }
+
+    @Nullable
+    private String shaderBody() {
+        switch (effect) {
+            case FADE:
+                return FADE;
+            case EASE:
+                return EASE;
+            case BOUNCE:
+            case ZOOM:
+                return SCALE_IN;
+            case FLOAT:
+                return FLOAT;
+            case ROTATE:
+                return ROTATE;
+            case SLIDE:
+                return SLIDE;
+            case BLINDS:
+                return BLINDS;
+            default:
+                return null;
+        }
+    }
+
+    private Interpolator getInterpolator() {
+        switch (effect) {
+            case BOUNCE:
+                return new BounceInterpolator();
+            case FADE:
+            case FLOAT:
+                return new LinearInterpolator();
+            default:
+                return new DecelerateInterpolator();
+        }
+    }
+
+    /**
+     * 新图层淡入时长：FADE整个过程都在淡入，百叶窗不淡入，其余与View属性策略一样
+     */
+    private long getFadeDuration() {
+        switch (effect) {
+            case FADE:
+                return getDuration();
+            case BLINDS:
+                return 0;
+            default:
+                return CROSS_FADE_DURATION;
+        }
+    }
+
+    @Override
+    public long getDuration() {
+        return fallback.getDuration();
+    }
+
+    @Override
+    public long getTransitionDuration() {
+        return fallback.getTransitionDuration();
+    }
+}
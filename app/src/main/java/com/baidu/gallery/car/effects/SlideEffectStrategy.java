@@ -1,6 +1,9 @@
 package com.baidu.gallery.car.effects;
 
 import android.view.animation.DecelerateInterpolator;
+
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.ui.view.BlindsImageView;
 
 /**
@@ -9,16 +12,18 @@ import com.baidu.gallery.car.ui.view.BlindsImageView;
  */
 public class SlideEffectStrategy implements ImageEffectStrategy {
     @Override
-    public void applyEffect(BlindsImageView imageView) {
-        imageView.setTranslationX(-100f);
-        imageView.setScaleX(0.9f);
-        imageView.setScaleY(0.9f);
-        imageView.animate()
+    public void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing) {
+        fadeIn(incoming, CROSS_FADE_DURATION);
+        incoming.setTranslationX(-100f);
+        incoming.setScaleX(0.9f);
+        incoming.setScaleY(0.9f);
+        incoming.animate()
                 .translationX(0f)
                 .scaleX(1.0f)
                 .scaleY(1.0f)
                 .setDuration(getDuration())
                 .setInterpolator(new DecelerateInterpolator())
                 .start();
+        fadeOut(outgoing);
     }
 }
\ No newline at end of file
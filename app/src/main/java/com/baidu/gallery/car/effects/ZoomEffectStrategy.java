@@ -1,6 +1,9 @@
 package com.baidu.gallery.car.effects;
 
 import android.view.animation.DecelerateInterpolator;
+
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.ui.view.BlindsImageView;
 
 /**
@@ -9,14 +12,16 @@ import com.baidu.gallery.car.ui.view.BlindsImageView;
  */
 public class ZoomEffectStrategy implements ImageEffectStrategy {
     @Override
-    public void applyEffect(BlindsImageView imageView) {
-        imageView.setScaleX(0.7f);
-        imageView.setScaleY(0.7f);
-        imageView.animate()
+    public void applyEffect(BlindsImageView incoming, @Nullable BlindsImageView outgoing) {
+        fadeIn(incoming, CROSS_FADE_DURATION);
+        incoming.setScaleX(0.7f);
+        incoming.setScaleY(0.7f);
+        incoming.animate()
                 .scaleX(1.0f)
                 .scaleY(1.0f)
                 .setDuration(getDuration())
                 .setInterpolator(new DecelerateInterpolator())
                 .start();
+        fadeOut(outgoing);
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.baidu.gallery.car.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 媒体标识
+ * 网盘文件的稳定身份：有md5时用md5（同一内容在不同目录、不同会话下相同），否则用fsId。
+ * 所有缓存（Glide内存/磁盘缓存、背景缓存、视频缓存）都以它为键；
+ * dlink和access_token只是获取位置，会随会话和令牌刷新变化，不能参与缓存键
+ */
+public final class MediaIdentity {
+    private final String key;
+
+    private MediaIdentity(String key) {
+        this.key = key;
+    }
+
+    public static MediaIdentity of(@NonNull FileInfo file) {
+        if (file.getMd5() != null && !file.getMd5().isEmpty()) {
+            return new MediaIdentity("md5:" + file.getMd5());
+        }
+        return ofFsId(file.getFsId());
+    }
+
+    /**
+     * 只有fsId时（例如播放历史记录）
+     */
+    public static MediaIdentity ofFsId(long fsId) {
+        return new MediaIdentity("fs:" + fsId);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 同一媒体的不同形态（缩略图、不同尺寸）使用带后缀的键
+     */
+    public String getKey(String variant) {
+        return key + "#" + variant;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof MediaIdentity && key.equals(((MediaIdentity) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -0,0 +1,159 @@
+package com.baidu.gallery.car.model;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * 视频媒体信息实体
+ * 由MediaMetadataIndexer通过HTTP Range只读取ftyp/moov得到，按fsId持久化，
+ * 供播放器调度在起播前根据真实编码做选择
+ */
+@Entity(tableName = "media_metadata")
+public class MediaMetadata {
+    public static final int STATUS_OK = 0;           // 已解析
+    public static final int STATUS_UNSUPPORTED = 1;  // 非MP4/MOV容器或找不到视频轨道，不再重复索引
+
+    @PrimaryKey
+    private long fsId;                  // 百度网盘文件fsId
+
+    private String md5;                 // 文件md5
+    private String mimeType;            // 视频轨道MIME，如 video/avc、video/hevc
+    private String codecs;              // 编码参数，如 avc1.640028、hvc1.1.L120
+    private int profile;                // 编码profile
+    private int level;                  // 编码level
+    private int width;                  // 宽（像素，未旋转）
+    private int height;                 // 高（像素，未旋转）
+    private float frameRate;            // 帧率
+    private long bitrate;               // 平均码率（bps）
+    private long durationMs;            // 时长（毫秒）
+    private int rotation;               // 旋转角度：0/90/180/270
+    private int status;                 // 索引状态
+    private long indexedAt;             // 索引时间
+
+    public boolean isIndexed() {
+        return status == STATUS_OK && mimeType != null;
+    }
+
+    public boolean isHevc() {
+        return "video/hevc".equals(mimeType);
+    }
+
+    public long getFsId() {
+        return fsId;
+    }
+
+    public void setFsId(long fsId) {
+        this.fsId = fsId;
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+
+    public void setMd5(String md5) {
+        this.md5 = md5;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public String getCodecs() {
+        return codecs;
+    }
+
+    public void setCodecs(String codecs) {
+        this.codecs = codecs;
+    }
+
+    public int getProfile() {
+        return profile;
+    }
+
+    public void setProfile(int profile) {
+        this.profile = profile;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public float getFrameRate() {
+        return frameRate;
+    }
+
+    public void setFrameRate(float frameRate) {
+        this.frameRate = frameRate;
+    }
+
+    public long getBitrate() {
+        return bitrate;
+    }
+
+    public void setBitrate(long bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public void setRotation(int rotation) {
+        this.rotation = rotation;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public long getIndexedAt() {
+        return indexedAt;
+    }
+
+    public void setIndexedAt(long indexedAt) {
+        this.indexedAt = indexedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaMetadata{fsId=" + fsId + ", mime=" + mimeType + ", codecs=" + codecs +
+                ", " + width + "x" + height + "@" + frameRate + "fps, bitrate=" + bitrate +
+                ", duration=" + durationMs + "ms, rotation=" + rotation + ", status=" + status + "}";
+    }
+}
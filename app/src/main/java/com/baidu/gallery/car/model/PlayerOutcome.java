@@ -0,0 +1,105 @@
+package com.baidu.gallery.car.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * 播放器结果统计实体
+ * 按（范围, 播放器）累计成功、失败、卡顿和首帧耗时。
+ * 范围是单个文件（fs:<fsId>）或一类视频（class:<mime>|<profile>|<分辨率档位>）
+ */
+@Entity(tableName = "player_outcomes", primaryKeys = {"scopeKey", "engine"})
+public class PlayerOutcome {
+
+    @NonNull
+    private String scopeKey = "";       // 统计范围
+    @NonNull
+    private String engine = "";         // 播放器名称，与PlayerStrategy.getName()一致
+
+    private int successCount;           // 成功出首帧次数
+    private int failureCount;           // 解码/格式失败次数（不含网络错误）
+    private int rebufferCount;          // 播放中卡顿次数
+    private long ttffTotalMs;           // 首帧耗时累计
+    private int ttffSamples;            // 首帧耗时样本数
+    private long updatedAt;             // 最后更新时间
+
+    /**
+     * 平均首帧耗时，没有样本时返回-1
+     */
+    public long getAverageTtffMs() {
+        return ttffSamples > 0 ? ttffTotalMs / ttffSamples : -1;
+    }
+
+    /**
+     * 失败不少于成功，视为该范围内不可靠
+     */
+    public boolean isUnreliable() {
+        return failureCount > 0 && failureCount >= successCount;
+    }
+
+    @NonNull
+    public String getScopeKey() {
+        return scopeKey;
+    }
+
+    public void setScopeKey(@NonNull String scopeKey) {
+        this.scopeKey = scopeKey;
+    }
+
+    @NonNull
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(@NonNull String engine) {
+        this.engine = engine;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(int successCount) {
+        this.successCount = successCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public void setFailureCount(int failureCount) {
+        this.failureCount = failureCount;
+    }
+
+    public int getRebufferCount() {
+        return rebufferCount;
+    }
+
+    public void setRebufferCount(int rebufferCount) {
+        this.rebufferCount = rebufferCount;
+    }
+
+    public long getTtffTotalMs() {
+        return ttffTotalMs;
+    }
+
+    public void setTtffTotalMs(long ttffTotalMs) {
+        this.ttffTotalMs = ttffTotalMs;
+    }
+
+    public int getTtffSamples() {
+        return ttffSamples;
+    }
+
+    public void setTtffSamples(int ttffSamples) {
+        this.ttffSamples = ttffSamples;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,13 +1,17 @@
 package com.baidu.gallery.car.network;
 
+import com.baidu.gallery.car.BuildConfig;
+
 /**
  * API常量定义
  */
 public class ApiConstants {
     
-    // 百度网盘API基础URL
-    public static final String PAN_API_BASE_URL = "https://pan.baidu.com/rest/2.0/";
-    public static final String OAUTH_BASE_URL = "https://openapi.baidu.com/oauth/2.0/";
+    // 百度网盘API基础URL（测试构建可通过BuildConfig覆盖，指向本地替身服务器）
+    public static final String PAN_API_BASE_URL =
+            withOverride(BuildConfig.PAN_API_BASE_URL_OVERRIDE, "https://pan.baidu.com/rest/2.0/");
+    public static final String OAUTH_BASE_URL =
+            withOverride(BuildConfig.OAUTH_BASE_URL_OVERRIDE, "https://openapi.baidu.com/oauth/2.0/");
     public static final String PCS_BASE_URL = "https://d.pcs.baidu.com/rest/2.0/pcs/";
     
     // API端点
@@ -29,4 +33,8 @@ public class ApiConstants {
     // 轮询间隔（毫秒）
     public static final int POLLING_INTERVAL = 5000;
     public static final int MAX_POLLING_COUNT = 60;
+    
+    private static String withOverride(String override, String defaultUrl) {
+        return override == null || override.isEmpty() ? defaultUrl : override;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.baidu.gallery.car.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 百度网盘API错误分类器
+ * 根据HTTP状态码、errno和网络异常判断错误是否值得重试
+ */
+public class ApiErrorClassifier {
+
+    /**
+     * 错误类别
+     */
+    public enum ErrorClass {
+        SUCCESS,        // 成功
+        RETRYABLE,      // 临时错误，可以退避重试
+        RATE_LIMITED,   // 命中频控，需要更长的退避
+        FATAL           // 致命错误（参数错误、鉴权失败、文件不存在等），重试无意义
+    }
+
+    // 命中接口频控
+    private static final int ERRNO_RATE_LIMITED = 31034;
+
+    // errno 通常位于响应体最前面，只需窥探开头即可
+    private static final Pattern ERRNO_PATTERN = Pattern.compile("\"errno\"\\s*:\\s*(-?\\d+)");
+
+    /**
+     * 根据HTTP状态码分类
+     */
+    public static ErrorClass classifyHttp(int code) {
+        if (code >= 200 && code < 300) {
+            return ErrorClass.SUCCESS;
+        }
+        if (code == 429) {
+            return ErrorClass.RATE_LIMITED;
+        }
+        if (code == 408 || code >= 500) {
+            return ErrorClass.RETRYABLE;
+        }
+        return ErrorClass.FATAL;
+    }
+
+    /**
+     * 根据百度网盘errno分类
+     */
+    public static ErrorClass classifyErrno(int errno) {
+        switch (errno) {
+            case 0:
+                return ErrorClass.SUCCESS;
+            case ERRNO_RATE_LIMITED:
+                return ErrorClass.RATE_LIMITED;
+            case -6:    // 身份验证失败
+            case -7:    // 文件或目录名错误或无权访问
+            case -9:    // 文件或目录不存在
+            case 2:     // 参数错误
+            case 6:     // 不允许接入用户数据
+            case 111:   // access token 失效
+            case 31023: // 参数错误
+            case 31024: // 没有访问权限
+            case 31066: // 文件不存在
+                return ErrorClass.FATAL;
+            default:
+                // 未知errno按服务端临时故障处理，交给重试次数兜底
+                return ErrorClass.RETRYABLE;
+        }
+    }
+
+    /**
+     * 根据网络异常分类
+     */
+    public static ErrorClass classifyException(IOException e) {
+        if (e instanceof SocketTimeoutException) {
+            return ErrorClass.RETRYABLE;
+        }
+        if (e instanceof InterruptedIOException) {
+            // 调用被取消或线程被中断，不再重试
+            return ErrorClass.FATAL;
+        }
+        if (e instanceof UnknownHostException) {
+            // 弱网下DNS解析失败很常见，值得重试
+            return ErrorClass.RETRYABLE;
+        }
+        return ErrorClass.RETRYABLE;
+    }
+
+    /**
+     * 从响应体片段中解析errno
+     * @return errno，解析不到时返回0
+     */
+    public static int parseErrno(String bodySnippet) {
+        if (bodySnippet == null || bodySnippet.isEmpty()) {
+            return 0;
+        }
+        Matcher matcher = ERRNO_PATTERN.matcher(bodySnippet);
+        if (matcher.find()) {
+            try {
+                return Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
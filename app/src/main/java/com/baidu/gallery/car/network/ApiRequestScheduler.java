@@ -0,0 +1,223 @@
+package com.baidu.gallery.car.network;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网盘API请求调度器（令牌桶）
+ * 1. 按接口族分别限速（文件列表、文件信息、用户信息互不抢占配额）
+ * 2. 同一接口族内严格按优先级放行：前台请求 > 预加载 > 后台遍历
+ * 3. 低优先级请求不能取走最后的保留令牌，前台请求到来时总能立即发出
+ * 4. 对外暴露排队数，UI可以据此提示刷新正在被限流
+ */
+public class ApiRequestScheduler {
+    private static final String TAG = "ApiRequestScheduler";
+
+    private static volatile ApiRequestScheduler instance;
+
+    /**
+     * 接口族及其配额
+     */
+    public enum EndpointFamily {
+        LIST(4, 4),         // xpan/file list、multimedia listall
+        META(5, 5),         // multimedia filemetas（dlink）
+        USER(2, 2),         // xpan/nas uinfo
+        OTHER(5, 5);
+
+        final double permitsPerSecond;
+        final int burst;
+
+        EndpointFamily(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    // 为前台请求保留的令牌数
+    private static final int FOREGROUND_RESERVE = 1;
+
+    private final Map<EndpointFamily, TokenBucket> buckets = new EnumMap<>(EndpointFamily.class);
+    private final int[] queuedByPriority = new int[RequestPriority.values().length];
+    private final MutableLiveData<Integer> queueDepth = new MutableLiveData<>(0);
+    private final MutableLiveData<Integer> throttledBackgroundCount = new MutableLiveData<>(0);
+
+    private ApiRequestScheduler() {
+        for (EndpointFamily family : EndpointFamily.values()) {
+            buckets.put(family, new TokenBucket(family));
+        }
+    }
+
+    public static ApiRequestScheduler getInstance() {
+        if (instance == null) {
+            synchronized (ApiRequestScheduler.class) {
+                if (instance == null) {
+                    instance = new ApiRequestScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 根据接口标识（见ResilienceInterceptor.endpointKey）判断接口族
+     */
+    public static EndpointFamily familyOf(String endpointKey) {
+        if (endpointKey == null) {
+            return EndpointFamily.OTHER;
+        }
+        if (endpointKey.contains("method=filemetas")) {
+            return EndpointFamily.META;
+        }
+        if (endpointKey.contains("method=list")) {
+            // 同时覆盖 list 和 listall
+            return EndpointFamily.LIST;
+        }
+        if (endpointKey.contains(ApiConstants.ENDPOINT_NAS)) {
+            return EndpointFamily.USER;
+        }
+        return EndpointFamily.OTHER;
+    }
+
+    /**
+     * 取消检查，等待期间周期性调用
+     */
+    public interface CancelSignal {
+        boolean isCanceled();
+    }
+
+    /**
+     * 阻塞直到获得一个令牌
+     * 必须在后台线程调用（OkHttp调度线程）
+     * @return true 获得令牌；false 等待期间请求被取消
+     */
+    public boolean acquire(EndpointFamily family, RequestPriority priority, CancelSignal cancelSignal)
+            throws InterruptedException {
+        TokenBucket bucket = buckets.get(family);
+        onQueued(priority, 1);
+        try {
+            return bucket.acquire(priority, cancelSignal);
+        } finally {
+            onQueued(priority, -1);
+        }
+    }
+
+    /**
+     * 当前排队等待令牌的请求总数
+     */
+    public LiveData<Integer> getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * 当前排队的预加载/后台遍历请求数，大于0说明刷新正在被限流
+     */
+    public LiveData<Integer> getThrottledBackgroundCount() {
+        return throttledBackgroundCount;
+    }
+
+    /**
+     * 某个优先级当前排队的请求数
+     */
+    public synchronized int getQueuedCount(RequestPriority priority) {
+        return queuedByPriority[priority.ordinal()];
+    }
+
+    private void onQueued(RequestPriority priority, int delta) {
+        int total;
+        int background;
+        synchronized (this) {
+            queuedByPriority[priority.ordinal()] += delta;
+            total = 0;
+            for (int count : queuedByPriority) {
+                total += count;
+            }
+            background = total - queuedByPriority[RequestPriority.FOREGROUND.ordinal()];
+        }
+        queueDepth.postValue(total);
+        throttledBackgroundCount.postValue(background);
+    }
+
+    /**
+     * 单个接口族的令牌桶
+     * 等待者按（优先级, 到达顺序）排队，只有队首可以取令牌
+     */
+    private static class TokenBucket {
+        // 等待时的最长单次休眠，用于及时响应取消
+        private static final long MAX_WAIT_SLICE_MS = 200;
+
+        private final EndpointFamily family;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private double tokens;
+        private long lastRefillNanos;
+        private long sequence = 0;
+
+        TokenBucket(EndpointFamily family) {
+            this.family = family;
+            this.tokens = family.burst;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        private static class Waiter {
+            final RequestPriority priority;
+            final long seq;
+
+            Waiter(RequestPriority priority, long seq) {
+                this.priority = priority;
+                this.seq = seq;
+            }
+        }
+
+        synchronized boolean acquire(RequestPriority priority, CancelSignal cancelSignal)
+                throws InterruptedException {
+            Waiter waiter = new Waiter(priority, sequence++);
+            insert(waiter);
+            long waitStart = System.currentTimeMillis();
+            try {
+                while (true) {
+                    if (cancelSignal != null && cancelSignal.isCanceled()) {
+                        return false;
+                    }
+                    refill();
+                    // 低优先级请求需要给前台保留令牌
+                    double needed = priority == RequestPriority.FOREGROUND ? 1 : 1 + FOREGROUND_RESERVE;
+                    if (waiters.get(0) == waiter && tokens >= needed) {
+                        tokens -= 1;
+                        long waited = System.currentTimeMillis() - waitStart;
+                        if (waited > 0) {
+                            Log.d(TAG, family + " 限流等待 " + waited + "ms, 优先级=" + priority);
+                        }
+                        return true;
+                    }
+                    long waitMs = (long) Math.ceil((needed - tokens) * 1000 / family.permitsPerSecond);
+                    wait(Math.max(1, Math.min(waitMs, MAX_WAIT_SLICE_MS)));
+                }
+            } finally {
+                waiters.remove(waiter);
+                // 唤醒新的队首
+                notifyAll();
+            }
+        }
+
+        private void insert(Waiter waiter) {
+            int index = waiters.size();
+            while (index > 0 && waiters.get(index - 1).priority.ordinal() > waiter.priority.ordinal()) {
+                index--;
+            }
+            waiters.add(index, waiter);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            double elapsedSeconds = (now - lastRefillNanos) / 1e9;
+            tokens = Math.min(family.burst, tokens + elapsedSeconds * family.permitsPerSecond);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Query;
 import retrofit2.http.QueryMap;
+import retrofit2.http.Tag;
 
 /**
  * 百度网盘API服务接口
@@ -73,7 +74,8 @@ public interface BaiduPanService {
             @Query("limit") int limit,
             @Query("web") int web,
             @Query("folder") int folder,
-            @Query("access_token") String accessToken
+            @Query("access_token") String accessToken,
+            @Tag RequestPriority priority
     );
     
     /**
@@ -87,7 +89,8 @@ public interface BaiduPanService {
             @Query("desc") int desc,
             @Query("limit") int limit,
             @Query("recursion") int recursion,
-            @Query("access_token") String accessToken
+            @Query("access_token") String accessToken,
+            @Tag RequestPriority priority
     );
     
     /**
@@ -99,6 +102,7 @@ public interface BaiduPanService {
             @Query("fsids") String fsids,
             @Query("dlink") int dlink,
             @Query("thumb") int thumb,
-            @Query("access_token") String accessToken
+            @Query("access_token") String accessToken,
+            @Tag RequestPriority priority
     );
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.baidu.gallery.car.network;
+
+import android.util.Log;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按接口维度的熔断器
+ * 连续失败达到阈值后打开熔断，在冷却期内直接拒绝请求；
+ * 冷却期结束后进入半开状态，放行一个探测请求，成功则关闭熔断
+ */
+public class CircuitBreaker {
+    private static final String TAG = "CircuitBreaker";
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final ConcurrentHashMap<String, EndpointState> endpoints = new ConcurrentHashMap<>();
+
+    public CircuitBreaker(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * 单个接口的熔断状态
+     */
+    private static class EndpointState {
+        State state = State.CLOSED;
+        int consecutiveFailures = 0;
+        long openedAt = 0;
+        boolean probeInFlight = false;
+    }
+
+    private EndpointState obtain(String endpoint) {
+        EndpointState state = endpoints.get(endpoint);
+        if (state == null) {
+            EndpointState created = new EndpointState();
+            state = endpoints.putIfAbsent(endpoint, created);
+            if (state == null) {
+                state = created;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 判断是否允许发起请求
+     */
+    public boolean allowRequest(String endpoint) {
+        EndpointState state = obtain(endpoint);
+        synchronized (state) {
+            switch (state.state) {
+                case OPEN:
+                    if (System.currentTimeMillis() - state.openedAt >= openDurationMs) {
+                        state.state = State.HALF_OPEN;
+                        state.probeInFlight = true;
+                        Log.d(TAG, "熔断冷却结束，进入半开状态: " + endpoint);
+                        return true;
+                    }
+                    return false;
+                case HALF_OPEN:
+                    // 半开状态只放行一个探测请求
+                    if (state.probeInFlight) {
+                        return false;
+                    }
+                    state.probeInFlight = true;
+                    return true;
+                case CLOSED:
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * 记录请求成功
+     */
+    public void recordSuccess(String endpoint) {
+        EndpointState state = obtain(endpoint);
+        synchronized (state) {
+            if (state.state != State.CLOSED) {
+                Log.d(TAG, "探测成功，关闭熔断: " + endpoint);
+            }
+            state.state = State.CLOSED;
+            state.consecutiveFailures = 0;
+            state.probeInFlight = false;
+        }
+    }
+
+    /**
+     * 记录请求失败（仅统计服务降级类错误）
+     */
+    public void recordFailure(String endpoint) {
+        EndpointState state = obtain(endpoint);
+        synchronized (state) {
+            state.consecutiveFailures++;
+            state.probeInFlight = false;
+            if (state.state == State.HALF_OPEN || state.consecutiveFailures >= failureThreshold) {
+                state.state = State.OPEN;
+                state.openedAt = System.currentTimeMillis();
+                Log.w(TAG, "打开熔断: " + endpoint + ", 连续失败=" + state.consecutiveFailures);
+            }
+        }
+    }
+
+    /**
+     * 请求没有得到可判定的结果（被取消或中断）
+     * 不改变失败计数；半开状态下归还探测名额，允许下一个请求继续探测
+     */
+    public void releaseProbe(String endpoint) {
+        EndpointState state = obtain(endpoint);
+        synchronized (state) {
+            state.probeInFlight = false;
+        }
+    }
+
+    /**
+     * 获取接口当前的熔断状态
+     */
+    public State getState(String endpoint) {
+        EndpointState state = obtain(endpoint);
+        synchronized (state) {
+            return state.state;
+        }
+    }
+
+    /**
+     * 熔断打开后剩余的冷却时间（毫秒），未打开时返回0
+     */
+    public long getRemainingOpenMs(String endpoint) {
+        EndpointState state = obtain(endpoint);
+        synchronized (state) {
+            if (state.state != State.OPEN) {
+                return 0;
+            }
+            return Math.max(0, openDurationMs - (System.currentTimeMillis() - state.openedAt));
+        }
+    }
+
+    /**
+     * 所有接口中最长的剩余冷却时间（毫秒），没有打开的熔断时返回0
+     */
+    public long getMaxRemainingOpenMs() {
+        long max = 0;
+        for (String endpoint : endpoints.keySet()) {
+            max = Math.max(max, getRemainingOpenMs(endpoint));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,166 @@
+package com.baidu.gallery.car.network;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.baidu.gallery.car.utils.PreferenceUtils;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 连接预热
+ * 在用户真正发起请求之前完成DNS解析和TCP/TLS握手，把空闲连接留在连接池中：
+ * 1. 启动页：预热网盘API主机（pan.baidu.com），连接放入RetrofitClient的OkHttp连接池
+ * 2. 选中播放列表/历史记录：预热dlink主机和上次播放时重定向到的CDN主机，
+ *    连接放入HttpURLConnection的系统连接池（ExoPlayer的DefaultHttpDataSource共用），
+ *    DNS结果进入系统缓存（VLC同样受益）
+ */
+public class ConnectionWarmer {
+    private static final String TAG = "ConnectionWarmer";
+
+    // 同一主机在该时间内不重复预热（OkHttp空闲连接默认保留5分钟）
+    private static final long REWARM_INTERVAL_MS = 60 * 1000;
+    private static final int WARM_TIMEOUT_MS = 5000;
+
+    private static volatile ConnectionWarmer instance;
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<String, Long> lastWarmTimes = new ConcurrentHashMap<>();
+
+    private ConnectionWarmer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static ConnectionWarmer getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ConnectionWarmer.class) {
+                if (instance == null) {
+                    instance = new ConnectionWarmer(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 预热网盘API主机（启动页调用）
+     */
+    public void warmUpApiHost() {
+        final String baseUrl = ApiConstants.PAN_API_BASE_URL;
+        final String host = Uri.parse(baseUrl).getHost();
+        if (!shouldWarm(host)) {
+            return;
+        }
+        executor.execute(() -> {
+            long start = System.currentTimeMillis();
+            resolve(host);
+            // newBuilder()与原客户端共享连接池；去掉拦截器，预热请求不参与限流、重试和熔断统计
+            OkHttpClient.Builder builder = RetrofitClient.getPanHttpClient().newBuilder();
+            builder.interceptors().clear();
+            Request request = new Request.Builder()
+                    .url(baseUrl)
+                    .head()
+                    .header("User-Agent", "pan.baidu.com")
+                    .build();
+            try (Response response = builder.build().newCall(request).execute()) {
+                Log.d(TAG, "API主机预热完成: " + host + ", HTTP " + response.code() +
+                        ", 耗时 " + (System.currentTimeMillis() - start) + "ms");
+            } catch (Exception e) {
+                Log.w(TAG, "API主机预热失败: " + host + ", " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 预热媒体下载主机（选中播放列表或历史记录时调用）
+     */
+    public void warmUpMediaHosts() {
+        warmUpMediaHost(Uri.parse(ApiConstants.PCS_BASE_URL).getHost());
+        String lastHost = PreferenceUtils.getLastMediaHost(context);
+        if (lastHost != null && !lastHost.isEmpty()) {
+            warmUpMediaHost(lastHost);
+        }
+    }
+
+    /**
+     * 记录实际提供媒体数据的主机（重定向之后），下次点击播放前预热
+     */
+    public void recordMediaHost(String host) {
+        if (host == null || host.isEmpty()) {
+            return;
+        }
+        if (!host.equals(PreferenceUtils.getLastMediaHost(context))) {
+            Log.d(TAG, "记录媒体下载主机: " + host);
+            PreferenceUtils.saveLastMediaHost(context, host);
+        }
+    }
+
+    private void warmUpMediaHost(final String host) {
+        if (!shouldWarm(host)) {
+            return;
+        }
+        executor.execute(() -> {
+            long start = System.currentTimeMillis();
+            resolve(host);
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) new URL("https://" + host + "/").openConnection();
+                connection.setRequestMethod("HEAD");
+                connection.setConnectTimeout(WARM_TIMEOUT_MS);
+                connection.setReadTimeout(WARM_TIMEOUT_MS);
+                connection.setInstanceFollowRedirects(false);
+                connection.setRequestProperty("User-Agent", "pan.baidu.com");
+                int code = connection.getResponseCode();
+                // 读完并关闭响应流（而不是disconnect），连接才会回到连接池
+                InputStream stream = code >= 400 ? connection.getErrorStream() : connection.getInputStream();
+                if (stream != null) {
+                    stream.close();
+                }
+                Log.d(TAG, "媒体主机预热完成: " + host + ", HTTP " + code +
+                        ", 耗时 " + (System.currentTimeMillis() - start) + "ms");
+            } catch (Exception e) {
+                Log.w(TAG, "媒体主机预热失败: " + host + ", " + e.getMessage());
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        });
+    }
+
+    private boolean shouldWarm(String host) {
+        if (host == null || host.isEmpty()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Long last = lastWarmTimes.get(host);
+        if (last != null && now - last < REWARM_INTERVAL_MS) {
+            return false;
+        }
+        lastWarmTimes.put(host, now);
+        return true;
+    }
+
+    /**
+     * DNS预解析，结果进入系统DNS缓存
+     */
+    private void resolve(String host) {
+        try {
+            InetAddress.getAllByName(host);
+        } catch (Exception e) {
+            Log.w(TAG, "DNS预解析失败: " + host + ", " + e.getMessage());
+        }
+    }
+}
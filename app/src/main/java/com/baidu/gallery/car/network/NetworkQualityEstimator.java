@@ -0,0 +1,354 @@
+package com.baidu.gallery.car.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/**
+ * 全局网络质量估计
+ * 由各HTTP客户端（网盘API、Glide、地点识别）和ExoPlayer的带宽测量共同喂数据：
+ * - 吞吐：较大响应体的字节数/传输时间
+ * - RTT：新建TCP连接的握手耗时
+ * 对外发布带宽/RTT等级，供图片目标分辨率、预加载深度、ExoPlayer缓冲阈值等决策使用
+ * 网络切换（例如停车Wi-Fi切到行驶中的4G）时清空历史估计
+ */
+public class NetworkQualityEstimator {
+    private static final String TAG = "NetworkQualityEstimator";
+
+    /**
+     * 网络质量等级
+     */
+    public enum NetworkQuality {
+        UNKNOWN,
+        POOR,       // 弱网：< 1Mbps 或 RTT > 400ms
+        MODERATE,   // 一般：< 5Mbps 或 RTT > 150ms
+        GOOD,       // 良好：< 20Mbps 或 RTT > 50ms
+        EXCELLENT   // 优秀
+    }
+
+    /**
+     * ExoPlayer缓冲阈值
+     */
+    public static class BufferConfig {
+        public final int minBufferMs;
+        public final int maxBufferMs;
+        public final int bufferForPlaybackMs;
+        public final int bufferForPlaybackAfterRebufferMs;
+
+        BufferConfig(int minBufferMs, int maxBufferMs, int bufferForPlaybackMs, int bufferForPlaybackAfterRebufferMs) {
+            this.minBufferMs = minBufferMs;
+            this.maxBufferMs = maxBufferMs;
+            this.bufferForPlaybackMs = bufferForPlaybackMs;
+            this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+        }
+    }
+
+    // 小于该字节数的响应体传输时间主要由RTT决定，不计入吞吐
+    private static final long MIN_THROUGHPUT_SAMPLE_BYTES = 32 * 1024;
+    private static final long MIN_THROUGHPUT_SAMPLE_MS = 20;
+    // 指数加权平均系数，越大越偏向最新样本
+    private static final double EWMA_ALPHA = 0.3;
+
+    private static volatile NetworkQualityEstimator instance;
+
+    private final MutableLiveData<NetworkQuality> quality = new MutableLiveData<>(NetworkQuality.UNKNOWN);
+    private double bandwidthKbps = -1;
+    private double rttMs = -1;
+    // 尚无样本时，使用系统给出的链路带宽作为先验
+    private long linkBandwidthKbps = -1;
+    private NetworkQuality lastPublished = NetworkQuality.UNKNOWN;
+
+    private NetworkQualityEstimator() {
+    }
+
+    public static NetworkQualityEstimator getInstance() {
+        if (instance == null) {
+            synchronized (NetworkQualityEstimator.class) {
+                if (instance == null) {
+                    instance = new NetworkQualityEstimator();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 监听默认网络变化（在Application中调用一次）
+     */
+    public void init(Context context) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            return;
+        }
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            private Network currentNetwork;
+
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                if (!network.equals(currentNetwork)) {
+                    currentNetwork = network;
+                    onNetworkChanged(capabilities.getLinkDownstreamBandwidthKbps());
+                }
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                if (network.equals(currentNetwork)) {
+                    currentNetwork = null;
+                    onNetworkChanged(-1);
+                }
+            }
+        });
+    }
+
+    private void onNetworkChanged(int linkKbps) {
+        synchronized (this) {
+            bandwidthKbps = -1;
+            rttMs = -1;
+            linkBandwidthKbps = linkKbps > 0 ? linkKbps : -1;
+        }
+        Log.d(TAG, "默认网络变化，重置估计，链路带宽先验=" + linkKbps + "kbps");
+        publish();
+    }
+
+    // ========== 样本输入 ==========
+
+    /**
+     * 添加吞吐样本
+     */
+    public void addThroughputSample(long bytes, long durationMs) {
+        if (bytes < MIN_THROUGHPUT_SAMPLE_BYTES || durationMs < MIN_THROUGHPUT_SAMPLE_MS) {
+            return;
+        }
+        double kbps = bytes * 8.0 / durationMs;
+        synchronized (this) {
+            bandwidthKbps = bandwidthKbps < 0 ? kbps : EWMA_ALPHA * kbps + (1 - EWMA_ALPHA) * bandwidthKbps;
+        }
+        publish();
+    }
+
+    /**
+     * 添加RTT样本
+     */
+    public void addRttSample(long sampleMs) {
+        if (sampleMs <= 0) {
+            return;
+        }
+        synchronized (this) {
+            rttMs = rttMs < 0 ? sampleMs : EWMA_ALPHA * sampleMs + (1 - EWMA_ALPHA) * rttMs;
+        }
+        publish();
+    }
+
+    /**
+     * OkHttp事件监听工厂，挂到各个OkHttpClient上采集RTT和吞吐
+     */
+    public EventListener.Factory eventListenerFactory() {
+        return call -> new SamplingEventListener();
+    }
+
+    private class SamplingEventListener extends EventListener {
+        private long connectStartNanos = -1;
+        private long bodyStartNanos = -1;
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+            connectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            // TCP握手完成，耗时约等于一个RTT
+            if (connectStartNanos > 0) {
+                addRttSample((System.nanoTime() - connectStartNanos) / 1_000_000);
+                connectStartNanos = -1;
+            }
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                               @NonNull Proxy proxy, @Nullable Protocol protocol) {
+            // 明文连接没有TLS阶段
+            if (connectStartNanos > 0) {
+                addRttSample((System.nanoTime() - connectStartNanos) / 1_000_000);
+                connectStartNanos = -1;
+            }
+        }
+
+        @Override
+        public void responseBodyStart(@NonNull Call call) {
+            bodyStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            if (bodyStartNanos > 0) {
+                addThroughputSample(byteCount, (System.nanoTime() - bodyStartNanos) / 1_000_000);
+                bodyStartNanos = -1;
+            }
+        }
+    }
+
+    // ========== 等级与决策 ==========
+
+    public synchronized long getBandwidthKbps() {
+        if (bandwidthKbps >= 0) {
+            return (long) bandwidthKbps;
+        }
+        return linkBandwidthKbps;
+    }
+
+    public synchronized long getRttMs() {
+        return (long) rttMs;
+    }
+
+    /**
+     * 带宽等级
+     */
+    public NetworkQuality getBandwidthClass() {
+        long kbps = getBandwidthKbps();
+        if (kbps < 0) {
+            return NetworkQuality.UNKNOWN;
+        }
+        if (kbps < 1000) {
+            return NetworkQuality.POOR;
+        }
+        if (kbps < 5000) {
+            return NetworkQuality.MODERATE;
+        }
+        if (kbps < 20000) {
+            return NetworkQuality.GOOD;
+        }
+        return NetworkQuality.EXCELLENT;
+    }
+
+    /**
+     * RTT等级
+     */
+    public NetworkQuality getRttClass() {
+        long rtt = getRttMs();
+        if (rtt < 0) {
+            return NetworkQuality.UNKNOWN;
+        }
+        if (rtt > 400) {
+            return NetworkQuality.POOR;
+        }
+        if (rtt > 150) {
+            return NetworkQuality.MODERATE;
+        }
+        if (rtt > 50) {
+            return NetworkQuality.GOOD;
+        }
+        return NetworkQuality.EXCELLENT;
+    }
+
+    /**
+     * 综合等级：取带宽和RTT中较差的一个
+     */
+    public NetworkQuality getQuality() {
+        NetworkQuality bandwidth = getBandwidthClass();
+        NetworkQuality rtt = getRttClass();
+        if (bandwidth == NetworkQuality.UNKNOWN) {
+            return rtt;
+        }
+        if (rtt == NetworkQuality.UNKNOWN) {
+            return bandwidth;
+        }
+        return bandwidth.ordinal() < rtt.ordinal() ? bandwidth : rtt;
+    }
+
+    /**
+     * 网络质量等级变化通知
+     */
+    public LiveData<NetworkQuality> getQualityLiveData() {
+        return quality;
+    }
+
+    /**
+     * 图片解码的目标长边（像素），0表示使用原图尺寸
+     */
+    public int getImageTargetLongEdge() {
+        switch (getQuality()) {
+            case POOR:
+                return 1280;
+            case MODERATE:
+                return 1920;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 播放顺序上提前准备的文件数
+     */
+    public int getPrefetchDepth() {
+        switch (getQuality()) {
+            case MODERATE:
+                return 2;
+            case GOOD:
+                return 3;
+            case EXCELLENT:
+                return 4;
+            case POOR:
+            case UNKNOWN:
+            default:
+                // 弱网时避免预加载和当前播放抢带宽
+                return 1;
+        }
+    }
+
+    /**
+     * ExoPlayer缓冲阈值
+     * 弱网多缓冲再起播以减少卡顿，好网络尽快起播
+     */
+    public BufferConfig getBufferConfig() {
+        switch (getQuality()) {
+            case POOR:
+                return new BufferConfig(15000, 40000, 1500, 3000);
+            case MODERATE:
+                return new BufferConfig(10000, 30000, 1000, 2000);
+            case GOOD:
+                return new BufferConfig(8000, 30000, 500, 1500);
+            case EXCELLENT:
+                return new BufferConfig(5000, 20000, 300, 1000);
+            case UNKNOWN:
+            default:
+                return new BufferConfig(10000, 30000, 500, 1500);
+        }
+    }
+
+    /**
+     * ExoPlayer带宽测量的初始估计（bps），未知时返回-1
+     */
+    public long getInitialBitrateEstimate() {
+        long kbps = getBandwidthKbps();
+        return kbps > 0 ? kbps * 1000 : -1;
+    }
+
+    private void publish() {
+        NetworkQuality current = getQuality();
+        synchronized (this) {
+            if (current == lastPublished) {
+                return;
+            }
+            lastPublished = current;
+        }
+        Log.d(TAG, "网络质量变化: " + current + " (带宽=" + getBandwidthKbps() + "kbps, RTT=" + getRttMs() + "ms)");
+        quality.postValue(current);
+    }
+}
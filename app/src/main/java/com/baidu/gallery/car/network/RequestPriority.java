@@ -0,0 +1,11 @@
+package com.baidu.gallery.car.network;
+
+/**
+ * 网盘API请求优先级
+ * 通过Retrofit的@Tag传给调度器，数值越小优先级越高
+ */
+public enum RequestPriority {
+    FOREGROUND,     // 用户主动发起（浏览目录、点击播放），严格优先
+    PREFETCH,       // 预加载（下一个文件的dlink等）
+    CRAWL           // 后台遍历（刷新播放列表、递归获取目录）
+}
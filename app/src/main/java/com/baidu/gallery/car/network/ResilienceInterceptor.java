@@ -0,0 +1,148 @@
+package com.baidu.gallery.car.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 百度网盘API弹性拦截器
+ * 位于BaiduPanService之下，对每次调用做：
+ * 1. 按接口熔断检查（服务降级时快速失败）
+ * 2. 根据HTTP状态码/errno/网络异常分类错误
+ * 3. 对可重试和频控错误做带抖动的指数退避重试
+ *
+ * 注意：拦截器运行在OkHttp的调度线程上，退避等待会占住该线程，
+ * 因此每次调用在拦截器内累计等待有上限（见RetryPolicy），更长的退避交给调用方，
+ * 避免几个故障接口耗尽调度线程、拖慢其它请求
+ */
+public class ResilienceInterceptor implements Interceptor {
+    private static final String TAG = "ResilienceInterceptor";
+
+    // 只窥探响应体开头用于解析errno，避免复制整个文件列表
+    private static final long PEEK_BYTES = 1024;
+
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+
+    public ResilienceInterceptor(RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * 接口标识：路径 + method参数，例如 "xpan/file?method=list"
+     */
+    public static String endpointKey(Request request) {
+        String path = request.url().encodedPath();
+        String method = request.url().queryParameter("method");
+        return method != null ? path + "?method=" + method : path;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = endpointKey(request);
+
+        if (!circuitBreaker.allowRequest(endpoint)) {
+            throw new IOException("熔断中，暂停请求 " + endpoint + "，剩余 " +
+                    circuitBreaker.getRemainingOpenMs(endpoint) + "ms");
+        }
+
+        // 每次调用都必须记录一个结果或归还探测名额，否则半开状态的接口会一直快速失败
+        boolean outcomeRecorded = false;
+        try {
+            int attempt = 0;
+            long waitedMs = 0;
+            while (true) {
+                attempt++;
+                ApiErrorClassifier.ErrorClass errorClass;
+                Response response = null;
+                IOException failure = null;
+
+                try {
+                    response = chain.proceed(request);
+                } catch (IOException e) {
+                    failure = e;
+                }
+
+                // 用户取消或切换播放列表取消的请求与服务状态无关，不计入熔断
+                if (chain.call().isCanceled()) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return response;
+                }
+
+                if (failure != null) {
+                    errorClass = ApiErrorClassifier.classifyException(failure);
+                } else {
+                    errorClass = classifyResponse(response);
+                }
+
+                if (errorClass == ApiErrorClassifier.ErrorClass.SUCCESS ||
+                    errorClass == ApiErrorClassifier.ErrorClass.FATAL) {
+                    // 致命错误说明服务本身可用，不计入熔断
+                    circuitBreaker.recordSuccess(endpoint);
+                    outcomeRecorded = true;
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return response;
+                }
+
+                long delay = retryPolicy.shouldRetry(attempt, errorClass)
+                        ? retryPolicy.getDelayMs(attempt, errorClass) : -1;
+                if (delay < 0 || !retryPolicy.canWaitInline(waitedMs, delay)) {
+                    circuitBreaker.recordFailure(endpoint);
+                    outcomeRecorded = true;
+                    Log.w(TAG, "放弃重试: " + endpoint + ", 尝试次数=" + attempt + ", 类别=" + errorClass +
+                            (delay >= 0 ? ", 退避" + delay + "ms超出拦截器内等待上限，交给调用方" : ""));
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return response;
+                }
+                Log.w(TAG, "请求失败，" + delay + "ms后重试: " + endpoint +
+                        " (第" + attempt + "次, 类别=" + errorClass +
+                        (failure != null ? ", 异常=" + failure.getMessage() : ", HTTP=" + response.code()) + ")");
+
+                if (response != null) {
+                    response.close();
+                }
+
+                waitedMs += delay;
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("重试等待被中断: " + endpoint);
+                }
+            }
+        } finally {
+            if (!outcomeRecorded) {
+                // 取消、中断或解析响应时异常：不判定服务好坏，只归还半开状态的探测名额
+                circuitBreaker.releaseProbe(endpoint);
+            }
+        }
+    }
+
+    /**
+     * 根据HTTP状态码和响应体中的errno分类
+     */
+    private ApiErrorClassifier.ErrorClass classifyResponse(Response response) throws IOException {
+        ApiErrorClassifier.ErrorClass httpClass = ApiErrorClassifier.classifyHttp(response.code());
+        if (httpClass != ApiErrorClassifier.ErrorClass.SUCCESS) {
+            return httpClass;
+        }
+        String snippet = response.peekBody(PEEK_BYTES).string();
+        return ApiErrorClassifier.classifyErrno(ApiErrorClassifier.parseErrno(snippet));
+    }
+}
@@ -2,6 +2,7 @@ package com.baidu.gallery.car.network;
 
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -15,6 +16,9 @@ public class RetrofitClient {
     private static volatile Retrofit panApiInstance;
     private static volatile Retrofit oauthInstance;
     
+    // 网盘API共享的熔断器（按接口维度统计）
+    private static final CircuitBreaker panCircuitBreaker = new CircuitBreaker(5, 30000);
+    
     /**
      * 获取百度网盘API的Retrofit实例
      */
@@ -22,7 +26,7 @@ public class RetrofitClient {
         if (panApiInstance == null) {
             synchronized (RetrofitClient.class) {
                 if (panApiInstance == null) {
-                    panApiInstance = createRetrofit(ApiConstants.PAN_API_BASE_URL);
+                    panApiInstance = createRetrofit(ApiConstants.PAN_API_BASE_URL, true);
                 }
             }
         }
@@ -36,24 +40,59 @@ public class RetrofitClient {
         if (oauthInstance == null) {
             synchronized (RetrofitClient.class) {
                 if (oauthInstance == null) {
-                    oauthInstance = createRetrofit(ApiConstants.OAUTH_BASE_URL);
+                    oauthInstance = createRetrofit(ApiConstants.OAUTH_BASE_URL, false);
                 }
             }
         }
         return oauthInstance;
     }
     
+    /**
+     * 获取网盘API使用的OkHttpClient（用于共享连接池，例如连接预热）
+     */
+    public static OkHttpClient getPanHttpClient() {
+        return (OkHttpClient) getPanApiInstance().callFactory();
+    }
+    
+    /**
+     * 获取网盘API的熔断器
+     */
+    public static CircuitBreaker getPanCircuitBreaker() {
+        return panCircuitBreaker;
+    }
+    
     /**
      * 创建Retrofit实例
+     * @param baseUrl 基础URL
+     * @param withResilience 是否启用重试/熔断（OAuth轮询本身就有重试语义，不启用）
      */
-    private static Retrofit createRetrofit(String baseUrl) {
+    private static Retrofit createRetrofit(String baseUrl, boolean withResilience) {
         OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder();
         
+        // 弹性拦截器放在最外层，每次重试都会重新经过后续拦截器
+        if (withResilience) {
+            httpClientBuilder.addInterceptor(
+                    new ResilienceInterceptor(RetryPolicy.defaultPolicy(), panCircuitBreaker));
+            
+            // 限流在重试之内，重试同样消耗配额
+            httpClientBuilder.addInterceptor(new ThrottleInterceptor(ApiRequestScheduler.getInstance()));
+            
+            // 排队等待令牌的请求会占用调度线程，放宽单host并发上限，
+            // 避免后台遍历占满名额导致前台请求连调度器都进不去；实际速率由ApiRequestScheduler控制
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(64);
+            dispatcher.setMaxRequestsPerHost(16);
+            httpClientBuilder.dispatcher(dispatcher);
+        }
+        
         // 添加日志拦截器
         HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
         loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
         httpClientBuilder.addInterceptor(loggingInterceptor);
         
+        // 采集RTT和吞吐，供全局网络质量估计
+        httpClientBuilder.eventListenerFactory(NetworkQualityEstimator.getInstance().eventListenerFactory());
+        
         // 设置超时时间
         httpClientBuilder.connectTimeout(ApiConstants.CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
         httpClientBuilder.readTimeout(ApiConstants.READ_TIMEOUT, TimeUnit.MILLISECONDS);
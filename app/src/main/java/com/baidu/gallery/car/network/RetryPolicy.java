@@ -0,0 +1,80 @@
+package com.baidu.gallery.car.network;
+
+import java.util.Random;
+
+/**
+ * 重试策略
+ * 使用带抖动的指数退避（full jitter），避免大量请求在同一时刻重试。
+ * 拦截器内的退避会占住OkHttp调度线程，每次调用累计的等待时间有上限，
+ * 超出上限的重试（例如频控）交给调用方按自己的节奏处理
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long rateLimitBaseDelayMs;
+    private final long maxInlineDelayMs;
+    private final Random random = new Random();
+
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, long rateLimitBaseDelayMs,
+                       long maxInlineDelayMs) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.rateLimitBaseDelayMs = rateLimitBaseDelayMs;
+        this.maxInlineDelayMs = maxInlineDelayMs;
+    }
+
+    /**
+     * 默认策略：最多4次尝试，基础退避500ms，频控基础退避2秒，上限10秒；
+     * 拦截器内每次调用最多累计等待1.5秒
+     */
+    public static RetryPolicy defaultPolicy() {
+        return new RetryPolicy(4, 500, 10000, 2000, 1500);
+    }
+
+    /**
+     * 判断是否还可以继续重试
+     * @param attempt 已经完成的尝试次数（从1开始）
+     * @param errorClass 上一次的错误类别
+     */
+    public boolean shouldRetry(int attempt, ApiErrorClassifier.ErrorClass errorClass) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        return errorClass == ApiErrorClassifier.ErrorClass.RETRYABLE ||
+               errorClass == ApiErrorClassifier.ErrorClass.RATE_LIMITED;
+    }
+
+    /**
+     * 计算下一次重试前的等待时间
+     * @param attempt 已经完成的尝试次数（从1开始）
+     * @param errorClass 上一次的错误类别
+     * @return 等待时间（毫秒）
+     */
+    public long getDelayMs(int attempt, ApiErrorClassifier.ErrorClass errorClass) {
+        long base = errorClass == ApiErrorClassifier.ErrorClass.RATE_LIMITED ? rateLimitBaseDelayMs : baseDelayMs;
+        long cap = Math.min(maxDelayMs, base << Math.min(attempt - 1, 16));
+        synchronized (random) {
+            // 频控时至少等待一个基础周期，避免抖动到0立刻再次触发频控
+            if (errorClass == ApiErrorClassifier.ErrorClass.RATE_LIMITED) {
+                return base + (long) (random.nextDouble() * Math.max(0, cap - base));
+            }
+            return (long) (random.nextDouble() * cap);
+        }
+    }
+
+    /**
+     * 判断这次退避能否在拦截器内等待
+     * @param waitedMs 本次调用已经在拦截器内等待的时间
+     * @param delayMs 下一次退避时间
+     */
+    public boolean canWaitInline(long waitedMs, long delayMs) {
+        return waitedMs + delayMs <= maxInlineDelayMs;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
@@ -0,0 +1,48 @@
+package com.baidu.gallery.car.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 限流拦截器
+ * 位于ResilienceInterceptor之内，每次实际发出（包括重试）都要先从ApiRequestScheduler取得令牌
+ * 请求优先级来自Retrofit的@Tag(RequestPriority)，未标记的请求按前台处理
+ */
+public class ThrottleInterceptor implements Interceptor {
+
+    private final ApiRequestScheduler scheduler;
+
+    public ThrottleInterceptor(ApiRequestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestPriority priority = request.tag(RequestPriority.class);
+        if (priority == null) {
+            priority = RequestPriority.FOREGROUND;
+        }
+        ApiRequestScheduler.EndpointFamily family =
+                ApiRequestScheduler.familyOf(ResilienceInterceptor.endpointKey(request));
+
+        boolean acquired;
+        try {
+            acquired = scheduler.acquire(family, priority, () -> chain.call().isCanceled());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待请求配额被中断");
+        }
+        if (!acquired) {
+            throw new IOException("Canceled");
+        }
+        return chain.proceed(request);
+    }
+}
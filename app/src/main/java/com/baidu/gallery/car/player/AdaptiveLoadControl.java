@@ -0,0 +1,295 @@
+package com.baidu.gallery.car.player;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.common.util.Util;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.LoadControl;
+import androidx.media3.exoplayer.Renderer;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+import androidx.media3.exoplayer.upstream.Allocator;
+
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaMetadata;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
+
+import java.util.Locale;
+
+/**
+ * 自适应缓冲控制
+ * 固定阈值对4K高码率行车记录和720p手机短片一视同仁：前者频繁卡顿，后者白白多缓冲。
+ * 这里每个文件开始播放时按"实测带宽 / 文件码率"的余量重新计算阈值：
+ * 1. 带宽跟不上码率：按文件时长估算需要的预缓冲，起播前多攒一些
+ * 2. 余量很大：少缓冲、快起播
+ * 3. 其余情况使用NetworkQualityEstimator按网络质量给出的阈值
+ * 播放中每发生一次卡顿，加大最小缓冲和卡顿后的起播缓冲。
+ * 分配器、后向缓冲等仍交给DefaultLoadControl
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class AdaptiveLoadControl implements LoadControl {
+    private static final String TAG = "AdaptiveLoadControl";
+
+    // 缓冲内存上限，高码率文件按字节数封顶，避免车机内存吃紧
+    private static final long MAX_TARGET_BUFFER_BYTES = 128L * 1024 * 1024;
+    private static final long MIN_TARGET_BUFFER_BYTES = 16L * 1024 * 1024;
+    // 余量低于该倍数视为带宽紧张，高于后者视为充裕
+    private static final double TIGHT_HEADROOM = 1.3;
+    private static final double AMPLE_HEADROOM = 4.0;
+    // 卡顿后的调整上限
+    private static final int MAX_START_BUFFER_MS = 15000;
+    private static final int MAX_MIN_BUFFER_MS = 60000;
+    private static final int MIN_BUFFER_FLOOR_MS = 500;
+
+    /**
+     * 一组缓冲阈值（不可变，播放线程直接读取）
+     */
+    static final class Thresholds {
+        final int minBufferMs;
+        final int maxBufferMs;
+        final int bufferForPlaybackMs;
+        final int bufferForPlaybackAfterRebufferMs;
+        final long targetBufferBytes;
+
+        Thresholds(int minBufferMs, int maxBufferMs, int bufferForPlaybackMs,
+                   int bufferForPlaybackAfterRebufferMs, long targetBufferBytes) {
+            this.minBufferMs = minBufferMs;
+            this.maxBufferMs = Math.max(maxBufferMs, minBufferMs);
+            this.bufferForPlaybackMs = bufferForPlaybackMs;
+            this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+            this.targetBufferBytes = targetBufferBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d/%d/%d/%dms, %dMB", minBufferMs, maxBufferMs,
+                    bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs, targetBufferBytes / 1024 / 1024);
+        }
+    }
+
+    private final DefaultLoadControl delegate;
+    private volatile Thresholds thresholds;
+    // 当前文件的码率（bps），未知时为-1
+    private volatile long currentBitrate = -1;
+    private int rebufferCount;
+    private boolean isLoading;
+
+    public AdaptiveLoadControl() {
+        Thresholds initial = fromNetworkDefaults(MAX_TARGET_BUFFER_BYTES);
+        thresholds = initial;
+        delegate = new DefaultLoadControl.Builder()
+                .setBufferDurationsMs(initial.minBufferMs, initial.maxBufferMs,
+                        initial.bufferForPlaybackMs, initial.bufferForPlaybackAfterRebufferMs)
+                .setTargetBufferBytes((int) MAX_TARGET_BUFFER_BYTES)
+                .setPrioritizeTimeOverSizeThresholds(true)
+                .build();
+        Log.d(TAG, "初始缓冲阈值: " + initial);
+    }
+
+    // ========== 调整 ==========
+
+    /**
+     * 新文件开始播放时按码率和当前带宽重新计算阈值
+     */
+    public synchronized void configureFor(@Nullable FileInfo file, @Nullable MediaMetadata metadata) {
+        rebufferCount = 0;
+        currentBitrate = estimateBitrate(file, metadata);
+        long durationMs = metadata != null ? metadata.getDurationMs() : 0;
+        long bandwidthBps = NetworkQualityEstimator.getInstance().getBandwidthKbps() * 1000;
+
+        Thresholds base = fromNetworkDefaults(targetBytesFor(currentBitrate));
+        thresholds = thresholdsFor(currentBitrate, durationMs, bandwidthBps, base);
+        Log.d(TAG, String.format(Locale.US, "缓冲阈值: %s, 码率=%dkbps, 带宽=%dkbps, %s -> %s",
+                file != null ? file.getServerFilename() : "?", currentBitrate / 1000, bandwidthBps / 1000,
+                describeHeadroom(currentBitrate, bandwidthBps), thresholds));
+    }
+
+    /**
+     * 播放中发生卡顿：加大最小缓冲和卡顿后的起播缓冲
+     */
+    public synchronized void onRebuffer() {
+        rebufferCount++;
+        thresholds = afterRebuffer(thresholds, currentBitrate);
+        Log.d(TAG, "第" + rebufferCount + "次卡顿，缓冲阈值调整为: " + thresholds);
+    }
+
+    /**
+     * 按"带宽 / 码率"余量在网络质量阈值的基础上调整，并按字节上限封顶
+     * @param base 按网络质量给出的阈值
+     */
+    static Thresholds thresholdsFor(long bitrate, long durationMs, long bandwidthBps, Thresholds base) {
+        if (bitrate <= 0 || bandwidthBps <= 0) {
+            return capByBytes(base, bitrate);
+        }
+        double headroom = (double) bandwidthBps / bitrate;
+        Thresholds next;
+        if (headroom < TIGHT_HEADROOM) {
+            // 下载速度不足以边下边播：起播前先攒够（时长未知时按一分钟估算）
+            long playMs = durationMs > 0 ? durationMs : 60000;
+            int startMs = (int) Math.min(MAX_START_BUFFER_MS,
+                    Math.max(3000, playMs * Math.max(0, 1 - headroom / TIGHT_HEADROOM)));
+            next = new Thresholds(Math.max(base.minBufferMs, 30000), 60000,
+                    startMs, Math.min(MAX_START_BUFFER_MS, startMs * 2), base.targetBufferBytes);
+        } else if (headroom >= AMPLE_HEADROOM) {
+            next = new Thresholds(Math.min(base.minBufferMs, 5000), Math.min(base.maxBufferMs, 15000),
+                    Math.min(base.bufferForPlaybackMs, 300),
+                    Math.min(base.bufferForPlaybackAfterRebufferMs, 1000), base.targetBufferBytes);
+        } else {
+            next = base;
+        }
+        return capByBytes(next, bitrate);
+    }
+
+    /**
+     * 卡顿一次后的阈值：最小缓冲加大一半，卡顿后的起播缓冲加倍
+     */
+    static Thresholds afterRebuffer(Thresholds t, long bitrate) {
+        Thresholds next = new Thresholds(
+                Math.min(MAX_MIN_BUFFER_MS, t.minBufferMs * 3 / 2),
+                Math.min(MAX_MIN_BUFFER_MS, Math.max(t.maxBufferMs, t.minBufferMs * 3 / 2)),
+                t.bufferForPlaybackMs,
+                Math.min(MAX_START_BUFFER_MS, Math.max(t.bufferForPlaybackAfterRebufferMs * 2, 1000)),
+                t.targetBufferBytes);
+        return capByBytes(next, bitrate);
+    }
+
+    private static String describeHeadroom(long bitrate, long bandwidthBps) {
+        if (bitrate <= 0 || bandwidthBps <= 0) {
+            return "码率或带宽未知，按网络质量";
+        }
+        double headroom = (double) bandwidthBps / bitrate;
+        if (headroom < TIGHT_HEADROOM) {
+            return String.format(Locale.US, "带宽紧张(余量%.1fx)", headroom);
+        }
+        if (headroom >= AMPLE_HEADROOM) {
+            return String.format(Locale.US, "带宽充裕(余量%.1fx)", headroom);
+        }
+        return String.format(Locale.US, "带宽适中(余量%.1fx)", headroom);
+    }
+
+    /**
+     * 文件码率：优先用索引到的码率，其次用文件大小除以时长
+     */
+    static long estimateBitrate(@Nullable FileInfo file, @Nullable MediaMetadata metadata) {
+        if (metadata != null && metadata.getBitrate() > 0) {
+            return metadata.getBitrate();
+        }
+        if (file != null && file.getSize() > 0 && metadata != null && metadata.getDurationMs() > 0) {
+            return file.getSize() * 8 * 1000 / metadata.getDurationMs();
+        }
+        return -1;
+    }
+
+    /**
+     * 缓冲字节上限：能装下最大缓冲时长，且不超过内存上限
+     */
+    static long targetBytesFor(long bitrate) {
+        if (bitrate <= 0) {
+            return MAX_TARGET_BUFFER_BYTES;
+        }
+        long bytes = bitrate / 8 * 60;
+        return Math.max(MIN_TARGET_BUFFER_BYTES, Math.min(MAX_TARGET_BUFFER_BYTES, bytes));
+    }
+
+    /**
+     * 高码率时按字节上限压低时长阈值，保证优先时长的策略不会超出内存上限
+     */
+    private static Thresholds capByBytes(Thresholds t, long bitrate) {
+        if (bitrate <= 0) {
+            return t;
+        }
+        int capMs = (int) Math.min(Integer.MAX_VALUE, t.targetBufferBytes * 8 * 1000 / bitrate);
+        if (t.maxBufferMs <= capMs) {
+            return t;
+        }
+        return new Thresholds(Math.max(MIN_BUFFER_FLOOR_MS, Math.min(t.minBufferMs, capMs)), capMs,
+                Math.min(t.bufferForPlaybackMs, capMs), Math.min(t.bufferForPlaybackAfterRebufferMs, capMs),
+                t.targetBufferBytes);
+    }
+
+    private static Thresholds fromNetworkDefaults(long targetBytes) {
+        NetworkQualityEstimator.BufferConfig config = NetworkQualityEstimator.getInstance().getBufferConfig();
+        return new Thresholds(config.minBufferMs, config.maxBufferMs,
+                config.bufferForPlaybackMs, config.bufferForPlaybackAfterRebufferMs, targetBytes);
+    }
+
+    // ========== LoadControl ==========
+
+    @Override
+    public void onPrepared() {
+        isLoading = false;
+        delegate.onPrepared();
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void onTracksSelected(Renderer[] renderers, TrackGroupArray trackGroups,
+                                 ExoTrackSelection[] trackSelections) {
+        delegate.onTracksSelected(renderers, trackGroups, trackSelections);
+    }
+
+    @Override
+    public void onStopped() {
+        isLoading = false;
+        delegate.onStopped();
+    }
+
+    @Override
+    public void onReleased() {
+        isLoading = false;
+        delegate.onReleased();
+    }
+
+    @Override
+    public Allocator getAllocator() {
+        return delegate.getAllocator();
+    }
+
+    @Override
+    public long getBackBufferDurationUs() {
+        return delegate.getBackBufferDurationUs();
+    }
+
+    @Override
+    public boolean retainBackBufferFromKeyframe() {
+        return delegate.retainBackBufferFromKeyframe();
+    }
+
+    @Override
+    public boolean shouldContinueLoading(long playbackPositionUs, long bufferedDurationUs, float playbackSpeed) {
+        Thresholds t = thresholds;
+        boolean targetBufferSizeReached = getAllocator().getTotalBytesAllocated() >= t.targetBufferBytes;
+        long maxBufferUs = Util.msToUs(t.maxBufferMs);
+        long minBufferUs = Util.msToUs(t.minBufferMs);
+        if (playbackSpeed > 1) {
+            minBufferUs = Math.min(Util.getMediaDurationForPlayoutDuration(minBufferUs, playbackSpeed), maxBufferUs);
+        }
+        minBufferUs = Math.max(minBufferUs, Util.msToUs(MIN_BUFFER_FLOOR_MS));
+        if (bufferedDurationUs < minBufferUs) {
+            // 优先时长：低于最小缓冲时总是继续加载（字节上限已折算进时长阈值）
+            isLoading = true;
+        } else if (bufferedDurationUs >= maxBufferUs || targetBufferSizeReached) {
+            isLoading = false;
+        }
+        return isLoading;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public boolean shouldStartPlayback(long bufferedDurationUs, float playbackSpeed,
+                                       boolean rebuffering, long targetLiveOffsetUs) {
+        Thresholds t = thresholds;
+        long bufferedPlayoutUs = Util.getPlayoutDurationForMediaDuration(bufferedDurationUs, playbackSpeed);
+        long minBufferUs = Util.msToUs(rebuffering ? t.bufferForPlaybackAfterRebufferMs : t.bufferForPlaybackMs);
+        if (targetLiveOffsetUs != C.TIME_UNSET) {
+            minBufferUs = Math.min(targetLiveOffsetUs / 2, minBufferUs);
+        }
+        return minBufferUs <= 0
+                || bufferedPlayoutUs >= minBufferUs
+                || getAllocator().getTotalBytesAllocated() >= t.targetBufferBytes;
+    }
+}
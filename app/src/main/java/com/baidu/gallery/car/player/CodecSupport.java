@@ -0,0 +1,49 @@
+package com.baidu.gallery.car.player;
+
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备解码能力查询（结果按MIME缓存）
+ */
+public final class CodecSupport {
+
+    private static final Map<String, Boolean> decoderCache = new ConcurrentHashMap<>();
+
+    private CodecSupport() {
+    }
+
+    /**
+     * 设备是否有该MIME类型的解码器
+     */
+    public static boolean hasDecoder(String mimeType) {
+        Boolean cached = decoderCache.get(mimeType);
+        if (cached != null) {
+            return cached;
+        }
+        boolean found = false;
+        try {
+            for (MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+                if (info.isEncoder()) {
+                    continue;
+                }
+                for (String type : info.getSupportedTypes()) {
+                    if (type.equalsIgnoreCase(mimeType)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (found) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            android.util.Log.w("CodecSupport", "查询解码器失败: " + e.getMessage());
+        }
+        decoderCache.put(mimeType, found);
+        return found;
+    }
+}
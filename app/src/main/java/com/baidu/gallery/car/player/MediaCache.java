@@ -0,0 +1,233 @@
+package com.baidu.gallery.car.player;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.TransferListener;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaIdentity;
+import com.baidu.gallery.car.utils.PreferenceUtils;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 视频磁盘缓存
+ * 进程内唯一的SimpleCache，按LRU淘汰，跨会话保留。
+ * 缓存键基于文件md5（没有时用fsId），不使用带签名的dlink，dlink轮换后仍能命中：
+ * 单曲循环、从历史记录重播、顺序/倒序播放回绕时不再重复下载。
+ * SimpleCache创建时要扫描磁盘索引，在后台线程完成（Application启动时即开始）；
+ * 需要缓存的调用（getCache、createDataSourceFactory）会等待扫描结束，不能在主线程调用，
+ * 播放器使用createDeferredDataSourceFactory，到播放线程创建数据源时才取缓存
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class MediaCache {
+    private static final String TAG = "MediaCache";
+    private static final String CACHE_DIR_NAME = "media_cache";
+
+    private static volatile MediaCache instance;
+
+    // 后台初始化线程：SimpleCache构造时扫描磁盘索引，耗时随缓存文件数增长
+    private static final ExecutorService INIT_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final Future<SimpleCache> cacheFuture;
+    private final long budgetBytes;
+
+    // 命中统计（本次进程内）
+    private final AtomicLong cachedBytesRead = new AtomicLong();
+    private final AtomicLong networkBytesRead = new AtomicLong();
+
+    private MediaCache(Context context) {
+        // 预算在创建时确定，修改设置后下次启动生效
+        budgetBytes = PreferenceUtils.getMediaCacheSizeMb(context) * 1024L * 1024L;
+        File cacheDir = new File(context.getCacheDir(), CACHE_DIR_NAME);
+        cacheFuture = INIT_EXECUTOR.submit(() -> {
+            long startMs = SystemClock.elapsedRealtime();
+            SimpleCache created = new SimpleCache(cacheDir,
+                    new LeastRecentlyUsedCacheEvictor(budgetBytes),
+                    new StandaloneDatabaseProvider(context));
+            Log.d(TAG, "媒体缓存初始化: 预算=" + (budgetBytes / 1024 / 1024) + "MB, 已用=" +
+                    (created.getCacheSpace() / 1024 / 1024) + "MB, 耗时=" +
+                    (SystemClock.elapsedRealtime() - startMs) + "ms");
+            return created;
+        });
+    }
+
+    /**
+     * 提前在后台初始化缓存（Application启动时调用）
+     */
+    public static void warmUp(Context context) {
+        getInstance(context);
+    }
+
+    public static MediaCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MediaCache.class) {
+                if (instance == null) {
+                    instance = new MediaCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 文件的稳定缓存键
+     */
+    public static String cacheKeyFor(FileInfo file) {
+        return MediaIdentity.of(file).getKey();
+    }
+
+    /**
+     * 获取缓存，初始化未完成时等待（不能在主线程调用）
+     */
+    public SimpleCache getCache() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return cacheFuture.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("媒体缓存初始化失败", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 缓存已初始化完成时返回，否则返回null（不等待）
+     */
+    @Nullable
+    private SimpleCache getCacheIfReady() {
+        return cacheFuture.isDone() ? getCache() : null;
+    }
+
+    /**
+     * 播放器使用的缓存数据源工厂：创建时不访问缓存，播放器在播放线程创建数据源时才取缓存，
+     * 主线程构建播放器不会等待磁盘索引扫描
+     */
+    public DataSource.Factory createDeferredDataSourceFactory(DataSource.Factory upstreamFactory) {
+        return () -> createDataSourceFactory(upstreamFactory).createDataSource();
+    }
+
+    /**
+     * 在上游数据源外包一层缓存（会等待缓存初始化，不能在主线程调用）
+     * 上游的网络读取量通过TransferListener统计，缓存读取量通过CacheDataSource事件统计
+     */
+    public CacheDataSource.Factory createDataSourceFactory(DataSource.Factory upstreamFactory) {
+        return new CacheDataSource.Factory()
+                .setCache(getCache())
+                .setUpstreamDataSourceFactory(() -> {
+                    DataSource upstream = upstreamFactory.createDataSource();
+                    upstream.addTransferListener(networkCounter);
+                    return upstream;
+                })
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR)
+                .setEventListener(new CacheDataSource.EventListener() {
+                    @Override
+                    public void onCachedBytesRead(long cacheSizeBytes, long cachedBytes) {
+                        cachedBytesRead.addAndGet(cachedBytes);
+                    }
+
+                    @Override
+                    public void onCacheIgnored(int reason) {
+                        Log.w(TAG, "缓存被忽略，原因=" + reason);
+                    }
+                });
+    }
+
+    private final TransferListener networkCounter = new TransferListener() {
+        @Override
+        public void onTransferInitializing(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onTransferStart(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onBytesTransferred(@NonNull DataSource source, @NonNull DataSpec dataSpec,
+                                       boolean isNetwork, int bytesTransferred) {
+            if (isNetwork) {
+                networkBytesRead.addAndGet(bytesTransferred);
+            }
+        }
+
+        @Override
+        public void onTransferEnd(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+    };
+
+    /**
+     * 文件是否已经完整缓存，缓存还在初始化时返回false
+     */
+    public boolean isFullyCached(FileInfo file) {
+        SimpleCache cache = getCacheIfReady();
+        String key = cacheKeyFor(file);
+        long size = file.getSize();
+        return cache != null && size > 0 && cache.isCached(key, 0, size);
+    }
+
+    /**
+     * 字节命中率（0~1），没有读取时返回-1
+     */
+    public double getHitRatio() {
+        long cached = cachedBytesRead.get();
+        long total = cached + networkBytesRead.get();
+        return total > 0 ? (double) cached / total : -1;
+    }
+
+    public long getCachedBytesRead() {
+        return cachedBytesRead.get();
+    }
+
+    public long getNetworkBytesRead() {
+        return networkBytesRead.get();
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * 已用空间，缓存还在初始化时返回0
+     */
+    public long getUsedBytes() {
+        SimpleCache cache = getCacheIfReady();
+        return cache != null ? cache.getCacheSpace() : 0;
+    }
+
+    /**
+     * 统计摘要，用于日志
+     */
+    public String getStatsSummary() {
+        double ratio = getHitRatio();
+        return String.format(Locale.US, "命中率=%s, 缓存读取=%dKB, 网络读取=%dKB, 已用=%dMB/%dMB",
+                ratio < 0 ? "N/A" : String.format(Locale.US, "%.1f%%", ratio * 100),
+                cachedBytesRead.get() / 1024, networkBytesRead.get() / 1024,
+                getUsedBytes() / 1024 / 1024, budgetBytes / 1024 / 1024);
+    }
+}
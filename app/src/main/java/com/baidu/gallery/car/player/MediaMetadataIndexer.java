@@ -0,0 +1,288 @@
+package com.baidu.gallery.car.player;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.auth.BaiduAuthService;
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaMetadata;
+import com.baidu.gallery.car.network.RequestPriority;
+import com.baidu.gallery.car.network.RetrofitClient;
+import com.baidu.gallery.car.repository.FileRepository;
+import com.baidu.gallery.car.repository.MediaMetadataRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 视频媒体信息后台索引
+ * 对MP4/MOV只用HTTP Range读取文件开头和moov盒子（moov在文件末尾时跳过mdat直接读取），
+ * 解析出编码、profile/level、分辨率、帧率、码率、时长、旋转后按fsId持久化。
+ * 播放器调度据此在起播前选择播放器，避免先用错播放器再失败切换
+ */
+public class MediaMetadataIndexer {
+    private static final String TAG = "MediaMetadataIndexer";
+
+    // 第一次读取的字节数，faststart的文件moov通常就在这里
+    private static final int HEAD_BYTES = 64 * 1024;
+    // moov上限，超过则放弃（超长视频的样本表）
+    private static final long MAX_MOOV_BYTES = 8L * 1024 * 1024;
+    // 顶层盒子遍历上限，防止损坏文件导致死循环
+    private static final int MAX_TOP_LEVEL_BOXES = 32;
+    private static final long DLINK_TIMEOUT_SECONDS = 30;
+    private static final List<String> ISO_BMFF_EXTENSIONS =
+            Arrays.asList(".mp4", ".m4v", ".mov", ".3gp", ".3g2");
+
+    private static volatile MediaMetadataIndexer instance;
+
+    private final Context context;
+    private final MediaMetadataRepository repository;
+    private final LinkedBlockingDeque<FileInfo> queue = new LinkedBlockingDeque<>();
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private OkHttpClient httpClient;
+
+    private MediaMetadataIndexer(Context context) {
+        this.context = context.getApplicationContext();
+        this.repository = MediaMetadataRepository.getInstance(context);
+        Thread worker = new Thread(this::workLoop, "MediaMetadataIndexer");
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static MediaMetadataIndexer getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MediaMetadataIndexer.class) {
+                if (instance == null) {
+                    instance = new MediaMetadataIndexer(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 按顺序加入索引队列（后台慢慢处理）
+     */
+    public void enqueue(List<FileInfo> files) {
+        for (FileInfo file : files) {
+            if (shouldIndex(file)) {
+                queue.offerLast(file);
+            }
+        }
+    }
+
+    /**
+     * 插队索引（例如播放顺序上的下一个文件）
+     */
+    public void enqueueUrgent(FileInfo file) {
+        if (file != null && file.isVideo() && !repository.contains(file.getFsId())) {
+            pending.add(file.getFsId());
+            queue.offerFirst(file);
+        }
+    }
+
+    private boolean shouldIndex(FileInfo file) {
+        return file != null && file.isVideo() && !repository.contains(file.getFsId()) && pending.add(file.getFsId());
+    }
+
+    private void workLoop() {
+        while (true) {
+            FileInfo file;
+            try {
+                file = queue.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (repository.contains(file.getFsId())) {
+                pending.remove(file.getFsId());
+                continue;
+            }
+            try {
+                index(file);
+            } catch (Exception e) {
+                // 网络错误不记录，下次播放列表加载时重试
+                Log.w(TAG, "索引失败: " + file.getServerFilename() + ", " + e.getMessage());
+            } finally {
+                pending.remove(file.getFsId());
+            }
+        }
+    }
+
+    private void index(FileInfo file) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        if (!isIsoBmff(file.getServerFilename())) {
+            // MKV/AVI等容器不解析，记录下来避免重复检查
+            repository.save(unsupported(file));
+            return;
+        }
+        String token = BaiduAuthService.getInstance(context).getAccessToken();
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        String dlink = resolveDlink(token, file);
+        if (dlink == null) {
+            return;
+        }
+        String url = dlink + (dlink.contains("?") ? "&" : "?") + "access_token=" + token;
+
+        byte[] moov = readMoov(url, file.getSize());
+        MediaMetadata metadata = moov != null ? Mp4MetadataParser.parseMoov(moov, file.getSize()) : null;
+        if (metadata == null) {
+            metadata = unsupported(file);
+        } else {
+            metadata.setFsId(file.getFsId());
+            metadata.setMd5(file.getMd5());
+            metadata.setIndexedAt(System.currentTimeMillis());
+        }
+        repository.save(metadata);
+        Log.d(TAG, "索引完成: " + file.getServerFilename() + " -> " + metadata +
+                ", 耗时 " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * 沿顶层盒子查找moov：先读开头一段，moov不在其中时按盒子大小跳过mdat读取后面的盒子头
+     */
+    @Nullable
+    private byte[] readMoov(String url, long fileSize) throws IOException {
+        byte[] head = fetchRange(url, 0, HEAD_BYTES);
+        Mp4MetadataParser.BoxHeader first = Mp4MetadataParser.readBoxHeader(head, 0);
+        if (first == null || !"ftyp".equals(first.type)) {
+            return null;
+        }
+        long offset = 0;
+        for (int i = 0; i < MAX_TOP_LEVEL_BOXES; i++) {
+            Mp4MetadataParser.BoxHeader box;
+            if (offset + 16 <= head.length) {
+                box = Mp4MetadataParser.readBoxHeader(head, (int) offset);
+            } else {
+                if (fileSize > 0 && offset + 8 > fileSize) {
+                    return null;
+                }
+                box = Mp4MetadataParser.readBoxHeader(fetchRange(url, offset, 16), 0);
+            }
+            if (box == null || box.size == 0 || (box.size < 8)) {
+                return null;
+            }
+            if ("moov".equals(box.type)) {
+                if (box.size > MAX_MOOV_BYTES) {
+                    Log.w(TAG, "moov过大，跳过: " + box.size);
+                    return null;
+                }
+                if (offset + box.size <= head.length) {
+                    return Arrays.copyOfRange(head, (int) offset, (int) (offset + box.size));
+                }
+                return fetchRange(url, offset, (int) box.size);
+            }
+            offset += box.size;
+        }
+        return null;
+    }
+
+    /**
+     * 读取[offset, offset+length)，服务器忽略Range时只读取需要的长度
+     */
+    private byte[] fetchRange(String url, long offset, int length) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .header("User-Agent", "pan.baidu.com")
+                .header("Range", "bytes=" + offset + "-" + (offset + length - 1))
+                .build();
+        try (Response response = getHttpClient().newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("HTTP " + response.code());
+            }
+            if (response.code() != 206 && offset > 0) {
+                throw new IOException("服务器不支持Range请求");
+            }
+            byte[] buffer = new byte[length];
+            int read = 0;
+            InputStream stream = body.byteStream();
+            while (read < length) {
+                int n = stream.read(buffer, read, length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            return read == length ? buffer : Arrays.copyOf(buffer, read);
+        }
+    }
+
+    @Nullable
+    private String resolveDlink(String token, FileInfo file) throws InterruptedException {
+        String dlink = file.getDlink();
+        if (dlink != null && dlink.startsWith("http")) {
+            return dlink;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> result = new AtomicReference<>();
+        FileRepository.getInstance().fetchFileDetail(token, file.getFsId(), RequestPriority.CRAWL,
+                new FileRepository.FileDetailCallback() {
+                    @Override
+                    public void onSuccess(FileInfo fileInfo) {
+                        result.set(fileInfo.getDlink());
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String error) {
+                        latch.countDown();
+                    }
+                });
+        latch.await(DLINK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        String resolved = result.get();
+        return resolved != null && resolved.startsWith("http") ? resolved : null;
+    }
+
+    /**
+     * 与网盘API共享连接池；去掉拦截器，媒体下载不走API的限流和熔断
+     */
+    private synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            OkHttpClient.Builder builder = RetrofitClient.getPanHttpClient().newBuilder();
+            builder.interceptors().clear();
+            httpClient = builder.build();
+        }
+        return httpClient;
+    }
+
+    private static boolean isIsoBmff(String fileName) {
+        if (fileName == null) {
+            return false;
+        }
+        String lower = fileName.toLowerCase(Locale.US);
+        for (String extension : ISO_BMFF_EXTENSIONS) {
+            if (lower.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MediaMetadata unsupported(FileInfo file) {
+        MediaMetadata metadata = new MediaMetadata();
+        metadata.setFsId(file.getFsId());
+        metadata.setMd5(file.getMd5());
+        metadata.setStatus(MediaMetadata.STATUS_UNSUPPORTED);
+        metadata.setIndexedAt(System.currentTimeMillis());
+        return metadata;
+    }
+}
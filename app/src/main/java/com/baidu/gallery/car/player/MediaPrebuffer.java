@@ -0,0 +1,208 @@
+package com.baidu.gallery.car.player;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.CacheWriter;
+
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
+import com.baidu.gallery.car.repository.MediaMetadataRepository;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 下一个视频的预缓冲
+ * 当前文件播放时，把播放顺序上下一个视频开头几秒的数据（按码率折算字节数，
+ * 以及文件末尾，兼容moov在尾部的MP4）写入MediaCache。切到该视频时ExoPlayer直接从磁盘缓存起播，不必等待首字节。
+ * 同一时间只预缓冲一个文件；用户跳到别处时取消，已写入的部分保留在缓存中
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class MediaPrebuffer {
+    private static final String TAG = "MediaPrebuffer";
+
+    // 延迟开始，避免和当前视频的起播抢带宽
+    private static final long START_DELAY_MS = 3000;
+    // 文件末尾预缓冲的字节数（moov在尾部时ExoPlayer会先读这里）
+    private static final long TAIL_BYTES = 256 * 1024;
+    // 码率未知时按4Mbps估算开头字节数
+    private static final long FALLBACK_BITRATE = 4_000_000;
+    // 开头字节数的上下限
+    private static final long MIN_HEAD_BYTES = 512 * 1024;
+    private static final long MAX_HEAD_BYTES = 32L * 1024 * 1024;
+    // 复用的读写缓冲区，预缓冲不额外占用更多内存
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static volatile MediaPrebuffer instance;
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private Future<?> currentTask;
+    private CacheWriter currentWriter;
+    private String currentKey;
+
+    private MediaPrebuffer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static MediaPrebuffer getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MediaPrebuffer.class) {
+                if (instance == null) {
+                    instance = new MediaPrebuffer(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 预缓冲指定视频
+     * @param file 文件信息（用于缓存键和文件大小）
+     * @param url 已附加access_token的下载地址
+     */
+    public synchronized void prebuffer(FileInfo file, String url) {
+        if (file == null || !file.isVideo() || url == null) {
+            return;
+        }
+        String key = MediaCache.cacheKeyFor(file);
+        if (key.equals(currentKey) && currentTask != null && !currentTask.isDone()) {
+            return;
+        }
+        cancel();
+
+        long headBytes = getHeadBudgetBytes(file);
+        if (headBytes <= 0) {
+            Log.d(TAG, "弱网，跳过预缓冲: " + file.getServerFilename());
+            return;
+        }
+        if (MediaCache.getInstance(context).isFullyCached(file)) {
+            Log.d(TAG, "已完整缓存，跳过预缓冲: " + file.getServerFilename());
+            return;
+        }
+
+        currentKey = key;
+        final long fileSize = file.getSize();
+        final String name = file.getServerFilename();
+        currentTask = executor.submit(() -> {
+            // 本次实际新写入缓存的字节数（已在缓存中的部分不计）
+            AtomicLong written = new AtomicLong();
+            try {
+                Thread.sleep(START_DELAY_MS);
+                long start = System.currentTimeMillis();
+                long head = fileSize > 0 ? Math.min(headBytes, fileSize) : headBytes;
+                write(url, key, 0, head, written);
+                if (fileSize > head + TAIL_BYTES) {
+                    write(url, key, fileSize - TAIL_BYTES, TAIL_BYTES, written);
+                }
+                Log.d(TAG, "预缓冲完成: " + name + ", " + (written.get() / 1024) + "KB, 耗时 " +
+                        (System.currentTimeMillis() - start) + "ms");
+            } catch (InterruptedException | InterruptedIOException e) {
+                Log.d(TAG, "预缓冲已取消: " + name + ", 已写入 " + (written.get() / 1024) + "KB");
+            } catch (Exception e) {
+                Log.w(TAG, "预缓冲失败: " + name + ", 已写入 " + (written.get() / 1024) + "KB, " + e.getMessage());
+            } finally {
+                synchronized (MediaPrebuffer.this) {
+                    currentWriter = null;
+                }
+            }
+        });
+        Log.d(TAG, "开始预缓冲: " + name + ", 预算 " + (headBytes / 1024) + "KB");
+    }
+
+    /**
+     * 取消正在进行的预缓冲（用户跳到其他文件或开始播放时调用）
+     */
+    public synchronized void cancel() {
+        if (currentWriter != null) {
+            currentWriter.cancel();
+            currentWriter = null;
+        }
+        if (currentTask != null) {
+            currentTask.cancel(true);
+            currentTask = null;
+        }
+        currentKey = null;
+    }
+
+    /**
+     * 把指定区间写入缓存，实际新写入的字节数累加到written（资源比请求短或中途取消时少于length）
+     */
+    private void write(String url, String key, long position, long length, AtomicLong written) throws Exception {
+        DataSpec dataSpec = new DataSpec.Builder()
+                .setUri(Uri.parse(url))
+                .setPosition(position)
+                .setLength(length)
+                .setKey(key)
+                .build();
+        CacheDataSource dataSource = MediaCache.getInstance(context)
+                .createDataSourceFactory(createHttpDataSourceFactory())
+                .createDataSourceForDownloading();
+        CacheWriter writer = new CacheWriter(dataSource, dataSpec, buffer,
+                (requestLength, bytesCached, newBytesCached) -> written.addAndGet(newBytesCached));
+        synchronized (this) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            currentWriter = writer;
+        }
+        writer.cache();
+    }
+
+    /**
+     * 与播放器相同的请求头，百度网盘会校验User-Agent（本地代理也使用）
+     */
+    static DefaultHttpDataSource.Factory createHttpDataSourceFactory() {
+        return new DefaultHttpDataSource.Factory()
+                .setUserAgent("pan.baidu.com")
+                .setConnectTimeoutMs(15000)
+                .setReadTimeoutMs(15000)
+                .setAllowCrossProtocolRedirects(true);
+    }
+
+    /**
+     * 预缓冲开头的字节数：按网络质量决定的播放秒数乘以文件码率，弱网不预缓冲
+     */
+    private long getHeadBudgetBytes(FileInfo file) {
+        int seconds = getHeadSeconds();
+        if (seconds <= 0) {
+            return 0;
+        }
+        long bitrate = AdaptiveLoadControl.estimateBitrate(file,
+                MediaMetadataRepository.getInstance(context).get(file.getFsId()));
+        if (bitrate <= 0) {
+            bitrate = FALLBACK_BITRATE;
+        }
+        return Math.max(MIN_HEAD_BYTES, Math.min(MAX_HEAD_BYTES, bitrate / 8 * seconds));
+    }
+
+    /**
+     * 按网络质量决定预缓冲开头的播放秒数：网络越好预缓冲越快，不影响当前播放，可以多缓冲几秒
+     */
+    private static int getHeadSeconds() {
+        switch (NetworkQualityEstimator.getInstance().getQuality()) {
+            case POOR:
+                return 0;
+            case GOOD:
+                return 10;
+            case EXCELLENT:
+                return 15;
+            case MODERATE:
+            case UNKNOWN:
+            default:
+                return 5;
+        }
+    }
+}
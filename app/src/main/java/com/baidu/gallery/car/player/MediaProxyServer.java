@@ -0,0 +1,394 @@
+package com.baidu.gallery.car.player;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.SimpleCache;
+
+import com.baidu.gallery.car.model.FileInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地回环缓存代理
+ * VLC用自己的HTTP栈直接请求dlink，拿不到MediaCache。这里在127.0.0.1上起一个HTTP服务，
+ * VLC改为请求代理地址：
+ * 1. 按Range从共享磁盘缓存读取，缺失部分用pan.baidu.com的User-Agent回源并写入缓存
+ * 2. 缓存键与ExoPlayer相同（md5/fsId），ExoPlayer中途切到VLC时已下载的部分不再重复下载
+ * 3. 新请求落在另一个请求正在回源的区间时，短暂等待其写入缓存后直接读缓存，避免重复回源
+ * 4. 回源经过SegmentedHttpDataSource，高码率文件单连接跟不上时自动多连接分段拉取
+ * 代理地址只包含随机生成、不可猜测的条目令牌，不带access_token；dlink刷新后重新注册即可。
+ * 回环端口对车机上的其他应用可见，未注册的令牌一律返回404；播放列表释放时调用release移除条目
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class MediaProxyServer {
+    private static final String TAG = "MediaProxyServer";
+
+    private static final String PATH_PREFIX = "/media/";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SOCKET_TIMEOUT_MS = 30000;
+    // 合并重叠请求：新请求起点在回源位置之后多远以内时等待
+    private static final long COALESCE_WINDOW_BYTES = 2L * 1024 * 1024;
+    private static final long COALESCE_MAX_WAIT_MS = 3000;
+    private static final long COALESCE_POLL_MS = 50;
+
+    private static volatile MediaProxyServer instance;
+
+    /**
+     * 注册的代理条目
+     */
+    private static final class Entry {
+        final String cacheKey;
+        final long size;
+        final String mimeType;
+        volatile String upstreamUrl;
+
+        Entry(String cacheKey, long size, String mimeType, String upstreamUrl) {
+            this.cacheKey = cacheKey;
+            this.size = size;
+            this.mimeType = mimeType;
+            this.upstreamUrl = upstreamUrl;
+        }
+    }
+
+    /**
+     * 正在回源的区间（用于合并重叠请求）
+     */
+    private static final class InFlight {
+        final String cacheKey;
+        final long end;
+        volatile long position;
+
+        InFlight(String cacheKey, long position, long end) {
+            this.cacheKey = cacheKey;
+            this.position = position;
+            this.end = end;
+        }
+    }
+
+    private final Context context;
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "MediaProxy-conn");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Entry> entriesById = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByKey = new ConcurrentHashMap<>();
+    private final Map<Socket, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private ServerSocket serverSocket;
+
+    private MediaProxyServer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static MediaProxyServer getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MediaProxyServer.class) {
+                if (instance == null) {
+                    instance = new MediaProxyServer(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 获取文件的代理地址，代理无法启动时返回null（调用方直接使用原地址）
+     * @param file 文件信息（缓存键、大小）
+     * @param upstreamUrl 已附加access_token的下载地址
+     */
+    @Nullable
+    public String getProxyUrl(FileInfo file, String upstreamUrl) {
+        if (!ensureStarted()) {
+            return null;
+        }
+        String cacheKey = MediaCache.cacheKeyFor(file);
+        String id = idsByKey.get(cacheKey);
+        Entry entry = id != null ? entriesById.get(id) : null;
+        if (entry != null) {
+            entry.upstreamUrl = upstreamUrl;
+        } else {
+            // 令牌来自SecureRandom，其他应用无法通过枚举访问用户的网盘文件
+            id = UUID.randomUUID().toString().replace("-", "");
+            entriesById.put(id, new Entry(cacheKey, file.getSize(), guessMimeType(file), upstreamUrl));
+            idsByKey.put(cacheKey, id);
+        }
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + PATH_PREFIX + id;
+    }
+
+    /**
+     * 播放列表释放时移除其中文件的代理条目，之后对这些地址的请求返回404
+     */
+    public void release(@Nullable Collection<FileInfo> files) {
+        if (files == null) {
+            return;
+        }
+        for (FileInfo file : files) {
+            String id = idsByKey.remove(MediaCache.cacheKeyFor(file));
+            if (id != null) {
+                entriesById.remove(id);
+            }
+        }
+    }
+
+    private synchronized boolean ensureStarted() {
+        if (serverSocket != null && !serverSocket.isClosed()) {
+            return true;
+        }
+        try {
+            serverSocket = new ServerSocket(0, 8, InetAddress.getByName("127.0.0.1"));
+        } catch (IOException e) {
+            Log.w(TAG, "代理启动失败: " + e.getMessage());
+            serverSocket = null;
+            return false;
+        }
+        final ServerSocket server = serverSocket;
+        Thread acceptThread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connectionExecutor.execute(() -> handle(socket));
+                } catch (IOException e) {
+                    if (!server.isClosed()) {
+                        Log.w(TAG, "接受连接失败: " + e.getMessage());
+                    }
+                }
+            }
+        }, "MediaProxy-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        Log.d(TAG, "代理已启动: 127.0.0.1:" + server.getLocalPort());
+        return true;
+    }
+
+    // ========== 请求处理 ==========
+
+    private void handle(Socket socket) {
+        try {
+            socket.setSoTimeout(SOCKET_TIMEOUT_MS);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            String requestLine = reader.readLine();
+            if (requestLine == null) {
+                return;
+            }
+            String rangeHeader = null;
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Range")) {
+                    rangeHeader = line.substring(colon + 1).trim();
+                }
+            }
+
+            String[] parts = requestLine.split(" ");
+            OutputStream out = socket.getOutputStream();
+            if (parts.length < 2 || !parts[1].startsWith(PATH_PREFIX)) {
+                writeStatus(out, "404 Not Found");
+                return;
+            }
+            boolean headOnly = "HEAD".equals(parts[0]);
+            if (!headOnly && !"GET".equals(parts[0])) {
+                writeStatus(out, "405 Method Not Allowed");
+                return;
+            }
+            Entry entry = entriesById.get(parts[1].substring(PATH_PREFIX.length()));
+            if (entry == null) {
+                writeStatus(out, "404 Not Found");
+                return;
+            }
+            serve(socket, out, entry, rangeHeader, headOnly);
+        } catch (IOException e) {
+            // 播放器拖动或停止时会主动断开连接，属于正常情况
+            Log.d(TAG, "连接结束: " + e.getMessage());
+        } finally {
+            inFlight.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void serve(Socket socket, OutputStream out, Entry entry,
+                       @Nullable String rangeHeader, boolean headOnly) throws IOException {
+        long start = 0;
+        long end = -1;
+        boolean partial = false;
+        if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
+            String spec = rangeHeader.substring("bytes=".length());
+            int dash = spec.indexOf('-');
+            int comma = spec.indexOf(',');
+            if (dash > 0 && comma < 0) {
+                try {
+                    start = Long.parseLong(spec.substring(0, dash).trim());
+                    String endPart = spec.substring(dash + 1).trim();
+                    end = endPart.isEmpty() ? -1 : Long.parseLong(endPart);
+                    partial = true;
+                } catch (NumberFormatException e) {
+                    start = 0;
+                    end = -1;
+                }
+            }
+        }
+        long total = entry.size;
+        if (total > 0) {
+            if (start >= total) {
+                writeStatus(out, "416 Range Not Satisfiable", "Content-Range: bytes */" + total);
+                return;
+            }
+            if (end < 0 || end >= total) {
+                end = total - 1;
+            }
+        }
+
+        if (!headOnly) {
+            waitForOverlappingFetch(socket, entry.cacheKey, start);
+        }
+
+        long length = end >= 0 ? end - start + 1 : C.LENGTH_UNSET;
+        CacheDataSource dataSource = MediaCache.getInstance(context)
+                .createDataSourceFactory(new SegmentedHttpDataSource.Factory(context,
+                        MediaPrebuffer.createHttpDataSourceFactory()))
+                .createDataSource();
+        DataSpec dataSpec = new DataSpec.Builder()
+                .setUri(Uri.parse(entry.upstreamUrl))
+                .setPosition(start)
+                .setLength(length)
+                .setKey(entry.cacheKey)
+                .build();
+        try {
+            long opened = headOnly ? length : dataSource.open(dataSpec);
+            if (opened != C.LENGTH_UNSET) {
+                length = opened;
+                end = start + length - 1;
+                if (total <= 0 && rangeHeader == null) {
+                    total = length;
+                }
+            }
+
+            StringBuilder header = new StringBuilder();
+            header.append(partial ? "HTTP/1.1 206 Partial Content\r\n" : "HTTP/1.1 200 OK\r\n");
+            header.append("Content-Type: ").append(entry.mimeType).append("\r\n");
+            header.append("Accept-Ranges: bytes\r\n");
+            if (length != C.LENGTH_UNSET) {
+                header.append("Content-Length: ").append(length).append("\r\n");
+            }
+            if (partial) {
+                header.append("Content-Range: bytes ").append(start).append('-').append(end)
+                        .append('/').append(total > 0 ? String.valueOf(total) : "*").append("\r\n");
+            }
+            header.append("Connection: close\r\n\r\n");
+            out.write(header.toString().getBytes(StandardCharsets.ISO_8859_1));
+            if (headOnly) {
+                out.flush();
+                return;
+            }
+
+            InFlight fetch = new InFlight(entry.cacheKey, start, end >= 0 ? end : Long.MAX_VALUE);
+            inFlight.put(socket, fetch);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long served = 0;
+            int read;
+            while ((read = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                out.write(buffer, 0, read);
+                served += read;
+                fetch.position = start + served;
+            }
+            out.flush();
+            Log.d(TAG, String.format(Locale.US, "已响应 %s [%d-%d], %dKB", entry.cacheKey, start, end, served / 1024));
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 新请求起点落在另一个连接正在回源的区间内（已读过或即将读到）时，等待该位置写入缓存
+     * 等待有上限，超时后照常回源（CacheDataSource对被占用的区间会直接读上游）
+     */
+    private void waitForOverlappingFetch(Socket self, String cacheKey, long start) {
+        SimpleCache cache = MediaCache.getInstance(context).getCache();
+        long deadline = System.currentTimeMillis() + COALESCE_MAX_WAIT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (cache.isCached(cacheKey, start, 1)) {
+                return;
+            }
+            boolean overlapping = false;
+            for (Map.Entry<Socket, InFlight> e : inFlight.entrySet()) {
+                InFlight fetch = e.getValue();
+                if (e.getKey() != self && fetch.cacheKey.equals(cacheKey) && start < fetch.end &&
+                        start - fetch.position <= COALESCE_WINDOW_BYTES) {
+                    overlapping = true;
+                    break;
+                }
+            }
+            if (!overlapping) {
+                return;
+            }
+            try {
+                Thread.sleep(COALESCE_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void writeStatus(OutputStream out, String status, String... headers) throws IOException {
+        StringBuilder sb = new StringBuilder("HTTP/1.1 ").append(status).append("\r\n");
+        for (String header : headers) {
+            sb.append(header).append("\r\n");
+        }
+        sb.append("Content-Length: 0\r\nConnection: close\r\n\r\n");
+        out.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    private static String guessMimeType(FileInfo file) {
+        String extension = file.getExtension();
+        if (extension == null) {
+            return "application/octet-stream";
+        }
+        switch (extension.toLowerCase(Locale.US)) {
+            case "mp4":
+            case "m4v":
+                return "video/mp4";
+            case "mov":
+                return "video/quicktime";
+            case "mkv":
+                return "video/x-matroska";
+            case "ts":
+                return "video/mp2t";
+            case "avi":
+                return "video/x-msvideo";
+            case "flv":
+                return "video/x-flv";
+            case "webm":
+                return "video/webm";
+            default:
+                return "application/octet-stream";
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.baidu.gallery.car.player;
+
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.model.MediaMetadata;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * MP4/MOV moov盒子解析
+ * 只解析调度需要的字段：视频轨道编码、profile/level、分辨率、帧率、时长、旋转
+ * 输入是完整的moov盒子字节（含8字节头），不依赖媒体数据本身
+ */
+public final class Mp4MetadataParser {
+
+    private Mp4MetadataParser() {
+    }
+
+    /**
+     * 盒子头
+     */
+    public static final class BoxHeader {
+        public final String type;
+        public final long size;        // 整个盒子的大小（含头），0表示延伸到文件末尾
+        public final int headerSize;   // 8或16（largesize）
+
+        BoxHeader(String type, long size, int headerSize) {
+            this.type = type;
+            this.size = size;
+            this.headerSize = headerSize;
+        }
+    }
+
+    /**
+     * 从给定位置读取盒子头，数据不足时返回null
+     */
+    @Nullable
+    public static BoxHeader readBoxHeader(byte[] data, int offset) {
+        if (data.length - offset < 8) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, data.length - offset);
+        long size = buffer.getInt() & 0xFFFFFFFFL;
+        String type = fourCc(buffer.getInt());
+        if (size == 1) {
+            if (buffer.remaining() < 8) {
+                return null;
+            }
+            return new BoxHeader(type, buffer.getLong(), 16);
+        }
+        return new BoxHeader(type, size, 8);
+    }
+
+    /**
+     * 解析moov盒子
+     * @param moov 完整的moov盒子
+     * @param fileSize 文件大小，用于估算平均码率
+     * @return 解析结果，找不到视频轨道时返回null
+     */
+    @Nullable
+    public static MediaMetadata parseMoov(byte[] moov, long fileSize) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(moov);
+            BoxHeader moovHeader = readBoxHeader(moov, 0);
+            if (moovHeader == null || !"moov".equals(moovHeader.type)) {
+                return null;
+            }
+            long movieDurationMs = -1;
+            MediaMetadata video = null;
+            int end = (int) Math.min(moov.length, moovHeader.size);
+            int pos = moovHeader.headerSize;
+            while (pos + 8 <= end) {
+                BoxHeader child = readBoxHeader(moov, pos);
+                if (child == null || child.size < 8 || pos + child.size > end) {
+                    break;
+                }
+                int bodyStart = pos + child.headerSize;
+                int bodyEnd = (int) (pos + child.size);
+                if ("mvhd".equals(child.type)) {
+                    movieDurationMs = parseDurationMs(buffer, bodyStart);
+                } else if ("trak".equals(child.type) && video == null) {
+                    video = parseVideoTrack(moov, buffer, bodyStart, bodyEnd);
+                }
+                pos = bodyEnd;
+            }
+            if (video == null) {
+                return null;
+            }
+            if (video.getDurationMs() <= 0 && movieDurationMs > 0) {
+                video.setDurationMs(movieDurationMs);
+            }
+            if (video.getDurationMs() > 0 && fileSize > 0) {
+                video.setBitrate(fileSize * 8 * 1000 / video.getDurationMs());
+            }
+            video.setStatus(MediaMetadata.STATUS_OK);
+            return video;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // 盒子结构损坏
+            return null;
+        }
+    }
+
+    /**
+     * 解析trak，不是视频轨道时返回null
+     */
+    @Nullable
+    private static MediaMetadata parseVideoTrack(byte[] data, ByteBuffer buffer, int start, int end) {
+        MediaMetadata result = new MediaMetadata();
+        boolean isVideo = false;
+        int pos = start;
+        while (pos + 8 <= end) {
+            BoxHeader box = readBoxHeader(data, pos);
+            if (box == null || box.size < 8 || pos + box.size > end) {
+                break;
+            }
+            int bodyStart = pos + box.headerSize;
+            int bodyEnd = (int) (pos + box.size);
+            if ("tkhd".equals(box.type)) {
+                result.setRotation(parseRotation(buffer, bodyStart));
+            } else if ("mdia".equals(box.type)) {
+                isVideo = parseMedia(data, buffer, bodyStart, bodyEnd, result);
+            }
+            pos = bodyEnd;
+        }
+        return isVideo ? result : null;
+    }
+
+    /**
+     * 解析mdia，返回是否为视频轨道
+     */
+    private static boolean parseMedia(byte[] data, ByteBuffer buffer, int start, int end, MediaMetadata result) {
+        boolean isVideo = false;
+        long timescale = -1;
+        int stblStart = -1;
+        int stblEnd = -1;
+        int pos = start;
+        while (pos + 8 <= end) {
+            BoxHeader box = readBoxHeader(data, pos);
+            if (box == null || box.size < 8 || pos + box.size > end) {
+                break;
+            }
+            int bodyStart = pos + box.headerSize;
+            int bodyEnd = (int) (pos + box.size);
+            if ("mdhd".equals(box.type)) {
+                timescale = parseTimescale(buffer, bodyStart);
+                result.setDurationMs(parseDurationMs(buffer, bodyStart));
+            } else if ("hdlr".equals(box.type)) {
+                // version/flags(4) + pre_defined(4) + handler_type(4)
+                isVideo = "vide".equals(fourCc(buffer.getInt(bodyStart + 8)));
+            } else if ("minf".equals(box.type)) {
+                int[] stbl = findChild(data, bodyStart, bodyEnd, "stbl");
+                if (stbl != null) {
+                    stblStart = stbl[0];
+                    stblEnd = stbl[1];
+                }
+            }
+            pos = bodyEnd;
+        }
+        if (isVideo && stblStart >= 0) {
+            parseSampleTable(data, buffer, stblStart, stblEnd, timescale, result);
+        }
+        return isVideo;
+    }
+
+    private static void parseSampleTable(byte[] data, ByteBuffer buffer, int start, int end,
+                                         long timescale, MediaMetadata result) {
+        int pos = start;
+        while (pos + 8 <= end) {
+            BoxHeader box = readBoxHeader(data, pos);
+            if (box == null || box.size < 8 || pos + box.size > end) {
+                break;
+            }
+            int bodyStart = pos + box.headerSize;
+            int bodyEnd = (int) (pos + box.size);
+            if ("stsd".equals(box.type)) {
+                // version/flags(4) + entry_count(4)，之后是第一个样本描述
+                parseSampleEntry(data, buffer, bodyStart + 8, bodyEnd, result);
+            } else if ("stts".equals(box.type) && timescale > 0) {
+                result.setFrameRate(parseFrameRate(buffer, bodyStart, timescale));
+            }
+            pos = bodyEnd;
+        }
+    }
+
+    private static void parseSampleEntry(byte[] data, ByteBuffer buffer, int start, int end, MediaMetadata result) {
+        BoxHeader entry = readBoxHeader(data, start);
+        if (entry == null || entry.size < 8) {
+            return;
+        }
+        int bodyStart = start + entry.headerSize;
+        int entryEnd = (int) Math.min(end, start + entry.size);
+        // reserved(6) + data_reference_index(2) + pre_defined/reserved(16) + width(2) + height(2)
+        result.setWidth(buffer.getShort(bodyStart + 24) & 0xFFFF);
+        result.setHeight(buffer.getShort(bodyStart + 26) & 0xFFFF);
+
+        String format = entry.type;
+        // VisualSampleEntry固定部分共78字节，之后是子盒子
+        int childStart = bodyStart + 78;
+        if ("encv".equals(format)) {
+            // 加密轨道，原始格式在sinf/frma中
+            int[] sinf = findChild(data, childStart, entryEnd, "sinf");
+            int[] frma = sinf != null ? findChild(data, sinf[0], sinf[1], "frma") : null;
+            if (frma != null) {
+                format = fourCc(buffer.getInt(frma[0]));
+            }
+        }
+
+        switch (format) {
+            case "avc1":
+            case "avc3": {
+                result.setMimeType("video/avc");
+                int[] avcC = findChild(data, childStart, entryEnd, "avcC");
+                if (avcC != null) {
+                    // configurationVersion(1) + profile(1) + compatibility(1) + level(1)
+                    int profile = data[avcC[0] + 1] & 0xFF;
+                    int compatibility = data[avcC[0] + 2] & 0xFF;
+                    int level = data[avcC[0] + 3] & 0xFF;
+                    result.setProfile(profile);
+                    result.setLevel(level);
+                    result.setCodecs(String.format(Locale.US, "%s.%02X%02X%02X", format, profile, compatibility, level));
+                } else {
+                    result.setCodecs(format);
+                }
+                break;
+            }
+            case "hvc1":
+            case "hev1":
+            case "dvh1":
+            case "dvhe": {
+                result.setMimeType("dvh1".equals(format) || "dvhe".equals(format)
+                        ? "video/dolby-vision" : "video/hevc");
+                int[] hvcC = findChild(data, childStart, entryEnd, "hvcC");
+                if (hvcC != null) {
+                    // configurationVersion(1) + profile_space/tier/profile_idc(1)
+                    // + compatibility_flags(4) + constraint_flags(6) + level_idc(1)
+                    int profileByte = data[hvcC[0] + 1] & 0xFF;
+                    int profile = profileByte & 0x1F;
+                    boolean highTier = (profileByte & 0x20) != 0;
+                    int level = data[hvcC[0] + 12] & 0xFF;
+                    result.setProfile(profile);
+                    result.setLevel(level);
+                    result.setCodecs(format + "." + profile + "." + (highTier ? "H" : "L") + level);
+                } else {
+                    result.setCodecs(format);
+                }
+                break;
+            }
+            case "av01":
+                result.setMimeType("video/av01");
+                result.setCodecs(format);
+                break;
+            case "vp09":
+                result.setMimeType("video/x-vnd.on2.vp9");
+                result.setCodecs(format);
+                break;
+            case "mp4v":
+                result.setMimeType("video/mp4v-es");
+                result.setCodecs(format);
+                break;
+            case "s263":
+            case "h263":
+                result.setMimeType("video/3gpp");
+                result.setCodecs(format);
+                break;
+            default:
+                // 未知编码，保留原始格式标识
+                result.setMimeType("video/x-" + format.trim());
+                result.setCodecs(format);
+                break;
+        }
+    }
+
+    /**
+     * 从stts计算平均帧率：样本数 / 总时长
+     */
+    private static float parseFrameRate(ByteBuffer buffer, int start, long timescale) {
+        int entryCount = buffer.getInt(start + 4);
+        long samples = 0;
+        long duration = 0;
+        int pos = start + 8;
+        for (int i = 0; i < entryCount && pos + 8 <= buffer.limit(); i++) {
+            long count = buffer.getInt(pos) & 0xFFFFFFFFL;
+            long delta = buffer.getInt(pos + 4) & 0xFFFFFFFFL;
+            samples += count;
+            duration += count * delta;
+            pos += 8;
+        }
+        if (samples == 0 || duration == 0) {
+            return 0;
+        }
+        return (float) (samples * (double) timescale / duration);
+    }
+
+    /**
+     * 从tkhd的变换矩阵计算旋转角度
+     */
+    private static int parseRotation(ByteBuffer buffer, int start) {
+        int version = buffer.get(start) & 0xFF;
+        // version/flags(4) + 时间和track_id等字段 + reserved(8) + layer/group/volume/reserved(8)
+        int matrixOffset = start + 4 + (version == 1 ? 32 : 20) + 8 + 8;
+        int a = buffer.getInt(matrixOffset);
+        int b = buffer.getInt(matrixOffset + 4);
+        int c = buffer.getInt(matrixOffset + 12);
+        int d = buffer.getInt(matrixOffset + 16);
+        final int one = 0x10000;
+        if (a == 0 && b == one && c == -one && d == 0) {
+            return 90;
+        }
+        if (a == -one && b == 0 && c == 0 && d == -one) {
+            return 180;
+        }
+        if (a == 0 && b == -one && c == one && d == 0) {
+            return 270;
+        }
+        return 0;
+    }
+
+    /**
+     * mvhd/mdhd的timescale
+     */
+    private static long parseTimescale(ByteBuffer buffer, int start) {
+        int version = buffer.get(start) & 0xFF;
+        return buffer.getInt(start + 4 + (version == 1 ? 16 : 8)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * mvhd/mdhd的时长（毫秒）
+     */
+    private static long parseDurationMs(ByteBuffer buffer, int start) {
+        int version = buffer.get(start) & 0xFF;
+        long timescale = parseTimescale(buffer, start);
+        long duration = version == 1
+                ? buffer.getLong(start + 4 + 20)
+                : buffer.getInt(start + 4 + 12) & 0xFFFFFFFFL;
+        if (timescale <= 0 || duration <= 0 || duration == 0xFFFFFFFFL) {
+            return -1;
+        }
+        return duration * 1000 / timescale;
+    }
+
+    /**
+     * 查找直接子盒子，返回{体起始, 体结束}
+     */
+    @Nullable
+    private static int[] findChild(byte[] data, int start, int end, String type) {
+        int pos = start;
+        while (pos + 8 <= end) {
+            BoxHeader box = readBoxHeader(data, pos);
+            if (box == null || box.size < 8 || pos + box.size > end) {
+                return null;
+            }
+            if (type.equals(box.type)) {
+                return new int[]{pos + box.headerSize, (int) (pos + box.size)};
+            }
+            pos += (int) box.size;
+        }
+        return null;
+    }
+
+    private static String fourCc(int value) {
+        return new String(new char[]{
+                (char) ((value >> 24) & 0xFF),
+                (char) ((value >> 16) & 0xFF),
+                (char) ((value >> 8) & 0xFF),
+                (char) (value & 0xFF)
+        });
+    }
+}
@@ -0,0 +1,342 @@
+package com.baidu.gallery.car.player;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.TransferListener;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 起播耗时追踪
+ * 记录每个播放条目从"点击/切换"到"首帧/图片显示"之间各阶段的时间点，
+ * 完成的记录放入环形缓冲区，按阶段、按播放器统计分位数，可在设置页查看并导出为文件。
+ * 所有时间点都是相对本条目起点的毫秒数；进程启动后的第一个条目以收到Intent为起点
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class PlaybackTracer {
+    private static final String TAG = "PlaybackTracer";
+
+    // 环形缓冲区容量
+    private static final int MAX_TRACES = 200;
+    private static final String EXPORT_DIR_NAME = "traces";
+
+    public static final String ENGINE_IMAGE = "Image";
+
+    /**
+     * 起播阶段（按发生顺序）
+     */
+    public enum Stage {
+        INTENT_RECEIVED("收到Intent"),
+        PLAYLIST_LOADED("播放列表就绪"),
+        DLINK_RESOLVED("下载地址就绪"),
+        CONNECTED("连接建立"),
+        FIRST_BYTE("首字节"),
+        PREPARED("准备完成"),
+        FIRST_FRAME("首帧渲染"),
+        IMAGE_DECODED("图片解码"),
+        IMAGE_DISPLAYED("图片显示");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * 一个播放条目的追踪记录
+     */
+    private static final class Trace {
+        final String itemKey;
+        final String name;
+        // 数据源DataSpec.key（视频缓存键），用于过滤预加载等其它条目的传输；图片为null
+        @Nullable final String transferKey;
+        final long startElapsed;
+        final long wallTime;
+        final long[] offsets = new long[Stage.values().length];
+        String engine = "?";
+        boolean finished;
+
+        Trace(String itemKey, String name, @Nullable String transferKey, long startElapsed) {
+            this.itemKey = itemKey;
+            this.name = name;
+            this.transferKey = transferKey;
+            this.startElapsed = startElapsed;
+            this.wallTime = System.currentTimeMillis();
+            Arrays.fill(offsets, -1);
+        }
+    }
+
+    private static volatile PlaybackTracer instance;
+
+    private final ArrayDeque<Trace> completed = new ArrayDeque<>();
+    private Trace current;
+    // 第一个条目开始前记录的时间点（收到Intent、播放列表就绪）
+    private long pendingIntentElapsed = -1;
+    private long pendingPlaylistElapsed = -1;
+
+    private PlaybackTracer() {
+    }
+
+    public static PlaybackTracer getInstance() {
+        if (instance == null) {
+            synchronized (PlaybackTracer.class) {
+                if (instance == null) {
+                    instance = new PlaybackTracer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ========== 记录 ==========
+
+    /**
+     * 播放页收到Intent
+     */
+    public synchronized void markIntentReceived() {
+        pendingIntentElapsed = SystemClock.elapsedRealtime();
+        pendingPlaylistElapsed = -1;
+    }
+
+    /**
+     * 播放列表加载完成
+     */
+    public synchronized void markPlaylistLoaded() {
+        if (pendingIntentElapsed >= 0) {
+            pendingPlaylistElapsed = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /**
+     * 开始追踪一个条目；同一条目尚未完成时（例如切换播放器重试）继续沿用原记录
+     * @param transferKey 该条目数据源请求的DataSpec.key（视频缓存键），
+     *                    传输监听只统计与之匹配的请求；没有数据源请求的条目传null
+     */
+    public synchronized void begin(String itemKey, String name, @Nullable String transferKey) {
+        if (current != null && !current.finished && current.itemKey.equals(itemKey)) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (pendingIntentElapsed >= 0) {
+            current = new Trace(itemKey, name, transferKey, pendingIntentElapsed);
+            current.offsets[Stage.INTENT_RECEIVED.ordinal()] = 0;
+            if (pendingPlaylistElapsed >= 0) {
+                current.offsets[Stage.PLAYLIST_LOADED.ordinal()] = pendingPlaylistElapsed - pendingIntentElapsed;
+            }
+            pendingIntentElapsed = -1;
+            pendingPlaylistElapsed = -1;
+        } else {
+            current = new Trace(itemKey, name, transferKey, now);
+        }
+    }
+
+    /**
+     * 设置当前条目使用的播放器（切换播放器时以最后一次为准）
+     */
+    public synchronized void setEngine(String engine) {
+        if (current != null && !current.finished) {
+            current.engine = engine;
+        }
+    }
+
+    /**
+     * 记录阶段时间点，同一阶段只记第一次
+     */
+    public synchronized void mark(Stage stage) {
+        if (current == null || current.finished || current.offsets[stage.ordinal()] >= 0) {
+            return;
+        }
+        current.offsets[stage.ordinal()] = SystemClock.elapsedRealtime() - current.startElapsed;
+    }
+
+    /**
+     * 记录最后一个阶段并完成当前条目
+     */
+    public synchronized void finish(Stage stage) {
+        if (current == null || current.finished) {
+            return;
+        }
+        mark(stage);
+        current.finished = true;
+        completed.addLast(current);
+        while (completed.size() > MAX_TRACES) {
+            completed.removeFirst();
+        }
+        Log.d(TAG, "起播耗时: " + describe(current));
+    }
+
+    /**
+     * 当前条目的数据源请求记录阶段时间点；队列预加载下一条目、预缓冲等其它请求的传输不计入
+     */
+    private synchronized void markTransfer(DataSpec dataSpec, Stage stage) {
+        if (current == null || current.transferKey == null || !current.transferKey.equals(dataSpec.key)) {
+            return;
+        }
+        mark(stage);
+    }
+
+    /**
+     * 给数据源使用的传输监听：当前条目第一次打开记为连接建立，第一次收到数据记为首字节
+     */
+    public TransferListener getTransferListener() {
+        return transferListener;
+    }
+
+    private final TransferListener transferListener = new TransferListener() {
+        @Override
+        public void onTransferInitializing(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onTransferStart(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+            markTransfer(dataSpec, Stage.CONNECTED);
+        }
+
+        @Override
+        public void onBytesTransferred(@NonNull DataSource source, @NonNull DataSpec dataSpec,
+                                       boolean isNetwork, int bytesTransferred) {
+            markTransfer(dataSpec, Stage.FIRST_BYTE);
+        }
+
+        @Override
+        public void onTransferEnd(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+    };
+
+    // ========== 统计 ==========
+
+    /**
+     * 按播放器、阶段统计的分位数报告
+     */
+    public synchronized String getReport() {
+        if (completed.isEmpty()) {
+            return "暂无起播记录";
+        }
+        Map<String, List<Trace>> byEngine = new LinkedHashMap<>();
+        byEngine.put("全部", new ArrayList<>(completed));
+        for (Trace trace : completed) {
+            List<Trace> list = byEngine.get(trace.engine);
+            if (list == null) {
+                list = new ArrayList<>();
+                byEngine.put(trace.engine, list);
+            }
+            list.add(trace);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Trace>> entry : byEngine.entrySet()) {
+            sb.append("【").append(entry.getKey()).append("】 ").append(entry.getValue().size()).append(" 条\n");
+            for (Stage stage : Stage.values()) {
+                List<Long> values = new ArrayList<>();
+                for (Trace trace : entry.getValue()) {
+                    long offset = trace.offsets[stage.ordinal()];
+                    if (offset >= 0) {
+                        values.add(offset);
+                    }
+                }
+                if (values.isEmpty()) {
+                    continue;
+                }
+                Collections.sort(values);
+                sb.append(String.format(Locale.US, "  %s: p50=%dms p90=%dms p99=%dms (n=%d)\n",
+                        stage.getLabel(), percentile(values, 50), percentile(values, 90),
+                        percentile(values, 99), values.size()));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long percentile(List<Long> sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    /**
+     * 导出所有记录为CSV文件（应用私有外部目录），失败返回null
+     */
+    @Nullable
+    public File exportToFile(Context context) {
+        File dir = context.getExternalFilesDir(EXPORT_DIR_NAME);
+        if (dir == null) {
+            dir = new File(context.getFilesDir(), EXPORT_DIR_NAME);
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "无法创建导出目录: " + dir);
+            return null;
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+        File file = new File(dir, "playback_trace_" + stamp + ".csv");
+        List<Trace> snapshot;
+        String report;
+        synchronized (this) {
+            snapshot = new ArrayList<>(completed);
+            report = getReport();
+        }
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        try (FileWriter writer = new FileWriter(file)) {
+            StringBuilder header = new StringBuilder("time,item,name,engine");
+            for (Stage stage : Stage.values()) {
+                header.append(',').append(stage.name().toLowerCase(Locale.US));
+            }
+            writer.write(header.append('\n').toString());
+            for (Trace trace : snapshot) {
+                StringBuilder line = new StringBuilder();
+                line.append(timeFormat.format(new Date(trace.wallTime))).append(',')
+                        .append(trace.itemKey).append(',')
+                        .append(trace.name.replace(',', ' ')).append(',')
+                        .append(trace.engine);
+                for (long offset : trace.offsets) {
+                    line.append(',');
+                    if (offset >= 0) {
+                        line.append(offset);
+                    }
+                }
+                writer.write(line.append('\n').toString());
+            }
+            // 末尾附上分位数汇总，以#开头便于表格软件忽略
+            for (String reportLine : report.split("\n")) {
+                writer.write("# " + reportLine + "\n");
+            }
+            Log.d(TAG, "已导出起播耗时记录: " + file.getAbsolutePath() + ", " + snapshot.size() + " 条");
+            return file;
+        } catch (IOException e) {
+            Log.w(TAG, "导出起播耗时记录失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String describe(Trace trace) {
+        StringBuilder sb = new StringBuilder(trace.name).append(" [").append(trace.engine).append("]");
+        for (Stage stage : Stage.values()) {
+            long offset = trace.offsets[stage.ordinal()];
+            if (offset >= 0) {
+                sb.append(' ').append(stage.getLabel()).append('=').append(offset).append("ms");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,6 +1,10 @@
 package com.baidu.gallery.car.player;
 
+import androidx.annotation.Nullable;
+
 import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaMetadata;
+import com.baidu.gallery.car.repository.PlayerOutcomeRepository;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -20,8 +24,16 @@ public class PlayerScheduler {
     
     private final List<PlayerStrategy> strategies;
     private final PlayerStrategy fallbackStrategy;
+    // 本机历史播放结果，可能为null
+    @Nullable
+    private final PlayerOutcomeRepository outcomeRepository;
     
     public PlayerScheduler() {
+        this(null);
+    }
+    
+    public PlayerScheduler(@Nullable PlayerOutcomeRepository outcomeRepository) {
+        this.outcomeRepository = outcomeRepository;
         strategies = new ArrayList<>();
         
         // 添加策略
@@ -66,6 +78,33 @@ public class PlayerScheduler {
         return fallbackStrategy;
     }
     
+    /**
+     * 根据历史结果和媒体信息索引选择播放器策略
+     * 有历史结果时按结果选择；已索引时用真实的MIME和编码参数，否则退回按文件名判断
+     * 
+     * @param fileInfo 文件信息
+     * @param metadata 媒体信息，可能为null
+     * @return 选择的播放器策略
+     */
+    public PlayerStrategy selectStrategy(FileInfo fileInfo, @Nullable MediaMetadata metadata) {
+        // 本机上这个文件或同类视频已经有结果时，优先用实际能用的播放器
+        if (outcomeRepository != null && fileInfo != null) {
+            String preferred = outcomeRepository.getPreferredEngine(fileInfo.getFsId(), metadata);
+            if (preferred != null) {
+                for (PlayerStrategy strategy : strategies) {
+                    if (strategy.getName().equals(preferred)) {
+                        android.util.Log.d("PlayerScheduler", "按历史结果选择播放器策略: " + preferred);
+                        return strategy;
+                    }
+                }
+            }
+        }
+        if (metadata != null && metadata.isIndexed()) {
+            return selectStrategy(fileInfo, metadata.getMimeType(), metadata.getCodecs());
+        }
+        return selectStrategy(fileInfo, null, null);
+    }
+    
     /**
      * 获取所有策略列表（用于调试）
      * 
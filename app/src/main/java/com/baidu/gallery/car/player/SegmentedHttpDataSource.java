@@ -0,0 +1,436 @@
+package com.baidu.gallery.car.player;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.BaseDataSource;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaMetadata;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
+import com.baidu.gallery.car.utils.PreferenceUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 分段多连接下载数据源
+ * 百度网盘下载CDN对单个连接限速，单条HTTP流跟不上4K行车记录、航拍等高码率视频时会持续卡顿。
+ * 作为MediaCache的上游使用：单连接实测吞吐低于文件码率时，把播放位置之后的数据切成固定大小的分段，
+ * 用多个连接并行拉取，再按顺序交给上层（CacheDataSource按顺序写入缓存）。
+ * 并行连接数和预读窗口可在设置中配置；吞吐足够或码率未知时退化为普通的单连接读取
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class SegmentedHttpDataSource extends BaseDataSource {
+    private static final String TAG = "SegmentedDataSource";
+
+    // 分段大小
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    // 单连接吞吐低于码率的该倍数时启用分段
+    private static final double ENABLE_HEADROOM = 1.2;
+    // 单个分段失败后的重试次数
+    private static final int SEGMENT_RETRIES = 1;
+    // 单连接读取超过该字节数才计入吞吐样本
+    private static final long MIN_THROUGHPUT_SAMPLE_BYTES = 512 * 1024;
+    private static final double EWMA_ALPHA = 0.3;
+
+    // 缓存键 -> 文件码率（bps）
+    private static final Map<String, Long> BITRATES = new ConcurrentHashMap<>();
+    // 单个连接的实测吞吐（bps），分段模式下聚合吞吐会偏高，因此单独统计
+    private static volatile long perConnectionBps = -1;
+    // 所有数据源共用的分段线程池，每次拖动重新打开数据源时不再创建和销毁线程；
+    // 单个数据源的并发由connections限制
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "SegmentedFetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 数据源工厂
+     */
+    public static final class Factory implements DataSource.Factory {
+        private final DataSource.Factory httpFactory;
+        private final int connections;
+        private final long readAheadBytes;
+
+        /**
+         * @param httpFactory 单个连接使用的HTTP数据源工厂
+         */
+        public Factory(Context context, DataSource.Factory httpFactory) {
+            this.httpFactory = httpFactory;
+            this.connections = Math.max(1, PreferenceUtils.getSegmentedConnections(context));
+            this.readAheadBytes = Math.max(SEGMENT_SIZE,
+                    PreferenceUtils.getSegmentedReadAheadMb(context) * 1024L * 1024L);
+        }
+
+        @Override
+        public DataSource createDataSource() {
+            return new SegmentedHttpDataSource(httpFactory, connections, readAheadBytes);
+        }
+    }
+
+    /**
+     * 登记文件码率，供打开数据源时判断是否需要分段
+     */
+    public static void registerFile(FileInfo file, @Nullable MediaMetadata metadata) {
+        long bitrate = AdaptiveLoadControl.estimateBitrate(file, metadata);
+        if (bitrate > 0) {
+            BITRATES.put(MediaCache.cacheKeyFor(file), bitrate);
+        }
+    }
+
+    private final DataSource.Factory httpFactory;
+    private final int connections;
+    private final long readAheadBytes;
+
+    @Nullable private DataSpec dataSpec;
+    private boolean opened;
+
+    // 单连接模式
+    @Nullable private DataSource single;
+    private long singleBytes;
+    // 单连接模式下阻塞在读取上的累计时间（不含播放器暂停加载的空闲时间）
+    private long singleReadMs;
+
+    // 分段模式
+    private boolean segmenting;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    // 已排队但还没交给线程池的分段，正在下载的分段数不超过connections
+    private final ArrayDeque<FutureTask<byte[]>> waiting = new ArrayDeque<>();
+    private final Object dispatchLock = new Object();
+    private int running;
+    private Map<String, List<String>> responseHeaders = Collections.emptyMap();
+    private long nextSegmentStart;
+    private long end;
+    private byte[] currentSegment;
+    private int currentOffset;
+
+    private SegmentedHttpDataSource(DataSource.Factory httpFactory, int connections, long readAheadBytes) {
+        super(/* isNetwork= */ true);
+        this.httpFactory = httpFactory;
+        this.connections = connections;
+        this.readAheadBytes = readAheadBytes;
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+        this.dataSpec = dataSpec;
+        transferInitializing(dataSpec);
+
+        if (!shouldSegment(dataSpec)) {
+            single = httpFactory.createDataSource();
+            long length = single.open(dataSpec);
+            singleBytes = 0;
+            singleReadMs = 0;
+            opened = true;
+            transferStarted(dataSpec);
+            return length;
+        }
+
+        // 先同步拉第一个分段的连接，从Content-Range得到文件总长
+        long start = dataSpec.position;
+        long firstLength = dataSpec.length != C.LENGTH_UNSET
+                ? Math.min(SEGMENT_SIZE, dataSpec.length) : SEGMENT_SIZE;
+        DataSource first = httpFactory.createDataSource();
+        try {
+            first.open(subSpec(dataSpec, start, firstLength));
+        } catch (IOException e) {
+            first.close();
+            throw e;
+        }
+        responseHeaders = first.getResponseHeaders();
+        long total = parseTotalLength(responseHeaders);
+        if (dataSpec.length != C.LENGTH_UNSET) {
+            end = start + dataSpec.length;
+        } else if (total > 0) {
+            end = total;
+        } else {
+            // 拿不到总长，无法规划分段：改回单连接
+            first.close();
+            Log.w(TAG, "无法获取文件总长，改用单连接");
+            single = httpFactory.createDataSource();
+            long length = single.open(dataSpec);
+            opened = true;
+            transferStarted(dataSpec);
+            return length;
+        }
+
+        segmenting = true;
+        final DataSource firstSource = first;
+        final long firstEnd = Math.min(start + firstLength, end);
+        enqueue(() -> {
+            try {
+                return readFully(firstSource, (int) (firstEnd - start));
+            } finally {
+                firstSource.close();
+            }
+        });
+        nextSegmentStart = firstEnd;
+        fillPipeline();
+
+        opened = true;
+        transferStarted(dataSpec);
+        Log.d(TAG, String.format(Locale.US, "分段下载: [%d-%d), %d连接, 预读%dMB, 单连接吞吐=%dkbps",
+                start, end, connections, readAheadBytes / 1024 / 1024, perConnectionBps / 1000));
+        return end - start;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (single != null) {
+            long readStartMs = SystemClock.elapsedRealtime();
+            int read = single.read(buffer, offset, length);
+            singleReadMs += SystemClock.elapsedRealtime() - readStartMs;
+            if (read > 0) {
+                singleBytes += read;
+                bytesTransferred(read);
+            }
+            return read;
+        }
+        if (currentSegment == null || currentOffset >= currentSegment.length) {
+            Future<byte[]> next = pending.poll();
+            if (next == null) {
+                return C.RESULT_END_OF_INPUT;
+            }
+            currentSegment = awaitSegment(next);
+            currentOffset = 0;
+            fillPipeline();
+        }
+        int read = Math.min(length, currentSegment.length - currentOffset);
+        System.arraycopy(currentSegment, currentOffset, buffer, offset, read);
+        currentOffset += read;
+        bytesTransferred(read);
+        return read;
+    }
+
+    @Nullable
+    @Override
+    public Uri getUri() {
+        if (single != null) {
+            return single.getUri();
+        }
+        return dataSpec != null ? dataSpec.uri : null;
+    }
+
+    @Override
+    public Map<String, List<String>> getResponseHeaders() {
+        return single != null ? single.getResponseHeaders() : responseHeaders;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (single != null) {
+                if (singleBytes >= MIN_THROUGHPUT_SAMPLE_BYTES) {
+                    addThroughputSample(singleBytes, singleReadMs);
+                }
+                single.close();
+            }
+        } finally {
+            single = null;
+            singleBytes = 0;
+            singleReadMs = 0;
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+            synchronized (dispatchLock) {
+                waiting.clear();
+            }
+            segmenting = false;
+            currentSegment = null;
+            responseHeaders = Collections.emptyMap();
+            if (opened) {
+                opened = false;
+                transferEnded();
+            }
+            dataSpec = null;
+        }
+    }
+
+    // ========== 分段 ==========
+
+    /**
+     * 单连接实测吞吐低于文件码率时分段；码率或吞吐未知、剩余数据不足两个分段时不分段
+     */
+    private boolean shouldSegment(DataSpec dataSpec) {
+        if (connections <= 1 || dataSpec.key == null) {
+            return false;
+        }
+        Long bitrate = BITRATES.get(dataSpec.key);
+        if (bitrate == null || bitrate <= 0) {
+            return false;
+        }
+        if (dataSpec.length != C.LENGTH_UNSET && dataSpec.length < 2L * SEGMENT_SIZE) {
+            return false;
+        }
+        long throughput = perConnectionBps > 0
+                ? perConnectionBps : NetworkQualityEstimator.getInstance().getBandwidthKbps() * 1000;
+        return throughput > 0 && throughput < bitrate * ENABLE_HEADROOM;
+    }
+
+    /**
+     * 在预读窗口内按顺序提交后续分段（线程池同时只跑connections个）
+     */
+    private void fillPipeline() {
+        int maxPending = (int) Math.max(connections, readAheadBytes / SEGMENT_SIZE);
+        while (pending.size() < maxPending && nextSegmentStart < end && segmenting) {
+            final long segmentStart = nextSegmentStart;
+            final int segmentLength = (int) Math.min(SEGMENT_SIZE, end - segmentStart);
+            final DataSpec spec = subSpec(dataSpec, segmentStart, segmentLength);
+            enqueue(() -> fetchSegment(spec, segmentLength));
+            nextSegmentStart += segmentLength;
+        }
+    }
+
+    /**
+     * 按顺序登记一个分段，空出并发名额时交给共用线程池
+     */
+    private void enqueue(Callable<byte[]> fetch) {
+        FutureTask<byte[]> task = new FutureTask<>(fetch);
+        pending.add(task);
+        synchronized (dispatchLock) {
+            waiting.add(task);
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        synchronized (dispatchLock) {
+            while (running < connections && !waiting.isEmpty()) {
+                FutureTask<byte[]> task = waiting.poll();
+                running++;
+                FETCH_EXECUTOR.execute(() -> {
+                    try {
+                        // 关闭时已取消的分段直接返回
+                        task.run();
+                    } finally {
+                        synchronized (dispatchLock) {
+                            running--;
+                        }
+                        dispatch();
+                    }
+                });
+            }
+        }
+    }
+
+    private byte[] fetchSegment(DataSpec spec, int length) throws IOException {
+        IOException lastError = null;
+        for (int attempt = 0; attempt <= SEGMENT_RETRIES; attempt++) {
+            DataSource source = httpFactory.createDataSource();
+            try {
+                long startMs = SystemClock.elapsedRealtime();
+                source.open(spec);
+                byte[] data = readFully(source, length);
+                addThroughputSample(length, SystemClock.elapsedRealtime() - startMs);
+                return data;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                lastError = e;
+                Log.w(TAG, "分段下载失败(" + spec.position + "): " + e.getMessage());
+            } finally {
+                source.close();
+            }
+        }
+        throw lastError;
+    }
+
+    private static byte[] readFully(DataSource source, int length) throws IOException {
+        byte[] data = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException();
+            }
+            int read = source.read(data, offset, length - offset);
+            if (read == C.RESULT_END_OF_INPUT) {
+                throw new IOException("分段提前结束: " + offset + "/" + length);
+            }
+            offset += read;
+        }
+        return data;
+    }
+
+    private static byte[] awaitSegment(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static DataSpec subSpec(DataSpec dataSpec, long position, long length) {
+        return dataSpec.buildUpon()
+                .setPosition(position)
+                .setLength(length)
+                .build();
+    }
+
+    /**
+     * 从Content-Range响应头解析文件总长，拿不到时返回-1
+     */
+    private static long parseTotalLength(Map<String, List<String>> headers) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey() == null || !entry.getKey().equalsIgnoreCase("Content-Range") ||
+                    entry.getValue().isEmpty()) {
+                continue;
+            }
+            String value = entry.getValue().get(0);
+            int slash = value.lastIndexOf('/');
+            if (slash < 0) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(value.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 多个分段线程会同时上报，读改写需要加锁，否则样本会丢失
+     */
+    private static synchronized void addThroughputSample(long bytes, long elapsedMs) {
+        if (elapsedMs <= 0) {
+            return;
+        }
+        long sample = bytes * 8 * 1000 / elapsedMs;
+        long current = perConnectionBps;
+        perConnectionBps = current <= 0 ? sample : (long) (EWMA_ALPHA * sample + (1 - EWMA_ALPHA) * current);
+    }
+}
@@ -0,0 +1,149 @@
+package com.baidu.gallery.car.player;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.videolan.libvlc.LibVLC;
+import org.videolan.libvlc.MediaPlayer;
+import org.videolan.libvlc.interfaces.IVLCVout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程内共享的VLC引擎
+ * LibVLC初始化要加载全部插件，在车机SoC上很慢，因此：
+ * 1. 第一次真正需要VLC时才创建（纯图片播放列表不会创建）
+ * 2. 创建后常驻进程，播放页重建不再重复初始化
+ * 3. MediaPlayer用完回收复用
+ * 4. 已知下一个文件需要VLC时，可以在后台线程提前预热
+ */
+public class VlcEngine {
+    private static final String TAG = "VlcEngine";
+
+    // 最多保留的空闲MediaPlayer数
+    private static final int MAX_IDLE_PLAYERS = 1;
+
+    private static volatile VlcEngine instance;
+
+    private final Context context;
+    private final ExecutorService prewarmExecutor = Executors.newSingleThreadExecutor();
+    private final ArrayDeque<MediaPlayer> idlePlayers = new ArrayDeque<>();
+    private LibVLC libVLC;
+
+    private VlcEngine(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static VlcEngine getInstance(Context context) {
+        if (instance == null) {
+            synchronized (VlcEngine.class) {
+                if (instance == null) {
+                    instance = new VlcEngine(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 获取LibVLC，第一次调用时初始化
+     */
+    public synchronized LibVLC getLibVLC() {
+        if (libVLC == null) {
+            long start = System.currentTimeMillis();
+            ArrayList<String> options = new ArrayList<>();
+            // 增加网络缓存以提高稳定性（单个媒体可以用:network-caching覆盖）
+            options.add("--network-caching=1000");
+            // 禁用硬件加速，强制使用软解以解决HEVC花屏问题
+            options.add("--avcodec-hw=none");
+            // 启用详细日志
+            options.add("-vvv");
+            libVLC = new LibVLC(context, options);
+            Log.d(TAG, "LibVLC初始化完成，耗时 " + (System.currentTimeMillis() - start) + "ms");
+        }
+        return libVLC;
+    }
+
+    /**
+     * 是否已经初始化
+     */
+    public synchronized boolean isInitialized() {
+        return libVLC != null;
+    }
+
+    /**
+     * 在后台线程预热：初始化LibVLC并准备一个空闲MediaPlayer
+     */
+    public void prewarm() {
+        synchronized (this) {
+            if (libVLC != null && !idlePlayers.isEmpty()) {
+                return;
+            }
+        }
+        prewarmExecutor.execute(() -> {
+            try {
+                LibVLC vlc = getLibVLC();
+                synchronized (this) {
+                    if (idlePlayers.isEmpty()) {
+                        idlePlayers.push(new MediaPlayer(vlc));
+                        Log.d(TAG, "VLC预热完成");
+                    }
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "VLC预热失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 获取一个MediaPlayer，优先复用空闲的
+     */
+    public synchronized MediaPlayer acquirePlayer() {
+        MediaPlayer player = idlePlayers.poll();
+        if (player != null) {
+            Log.d(TAG, "复用空闲MediaPlayer");
+            return player;
+        }
+        return new MediaPlayer(getLibVLC());
+    }
+
+    /**
+     * 归还MediaPlayer
+     * 调用方需先移除自己的VLCVout回调；这里停止播放、解除视图和事件监听后放回空闲池
+     */
+    public synchronized void recyclePlayer(MediaPlayer player) {
+        if (player == null) {
+            return;
+        }
+        player.setEventListener(null);
+        player.stop();
+        IVLCVout vout = player.getVLCVout();
+        if (vout.areViewsAttached()) {
+            vout.detachViews();
+        }
+        if (idlePlayers.size() < MAX_IDLE_PLAYERS && !player.isReleased()) {
+            idlePlayers.push(player);
+        } else {
+            player.release();
+        }
+    }
+
+    /**
+     * 丢弃出错的MediaPlayer（不放回空闲池）
+     */
+    public synchronized void discardPlayer(MediaPlayer player) {
+        if (player == null) {
+            return;
+        }
+        player.setEventListener(null);
+        player.stop();
+        IVLCVout vout = player.getVLCVout();
+        if (vout.areViewsAttached()) {
+            vout.detachViews();
+        }
+        player.release();
+    }
+}
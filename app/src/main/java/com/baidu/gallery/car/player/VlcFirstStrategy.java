@@ -28,10 +28,17 @@ public class VlcFirstStrategy implements PlayerStrategy {
         
         // 1. 通过MIME类型判断HEVC
         if (mimeType != null) {
-            if (mimeType.contains("hevc") || mimeType.contains("hev1") || mimeType.contains("hvc1")) {
+            if (mimeType.contains("hevc") || mimeType.contains("hev1") || mimeType.contains("hvc1") ||
+                mimeType.contains("dolby-vision")) {
                 android.util.Log.d("PlayerStrategy", "[VLC] ✓ 通过MIME类型检测到HEVC: " + mimeType);
                 return true;
             }
+            // MIME来自媒体信息索引（真实编码），不再按文件名和路径猜测：
+            // 设备有对应解码器时交给ExoPlayer，否则用VLC的软解
+            boolean hasDecoder = CodecSupport.hasDecoder(mimeType);
+            android.util.Log.d("PlayerStrategy", "[VLC] 已知编码 " + mimeType + ", codecs=" + codecs +
+                ", 设备解码器=" + hasDecoder);
+            return !hasDecoder;
         } else {
             android.util.Log.d("PlayerStrategy", "[VLC] mimeType is null, skip MIME check");
         }
@@ -1,5 +1,7 @@
 package com.baidu.gallery.car.repository;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
@@ -9,10 +11,14 @@ import com.baidu.gallery.car.model.FileInfo;
 import com.baidu.gallery.car.model.FileListResponse;
 import com.baidu.gallery.car.network.ApiConstants;
 import com.baidu.gallery.car.network.BaiduPanService;
+import com.baidu.gallery.car.network.RequestPriority;
 import com.baidu.gallery.car.network.RetrofitClient;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -25,6 +31,18 @@ public class FileRepository {
     private static final String TAG = "FileRepository";
     private static FileRepository instance;
     private BaiduPanService apiService;
+    
+    // 失败子树第一轮重试的等待时间，之后每轮加倍；熔断打开时至少等到冷却结束
+    private static final long FAILED_SUBTREE_RETRY_DELAY_MS = 5000;
+    private static final int MAX_SUBTREE_RETRY_ROUNDS = 3;
+    // 熔断冷却结束后再多等一会，保证探测请求能被放行
+    private static final long BREAKER_COOLDOWN_MARGIN_MS = 500;
+    // 递归遍历的目录数上限，只用于防止异常的目录结构导致无限遍历；达到上限按结果不完整处理
+    private static final int MAX_RECURSIVE_DIRS = 10000;
+    
+    // 最终仍然失败的子树，等待下次刷新时重试
+    private final Set<String> failedSubtrees = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private FileRepository() {
         apiService = RetrofitClient.getPanApiInstance().create(BaiduPanService.class);
@@ -46,7 +64,7 @@ public class FileRepository {
         Log.d(TAG, "开始获取文件列表: dirPath=" + dirPath + ", mediaType=" + mediaType);
         
         // 智能分页：最多加载前5页（5000个文件）避免内存溢出
-        fetchPagesWithLimit(accessToken, dirPath, 0, new ArrayList<>(), 5, new FetchPagesCallback() {
+        fetchPagesWithLimit(accessToken, dirPath, 0, new ArrayList<>(), 5, RequestPriority.FOREGROUND, new FetchPagesCallback() {
             @Override
             public void onSuccess(List<FileInfo> allFiles, boolean hasMore) {
                 Log.d(TAG, "获取到文件数量: " + allFiles.size() + ", 还有更多: " + hasMore);
@@ -83,6 +101,23 @@ public class FileRepository {
     public interface FileListCallback {
         void onSuccess(List<FileInfo> files);
         void onFailure(String error);
+        
+        /**
+         * 部分子目录重试后仍然失败，结果不完整
+         * 默认按成功处理，需要完整结果的调用方（如刷新播放列表）应覆盖此方法
+         * @param files 已获取到的文件
+         * @param failedDirs 失败的子目录
+         */
+        default void onIncomplete(List<FileInfo> files, List<String> failedDirs) {
+            onSuccess(files);
+        }
+    }
+    
+    /**
+     * 获取最近一次递归获取中失败的子树（用于后续重试）
+     */
+    public Set<String> getFailedSubtrees() {
+        return Collections.unmodifiableSet(failedSubtrees);
     }
 
     /**
@@ -93,7 +128,7 @@ public class FileRepository {
         Log.d(TAG, "fetchFilesNonRecursive开始: dirPath=" + dirPath);
         
         // 获取所有文件，不限制页数
-        fetchPagesWithLimit(accessToken, dirPath, 0, new ArrayList<>(), Integer.MAX_VALUE, new FetchPagesCallback() {
+        fetchPagesWithLimit(accessToken, dirPath, 0, new ArrayList<>(), Integer.MAX_VALUE, RequestPriority.FOREGROUND, new FetchPagesCallback() {
             @Override
             public void onSuccess(List<FileInfo> allFiles, boolean hasMore) {
                 Log.d(TAG, "fetchFilesNonRecursive完成: 文件数=" + allFiles.size());
@@ -122,14 +157,48 @@ public class FileRepository {
     /**
      * 递归获取文件列表（回调方式，用于后台任务组合）
      * 使用手动递归实现，避免使用不稳定的xpan/multimedia?method=listall接口
+     * 有子目录失败或达到目录数上限时通过onIncomplete返回，不把残缺结果当作完整结果
      */
     public void fetchFilesRecursive(String accessToken, String dirPath, final FileListCallback callback) {
         Log.d(TAG, "fetchFilesRecursive开始: dirPath=" + dirPath);
-        
-        // 使用手动递归，最多处理100个目录，避免无限递归
-        manualRecursiveFetch(accessToken, dirPath, new ArrayList<>(), new ArrayList<>(), 0, 100, new FetchPagesCallback() {
+
+        // 上次遍历记录的失败子树由这次遍历重新获取；熔断仍在冷却时先等待，避免同样快速失败
+        List<String> previouslyFailed = getFailedSubtreesUnder(dirPath);
+        long cooldown = RetrofitClient.getPanCircuitBreaker().getMaxRemainingOpenMs();
+        if (!previouslyFailed.isEmpty() && cooldown > 0) {
+            Log.w(TAG, "上次失败的子树 " + previouslyFailed + " 将在熔断冷却结束后（" + cooldown + "ms）重新获取");
+            mainHandler.postDelayed(() -> startRecursiveFetch(accessToken, dirPath, callback),
+                    cooldown + BREAKER_COOLDOWN_MARGIN_MS);
+            return;
+        }
+        startRecursiveFetch(accessToken, dirPath, callback);
+    }
+
+    private void startRecursiveFetch(String accessToken, String dirPath, final FileListCallback callback) {
+        // 记录失败的子目录，遍历结束后统一延迟重试，而不是直接丢弃
+        final List<String> failedDirs = new ArrayList<>();
+        final List<String> pendingDirs = new ArrayList<>();
+
+        manualRecursiveFetch(accessToken, dirPath, new ArrayList<>(), pendingDirs, failedDirs, 0, MAX_RECURSIVE_DIRS, new FetchPagesCallback() {
             @Override
             public void onSuccess(List<FileInfo> allFiles, boolean hasMore) {
+                if (hasMore) {
+                    // 达到目录数上限，未遍历的目录和失败的目录都算作缺失
+                    List<String> missingDirs = new ArrayList<>(pendingDirs);
+                    missingDirs.addAll(failedDirs);
+                    failedSubtrees.addAll(failedDirs);
+                    Log.e(TAG, "达到目录数上限 " + MAX_RECURSIVE_DIRS + "，结果不完整，未遍历目录数=" + pendingDirs.size());
+                    callback.onIncomplete(allFiles, missingDirs);
+                    return;
+                }
+                if (!failedDirs.isEmpty()) {
+                    retryFailedSubtrees(accessToken, allFiles, failedDirs, 1, callback);
+                    return;
+                }
+                
+                // 整棵树获取成功，清除该根下之前记录的失败子树
+                clearFailedSubtrees(dirPath);
+                
                 // 添加调试日志
                 Log.d(TAG, "fetchFilesRecursive完成: 总文件数=" + allFiles.size());
                 
@@ -154,23 +223,96 @@ public class FileRepository {
         });
     }
     
+    /**
+     * 指定根目录下记录的失败子树
+     */
+    private List<String> getFailedSubtreesUnder(String rootPath) {
+        List<String> result = new ArrayList<>();
+        for (String dir : failedSubtrees) {
+            if (dir.equals(rootPath) || rootPath.equals("/") || dir.startsWith(rootPath + "/")) {
+                result.add(dir);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除指定根目录下记录的失败子树
+     */
+    private void clearFailedSubtrees(String rootPath) {
+        failedSubtrees.removeAll(getFailedSubtreesUnder(rootPath));
+    }
+    
+    /**
+     * 延迟重试失败的子树
+     * 失败多半是熔断打开造成的，等待时间至少覆盖熔断的剩余冷却时间，否则重试会被直接拒绝；
+     * 每个失败目录作为新的根重新递归获取，仍然失败时按轮次加倍等待，最多重试MAX_SUBTREE_RETRY_ROUNDS轮，
+     * 最终仍然失败的目录记录到failedSubtrees，由下一次遍历重新获取
+     */
+    private void retryFailedSubtrees(String accessToken, List<FileInfo> allFiles,
+                                     List<String> failedDirs, int round, FileListCallback callback) {
+        List<String> retryDirs = new ArrayList<>(failedDirs);
+        long backoff = FAILED_SUBTREE_RETRY_DELAY_MS << (round - 1);
+        long cooldown = RetrofitClient.getPanCircuitBreaker().getMaxRemainingOpenMs();
+        long delay = cooldown > 0 ? Math.max(backoff, cooldown + BREAKER_COOLDOWN_MARGIN_MS) : backoff;
+        Log.w(TAG, "有 " + retryDirs.size() + " 个子目录获取失败，" + delay + "ms后第" + round + "轮重试: " + retryDirs);
+        
+        mainHandler.postDelayed(() -> {
+            List<String> pendingDirs = new ArrayList<>(retryDirs);
+            String firstDir = pendingDirs.remove(0);
+            List<String> stillFailed = new ArrayList<>();
+            manualRecursiveFetch(accessToken, firstDir, allFiles, pendingDirs, stillFailed, 0, MAX_RECURSIVE_DIRS, new FetchPagesCallback() {
+                @Override
+                public void onSuccess(List<FileInfo> files, boolean hasMore) {
+                    failedSubtrees.removeAll(retryDirs);
+                    if (hasMore) {
+                        List<String> missingDirs = new ArrayList<>(pendingDirs);
+                        missingDirs.addAll(stillFailed);
+                        failedSubtrees.addAll(stillFailed);
+                        Log.e(TAG, "重试时达到目录数上限，结果不完整");
+                        callback.onIncomplete(files, missingDirs);
+                    } else if (stillFailed.isEmpty()) {
+                        Log.d(TAG, "失败子树重试成功: 总文件数=" + files.size());
+                        callback.onSuccess(files);
+                    } else if (round < MAX_SUBTREE_RETRY_ROUNDS) {
+                        retryFailedSubtrees(accessToken, files, stillFailed, round + 1, callback);
+                    } else {
+                        failedSubtrees.addAll(stillFailed);
+                        Log.e(TAG, "重试" + round + "轮后仍有子目录失败，结果不完整: " + stillFailed);
+                        callback.onIncomplete(files, stillFailed);
+                    }
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    failedSubtrees.addAll(retryDirs);
+                    callback.onIncomplete(allFiles, retryDirs);
+                }
+            });
+        }, delay);
+    }
+    
     /**
      * 手动递归获取文件列表（深度优先遍历）
      * @param accessToken 访问令牌
      * @param currentPath 当前路径
      * @param allFiles 累积的所有文件
      * @param pendingDirs 待处理的目录队列
+     * @param failedDirs 获取失败的目录（留待重试）
      * @param processedDirCount 已处理目录数
      * @param maxDirs 最大处理目录数（防止无限递归）
      * @param callback 回调
      */
     private void manualRecursiveFetch(String accessToken, String currentPath,
                                      List<FileInfo> allFiles, List<String> pendingDirs,
+                                     List<String> failedDirs,
                                      int processedDirCount, int maxDirs,
                                      FetchPagesCallback callback) {
         // 防止无限递归
         if (processedDirCount >= maxDirs) {
             Log.w(TAG, "已达到最大目录处理数限制: " + maxDirs);
+            // 当前目录也没有处理，放回待处理队列，调用方据此判断结果不完整
+            pendingDirs.add(0, currentPath);
             callback.onSuccess(allFiles, true);
             return;
         }
@@ -178,7 +320,7 @@ public class FileRepository {
         Log.d(TAG, "手动递归处理目录: " + currentPath + " (已处理: " + processedDirCount + "/" + maxDirs + ")");
         
         // 获取当前目录的文件列表（最多5页，5000个文件）
-        fetchPagesWithLimit(accessToken, currentPath, 0, new ArrayList<>(), 5, new FetchPagesCallback() {
+        fetchPagesWithLimit(accessToken, currentPath, 0, new ArrayList<>(), 5, RequestPriority.CRAWL, new FetchPagesCallback() {
             @Override
             public void onSuccess(List<FileInfo> files, boolean hasMore) {
                 Log.d(TAG, "目录 " + currentPath + " 包含 " + files.size() + " 个项目");
@@ -199,15 +341,16 @@ public class FileRepository {
                 pendingDirs.addAll(subDirs);
                 
                 // 处理下一个目录
-                processNextDirectory(accessToken, allFiles, pendingDirs, processedDirCount + 1, maxDirs, callback);
+                processNextDirectory(accessToken, allFiles, pendingDirs, failedDirs, processedDirCount + 1, maxDirs, callback);
             }
 
             @Override
             public void onFailure(String error) {
                 String errorMsg = error != null ? error : "未知错误";
                 Log.e(TAG, "获取目录 " + currentPath + " 失败: " + errorMsg);
-                // 即使当前目录失败，继续处理其他目录
-                processNextDirectory(accessToken, allFiles, pendingDirs, processedDirCount + 1, maxDirs, callback);
+                // 记录失败的子树留待重试，继续处理其他目录
+                failedDirs.add(currentPath);
+                processNextDirectory(accessToken, allFiles, pendingDirs, failedDirs, processedDirCount + 1, maxDirs, callback);
             }
         });
     }
@@ -216,7 +359,8 @@ public class FileRepository {
      * 处理下一个待处理的目录
      */
     private void processNextDirectory(String accessToken, List<FileInfo> allFiles,
-                                     List<String> pendingDirs, int processedDirCount,
+                                     List<String> pendingDirs, List<String> failedDirs,
+                                     int processedDirCount,
                                      int maxDirs, FetchPagesCallback callback) {
         if (pendingDirs.isEmpty()) {
             // 所有目录已处理完成
@@ -225,7 +369,7 @@ public class FileRepository {
         } else {
             // 处理下一个目录
             String nextDir = pendingDirs.remove(0);
-            manualRecursiveFetch(accessToken, nextDir, allFiles, pendingDirs, processedDirCount, maxDirs, callback);
+            manualRecursiveFetch(accessToken, nextDir, allFiles, pendingDirs, failedDirs, processedDirCount, maxDirs, callback);
         }
     }
 
@@ -234,7 +378,7 @@ public class FileRepository {
      */
     private void fetchPagesWithLimit(String accessToken, String dirPath, int start,
                                      List<FileInfo> accumulatedFiles, int remainingPages,
-                                     FetchPagesCallback callback) {
+                                     RequestPriority priority, FetchPagesCallback callback) {
         final int LIMIT = 1000;
         
         if (remainingPages <= 0) {
@@ -254,7 +398,8 @@ public class FileRepository {
                 LIMIT,   // limit=1000
                 1,       // web=1
                 0,       // folder=0
-                accessToken
+                accessToken,
+                priority
         );
         
         call.enqueue(new Callback<FileListResponse>() {
@@ -275,7 +420,7 @@ public class FileRepository {
                             if (currentPageSize == LIMIT) {
                                 // 递归获取下一页
                                 fetchPagesWithLimit(accessToken, dirPath, start + LIMIT,
-                                                  accumulatedFiles, remainingPages - 1, callback);
+                                                  accumulatedFiles, remainingPages - 1, priority, callback);
                             } else {
                                 // 没有更多页了，返回所有累积的文件
                                 Log.d(TAG, "所有分页获取完成，总共 " + accumulatedFiles.size() + " 个文件");
@@ -370,7 +515,8 @@ public class FileRepository {
                 0,       // desc=0 表示升序
                 LIMIT,   // limit=1000
                 1,       // recursion=1
-                accessToken
+                accessToken,
+                RequestPriority.CRAWL
         );
         
         call.enqueue(new Callback<FileListResponse>() {
@@ -434,9 +580,18 @@ public class FileRepository {
     }
 
     /**
-     * 获取单个文件详情（包含dlink）
+     * 获取单个文件详情（包含dlink），按前台请求处理
      */
     public void fetchFileDetail(String accessToken, long fsId, final FileDetailCallback callback) {
+        fetchFileDetail(accessToken, fsId, RequestPriority.FOREGROUND, callback);
+    }
+
+    /**
+     * 获取单个文件详情（包含dlink）
+     * @param priority 请求优先级，预加载应使用PREFETCH，避免和用户操作抢配额
+     */
+    public void fetchFileDetail(String accessToken, long fsId, RequestPriority priority,
+                                final FileDetailCallback callback) {
         // fsids需要是json数组格式: [12345]
         String fsids = "[" + fsId + "]";
         
@@ -445,7 +600,8 @@ public class FileRepository {
                 fsids,
                 1, // dlink=1
                 1, // thumb=1
-                accessToken
+                accessToken,
+                priority
         );
         
         call.enqueue(new Callback<FileListResponse>() {
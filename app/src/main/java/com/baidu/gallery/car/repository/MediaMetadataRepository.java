@@ -0,0 +1,84 @@
+package com.baidu.gallery.car.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.database.AppDatabase;
+import com.baidu.gallery.car.database.MediaMetadataDao;
+import com.baidu.gallery.car.database.PlaylistItemDao;
+import com.baidu.gallery.car.model.MediaMetadata;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 视频媒体信息数据仓库
+ * 数据库中的记录在启动时整体载入内存，播放器调度在主线程上直接查询
+ */
+public class MediaMetadataRepository {
+    private static final String TAG = "MediaMetadataRepository";
+
+    private static volatile MediaMetadataRepository instance;
+
+    private final MediaMetadataDao metadataDao;
+    private final PlaylistItemDao playlistItemDao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<Long, MediaMetadata> memoryCache = new ConcurrentHashMap<>();
+
+    private MediaMetadataRepository(Context context) {
+        AppDatabase db = AppDatabase.getDatabase(context);
+        metadataDao = db.mediaMetadataDao();
+        playlistItemDao = db.playlistItemDao();
+        executor.execute(() -> {
+            List<MediaMetadata> all = metadataDao.getAllSync();
+            for (MediaMetadata metadata : all) {
+                memoryCache.put(metadata.getFsId(), metadata);
+            }
+            Log.d(TAG, "已载入媒体信息: " + all.size() + " 条");
+        });
+    }
+
+    public static MediaMetadataRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MediaMetadataRepository.class) {
+                if (instance == null) {
+                    instance = new MediaMetadataRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 查询媒体信息（内存），未索引时返回null
+     */
+    @Nullable
+    public MediaMetadata get(long fsId) {
+        return memoryCache.get(fsId);
+    }
+
+    /**
+     * 是否已有记录（包括不支持的容器）
+     */
+    public boolean contains(long fsId) {
+        return memoryCache.containsKey(fsId);
+    }
+
+    /**
+     * 保存媒体信息，同时回填播放列表项的时长
+     */
+    public void save(MediaMetadata metadata) {
+        memoryCache.put(metadata.getFsId(), metadata);
+        executor.execute(() -> {
+            metadataDao.insert(metadata);
+            if (metadata.getDurationMs() > 0) {
+                playlistItemDao.updateDurationByFsId(metadata.getFsId(), metadata.getDurationMs());
+            }
+        });
+    }
+}
@@ -0,0 +1,271 @@
+package com.baidu.gallery.car.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.database.AppDatabase;
+import com.baidu.gallery.car.database.PlayerOutcomeDao;
+import com.baidu.gallery.car.model.MediaMetadata;
+import com.baidu.gallery.car.model.PlayerOutcome;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 播放器结果统计数据仓库
+ * 记录每个文件、每类视频在本机上用各播放器的表现，供播放器调度优先选择实际能用的播放器：
+ * 1. 单个文件：某播放器失败过且另一个没有失败，直接换另一个
+ * 2. 同类视频（MIME + profile + 分辨率档位）：样本足够时同样回避不可靠的播放器；
+ *    两个都可靠时选首帧更快、卡顿更少的
+ */
+public class PlayerOutcomeRepository {
+    private static final String TAG = "PlayerOutcomeRepository";
+
+    public static final String ENGINE_EXO = "ExoPlayer";
+    public static final String ENGINE_VLC = "VLC";
+
+    // 按类别判断时每个播放器至少需要的尝试次数
+    private static final int MIN_CLASS_ATTEMPTS = 2;
+    // 两个播放器都可靠时，按耗时选择至少需要的成功次数
+    private static final int MIN_CLASS_SUCCESSES_FOR_SPEED = 3;
+    // 耗时差距小于该比例时不做偏好
+    private static final double SPEED_MARGIN = 0.2;
+    // 每次卡顿折算的首帧耗时惩罚
+    private static final long REBUFFER_PENALTY_MS = 2000;
+
+    private static volatile PlayerOutcomeRepository instance;
+
+    private final PlayerOutcomeDao outcomeDao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<String, PlayerOutcome> memoryCache = new ConcurrentHashMap<>();
+
+    private PlayerOutcomeRepository(Context context) {
+        outcomeDao = AppDatabase.getDatabase(context).playerOutcomeDao();
+        executor.execute(() -> {
+            List<PlayerOutcome> all = outcomeDao.getAllSync();
+            synchronized (memoryCache) {
+                for (PlayerOutcome stored : all) {
+                    String key = cacheKey(stored.getScopeKey(), stored.getEngine());
+                    PlayerOutcome recent = memoryCache.get(key);
+                    if (recent == null) {
+                        memoryCache.put(key, stored);
+                    } else {
+                        // 载入完成前已经记录了新结果：新结果是在数据库历史之上的增量，累加而不是覆盖
+                        mergeInto(recent, stored);
+                    }
+                }
+            }
+            Log.d(TAG, "已载入播放器结果统计: " + all.size() + " 条");
+        });
+    }
+
+    public static PlayerOutcomeRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PlayerOutcomeRepository.class) {
+                if (instance == null) {
+                    instance = new PlayerOutcomeRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ========== 记录 ==========
+
+    /**
+     * 记录成功出首帧
+     */
+    public void recordSuccess(long fsId, @Nullable MediaMetadata metadata, String engine, long ttffMs) {
+        update(fsId, metadata, engine, outcome -> {
+            outcome.setSuccessCount(outcome.getSuccessCount() + 1);
+            if (ttffMs > 0) {
+                outcome.setTtffTotalMs(outcome.getTtffTotalMs() + ttffMs);
+                outcome.setTtffSamples(outcome.getTtffSamples() + 1);
+            }
+        });
+        Log.d(TAG, "记录成功: fsId=" + fsId + ", " + engine + ", 首帧 " + ttffMs + "ms");
+    }
+
+    /**
+     * 记录解码/格式失败
+     */
+    public void recordFailure(long fsId, @Nullable MediaMetadata metadata, String engine) {
+        update(fsId, metadata, engine, outcome -> outcome.setFailureCount(outcome.getFailureCount() + 1));
+        Log.d(TAG, "记录失败: fsId=" + fsId + ", " + engine);
+    }
+
+    /**
+     * 记录播放中卡顿
+     */
+    public void recordRebuffer(long fsId, @Nullable MediaMetadata metadata, String engine) {
+        update(fsId, metadata, engine, outcome -> outcome.setRebufferCount(outcome.getRebufferCount() + 1));
+    }
+
+    private interface Mutation {
+        void apply(PlayerOutcome outcome);
+    }
+
+    private void update(long fsId, @Nullable MediaMetadata metadata, String engine, Mutation mutation) {
+        updateScope(fileKey(fsId), engine, mutation);
+        String classKey = classKey(metadata);
+        if (classKey != null) {
+            updateScope(classKey, engine, mutation);
+        }
+    }
+
+    private void updateScope(String scopeKey, String engine, Mutation mutation) {
+        PlayerOutcome outcome;
+        synchronized (memoryCache) {
+            outcome = memoryCache.get(cacheKey(scopeKey, engine));
+            if (outcome == null) {
+                outcome = new PlayerOutcome();
+                outcome.setScopeKey(scopeKey);
+                outcome.setEngine(engine);
+                memoryCache.put(cacheKey(scopeKey, engine), outcome);
+            }
+            mutation.apply(outcome);
+            outcome.setUpdatedAt(System.currentTimeMillis());
+        }
+        String key = cacheKey(scopeKey, engine);
+        executor.execute(() -> {
+            // 主线程会继续修改缓存中的对象，写库时在锁内取一份副本（同时包含载入时合并的历史）
+            PlayerOutcome toSave;
+            synchronized (memoryCache) {
+                toSave = copyOf(memoryCache.get(key));
+            }
+            outcomeDao.insert(toSave);
+        });
+    }
+
+    private static PlayerOutcome copyOf(PlayerOutcome outcome) {
+        PlayerOutcome copy = new PlayerOutcome();
+        copy.setScopeKey(outcome.getScopeKey());
+        copy.setEngine(outcome.getEngine());
+        copy.setSuccessCount(outcome.getSuccessCount());
+        copy.setFailureCount(outcome.getFailureCount());
+        copy.setRebufferCount(outcome.getRebufferCount());
+        copy.setTtffTotalMs(outcome.getTtffTotalMs());
+        copy.setTtffSamples(outcome.getTtffSamples());
+        copy.setUpdatedAt(outcome.getUpdatedAt());
+        return copy;
+    }
+
+    private static void mergeInto(PlayerOutcome target, PlayerOutcome stored) {
+        target.setSuccessCount(target.getSuccessCount() + stored.getSuccessCount());
+        target.setFailureCount(target.getFailureCount() + stored.getFailureCount());
+        target.setRebufferCount(target.getRebufferCount() + stored.getRebufferCount());
+        target.setTtffTotalMs(target.getTtffTotalMs() + stored.getTtffTotalMs());
+        target.setTtffSamples(target.getTtffSamples() + stored.getTtffSamples());
+    }
+
+    // ========== 查询 ==========
+
+    /**
+     * 根据历史结果给出偏好的播放器，没有足够依据时返回null
+     */
+    @Nullable
+    public String getPreferredEngine(long fsId, @Nullable MediaMetadata metadata) {
+        String engine = pick(fileKey(fsId), 1, false);
+        if (engine != null) {
+            Log.d(TAG, "按文件历史选择播放器: fsId=" + fsId + " -> " + engine);
+            return engine;
+        }
+        String classKey = classKey(metadata);
+        if (classKey == null) {
+            return null;
+        }
+        engine = pick(classKey, MIN_CLASS_ATTEMPTS, true);
+        if (engine != null) {
+            Log.d(TAG, "按同类视频历史选择播放器: " + classKey + " -> " + engine);
+        }
+        return engine;
+    }
+
+    @Nullable
+    private String pick(String scopeKey, int minAttempts, boolean compareSpeed) {
+        PlayerOutcome exo = known(scopeKey, ENGINE_EXO, minAttempts);
+        PlayerOutcome vlc = known(scopeKey, ENGINE_VLC, minAttempts);
+        boolean exoBad = exo != null && exo.isUnreliable();
+        boolean vlcBad = vlc != null && vlc.isUnreliable();
+        if (exoBad && !vlcBad) {
+            return ENGINE_VLC;
+        }
+        if (vlcBad && !exoBad) {
+            return ENGINE_EXO;
+        }
+        if (!compareSpeed || exo == null || vlc == null || exoBad) {
+            return null;
+        }
+        if (exo.getSuccessCount() < MIN_CLASS_SUCCESSES_FOR_SPEED ||
+                vlc.getSuccessCount() < MIN_CLASS_SUCCESSES_FOR_SPEED) {
+            return null;
+        }
+        double exoCost = cost(exo);
+        double vlcCost = cost(vlc);
+        if (exoCost < 0 || vlcCost < 0) {
+            return null;
+        }
+        if (exoCost < vlcCost * (1 - SPEED_MARGIN)) {
+            return ENGINE_EXO;
+        }
+        if (vlcCost < exoCost * (1 - SPEED_MARGIN)) {
+            return ENGINE_VLC;
+        }
+        return null;
+    }
+
+    @Nullable
+    private PlayerOutcome known(String scopeKey, String engine, int minAttempts) {
+        PlayerOutcome outcome = memoryCache.get(cacheKey(scopeKey, engine));
+        if (outcome == null || outcome.getSuccessCount() + outcome.getFailureCount() < minAttempts) {
+            return null;
+        }
+        return outcome;
+    }
+
+    /**
+     * 平均首帧耗时加上平均每次播放的卡顿惩罚
+     */
+    private static double cost(PlayerOutcome outcome) {
+        long ttff = outcome.getAverageTtffMs();
+        if (ttff < 0) {
+            return -1;
+        }
+        return ttff + REBUFFER_PENALTY_MS * (double) outcome.getRebufferCount() / outcome.getSuccessCount();
+    }
+
+    private static String fileKey(long fsId) {
+        return "fs:" + fsId;
+    }
+
+    /**
+     * 视频类别：MIME + profile + 分辨率档位，未索引时返回null
+     */
+    @Nullable
+    private static String classKey(@Nullable MediaMetadata metadata) {
+        if (metadata == null || !metadata.isIndexed()) {
+            return null;
+        }
+        int shortEdge = Math.min(metadata.getWidth(), metadata.getHeight());
+        String resolution;
+        if (shortEdge <= 720) {
+            resolution = "720";
+        } else if (shortEdge <= 1080) {
+            resolution = "1080";
+        } else if (shortEdge <= 2160) {
+            resolution = "2160";
+        } else {
+            resolution = "4320";
+        }
+        return "class:" + metadata.getMimeType() + "|" + metadata.getProfile() + "|" + resolution;
+    }
+
+    private static String cacheKey(String scopeKey, String engine) {
+        return scopeKey + "#" + engine;
+    }
+}
@@ -13,6 +13,7 @@ import com.baidu.gallery.car.database.PlaylistItemDao;
 import com.baidu.gallery.car.model.Playlist;
 import com.baidu.gallery.car.model.PlaylistItem;
 import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaMetadata;
 
 import java.util.List;
 import java.util.ArrayList;
@@ -290,7 +291,15 @@ public class PlaylistRepository {
                         @Override
                         public void onFailure(String error) {
                             Log.e(TAG, "获取目录文件失败: " + path + ", error: " + error);
-                            // 即使某个目录失败，也尝试继续处理其他目录
+                            // 任一目录失败都不提交，避免用残缺的结果覆盖原有播放列表
+                            hasError.set(true);
+                            latch.countDown();
+                        }
+                        
+                        @Override
+                        public void onIncomplete(List<com.baidu.gallery.car.model.FileInfo> files, List<String> failedDirs) {
+                            Log.e(TAG, "目录 " + path + " 的部分子目录重试后仍然失败: " + failedDirs);
+                            hasError.set(true);
                             latch.countDown();
                         }
                     });
@@ -298,13 +307,18 @@ public class PlaylistRepository {
                 
                 try {
                     // 等待所有文件获取完成，最长等待5分钟
-                    latch.await(5, java.util.concurrent.TimeUnit.MINUTES);
+                    if (!latch.await(5, java.util.concurrent.TimeUnit.MINUTES)) {
+                        Log.e(TAG, "等待文件获取超时，放弃本次刷新");
+                        hasError.set(true);
+                    }
                 } catch (InterruptedException e) {
                     Log.e(TAG, "等待文件获取被中断", e);
                     hasError.set(true);
                 }
                 
                 if (hasError.get()) {
+                    Log.w(TAG, "文件列表不完整，保留原有播放列表，待重试的子树: " +
+                        FileRepository.getInstance().getFailedSubtrees());
                     if (onError != null) {
                         new android.os.Handler(android.os.Looper.getMainLooper()).post(onError);
                     }
@@ -346,7 +360,9 @@ public class PlaylistRepository {
                         
                         if (fileInfo.isVideo()) {
                             item.setMediaType(1);
-                            item.setDuration(0); // FileInfo通常没有时长
+                            // FileInfo没有时长，使用已索引的媒体信息（未索引时为0，索引完成后回填）
+                            MediaMetadata metadata = MediaMetadataRepository.getInstance(context).get(fileInfo.getFsId());
+                            item.setDuration(metadata != null ? metadata.getDurationMs() : 0);
                             videoCount++;
                         } else if (fileInfo.isImage()) {
                             item.setMediaType(2);
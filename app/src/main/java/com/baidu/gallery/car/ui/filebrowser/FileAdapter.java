@@ -12,6 +12,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.gallery.car.R;
 import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaIdentity;
+import com.baidu.gallery.car.utils.MediaGlideUrl;
 import com.bumptech.glide.Glide;
 
 import java.text.SimpleDateFormat;
@@ -153,7 +155,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
                 // 加载图片缩略图
                 if (file.getThumbs() != null && file.getThumbs().getUrl1() != null) {
                     Glide.with(itemView.getContext())
-                            .load(file.getThumbs().getUrl1())
+                            .load(new MediaGlideUrl(file.getThumbs().getUrl1(), MediaIdentity.of(file), "thumb1"))
                             .placeholder(android.R.drawable.ic_menu_gallery)
                             .error(android.R.drawable.ic_menu_gallery)
                             .timeout(30000)  // 设置30秒超时
@@ -165,7 +167,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
                 // 加载视频缩略图（如果有）
                 if (file.getThumbs() != null && file.getThumbs().getUrl1() != null) {
                     Glide.with(itemView.getContext())
-                            .load(file.getThumbs().getUrl1())
+                            .load(new MediaGlideUrl(file.getThumbs().getUrl1(), MediaIdentity.of(file), "thumb1"))
                             .placeholder(android.R.drawable.ic_media_play)
                             .error(android.R.drawable.ic_media_play)
                             .timeout(30000)  // 设置30秒超时
@@ -17,10 +17,12 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.baidu.gallery.car.R;
 import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaMetadata;
 import com.baidu.gallery.car.model.MediaType;
 import com.baidu.gallery.car.model.Playlist;
 import com.baidu.gallery.car.model.PlaylistItem;
 import com.baidu.gallery.car.repository.FileRepository;
+import com.baidu.gallery.car.repository.MediaMetadataRepository;
 import com.baidu.gallery.car.repository.PlaylistRepository;
 import com.baidu.gallery.car.ui.playback.PlaybackActivity;
 import com.baidu.gallery.car.utils.PlaylistCache;
@@ -676,6 +678,8 @@ public class FileBrowserFragment extends Fragment {
                     public void onSuccess(long id) {
                         android.util.Log.d("FileBrowserFragment", "播放列表创建成功，ID=" + id);
                         
+                        MediaMetadataRepository metadataRepository = MediaMetadataRepository.getInstance(requireContext());
+                        
                         // 在后台线程准备播放列表项
                         new Thread(() -> {
                             try {
@@ -690,7 +694,9 @@ public class FileBrowserFragment extends Fragment {
                                     item.setFsId(file.getFsId());
                                     item.setMediaType(file.isImage() ? 2 : 1); // 1=视频, 2=图片
                                     item.setSortOrder(sortOrder++);
-                                    item.setDuration(file.getSize()); // 暂时用文件大小代替时长
+                                    // 时长来自媒体信息索引，未索引时为0，索引完成后回填
+                                    MediaMetadata metadata = metadataRepository.get(file.getFsId());
+                                    item.setDuration(metadata != null ? metadata.getDurationMs() : 0);
                                     item.setFileSize(file.getSize());
                                     items.add(item);
                                 }
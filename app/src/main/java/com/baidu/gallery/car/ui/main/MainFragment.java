@@ -24,7 +24,9 @@ import com.baidu.gallery.car.model.PlaybackHistory;
 import com.baidu.gallery.car.model.Playlist;
 import com.baidu.gallery.car.model.UserInfoResponse;
 import com.baidu.gallery.car.network.ApiConstants;
+import com.baidu.gallery.car.network.ApiRequestScheduler;
 import com.baidu.gallery.car.network.BaiduPanService;
+import com.baidu.gallery.car.network.ConnectionWarmer;
 import com.baidu.gallery.car.network.RetrofitClient;
 import com.baidu.gallery.car.repository.PlaylistRepository;
 import com.baidu.gallery.car.utils.PreferenceUtils;
@@ -62,6 +64,10 @@ public class MainFragment extends Fragment {
     private ImageView ivUserAvatar;
     private TextView tvUsername;
     private LinearLayout llUserInfo;
+    
+    // 播放列表数量文本，以及后台排队等待限流的请求数
+    private String playlistCountText = "0 个";
+    private int throttledRequestCount = 0;
 
     @Nullable
     @Override
@@ -149,6 +155,23 @@ public class MainFragment extends Fragment {
                 recentTaskAdapter.setHistoryList(historyList);
             }
         });
+        
+        // 刷新播放列表时如果后台请求在排队，提示正在限流
+        ApiRequestScheduler.getInstance().getThrottledBackgroundCount().observe(getViewLifecycleOwner(), count -> {
+            throttledRequestCount = count != null ? count : 0;
+            updatePlaylistCountText();
+        });
+    }
+    
+    /**
+     * 更新播放列表数量文本，有后台请求排队时附加限流提示
+     */
+    private void updatePlaylistCountText() {
+        if (throttledRequestCount > 0) {
+            tvPlaylistCount.setText(playlistCountText + " · 限流排队中(" + throttledRequestCount + ")");
+        } else {
+            tvPlaylistCount.setText(playlistCountText);
+        }
     }
     
     /**
@@ -161,13 +184,15 @@ public class MainFragment extends Fragment {
             if (playlists == null || playlists.isEmpty()) {
                 rvPlaylists.setVisibility(View.GONE);
                 tvNoPlaylist.setVisibility(View.VISIBLE);
-                tvPlaylistCount.setText("0 个");
+                playlistCountText = "0 个";
+                updatePlaylistCountText();
                 // 没有播放列表，默认聚焦到浏览文件按钮
                 btnBrowseFiles.post(() -> btnBrowseFiles.requestFocus());
             } else {
                 rvPlaylists.setVisibility(View.VISIBLE);
                 tvNoPlaylist.setVisibility(View.GONE);
-                tvPlaylistCount.setText(playlists.size() + " 个");
+                playlistCountText = playlists.size() + " 个";
+                updatePlaylistCountText();
                 playlistAdapter.setPlaylists(playlists);
                 // 有播放列表，延迟请求第一个项的焦点
                 rvPlaylists.post(() -> {
@@ -221,6 +246,9 @@ public class MainFragment extends Fragment {
             return;
         }
         
+        // 在播放页初始化期间预热媒体下载主机
+        ConnectionWarmer.getInstance(requireContext()).warmUpMediaHosts();
+        
         // 启动播放器，播放该播放列表
         Intent intent = new Intent(requireContext(), com.baidu.gallery.car.ui.playback.PlaybackActivity.class);
         intent.putExtra("playlistDatabaseId", playlist.getId());
@@ -327,6 +355,8 @@ public class MainFragment extends Fragment {
      * 最近任务点击事件
      */
     private void onRecentTaskClick(PlaybackHistory history) {
+        ConnectionWarmer.getInstance(requireContext()).warmUpMediaHosts();
+        
         // 直接传递fsId和文件信息到PlaybackActivity
         Intent intent = new Intent(requireContext(), com.baidu.gallery.car.ui.playback.PlaybackActivity.class);
         intent.putExtra("historyId", history.getId());
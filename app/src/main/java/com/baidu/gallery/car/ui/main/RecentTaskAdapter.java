@@ -10,8 +10,10 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.gallery.car.R;
+import com.baidu.gallery.car.model.MediaIdentity;
 import com.baidu.gallery.car.model.MediaType;
 import com.baidu.gallery.car.model.PlaybackHistory;
+import com.baidu.gallery.car.utils.MediaGlideUrl;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.load.model.LazyHeaders;
@@ -103,10 +105,10 @@ public class RecentTaskAdapter extends RecyclerView.Adapter<RecentTaskAdapter.Vi
                     }
                 }
 
-                // 添加User-Agent头
-                GlideUrl glideUrl = new GlideUrl(thumbnailUrl, new LazyHeaders.Builder()
+                // 添加User-Agent头；按fsId缓存，access_token替换后仍命中
+                GlideUrl glideUrl = new MediaGlideUrl(thumbnailUrl, new LazyHeaders.Builder()
                         .addHeader("User-Agent", "pan.baidu.com")
-                        .build());
+                        .build(), MediaIdentity.ofFsId(history.getFsId()), "history-thumb");
 
                 Glide.with(itemView.getContext())
                         .load(glideUrl)
@@ -0,0 +1,286 @@
+package com.baidu.gallery.car.ui.playback;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaIdentity;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
+import com.baidu.gallery.car.utils.GlideMemoryProfile;
+import com.baidu.gallery.car.utils.MediaGlideUrl;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 图片档位阶梯
+ * 车机屏幕只有1920x720左右，没必要为每张幻灯片下载十几MB的手机原图。播放图片时逐级显示：
+ * - 缩略图：thumbs中最大的一档，通常很小或已在缓存中，立即显示
+ * - 显示尺寸缩放图：把缩略图URL的size参数改成显示框大小，由服务端缩放，不下载原图
+ * - 原图：缩放图没有填满显示框（服务端限制了尺寸）或请求失败时才下载，按显示尺寸解码
+ * 显示与预取使用同一套请求（含解码格式），内存缓存键一致
+ */
+public final class ImageLadder {
+    private static final String TAG = "ImageLadder";
+
+    // 缩略图URL中的尺寸参数，例如 size=c850_u580
+    private static final Pattern SIZE_PARAM = Pattern.compile("size=c(\\d+)_u(\\d+)");
+    // 缩放图任一边达到显示框的该比例即认为填满
+    private static final float FILL_TOLERANCE = 0.98f;
+
+    /**
+     * 档位
+     */
+    public enum Rung {
+        THUMBNAIL,
+        DISPLAY,
+        ORIGINAL
+    }
+
+    /**
+     * 档位加载回调（主线程）
+     */
+    public interface Listener {
+        void onRungReady(Rung rung, String url, Drawable resource, DataSource dataSource);
+
+        void onRungFailed(Rung rung);
+    }
+
+    /**
+     * 服务端提供的一个图片版本
+     */
+    static final class Rendition {
+        final String url;
+        final int width;
+        final int height;
+        final String variant;
+
+        Rendition(String url, int width, int height, String variant) {
+            this.url = url;
+            this.width = width;
+            this.height = height;
+            this.variant = variant;
+        }
+    }
+
+    private ImageLadder() {
+    }
+
+    // ========== 请求构建 ==========
+
+    /**
+     * 主请求：有可用的缩放图时先请求缩放图，失败再回退到原图；否则直接请求原图
+     */
+    public static RequestBuilder<Drawable> buildRequest(Context context, @Nullable FileInfo file, String originalUrl,
+                                                        int width, int height, @Nullable Listener listener) {
+        RequestBuilder<Drawable> original = withListener(
+                buildOriginalRequest(context, file, originalUrl, width, height), Rung.ORIGINAL, originalUrl, listener);
+        Rendition display = file != null ? displayRendition(file, width, height) : null;
+        if (display == null) {
+            return original;
+        }
+        return withListener(buildRenditionRequest(context, file, display), Rung.DISPLAY, display.url, listener)
+                .error(original);
+    }
+
+    /**
+     * 是否有服务端缩放图可用；没有时只能加载原图
+     */
+    public static boolean hasDisplayRendition(@NonNull FileInfo file, int width, int height) {
+        return displayRendition(file, width, height) != null;
+    }
+
+    /**
+     * 缩放图没有填满显示框时升级到原图；缩放图作为过渡（已在内存缓存中）
+     */
+    public static RequestBuilder<Drawable> buildUpgradeRequest(Context context, @NonNull FileInfo file, String originalUrl,
+                                                               int width, int height, @Nullable Listener listener) {
+        RequestBuilder<Drawable> original = withListener(
+                buildOriginalRequest(context, file, originalUrl, width, height), Rung.ORIGINAL, originalUrl, listener);
+        Rendition display = displayRendition(file, width, height);
+        if (display == null) {
+            return original;
+        }
+        return original.thumbnail(buildRenditionRequest(context, file, display));
+    }
+
+    /**
+     * 缩略图请求，没有缩略图时返回null
+     */
+    @Nullable
+    public static RequestBuilder<Drawable> buildThumbnailRequest(Context context, @Nullable FileInfo file,
+                                                                 @Nullable Listener listener) {
+        Rendition thumbnail = file != null ? largestThumbnail(file) : null;
+        if (thumbnail == null) {
+            return null;
+        }
+        return withListener(buildRenditionRequest(context, file, thumbnail), Rung.THUMBNAIL, thumbnail.url, listener);
+    }
+
+    /**
+     * 主请求的过渡缩略图；主请求的第一档就是这张缩略图（缩略图已够大）时返回null，避免同一地址请求两次
+     */
+    @Nullable
+    public static RequestBuilder<Drawable> buildThumbnailRequest(Context context, @Nullable FileInfo file,
+                                                                 int width, int height, @Nullable Listener listener) {
+        if (file != null) {
+            Rendition thumbnail = largestThumbnail(file);
+            Rendition display = displayRendition(file, width, height);
+            if (thumbnail != null && display != null && display.url.equals(thumbnail.url)) {
+                return null;
+            }
+        }
+        return buildThumbnailRequest(context, file, listener);
+    }
+
+    /**
+     * 原图请求：按显示尺寸解码，弱网时按网络质量进一步限制
+     */
+    public static RequestBuilder<Drawable> buildOriginalRequest(Context context, @Nullable FileInfo file,
+                                                                String url, int width, int height) {
+        RequestOptions options = GlideMemoryProfile.getInstance(context).slideRequestOptions(context)
+                .optionalFitCenter();
+        int targetLongEdge = NetworkQualityEstimator.getInstance().getImageTargetLongEdge();
+        if (targetLongEdge > 0) {
+            options = options.override(targetLongEdge, targetLongEdge);
+        } else if (width > 0 && height > 0) {
+            options = options.override(width, height);
+        }
+        Object model = file != null ? new MediaGlideUrl(url, MediaIdentity.of(file)) : url;
+        return Glide.with(context).load(model).apply(options);
+    }
+
+    /**
+     * 服务端版本已经是目标尺寸，按原尺寸解码，不再缩放
+     */
+    private static RequestBuilder<Drawable> buildRenditionRequest(Context context, FileInfo file, Rendition rendition) {
+        return Glide.with(context)
+                .load(new MediaGlideUrl(rendition.url, MediaIdentity.of(file), rendition.variant))
+                .apply(GlideMemoryProfile.getInstance(context).slideRequestOptions(context)
+                        .override(Target.SIZE_ORIGINAL));
+    }
+
+    private static RequestBuilder<Drawable> withListener(RequestBuilder<Drawable> request, Rung rung, String url,
+                                                         @Nullable Listener listener) {
+        if (listener == null) {
+            return request;
+        }
+        return request.listener(new RequestListener<Drawable>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                        @NonNull Target<Drawable> target, boolean isFirstResource) {
+                Log.w(TAG, "档位加载失败: " + rung + (e != null ? ", " + e.getMessage() : ""));
+                listener.onRungFailed(rung);
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model,
+                                           @NonNull Target<Drawable> target, @NonNull DataSource dataSource,
+                                           boolean isFirstResource) {
+                listener.onRungReady(rung, url, resource, dataSource);
+                return false;
+            }
+        });
+    }
+
+    // ========== 档位选择 ==========
+
+    /**
+     * thumbs中最大的一档（url3 > url2 > url1）
+     */
+    @Nullable
+    static Rendition largestThumbnail(@NonNull FileInfo file) {
+        FileInfo.Thumbs thumbs = file.getThumbs();
+        if (thumbs == null) {
+            return null;
+        }
+        // 未带尺寸参数时按网盘默认尺寸估计
+        if (isHttp(thumbs.getUrl3())) {
+            return parseRendition(thumbs.getUrl3(), 850, 580, "thumb3");
+        }
+        if (isHttp(thumbs.getUrl2())) {
+            return parseRendition(thumbs.getUrl2(), 360, 270, "thumb2");
+        }
+        if (isHttp(thumbs.getUrl1())) {
+            return parseRendition(thumbs.getUrl1(), 140, 90, "thumb1");
+        }
+        return null;
+    }
+
+    /**
+     * 显示尺寸的服务端版本：已有缩略图足够大时直接用，否则改写size参数请求服务端缩放；
+     * 缩略图URL不带size参数时返回null（只能下载原图）
+     */
+    @Nullable
+    static Rendition displayRendition(@NonNull FileInfo file, int width, int height) {
+        Rendition thumbnail = largestThumbnail(file);
+        if (thumbnail == null || width <= 0 || height <= 0) {
+            return null;
+        }
+        int[] box = displayBox(width, height);
+        if (thumbnail.width >= box[0] && thumbnail.height >= box[1]) {
+            return thumbnail;
+        }
+        Matcher matcher = SIZE_PARAM.matcher(thumbnail.url);
+        if (!matcher.find()) {
+            return null;
+        }
+        String url = matcher.replaceFirst(String.format(Locale.US, "size=c%d_u%d", box[0], box[1]));
+        return new Rendition(url, box[0], box[1], String.format(Locale.US, "display%dx%d", box[0], box[1]));
+    }
+
+    /**
+     * 服务端版本是否填满显示框。按比例缩放后至少有一边贴住显示框；
+     * 两边都没贴住说明服务端限制了尺寸（或原图本身就小，此时下载原图代价也很小）
+     */
+    public static boolean fillsDisplay(@NonNull Drawable resource, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return true;
+        }
+        int[] box = displayBox(width, height);
+        return resource.getIntrinsicWidth() >= box[0] * FILL_TOLERANCE
+                || resource.getIntrinsicHeight() >= box[1] * FILL_TOLERANCE;
+    }
+
+    /**
+     * 显示框：显示尺寸，弱网时按网络质量等比缩小
+     */
+    private static int[] displayBox(int width, int height) {
+        int targetLongEdge = NetworkQualityEstimator.getInstance().getImageTargetLongEdge();
+        int longEdge = Math.max(width, height);
+        if (targetLongEdge > 0 && longEdge > targetLongEdge) {
+            float scale = (float) targetLongEdge / longEdge;
+            return new int[]{Math.round(width * scale), Math.round(height * scale)};
+        }
+        return new int[]{width, height};
+    }
+
+    private static Rendition parseRendition(String url, int defaultWidth, int defaultHeight, String variant) {
+        Matcher matcher = SIZE_PARAM.matcher(url);
+        if (matcher.find()) {
+            try {
+                return new Rendition(url, Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), variant);
+            } catch (NumberFormatException ignored) {
+                // 按默认尺寸
+            }
+        }
+        return new Rendition(url, defaultWidth, defaultHeight, variant);
+    }
+
+    private static boolean isHttp(@Nullable String url) {
+        return url != null && url.startsWith("http");
+    }
+}
@@ -34,36 +34,48 @@ import com.baidu.gallery.car.model.FileInfo;
 import com.baidu.gallery.car.effects.ImageEffectFactory;
 import com.baidu.gallery.car.effects.ImageEffectStrategy;
 import com.baidu.gallery.car.model.ImageEffect;
+import com.baidu.gallery.car.model.MediaIdentity;
+import com.baidu.gallery.car.model.MediaMetadata;
 import com.baidu.gallery.car.model.PlayMode;
 import com.baidu.gallery.car.model.PlaybackHistory;
 import com.baidu.gallery.car.model.Playlist;
 import com.baidu.gallery.car.model.PlaylistItem;
+import com.baidu.gallery.car.network.ConnectionWarmer;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
 import com.baidu.gallery.car.repository.PlaybackHistoryRepository;
 import com.baidu.gallery.car.repository.PlaylistRepository;
 import com.baidu.gallery.car.repository.FileRepository;
+import com.baidu.gallery.car.repository.MediaMetadataRepository;
+import com.baidu.gallery.car.repository.PlayerOutcomeRepository;
 import com.baidu.gallery.car.auth.AuthRepository;
 import com.baidu.gallery.car.utils.LocationUtils;
 import com.baidu.gallery.car.ui.view.BlindsImageView;
+import com.baidu.gallery.car.ui.view.ImageStageView;
+import com.baidu.gallery.car.ui.view.TiledImageDrawable;
 import com.baidu.gallery.car.utils.PlaylistCache;
 import com.baidu.gallery.car.utils.ImageBackgroundUtils;
+import com.baidu.gallery.car.utils.ImageTransferStats;
 import com.baidu.gallery.car.utils.PreferenceUtils;
 import com.baidu.gallery.car.utils.DrivingModeManager;
 import com.baidu.gallery.car.utils.VoiceCommandManager;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
-import com.bumptech.glide.request.RequestListener;
-import com.bumptech.glide.request.target.Target;
 import androidx.media3.exoplayer.ExoPlayer;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.Player;
 import androidx.media3.ui.PlayerView;
 
-import org.videolan.libvlc.LibVLC;
 import org.videolan.libvlc.Media;
 import org.videolan.libvlc.MediaPlayer;
 import org.videolan.libvlc.interfaces.IVLCVout;
 
+import com.baidu.gallery.car.player.MediaCache;
+import com.baidu.gallery.car.player.MediaProxyServer;
+import com.baidu.gallery.car.player.AdaptiveLoadControl;
+import com.baidu.gallery.car.player.PlaybackTracer;
 import com.baidu.gallery.car.player.PlayerScheduler;
+import com.baidu.gallery.car.player.SegmentedHttpDataSource;
+import com.baidu.gallery.car.player.VlcEngine;
 import com.baidu.gallery.car.player.PlayerStrategy;
 
 import java.io.File;
@@ -91,7 +103,7 @@ public class PlaybackActivity extends FragmentActivity {
     // UI组件
     private SurfaceView surfaceView; // VLC Surface
     private PlayerView playerView;   // ExoPlayer View
-    private BlindsImageView ivImageDisplay;
+    private ImageStageView imageStage;  // 图片舞台（双缓冲，两个BlindsImageView图层交替显示）
     private ImageView ivBackground;  // 背景图层（毛玻璃或主色调）
     private View layoutControls;
     private TextView tvFileName;
@@ -106,12 +118,17 @@ public class PlaybackActivity extends FragmentActivity {
     private ImageView ivNext;
     private ProgressBar loadingIndicator;
     
-    // VLC 播放器
-    private LibVLC libVLC;
+    // VLC 播放器（LibVLC由VlcEngine持有，MediaPlayer按需获取、退出时归还）
     private MediaPlayer vlcMediaPlayer;
+    private IVLCVout.Callback vlcVoutCallback;
+    private MediaPlayer.EventListener vlcEventListener;
+    // 软解重试：下一次VLC播放使用更大的网络缓存
+    private boolean vlcSoftDecodeRetry = false;
     
     // ExoPlayer 播放器 (主力播放器)
     private ExoPlayer exoPlayer;
+    // 自适应缓冲控制（模拟器上为null）
+    private AdaptiveLoadControl adaptiveLoadControl;
     
     // 播放器调度器
     private PlayerScheduler playerScheduler;
@@ -147,6 +164,22 @@ public class PlaybackActivity extends FragmentActivity {
     // 防止ExoPlayer.prepare()循环调用的标志位
     private boolean isPreparingExoPlayer = false;
     private boolean hasSwitchedToVlc = false; // 标记是否已经切换到VLC
+    
+    // 播放结果统计（本机上各播放器对每个文件/每类视频的表现，供调度器学习）
+    private PlayerOutcomeRepository outcomeRepository;
+    private long fileStartTime = 0;                 // 当前文件（或切换播放器后）开始准备的时间
+    private boolean outcomeSuccessRecorded = false; // 当前文件是否已记录首帧
+    private boolean exoHasBeenReady = false;        // 区分起播缓冲和播放中卡顿
+    private boolean vlcHasPlayed = false;
+    private boolean vlcRebuffering = false;
+    
+    // 幻灯片预取（按播放顺序提前解码接下来的图片）
+    private SlideshowPrefetcher slideshowPrefetcher;
+    
+    // 超大图片/全景图的分块显示
+    private TiledImageLoader tiledImageLoader;
+    private TiledImageDrawable tiledDrawable;
+    private android.animation.ValueAnimator panAnimator;
 
     // 是否为模拟器环境
     private boolean isEmulator = false;
@@ -180,6 +213,7 @@ public class PlaybackActivity extends FragmentActivity {
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        PlaybackTracer.getInstance().markIntentReceived();
         
         // 设置全屏和沉浸式模式
         getWindow().setFlags(
@@ -213,7 +247,8 @@ public class PlaybackActivity extends FragmentActivity {
     }
 
     private void initScheduler() {
-        playerScheduler = new PlayerScheduler();
+        outcomeRepository = PlayerOutcomeRepository.getInstance(this);
+        playerScheduler = new PlayerScheduler(outcomeRepository);
     }
     
     private void initCarFeatures() {
@@ -291,7 +326,7 @@ public class PlaybackActivity extends FragmentActivity {
                 android.util.Log.d("PlaybackActivity", "onResume: 重新显示图片");
                 
                 // 确保图片显示View可见
-                ivImageDisplay.setVisibility(View.VISIBLE);
+                imageStage.setVisibility(View.VISIBLE);
                 surfaceView.setVisibility(View.GONE);
                 playerView.setVisibility(View.GONE);
                 
@@ -299,7 +334,7 @@ public class PlaybackActivity extends FragmentActivity {
                 String mediaUrl = viewModel.getPreparedMediaUrl().getValue();
                 if (mediaUrl != null && !mediaUrl.isEmpty()) {
                     // 如果ImageView中没有图片，或者我们想确保它被刷新
-                    if (ivImageDisplay.getDrawable() == null) {
+                    if (imageStage.getFrontLayer().getDrawable() == null) {
                         android.util.Log.d("PlaybackActivity", "onResume: 重新加载图片 URL");
                         playImageWithUrl(mediaUrl);
                     }
@@ -314,7 +349,13 @@ public class PlaybackActivity extends FragmentActivity {
     private void initViews() {
         surfaceView = findViewById(R.id.surface_view);
         playerView = findViewById(R.id.player_view);
-        ivImageDisplay = findViewById(R.id.iv_image_display);
+        imageStage = findViewById(R.id.image_stage);
+        // 切换结束后旧图层不再显示，释放其上的图片
+        imageStage.setLayerListener(layer -> {
+            if (!isActivityDestroyed) {
+                Glide.with(this).clear(layer);
+            }
+        });
         ivBackground = findViewById(R.id.iv_background);
         layoutControls = findViewById(R.id.layout_controls);
         tvFileName = findViewById(R.id.tv_file_name);
@@ -335,200 +376,257 @@ public class PlaybackActivity extends FragmentActivity {
         params.height = android.view.ViewGroup.LayoutParams.MATCH_PARENT;
         surfaceView.setLayoutParams(params);
         
+        slideshowPrefetcher = new SlideshowPrefetcher(this);
+        tiledImageLoader = new TiledImageLoader(this);
+        
         // 隐藏控制栏
         hideControls();
     }
     
+    /**
+     * 准备VLC回调
+     * LibVLC不在这里创建：由VlcEngine在第一次真正播放VLC视频时创建并常驻进程，
+     * 纯图片或ExoPlayer可播的播放列表不再为VLC付出初始化开销
+     */
     private void initVLC() {
-        try {
-            ArrayList<String> options = new ArrayList<>();
-            // 增加网络缓存以提高稳定性
-            options.add("--network-caching=1000");
-            // 禁用硬件加速，强制使用软解以解决HEVC花屏问题
-            options.add("--avcodec-hw=none");
-            // 启用详细日志
-            options.add("-vvv");
-            android.util.Log.d("PlaybackActivity", "[DECODER] VLC: 禁用硬件加速，强制使用软解");
-            
-            libVLC = new LibVLC(this, options);
-            vlcMediaPlayer = new MediaPlayer(libVLC);
-            
-            IVLCVout vout = vlcMediaPlayer.getVLCVout();
-            vout.setVideoView(surfaceView);
-            vout.setWindowSize(surfaceView.getWidth(), surfaceView.getHeight());
-            
-            // 添加布局监听器
-            vout.addCallback(new IVLCVout.Callback() {
-                @Override
-                public void onSurfacesCreated(IVLCVout vout) {
-                    android.util.Log.d("PlaybackActivity", "VLC Surface created");
-                }
+        // 添加布局监听器
+        vlcVoutCallback = new IVLCVout.Callback() {
+            @Override
+            public void onSurfacesCreated(IVLCVout vout) {
+                android.util.Log.d("PlaybackActivity", "VLC Surface created");
+            }
 
-                @Override
-                public void onSurfacesDestroyed(IVLCVout vout) {
-                    android.util.Log.d("PlaybackActivity", "VLC Surface destroyed");
+            @Override
+            public void onSurfacesDestroyed(IVLCVout vout) {
+                android.util.Log.d("PlaybackActivity", "VLC Surface destroyed");
+            }
+
+            public void onNewLayout(IVLCVout vout, int width, int height, int visibleWidth, int visibleHeight, int sarNum, int sarDen) {
+                if (width * height == 0) return;
+                
+                // 计算视频实际宽高比（考虑SAR）
+                double videoRatio = (double) width / height;
+                if (sarNum > 0 && sarDen > 0) {
+                    videoRatio = videoRatio * sarNum / sarDen;
                 }
+                final double finalVideoRatio = videoRatio;
 
-                public void onNewLayout(IVLCVout vout, int width, int height, int visibleWidth, int visibleHeight, int sarNum, int sarDen) {
-                    if (width * height == 0) return;
-                    
-                    // 计算视频实际宽高比（考虑SAR）
-                    double videoRatio = (double) width / height;
-                    if (sarNum > 0 && sarDen > 0) {
-                        videoRatio = videoRatio * sarNum / sarDen;
+                android.util.Log.d("PlaybackActivity", String.format(
+                    "视频源尺寸: video=%dx%d, sar=%d/%d, ratio=%.4f",
+                    width, height, sarNum, sarDen, finalVideoRatio));
+                
+                runOnUiThread(() -> {
+                    if (vlcMediaPlayer == null) {
+                        return;
                     }
-                    final double finalVideoRatio = videoRatio;
-
-                    android.util.Log.d("PlaybackActivity", String.format(
-                        "视频源尺寸: video=%dx%d, sar=%d/%d, ratio=%.4f",
-                        width, height, sarNum, sarDen, finalVideoRatio));
+                    // 获取屏幕尺寸
+                    android.util.DisplayMetrics dm = new android.util.DisplayMetrics();
+                    getWindowManager().getDefaultDisplay().getRealMetrics(dm);
+                    int screenWidth = dm.widthPixels;
+                    int screenHeight = dm.heightPixels;
+                    
+                    double screenRatio = (double) screenWidth / screenHeight;
                     
-                    runOnUiThread(() -> {
-                        // 获取屏幕尺寸
-                        android.util.DisplayMetrics dm = new android.util.DisplayMetrics();
-                        getWindowManager().getDefaultDisplay().getRealMetrics(dm);
-                        int screenWidth = dm.widthPixels;
-                        int screenHeight = dm.heightPixels;
+                    // 判断视频是横屏还是竖屏 (使用最终显示比例判断)
+                    boolean isLandscape = finalVideoRatio >= 1.0;
+                    
+                    android.widget.FrameLayout.LayoutParams lp =
+                        (android.widget.FrameLayout.LayoutParams) surfaceView.getLayoutParams();
+                    
+                    if (isLandscape) {
+                        // 横屏视频：尽量充满全屏 (CenterCrop 模式)
+                        // 计算能够填满屏幕的 SurfaceView 尺寸，同时保持视频比例
+                        int surfaceWidth, surfaceHeight;
                         
-                        double screenRatio = (double) screenWidth / screenHeight;
+                        if (finalVideoRatio > screenRatio) {
+                            // 视频比屏幕更宽 (例如 21:9 在 16:9 屏幕)
+                            // 以高度为基准填满屏幕，宽度超出屏幕 (裁剪左右)
+                            surfaceHeight = screenHeight;
+                            surfaceWidth = (int) (screenHeight * finalVideoRatio);
+                        } else {
+                            // 视频比屏幕更窄 (例如 4:3 在 16:9 屏幕)
+                            // 以宽度为基准填满屏幕，高度超出屏幕 (裁剪上下)
+                            surfaceWidth = screenWidth;
+                            surfaceHeight = (int) (screenWidth / finalVideoRatio);
+                        }
                         
-                        // 判断视频是横屏还是竖屏 (使用最终显示比例判断)
-                        boolean isLandscape = finalVideoRatio >= 1.0;
+                        lp.width = surfaceWidth;
+                        lp.height = surfaceHeight;
+                        lp.gravity = android.view.Gravity.CENTER;
+                        surfaceView.setLayoutParams(lp);
                         
-                        android.widget.FrameLayout.LayoutParams lp =
-                            (android.widget.FrameLayout.LayoutParams) surfaceView.getLayoutParams();
+                        // 不设置宽高比，让VLC自动适应SurfaceView
+                        // 由于SurfaceView的比例已调整为和视频一致，VLC会自然充满SurfaceView
+                        vlcMediaPlayer.setAspectRatio(null);
+                        vlcMediaPlayer.setScale(0);
                         
-                        if (isLandscape) {
-                            // 横屏视频：尽量充满全屏 (CenterCrop 模式)
-                            // 计算能够填满屏幕的 SurfaceView 尺寸，同时保持视频比例
-                            int surfaceWidth, surfaceHeight;
-                            
-                            if (finalVideoRatio > screenRatio) {
-                                // 视频比屏幕更宽 (例如 21:9 在 16:9 屏幕)
-                                // 以高度为基准填满屏幕，宽度超出屏幕 (裁剪左右)
-                                surfaceHeight = screenHeight;
-                                surfaceWidth = (int) (screenHeight * finalVideoRatio);
-                            } else {
-                                // 视频比屏幕更窄 (例如 4:3 在 16:9 屏幕)
-                                // 以宽度为基准填满屏幕，高度超出屏幕 (裁剪上下)
-                                surfaceWidth = screenWidth;
-                                surfaceHeight = (int) (screenWidth / finalVideoRatio);
-                            }
-                            
-                            lp.width = surfaceWidth;
-                            lp.height = surfaceHeight;
-                            lp.gravity = android.view.Gravity.CENTER;
-                            surfaceView.setLayoutParams(lp);
-                            
-                            // 不设置宽高比，让VLC自动适应SurfaceView
-                            // 由于SurfaceView的比例已调整为和视频一致，VLC会自然充满SurfaceView
-                            vlcMediaPlayer.setAspectRatio(null);
-                            vlcMediaPlayer.setScale(0);
-                            
-                            android.util.Log.d("PlaybackActivity", String.format(
-                                "横屏视频 - CenterCrop模式: SurfaceView=%dx%d (Screen=%dx%d)",
-                                surfaceWidth, surfaceHeight, screenWidth, screenHeight));
+                        android.util.Log.d("PlaybackActivity", String.format(
+                            "横屏视频 - CenterCrop模式: SurfaceView=%dx%d (Screen=%dx%d)",
+                            surfaceWidth, surfaceHeight, screenWidth, screenHeight));
+                    } else {
+                        // 竖屏视频：等比占满纵轴 (FitCenter 模式)
+                        // SurfaceView保持全屏
+                        lp.width = screenWidth;
+                        lp.height = screenHeight;
+                        lp.gravity = android.view.Gravity.CENTER;
+                        surfaceView.setLayoutParams(lp);
+                        
+                        // 计算目标宽高比字符串，保持视频比例
+                        String targetAspectRatio;
+                        if (finalVideoRatio > screenRatio) {
+                            // 视频比屏幕宽（罕见情况）：宽度占满
+                            targetAspectRatio = screenWidth + ":" + (int)(screenWidth / finalVideoRatio);
                         } else {
-                            // 竖屏视频：等比占满纵轴 (FitCenter 模式)
-                            // SurfaceView保持全屏
-                            lp.width = screenWidth;
-                            lp.height = screenHeight;
-                            lp.gravity = android.view.Gravity.CENTER;
-                            surfaceView.setLayoutParams(lp);
-                            
-                            // 计算目标宽高比字符串，保持视频比例
-                            String targetAspectRatio;
-                            if (finalVideoRatio > screenRatio) {
-                                // 视频比屏幕宽（罕见情况）：宽度占满
-                                targetAspectRatio = screenWidth + ":" + (int)(screenWidth / finalVideoRatio);
-                            } else {
-                                // 视频比屏幕窄：高度占满
-                                targetAspectRatio = (int)(screenHeight * finalVideoRatio) + ":" + screenHeight;
-                            }
-                            
-                            vlcMediaPlayer.setAspectRatio(targetAspectRatio);
-                            vlcMediaPlayer.setScale(0);
-                            
-                            android.util.Log.d("PlaybackActivity", String.format(
-                                "竖屏视频 - FitCenter模式: AspectRatio=%s, SurfaceView=%dx%d",
-                                targetAspectRatio, screenWidth, screenHeight));
+                            // 视频比屏幕窄：高度占满
+                            targetAspectRatio = (int)(screenHeight * finalVideoRatio) + ":" + screenHeight;
                         }
-                    });
-                }
-            });
-            
-            // 确保SurfaceView已准备好再附加
-            surfaceView.getHolder().addCallback(new android.view.SurfaceHolder.Callback() {
-                @Override
-                public void surfaceCreated(@NonNull android.view.SurfaceHolder holder) {
-                    android.util.Log.d("PlaybackActivity", "SurfaceHolder created");
-                    if (!vout.areViewsAttached()) {
-                        vout.attachViews();
+                        
+                        vlcMediaPlayer.setAspectRatio(targetAspectRatio);
+                        vlcMediaPlayer.setScale(0);
+                        
+                        android.util.Log.d("PlaybackActivity", String.format(
+                            "竖屏视频 - FitCenter模式: AspectRatio=%s, SurfaceView=%dx%d",
+                            targetAspectRatio, screenWidth, screenHeight));
                     }
+                });
+            }
+        };
+        
+        // 确保SurfaceView已准备好再附加
+        surfaceView.getHolder().addCallback(new android.view.SurfaceHolder.Callback() {
+            @Override
+            public void surfaceCreated(@NonNull android.view.SurfaceHolder holder) {
+                android.util.Log.d("PlaybackActivity", "SurfaceHolder created");
+                if (vlcMediaPlayer != null && !vlcMediaPlayer.getVLCVout().areViewsAttached()) {
+                    vlcMediaPlayer.getVLCVout().attachViews();
                 }
+            }
 
-                @Override
-                public void surfaceChanged(@NonNull android.view.SurfaceHolder holder, int format, int width, int height) {
-                    android.util.Log.d("PlaybackActivity", "SurfaceHolder changed: " + width + "x" + height);
-                    if (vout.areViewsAttached()) {
-                        vout.setWindowSize(width, height);
-                    }
+            @Override
+            public void surfaceChanged(@NonNull android.view.SurfaceHolder holder, int format, int width, int height) {
+                android.util.Log.d("PlaybackActivity", "SurfaceHolder changed: " + width + "x" + height);
+                if (vlcMediaPlayer != null && vlcMediaPlayer.getVLCVout().areViewsAttached()) {
+                    vlcMediaPlayer.getVLCVout().setWindowSize(width, height);
                 }
+            }
 
-                @Override
-                public void surfaceDestroyed(@NonNull android.view.SurfaceHolder holder) {
-                    android.util.Log.d("PlaybackActivity", "SurfaceHolder destroyed");
-                }
-            });
-            
-            vlcMediaPlayer.setEventListener(event -> {
-                switch (event.type) {
-                    case MediaPlayer.Event.Buffering:
-                        if (event.getBuffering() == 100.0f) {
-                            loadingIndicator.setVisibility(View.GONE);
-                        } else {
-                            if (loadingIndicator.getVisibility() != View.VISIBLE) {
-                                loadingIndicator.setVisibility(View.VISIBLE);
-                            }
-                        }
-                        break;
-                    case MediaPlayer.Event.Playing:
-                        loadingIndicator.setVisibility(View.GONE);
-                        updatePlayPauseButton(true);
-                        startProgressUpdate();
-                        break;
-                    case MediaPlayer.Event.Paused:
-                        updatePlayPauseButton(false);
-                        stopProgressUpdate();
-                        break;
-                    case MediaPlayer.Event.Stopped:
-                        updatePlayPauseButton(false);
-                        stopProgressUpdate();
-                        break;
-                    case MediaPlayer.Event.EndReached:
-                        android.util.Log.d("PlaybackActivity", "[VLC] EndReached事件触发，准备播放下一个");
-                        stopProgressUpdate();
-                        viewModel.playNext();
-                        break;
-                    case MediaPlayer.Event.EncounteredError:
+            @Override
+            public void surfaceDestroyed(@NonNull android.view.SurfaceHolder holder) {
+                android.util.Log.d("PlaybackActivity", "SurfaceHolder destroyed");
+            }
+        });
+        
+        vlcEventListener = event -> {
+            switch (event.type) {
+                case MediaPlayer.Event.Buffering:
+                    // VLC打开输入后开始报告缓冲进度，记为连接建立；进度大于0说明已收到数据
+                    PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.CONNECTED);
+                    if (event.getBuffering() > 0f) {
+                        PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.FIRST_BYTE);
+                    }
+                    if (event.getBuffering() == 100.0f) {
                         loadingIndicator.setVisibility(View.GONE);
-                        handleVlcError();
-                        break;
-                }
-            });
-            
+                        vlcRebuffering = false;
+                    } else {
+                        if (loadingIndicator.getVisibility() != View.VISIBLE) {
+                            loadingIndicator.setVisibility(View.VISIBLE);
+                        }
+                        // 开始播放后的缓冲视为卡顿，每次缓冲只计一次
+                        if (vlcHasPlayed && !vlcRebuffering) {
+                            vlcRebuffering = true;
+                            recordPlaybackRebuffer(PlayerOutcomeRepository.ENGINE_VLC);
+                        }
+                    }
+                    break;
+                case MediaPlayer.Event.ESAdded:
+                    // 解复用器识别出音视频流，必然已读到数据（缓冲进度事件可能一直为0）
+                    PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.CONNECTED);
+                    PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.FIRST_BYTE);
+                    break;
+                case MediaPlayer.Event.Playing:
+                    vlcHasPlayed = true;
+                    PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.PREPARED);
+                    recordPlaybackSuccess(PlayerOutcomeRepository.ENGINE_VLC);
+                    loadingIndicator.setVisibility(View.GONE);
+                    updatePlayPauseButton(true);
+                    startProgressUpdate();
+                    break;
+                case MediaPlayer.Event.Vout:
+                    if (event.getVoutCount() > 0) {
+                        PlaybackTracer.getInstance().finish(PlaybackTracer.Stage.FIRST_FRAME);
+                    }
+                    break;
+                case MediaPlayer.Event.Paused:
+                    updatePlayPauseButton(false);
+                    stopProgressUpdate();
+                    break;
+                case MediaPlayer.Event.Stopped:
+                    updatePlayPauseButton(false);
+                    stopProgressUpdate();
+                    break;
+                case MediaPlayer.Event.EndReached:
+                    android.util.Log.d("PlaybackActivity", "[VLC] EndReached事件触发，准备播放下一个");
+                    stopProgressUpdate();
+                    viewModel.playNext();
+                    break;
+                case MediaPlayer.Event.EncounteredError:
+                    loadingIndicator.setVisibility(View.GONE);
+                    handleVlcError();
+                    break;
+            }
+        };
+    }
+
+    /**
+     * 获取VLC播放器并绑定到当前界面（已绑定时直接返回）
+     * @return 是否可用，LibVLC初始化失败时返回false
+     */
+    private boolean ensureVlcPlayer() {
+        if (vlcMediaPlayer != null) {
+            return true;
+        }
+        try {
+            vlcMediaPlayer = VlcEngine.getInstance(this).acquirePlayer();
+            IVLCVout vout = vlcMediaPlayer.getVLCVout();
+            vout.setVideoView(surfaceView);
+            vout.setWindowSize(surfaceView.getWidth(), surfaceView.getHeight());
+            vout.addCallback(vlcVoutCallback);
+            if (surfaceView.getHolder().getSurface().isValid() && !vout.areViewsAttached()) {
+                vout.attachViews();
+            }
+            vlcMediaPlayer.setEventListener(vlcEventListener);
+            return true;
         } catch (Exception e) {
             e.printStackTrace();
             Toast.makeText(this, "VLC初始化失败: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            vlcMediaPlayer = null;
             useVlc = false; // 回退到ExoPlayer
+            return false;
+        }
+    }
+
+    /**
+     * 解除当前界面的绑定并把VLC播放器交还给VlcEngine
+     * @param reusable 播放器状态正常时放回复用池，出错时直接释放
+     */
+    private void releaseVlcPlayer(boolean reusable) {
+        if (vlcMediaPlayer == null) {
+            return;
+        }
+        vlcMediaPlayer.getVLCVout().removeCallback(vlcVoutCallback);
+        if (reusable) {
+            VlcEngine.getInstance(this).recyclePlayer(vlcMediaPlayer);
+        } else {
+            VlcEngine.getInstance(this).discardPlayer(vlcMediaPlayer);
         }
+        vlcMediaPlayer = null;
     }
 
     private void initExoPlayer() {
         if (exoPlayer == null) {
             // 初始化ExoPlayer，配置更好的解码器和渲染策略
             // 针对模拟器和真机使用不同的缓冲策略
-            androidx.media3.exoplayer.DefaultLoadControl loadControl;
+            androidx.media3.exoplayer.LoadControl loadControl;
             
             if (isEmulator) {
                 // 模拟器：极致激进的启动策略
@@ -544,16 +642,11 @@ public class PlaybackActivity extends FragmentActivity {
                     .build();
                 android.util.Log.d("PlaybackActivity", "[PLAYBACK] 使用模拟器优化配置：超低延迟启动");
             } else {
-                // 真机：平衡的策略
-                loadControl = new androidx.media3.exoplayer.DefaultLoadControl.Builder()
-                    .setBufferDurationsMs(
-                        10000,  // minBufferMs: 最小缓冲10秒
-                        30000,  // maxBufferMs: 最大缓冲30秒
-                        500,    // bufferForPlaybackMs: 开始播放前缓冲0.5秒
-                        1500    // bufferForPlaybackAfterRebufferMs: 重新缓冲后需要1.5秒
-                    )
-                    .setPrioritizeTimeOverSizeThresholds(true)
-                    .build();
+                // 真机：每个文件按码率和实测带宽调整缓冲阈值，卡顿后加大缓冲
+                adaptiveLoadControl = new AdaptiveLoadControl();
+                loadControl = adaptiveLoadControl;
+                android.util.Log.d("PlaybackActivity", "[PLAYBACK] 网络质量=" +
+                    NetworkQualityEstimator.getInstance().getQuality() + ", 使用自适应缓冲策略");
             }
             
             // 配置解码器选择器：智能选择策略
@@ -675,13 +768,33 @@ public class PlaybackActivity extends FragmentActivity {
             httpDataSourceFactory.setDefaultRequestProperties(defaultRequestProperties);
             
             // 使用带带宽测量的DataSource，有助于ExoPlayer调整缓冲策略
-            androidx.media3.exoplayer.upstream.DefaultBandwidthMeter bandwidthMeter =
-                new androidx.media3.exoplayer.upstream.DefaultBandwidthMeter.Builder(this).build();
+            // 用全局估计作为初始值，并把ExoPlayer的测量结果回馈给全局估计
+            androidx.media3.exoplayer.upstream.DefaultBandwidthMeter.Builder bandwidthMeterBuilder =
+                new androidx.media3.exoplayer.upstream.DefaultBandwidthMeter.Builder(this);
+            long initialBitrate = NetworkQualityEstimator.getInstance().getInitialBitrateEstimate();
+            if (initialBitrate > 0) {
+                bandwidthMeterBuilder.setInitialBitrateEstimate(initialBitrate);
+            }
+            androidx.media3.exoplayer.upstream.DefaultBandwidthMeter bandwidthMeter = bandwidthMeterBuilder.build();
+            bandwidthMeter.addEventListener(new Handler(android.os.Looper.getMainLooper()), (elapsedMs, bytesTransferred, bitrateEstimate) ->
+                NetworkQualityEstimator.getInstance().addThroughputSample(bytesTransferred, elapsedMs));
                 
-            androidx.media3.datasource.DefaultDataSource.Factory dataSourceFactory =
-                new androidx.media3.datasource.DefaultDataSource.Factory(this, httpDataSourceFactory)
+            androidx.media3.datasource.DefaultDataSource.Factory upstreamDataSourceFactory =
+                new androidx.media3.datasource.DefaultDataSource.Factory(this,
+                    // 单连接吞吐跟不上文件码率时自动改为多连接分段下载
+                    new SegmentedHttpDataSource.Factory(this, httpDataSourceFactory))
                     .setTransferListener(bandwidthMeter);
             
+            // 外包一层磁盘缓存：重播、循环、回绕时直接读本地，不再消耗网络
+            androidx.media3.datasource.DataSource.Factory cacheDataSourceFactory =
+                MediaCache.getInstance(this).createDeferredDataSourceFactory(upstreamDataSourceFactory);
+            // 起播追踪：记录连接建立和首字节（缓存命中时来自本地文件）
+            androidx.media3.datasource.DataSource.Factory dataSourceFactory = () -> {
+                androidx.media3.datasource.DataSource dataSource = cacheDataSourceFactory.createDataSource();
+                dataSource.addTransferListener(PlaybackTracer.getInstance().getTransferListener());
+                return dataSource;
+            };
+            
             exoPlayer = new ExoPlayer.Builder(this)
                 .setRenderersFactory(renderersFactory)
                 .setLoadControl(loadControl)
@@ -693,6 +806,16 @@ public class PlaybackActivity extends FragmentActivity {
             
             playerView.setPlayer(exoPlayer);
             
+            // 记录重定向后实际提供数据的CDN主机，下次点击播放前预热
+            exoPlayer.addAnalyticsListener(new androidx.media3.exoplayer.analytics.AnalyticsListener() {
+                @Override
+                public void onLoadCompleted(@NonNull EventTime eventTime,
+                                            @NonNull androidx.media3.exoplayer.source.LoadEventInfo loadEventInfo,
+                                            @NonNull androidx.media3.exoplayer.source.MediaLoadData mediaLoadData) {
+                    ConnectionWarmer.getInstance(PlaybackActivity.this).recordMediaHost(loadEventInfo.uri.getHost());
+                }
+            });
+            
             // 设置视频缩放模式为自适应
             playerView.setResizeMode(androidx.media3.ui.AspectRatioFrameLayout.RESIZE_MODE_FIT);
             
@@ -706,6 +829,9 @@ public class PlaybackActivity extends FragmentActivity {
                     // 重置准备标志位
                     isPreparingExoPlayer = false;
                     
+                    // 出错时退出队列模式，后续重试和VLC切换按单条目处理
+                    trimExoQueue();
+                    
                     android.util.Log.e("PlaybackActivity", "[ERROR] ======== ExoPlayer 错误 ========");
                     android.util.Log.e("PlaybackActivity", "[ERROR] 错误信息: " + error.getMessage());
                     android.util.Log.e("PlaybackActivity", "[ERROR] 错误代码: " + error.errorCode);
@@ -741,6 +867,11 @@ public class PlaybackActivity extends FragmentActivity {
                     }
                     
                     android.util.Log.e("PlaybackActivity", "[ERROR] ================================");
+                    // 网络类错误（2xxx）与播放器无关，只统计解析/解码等错误
+                    if (error.errorCode >= androidx.media3.common.PlaybackException.ERROR_CODE_PARSING_CONTAINER_MALFORMED &&
+                        !hasSwitchedToVlc) {
+                        recordPlaybackFailure(PlayerOutcomeRepository.ENGINE_EXO);
+                    }
                     handleExoPlayerError();
                 }
                 
@@ -851,6 +982,8 @@ public class PlaybackActivity extends FragmentActivity {
                         
                         // 成功进入READY状态，重置异常转换计数
                         exoBufferingToEndedCount = 0;
+                        exoHasBeenReady = true;
+                        PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.PREPARED);
                         
                         // 检查视频轨道信息
                         if (exoPlayer != null) {
@@ -883,6 +1016,14 @@ public class PlaybackActivity extends FragmentActivity {
                         // ExoPlayer 成功播放，重置错误计数
                         exoErrorCount = 0;
                     } else if (playbackState == Player.STATE_BUFFERING) {
+                        if (exoHasBeenReady) {
+                            // READY之后再次缓冲（非拖动引起）视为卡顿
+                            exoHasBeenReady = false;
+                            recordPlaybackRebuffer(PlayerOutcomeRepository.ENGINE_EXO);
+                            if (adaptiveLoadControl != null) {
+                                adaptiveLoadControl.onRebuffer();
+                            }
+                        }
                         android.util.Log.d("PlaybackActivity", "[PLAYBACK] ExoPlayer is buffering, showing loading indicator");
                         loadingIndicator.setVisibility(View.VISIBLE);
                     } else if (playbackState == Player.STATE_ENDED) {
@@ -892,9 +1033,29 @@ public class PlaybackActivity extends FragmentActivity {
                     }
                 }
                 
+                @Override
+                public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+                    // 队列中的下一个视频自动接续播放，同步ViewModel的当前索引
+                    if (reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO && mediaItem != null) {
+                        android.util.Log.d("PlaybackActivity", "[QUEUE] 自动切换到队列中的下一个条目: " + mediaItem.mediaId);
+                        viewModel.playNext();
+                    }
+                }
+                
+                @Override
+                public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition,
+                                                    @NonNull Player.PositionInfo newPosition, int reason) {
+                    // 拖动后的缓冲不计为卡顿
+                    if (reason == Player.DISCONTINUITY_REASON_SEEK) {
+                        exoHasBeenReady = false;
+                    }
+                }
+                
                 @Override
                 public void onRenderedFirstFrame() {
                     android.util.Log.d("PlaybackActivity", "[PLAYBACK] ✓ ExoPlayer 渲染了第一帧视频");
+                    PlaybackTracer.getInstance().finish(PlaybackTracer.Stage.FIRST_FRAME);
+                    recordPlaybackSuccess(PlayerOutcomeRepository.ENGINE_EXO);
                 }
             });
         }
@@ -963,6 +1124,13 @@ public class PlaybackActivity extends FragmentActivity {
             return false;
         }
         
+        // 已有媒体信息索引时以真实编码为准
+        MediaMetadata metadata = MediaMetadataRepository.getInstance(this).get(fileInfo.getFsId());
+        if (metadata != null && metadata.isIndexed()) {
+            android.util.Log.d("PlaybackActivity", "[HEVC] 根据媒体信息判断: " + metadata);
+            return metadata.isHevc();
+        }
+        
         // 方法1：通过文件扩展名判断（快速判断）
         String fileName = fileInfo.getServerFilename();
         if (fileName != null) {
@@ -1015,6 +1183,9 @@ public class PlaybackActivity extends FragmentActivity {
         android.util.Log.d("PlaybackActivity", "[SWITCH] === 立即切换到VLC播放器 ===");
         loadingIndicator.setVisibility(View.GONE);
         
+        // 调用方都是解码器不兼容的情况，记为ExoPlayer失败
+        recordPlaybackFailure(PlayerOutcomeRepository.ENGINE_EXO);
+        
         // 设置标志位，阻止后续的ExoPlayer准备
         hasSwitchedToVlc = true;
         isPreparingExoPlayer = false;
@@ -1034,7 +1205,7 @@ public class PlaybackActivity extends FragmentActivity {
         // 重新尝试播放
         if (currentMediaUrl != null) {
             android.util.Log.d("PlaybackActivity", "[SWITCH] 使用VLC重新播放: " + currentMediaUrl);
-            playVideoWithUrl(currentMediaUrl);
+            playVideoWithUrl(currentMediaUrl, false);
         } else {
             android.util.Log.w("PlaybackActivity", "[SWITCH] 没有可用的媒体URL，跳到下一个");
             viewModel.playNext();
@@ -1084,7 +1255,7 @@ public class PlaybackActivity extends FragmentActivity {
         
         // 重新尝试播放
         if (currentMediaUrl != null) {
-            playVideoWithUrl(currentMediaUrl);
+            playVideoWithUrl(currentMediaUrl, false);
         } else {
             viewModel.playNext();
         }
@@ -1099,6 +1270,7 @@ public class PlaybackActivity extends FragmentActivity {
         // 观察播放列表
         viewModel.getPlayList().observe(this, files -> {
             if (files != null && !files.isEmpty()) {
+                PlaybackTracer.getInstance().markPlaylistLoaded();
                 playCurrentFile();
             }
         });
@@ -1114,9 +1286,18 @@ public class PlaybackActivity extends FragmentActivity {
         viewModel.getPlayMode().observe(this, mode -> {
             if (mode != null) {
                 updatePlayModeIcon();
+                // 播放顺序变了，已排队的条目不再是下一个
+                trimExoQueue();
+                planSlideshowPrefetch();
             }
         });
         
+        // 下一个文件dlink就绪后，排入ExoPlayer队列
+        viewModel.getPreloadedNextIndex().observe(this, index -> {
+            prewarmVlcFor(index);
+            enqueueNextVideo(index);
+        });
+        
         // 观察播放状态
         viewModel.getIsPlaying().observe(this, isPlaying -> {
             if (isPlaying != null) {
@@ -1158,6 +1339,7 @@ public class PlaybackActivity extends FragmentActivity {
         // 观察准备好的媒体URL
         viewModel.getPreparedMediaUrl().observe(this, url -> {
             if (url != null) {
+                PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.DLINK_RESOLVED);
                 // 停止之前的加载指示器
                 loadingIndicator.setVisibility(View.GONE);
                 
@@ -1165,10 +1347,12 @@ public class PlaybackActivity extends FragmentActivity {
                 if (currentFile == null) return;
                 
                 if (currentFile.isVideo()) {
-                    playVideoWithUrl(url);
+                    playVideoWithUrl(url, isPlayingFromExoQueue(currentFile));
                 } else if (currentFile.isImage()) {
                     playImageWithUrl(url);
                 }
+                // 当前文件的请求已发出，再为后面的图片预取
+                planSlideshowPrefetch();
                 
                 // 获取地点信息（使用实际的媒体URL）
                 getLocationForFile(currentFile, url);
@@ -1401,7 +1585,7 @@ public class PlaybackActivity extends FragmentActivity {
         View.OnClickListener controlsClickListener = v -> showControls();
         playerView.setOnClickListener(controlsClickListener);
         surfaceView.setOnClickListener(controlsClickListener);
-        ivImageDisplay.setOnClickListener(controlsClickListener);
+        imageStage.setOnClickListener(controlsClickListener);
         
         // 进度条拖动
         seekbarProgress.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
@@ -1450,6 +1634,7 @@ public class PlaybackActivity extends FragmentActivity {
         // 重置错误计数
         exoErrorCount = 0;
         vlcErrorCount = 0;
+        vlcSoftDecodeRetry = false;
         
         // 重置状态转换检测
         lastExoPlayerState = Player.STATE_IDLE;
@@ -1459,10 +1644,18 @@ public class PlaybackActivity extends FragmentActivity {
         isPreparingExoPlayer = false;
         hasSwitchedToVlc = false;
         
+        // 重置播放结果统计状态
+        fileStartTime = System.currentTimeMillis();
+        outcomeSuccessRecorded = false;
+        exoHasBeenReady = false;
+        vlcHasPlayed = false;
+        vlcRebuffering = false;
+        
         // 检测视频格式，决定播放器策略
         if (currentFile.isVideo()) {
             // 使用调度器选择策略
-            currentPlayerStrategy = playerScheduler.selectStrategy(currentFile, null, null);
+            currentPlayerStrategy = playerScheduler.selectStrategy(currentFile,
+                MediaMetadataRepository.getInstance(this).get(currentFile.getFsId()));
             
             if (currentPlayerStrategy.getName().equals("VLC")) {
                 android.util.Log.d("PlaybackActivity", "[HEVC] ★★★ 调度器选择使用VLC播放器 ★★★");
@@ -1474,6 +1667,12 @@ public class PlaybackActivity extends FragmentActivity {
             }
         }
 
+        PlaybackTracer.getInstance().begin("fs:" + currentFile.getFsId(), currentFile.getServerFilename(),
+            currentFile.isVideo() ? MediaCache.cacheKeyFor(currentFile) : null);
+        if (!currentFile.isVideo()) {
+            PlaybackTracer.getInstance().setEngine(PlaybackTracer.ENGINE_IMAGE);
+        }
+        
         android.util.Log.d("PlaybackActivity", "playCurrentFile: " + currentFile.getServerFilename() +
             ", path=" + currentFile.getPath() +
             ", fsId=" + currentFile.getFsId() +
@@ -1485,8 +1684,18 @@ public class PlaybackActivity extends FragmentActivity {
         // 更新文件名
         tvFileName.setText(currentFile.getServerFilename());
         
+        // 队列模式：该文件已在ExoPlayer时间线上时保留解码器和缓冲，不停止播放
+        boolean playingFromQueue = !useVlc && currentFile.isVideo() &&
+            advanceExoQueueTo(viewModel.getCurrentIndex().getValue(), currentFile);
+        
         // 停止之前的播放
-        stopCurrentPlayback();
+        if (playingFromQueue) {
+            if (imageRunnable != null) {
+                imageHandler.removeCallbacks(imageRunnable);
+            }
+        } else {
+            stopCurrentPlayback();
+        }
         
         // 立即隐藏之前的地点信息
         tvLocation.setVisibility(View.GONE);
@@ -1496,7 +1705,9 @@ public class PlaybackActivity extends FragmentActivity {
         }
         
         // 显示加载指示器
-        loadingIndicator.setVisibility(View.VISIBLE);
+        if (!playingFromQueue) {
+            loadingIndicator.setVisibility(View.VISIBLE);
+        }
         
         // 准备媒体URL
         String accessToken = authRepository.getAccessToken();
@@ -1508,8 +1719,9 @@ public class PlaybackActivity extends FragmentActivity {
     /**
      * 使用URL播放视频
      * 会记录当前播放的URL，用于播放器切换时重试
+     * @param fromQueue 当前文件已在ExoPlayer时间线上（由上一个条目自动切换或手动跳到已排队条目），无需重新prepare
      */
-    private void playVideoWithUrl(String videoUrl) {
+    private void playVideoWithUrl(String videoUrl, boolean fromQueue) {
         // 保存当前播放的URL，用于在播放器之间切换时重新播放
         currentMediaUrl = videoUrl;
         
@@ -1532,10 +1744,12 @@ public class PlaybackActivity extends FragmentActivity {
 
         android.util.Log.d("PlaybackActivity", "playVideoWithUrl (Final): " + videoUrl);
         
-        // 隐藏图片显示
-        ivImageDisplay.setVisibility(View.GONE);
+        // 隐藏图片显示并释放图层上的图片
+        imageStage.setVisibility(View.GONE);
+        imageStage.clearLayers();
         
-        // 重置背景为黑色（视频播放时不需要背景）
+        // 重置背景为黑色（视频播放时不需要背景），丢弃尚未完成的图片背景
+        ivBackground.setTag(null);
         ivBackground.setBackgroundColor(android.graphics.Color.BLACK);
         ivBackground.setImageBitmap(null);
         ivBackground.setVisibility(View.VISIBLE);
@@ -1544,19 +1758,29 @@ public class PlaybackActivity extends FragmentActivity {
         
         // 如果是HEVC视频，确保使用VLC
         FileInfo currentFile = viewModel.getCurrentFile();
-        if (currentFile != null && isHevcVideo(currentFile) && !useVlc) {
+        if (currentFile != null && isHevcVideo(currentFile) && !useVlc && !isExoLearnedFor(currentFile)) {
              android.util.Log.w("PlaybackActivity", "[HEVC] 发现HEVC视频但未启用VLC，强制切换到VLC模式");
              useVlc = true;
              hasSwitchedToVlc = true;
              updatePlayerIndicator();
         }
         
+        // 登记码率，回源时据此判断是否需要多连接分段下载
+        FileInfo playingFile = viewModel.getCurrentFile();
+        if (playingFile != null) {
+            SegmentedHttpDataSource.registerFile(playingFile,
+                MediaMetadataRepository.getInstance(this).get(playingFile.getFsId()));
+        }
+        
+        PlaybackTracer.getInstance().setEngine(useVlc ?
+            PlayerOutcomeRepository.ENGINE_VLC : PlayerOutcomeRepository.ENGINE_EXO);
+        
         if (useVlc) {
             // 使用 VLC 播放
             surfaceView.setVisibility(View.VISIBLE);
             playerView.setVisibility(View.GONE);
             
-            if (vlcMediaPlayer != null && videoUrl != null && !videoUrl.isEmpty()) {
+            if (videoUrl != null && !videoUrl.isEmpty() && ensureVlcPlayer()) {
                 android.util.Log.d("PlaybackActivity", "开始VLC播放: " + videoUrl);
                 
                 // 确保VLCVout已附加
@@ -1568,11 +1792,27 @@ public class PlaybackActivity extends FragmentActivity {
                     vout.attachViews();
                 }
                 
-                Media media = new Media(libVLC, Uri.parse(videoUrl));
-                // 启用硬件解码以提高性能，同时保留软件解码作为备选
-                media.setHWDecoderEnabled(true, true);
-                // 添加媒体选项
-                media.addOption(":network-caching=1500"); // 减少网络缓存到1.5秒
+                // 经本地代理读取：与ExoPlayer共用磁盘缓存，切换播放器时不重复下载
+                String vlcUrl = videoUrl;
+                FileInfo vlcFile = viewModel.getCurrentFile();
+                if (vlcFile != null) {
+                    String proxyUrl = MediaProxyServer.getInstance(this).getProxyUrl(vlcFile, videoUrl);
+                    if (proxyUrl != null) {
+                        vlcUrl = proxyUrl;
+                        android.util.Log.d("PlaybackActivity", "VLC使用本地缓存代理: " + proxyUrl);
+                    }
+                }
+                Media media = new Media(VlcEngine.getInstance(this).getLibVLC(), Uri.parse(vlcUrl));
+                if (vlcSoftDecodeRetry) {
+                    // 软解重试：只对这个媒体关闭硬解并加大缓存，不重建LibVLC
+                    media.setHWDecoderEnabled(false, false);
+                    media.addOption(":network-caching=2000");
+                } else {
+                    // 启用硬件解码以提高性能，同时保留软件解码作为备选
+                    media.setHWDecoderEnabled(true, true);
+                    // 添加媒体选项
+                    media.addOption(":network-caching=1500"); // 减少网络缓存到1.5秒
+                }
                 
                 vlcMediaPlayer.setMedia(media);
                 
@@ -1614,6 +1854,21 @@ public class PlaybackActivity extends FragmentActivity {
                     return;
                 }
                 
+                configureLoadControlForCurrentFile();
+                
+                // 已通过队列接续播放，只需移除播放完的条目
+                if (fromQueue) {
+                    int playingIndex = exoPlayer.getCurrentMediaItemIndex();
+                    if (playingIndex > 0) {
+                        exoPlayer.removeMediaItems(0, playingIndex);
+                    }
+                    android.util.Log.d("PlaybackActivity", "[QUEUE] 队列条目接续播放，跳过prepare");
+                    viewModel.setPlaying(true);
+                    exoPlayer.setPlayWhenReady(true);
+                    startProgressUpdate();
+                    return;
+                }
+                
                 // 检查是否正在准备中，防止重复调用
                 if (isPreparingExoPlayer) {
                     android.util.Log.w("PlaybackActivity", "ExoPlayer正在准备中，跳过重复调用");
@@ -1639,9 +1894,9 @@ public class PlaybackActivity extends FragmentActivity {
                 
                 // 使用Builder方式构建MediaItem，确保URL参数正确传递
                 // 这对于Media3 1.5.0很重要，直接fromUri可能导致参数丢失
-                MediaItem mediaItem = new MediaItem.Builder()
-                    .setUri(android.net.Uri.parse(videoUrl))
-                    .build();
+                Integer playIndex = viewModel.getCurrentIndex().getValue();
+                MediaItem mediaItem = buildVideoMediaItem(videoUrl,
+                    playIndex != null ? playIndex : -1, viewModel.getCurrentFile());
                     
                 exoPlayer.setMediaItem(mediaItem);
                 
@@ -1670,6 +1925,188 @@ public class PlaybackActivity extends FragmentActivity {
         }
     }
 
+    /**
+     * 本机历史结果是否表明该文件（或同类视频）用ExoPlayer可以播放
+     */
+    private boolean isExoLearnedFor(FileInfo file) {
+        return PlayerOutcomeRepository.ENGINE_EXO.equals(outcomeRepository.getPreferredEngine(
+            file.getFsId(), MediaMetadataRepository.getInstance(this).get(file.getFsId())));
+    }
+    
+    /**
+     * 记录当前文件成功出首帧（每个文件每个播放器只记一次）
+     */
+    private void recordPlaybackSuccess(String engine) {
+        FileInfo file = viewModel.getCurrentFile();
+        if (outcomeSuccessRecorded || file == null || !file.isVideo()) {
+            return;
+        }
+        outcomeSuccessRecorded = true;
+        outcomeRepository.recordSuccess(file.getFsId(),
+            MediaMetadataRepository.getInstance(this).get(file.getFsId()),
+            engine, System.currentTimeMillis() - fileStartTime);
+    }
+    
+    /**
+     * 记录当前文件在该播放器上失败，之后切换的播放器重新计时
+     */
+    private void recordPlaybackFailure(String engine) {
+        FileInfo file = viewModel.getCurrentFile();
+        if (file == null || !file.isVideo()) {
+            return;
+        }
+        outcomeRepository.recordFailure(file.getFsId(),
+            MediaMetadataRepository.getInstance(this).get(file.getFsId()), engine);
+        fileStartTime = System.currentTimeMillis();
+        outcomeSuccessRecorded = false;
+    }
+    
+    private void recordPlaybackRebuffer(String engine) {
+        FileInfo file = viewModel.getCurrentFile();
+        if (file == null || !file.isVideo()) {
+            return;
+        }
+        outcomeRepository.recordRebuffer(file.getFsId(),
+            MediaMetadataRepository.getInstance(this).get(file.getFsId()), engine);
+    }
+    
+    /**
+     * 构建视频MediaItem
+     * 缓存键使用md5/fsId而不是dlink，dlink每次获取都不同；
+     * mediaId记录播放列表索引，用于队列模式识别条目
+     */
+    private MediaItem buildVideoMediaItem(String videoUrl, int index, @Nullable FileInfo file) {
+        MediaItem.Builder builder = new MediaItem.Builder()
+            .setUri(android.net.Uri.parse(videoUrl));
+        if (file != null) {
+            builder.setCustomCacheKey(MediaCache.cacheKeyFor(file));
+            builder.setMediaId(queueMediaId(index, file));
+        }
+        return builder.build();
+    }
+    
+    private static String queueMediaId(int index, FileInfo file) {
+        return index + "|" + file.getFsId();
+    }
+    
+    /**
+     * 按当前文件的码率重新计算ExoPlayer缓冲阈值
+     */
+    private void configureLoadControlForCurrentFile() {
+        if (adaptiveLoadControl == null) {
+            return;
+        }
+        FileInfo file = viewModel.getCurrentFile();
+        adaptiveLoadControl.configureFor(file,
+            file != null ? MediaMetadataRepository.getInstance(this).get(file.getFsId()) : null);
+    }
+    
+    /**
+     * 下一个文件需要VLC时，在后台提前初始化LibVLC和一个播放器
+     */
+    private void prewarmVlcFor(@Nullable Integer index) {
+        if (index == null || index < 0 || isActivityDestroyed || VlcEngine.getInstance(this).isInitialized()) {
+            return;
+        }
+        FileInfo next = viewModel.getFileAt(index);
+        if (next == null || !next.isVideo()) {
+            return;
+        }
+        if (isHevcVideo(next) || "VLC".equals(playerScheduler.selectStrategy(next,
+                MediaMetadataRepository.getInstance(this).get(next.getFsId())).getName())) {
+            android.util.Log.d("PlaybackActivity", "[VLC] 下一个文件需要VLC，后台预热: " + next.getServerFilename());
+            VlcEngine.getInstance(this).prewarm();
+        }
+    }
+    
+    /**
+     * 把播放顺序上的下一个视频追加到ExoPlayer时间线
+     * ExoPlayer会在当前条目播放到末尾前开始加载它，并复用已初始化的解码器，实现无缝切换。
+     * 需要VLC播放的文件、单曲循环、当前不是ExoPlayer播放时不排队，仍走逐个prepare的流程
+     */
+    private void enqueueNextVideo(@Nullable Integer index) {
+        if (index == null || index < 0 || exoPlayer == null || useVlc || isActivityDestroyed) {
+            return;
+        }
+        if (viewModel.getPlayMode().getValue() == PlayMode.SINGLE) {
+            return;
+        }
+        FileInfo current = viewModel.getCurrentFile();
+        FileInfo next = viewModel.getFileAt(index);
+        if (current == null || next == null || !current.isVideo() || !next.isVideo()) {
+            return;
+        }
+        // 只排一个：当前条目必须是时间线上的最后一个
+        int count = exoPlayer.getMediaItemCount();
+        if (count == 0 || exoPlayer.getCurrentMediaItemIndex() != count - 1) {
+            return;
+        }
+        if (isHevcVideo(next) || "VLC".equals(playerScheduler.selectStrategy(next,
+                MediaMetadataRepository.getInstance(this).get(next.getFsId())).getName())) {
+            android.util.Log.d("PlaybackActivity", "[QUEUE] 下一个文件需要VLC，不排队: " + next.getServerFilename());
+            return;
+        }
+        String url = viewModel.getPreloadedMediaUrl(index, authRepository.getAccessToken());
+        if (url == null) {
+            return;
+        }
+        exoPlayer.addMediaItem(buildVideoMediaItem(url, index, next));
+        android.util.Log.d("PlaybackActivity", "[QUEUE] 已排队下一个视频: index=" + index + ", " + next.getServerFilename());
+    }
+    
+    /**
+     * 如果目标文件已在ExoPlayer时间线上，切换到它
+     * @return true表示已在时间线上（自动切换过去了，或手动跳到了已排队的条目）
+     */
+    private boolean advanceExoQueueTo(@Nullable Integer index, FileInfo file) {
+        if (exoPlayer == null || index == null) {
+            return false;
+        }
+        String mediaId = queueMediaId(index, file);
+        int playingIndex = exoPlayer.getCurrentMediaItemIndex();
+        int count = exoPlayer.getMediaItemCount();
+        if (playingIndex > 0 && playingIndex < count &&
+            mediaId.equals(exoPlayer.getMediaItemAt(playingIndex).mediaId)) {
+            // 已由ExoPlayer自动切换
+            return true;
+        }
+        if (playingIndex + 1 < count && mediaId.equals(exoPlayer.getMediaItemAt(playingIndex + 1).mediaId)) {
+            // 手动下一个，恰好是已排队的条目
+            exoPlayer.seekTo(playingIndex + 1, 0);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 当前文件是否正由ExoPlayer从队列接续播放：playCurrentFile已切换到排队条目，时间线前面还留着播完的条目
+     * 按播放器状态判断而不是记标志位，获取地址失败、改用VLC或切到图片时不会残留
+     */
+    private boolean isPlayingFromExoQueue(FileInfo file) {
+        Integer index = viewModel.getCurrentIndex().getValue();
+        if (exoPlayer == null || useVlc || index == null) {
+            return false;
+        }
+        int playingIndex = exoPlayer.getCurrentMediaItemIndex();
+        return playingIndex > 0 && playingIndex < exoPlayer.getMediaItemCount() &&
+            queueMediaId(index, file).equals(exoPlayer.getMediaItemAt(playingIndex).mediaId);
+    }
+    
+    /**
+     * 移除当前条目之后已排队的条目
+     */
+    private void trimExoQueue() {
+        if (exoPlayer == null) {
+            return;
+        }
+        int count = exoPlayer.getMediaItemCount();
+        int playingIndex = exoPlayer.getCurrentMediaItemIndex();
+        if (playingIndex + 1 < count) {
+            exoPlayer.removeMediaItems(playingIndex + 1, count);
+            android.util.Log.d("PlaybackActivity", "[QUEUE] 已清除排队条目");
+        }
+    }
+
     /**
      * 使用URL播放图片
      */
@@ -1679,7 +2116,7 @@ public class PlaybackActivity extends FragmentActivity {
         // 显示图片显示，隐藏视频播放器
         surfaceView.setVisibility(View.GONE);
         playerView.setVisibility(View.GONE);
-        ivImageDisplay.setVisibility(View.VISIBLE);
+        imageStage.setVisibility(View.VISIBLE);
         updatePlayerIndicator();
         
         // 加载图片
@@ -1696,68 +2133,295 @@ public class PlaybackActivity extends FragmentActivity {
             android.util.Log.d("PlaybackActivity", "图片特效: " + effect.getName() +
                 (effect == ImageEffect.RANDOM ? " -> 实际特效: " + actualEffect.getName() : ""));
 
-            // 取消当前正在进行的动画，避免与新动画冲突
-            ivImageDisplay.animate().cancel();
-            
-            // 对于FADE效果使用Glide的CrossFade，其他效果不使用CrossFade避免冲突
-            DrawableTransitionOptions transitionOptions;
-            if (actualEffect == ImageEffect.FADE) {
-                transitionOptions = DrawableTransitionOptions.withCrossFade(800);
-            } else {
-                // 其他效果使用更快的CrossFade或不使用
-                transitionOptions = DrawableTransitionOptions.withCrossFade(300);
+            // 加载到不可见的后层，解码完成后才由特效切换到前面（上一次切换未结束时立即结束）
+            BlindsImageView layer = imageStage.prepareBackLayer();
+            new SlideLoad(imageUrl, viewModel.getCurrentFile(), actualEffect, layer).start();
+        } else {
+            // 没有地址时按原时长跳过
+            startImageDisplayTimer();
+        }
+    }
+
+    /**
+     * 一张幻灯片的加载过程
+     * 逐级显示：缩略图立即显示，再换成显示尺寸的缩放图，必要时才下载原图。
+     * 主请求与预取使用同一请求，预取过的图片直接命中内存缓存。
+     * 需要原图时先交给TiledImageLoader判断：超大照片和全景图分块解码，其余走普通Glide加载。
+     * 原图下载完成即先显示其底图，不等分块判断；底图已显示时不再另行加载原图。
+     * 所有档位都加载到同一个图层：第一档就绪前图层不可见，就绪后才切换到前面
+     */
+    private class SlideLoad implements ImageLadder.Listener, TiledImageLoader.Callback {
+        private final String imageUrl;
+        private final FileInfo imageFile;
+        private final ImageEffect actualEffect;
+        private final BlindsImageView layer;
+        private final int displayWidth;
+        private final int displayHeight;
+        private final ImageTransferStats.Slide slide;
+        private boolean shown = false;
+        private boolean tiledRequested = false;
+        // 已显示填满显示框的档位（缩放图或原图），底图不再替换它
+        private boolean filled = false;
+        private boolean baseShown = false;
+        // 不需要分块时的后续加载
+        private Runnable notTiledFallback;
+
+        SlideLoad(String imageUrl, FileInfo imageFile, ImageEffect actualEffect, BlindsImageView layer) {
+            this.imageUrl = imageUrl;
+            this.imageFile = imageFile;
+            this.actualEffect = actualEffect;
+            this.layer = layer;
+            this.displayWidth = getImageDisplayWidth();
+            this.displayHeight = getImageDisplayHeight();
+            this.slide = ImageTransferStats.getInstance().beginSlide(
+                    imageFile != null ? imageFile.getServerFilename() : imageUrl,
+                    imageFile != null ? imageFile.getSize() : 0);
+        }
+
+        void start() {
+            if (imageFile != null && !ImageLadder.hasDisplayRendition(imageFile, displayWidth, displayHeight)) {
+                // 只能加载原图：先显示缩略图，同时下载原图判断是否需要分块
+                com.bumptech.glide.RequestBuilder<android.graphics.drawable.Drawable> thumbnailRequest =
+                        ImageLadder.buildThumbnailRequest(PlaybackActivity.this, imageFile, this);
+                if (thumbnailRequest != null) {
+                    thumbnailRequest.transition(layerTransition()).into(layer);
+                }
+                requestTiled(this::loadLadder);
+                return;
+            }
+            loadLadder();
+        }
+
+        private void loadLadder() {
+            com.bumptech.glide.RequestBuilder<android.graphics.drawable.Drawable> request = ImageLadder.buildRequest(
+                    PlaybackActivity.this, imageFile, imageUrl, displayWidth, displayHeight, this);
+            com.bumptech.glide.RequestBuilder<android.graphics.drawable.Drawable> thumbnailRequest =
+                    ImageLadder.buildThumbnailRequest(PlaybackActivity.this, imageFile,
+                            displayWidth, displayHeight, this);
+            if (thumbnailRequest != null) {
+                request = request.thumbnail(thumbnailRequest);
+            }
+            request.transition(layerTransition())
+                    .into(layer);
+        }
+
+        private boolean isCurrent() {
+            return !isActivityDestroyed && imageUrl.equals(viewModel.getPreparedMediaUrl().getValue());
+        }
+
+        @Override
+        public void onRungReady(ImageLadder.Rung rung, String url, android.graphics.drawable.Drawable resource, com.bumptech.glide.load.DataSource dataSource) {
+            slide.onLoaded(url, rung == ImageLadder.Rung.ORIGINAL, dataSource);
+            if (!shown) {
+                onFirstShown(resource);
             }
+            if (rung == ImageLadder.Rung.ORIGINAL || (rung == ImageLadder.Rung.DISPLAY
+                    && ImageLadder.fillsDisplay(resource, displayWidth, displayHeight))) {
+                filled = true;
+            }
+            if (rung != ImageLadder.Rung.ORIGINAL && imageFile != null && TiledImageLoader.isPanorama(
+                    resource.getIntrinsicWidth(), resource.getIntrinsicHeight(), displayWidth, displayHeight)) {
+                // 全景图：下载原图，按屏幕高度铺满平移显示（不能在Glide回调里直接发起新请求）
+                layer.post(() -> requestTiled(null));
+            } else if (rung == ImageLadder.Rung.DISPLAY && imageFile != null
+                    && !ImageLadder.fillsDisplay(resource, displayWidth, displayHeight)) {
+                // 服务端缩放图不够大，升级到原图
+                layer.post(() -> requestTiled(() -> {
+                    android.util.Log.d("PlaybackActivity", "缩放图未填满显示区域，升级到原图");
+                    ImageLadder.buildUpgradeRequest(PlaybackActivity.this, imageFile, imageUrl,
+                                    displayWidth, displayHeight, this)
+                            .transition(layerTransition())
+                            .into(layer);
+                }));
+            } else if (rung != ImageLadder.Rung.THUMBNAIL) {
+                slide.finish();
+            }
+        }
+
+        @Override
+        public void onRungFailed(ImageLadder.Rung rung) {
+            // 缩放图失败会自动回退到原图；原图也失败时按时切到下一张
+            if (rung == ImageLadder.Rung.ORIGINAL) {
+                slide.finish();
+                if (!shown) {
+                    startImageDisplayTimer();
+                }
+            }
+        }
+
+        /**
+         * 第一档图片就绪时把图层切换到前面，后续档位只在该图层上替换内容
+         */
+        private void onFirstShown(android.graphics.drawable.Drawable resource) {
+            shown = true;
+            PlaybackTracer.getInstance().mark(PlaybackTracer.Stage.IMAGE_DECODED);
+            // 切换前开始上传纹理，第一帧不必等待
+            if (resource instanceof android.graphics.drawable.BitmapDrawable) {
+                android.graphics.Bitmap bitmap = ((android.graphics.drawable.BitmapDrawable) resource).getBitmap();
+                if (bitmap != null) {
+                    bitmap.prepareToDraw();
+                }
+            }
+            // Glide先回调监听再把图片设置到图层，下一轮消息时图层已有内容
+            layer.post(() -> {
+                // 等待期间已切换到其他文件
+                if (!isCurrent()) {
+                    return;
+                }
+                applyImageEffect(layer, actualEffect);
+                PlaybackTracer.getInstance().finish(PlaybackTracer.Stage.IMAGE_DISPLAYED);
+                // 显示时长从图片真正可见时开始计算
+                startImageDisplayTimer();
+            });
+            slideshowPrefetcher.onDisplayed(imageFile);
             
-            Glide.with(this)
-                    .load(imageUrl)
-                    .transition(transitionOptions)
-                    .listener(new RequestListener<android.graphics.drawable.Drawable>() {
-                        @Override
-                        public boolean onLoadFailed(@Nullable com.bumptech.glide.load.engine.GlideException e, @Nullable Object model, @NonNull Target<android.graphics.drawable.Drawable> target, boolean isFirstResource) {
-                            return false;
-                        }
+            // 更新背景（主色调或毛玻璃效果）
+            updateImageBackground(resource);
+        }
 
-                        @Override
-                        public boolean onResourceReady(@NonNull android.graphics.drawable.Drawable resource, @NonNull Object model, @NonNull Target<android.graphics.drawable.Drawable> target, @NonNull com.bumptech.glide.load.DataSource dataSource, boolean isFirstResource) {
-                            // 图片加载完成后应用动画
-                            // 对于非FADE效果，需要先设置初始状态再开始动画
-                            new Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-                                applyImageEffect(actualEffect);
-                            }, actualEffect == ImageEffect.FADE ? 0 : 150);
-                            
-                            // 更新背景（主色调或毛玻璃效果）
-                            updateImageBackground(resource);
-                            return false;
-                        }
-                    })
-                    .into(ivImageDisplay);
+        private void requestTiled(@Nullable Runnable fallback) {
+            if (tiledRequested || !isCurrent()) {
+                return;
+            }
+            tiledRequested = true;
+            notTiledFallback = fallback;
+            tiledImageLoader.prepare(imageFile, imageUrl, displayWidth, displayHeight, this);
         }
-        
-        // 启动图片定时播放
-        startImageDisplayTimer();
+
+        @Override
+        public void onBase(android.graphics.Bitmap base, com.bumptech.glide.load.DataSource dataSource) {
+            if (filled || !isCurrent()) {
+                return;
+            }
+            // 原图底图替换缩略图或未填满的缩放图，停止Glide对该视图的后续加载
+            Glide.with(PlaybackActivity.this).clear(layer);
+            android.graphics.drawable.BitmapDrawable drawable =
+                    new android.graphics.drawable.BitmapDrawable(getResources(), base);
+            layer.setImageDrawable(drawable);
+            baseShown = true;
+            slide.onLoaded(imageUrl, true, dataSource);
+            if (!shown) {
+                onFirstShown(drawable);
+            }
+        }
+
+        @Override
+        public void onTiled(TiledImageDrawable drawable, com.bumptech.glide.load.DataSource dataSource) {
+            if (!isCurrent()) {
+                drawable.release();
+                return;
+            }
+            // 停止Glide对该视图的加载，换成分块显示
+            Glide.with(PlaybackActivity.this).clear(layer);
+            layer.setImageDrawable(drawable);
+            tiledDrawable = drawable;
+            if (!baseShown) {
+                slide.onLoaded(imageUrl, true, dataSource);
+            }
+            slide.finish();
+            if (!shown) {
+                onFirstShown(new android.graphics.drawable.BitmapDrawable(getResources(), drawable.getBaseBitmap()));
+            }
+            if (drawable.isPan()) {
+                startPanAnimation(drawable);
+            }
+        }
+
+        @Override
+        public void onNotTiled() {
+            if (baseShown) {
+                // 底图就是按显示需要解码的原图，不必再加载一次
+                slide.finish();
+                return;
+            }
+            if (notTiledFallback != null && isCurrent()) {
+                notTiledFallback.run();
+            }
+        }
+    }
+
+    /**
+     * 全景图在显示时长内从左平移到右
+     */
+    private void startPanAnimation(TiledImageDrawable drawable) {
+        if (panAnimator != null) {
+            panAnimator.cancel();
+        }
+        Integer duration = viewModel.getImageDisplayDuration().getValue();
+        panAnimator = android.animation.ValueAnimator.ofFloat(0f, 1f);
+        panAnimator.setDuration(duration != null ? duration : 5000);
+        panAnimator.setInterpolator(new android.view.animation.AccelerateDecelerateInterpolator());
+        panAnimator.addUpdateListener(animation -> drawable.setPanProgress((float) animation.getAnimatedValue()));
+        panAnimator.start();
     }
 
     /**
-     * 应用图片特效
+     * 释放分块显示的解码器和块缓存
+     */
+    private void releaseTiledImage() {
+        if (tiledImageLoader != null) {
+            tiledImageLoader.cancel();
+        }
+        if (panAnimator != null) {
+            panAnimator.cancel();
+            panAnimator = null;
+        }
+        if (tiledDrawable != null) {
+            tiledDrawable.release();
+            tiledDrawable = null;
+        }
+    }
+
+    private int getImageDisplayWidth() {
+        int width = imageStage.getWidth();
+        return width > 0 ? width : getResources().getDisplayMetrics().widthPixels;
+    }
+
+    private int getImageDisplayHeight() {
+        int height = imageStage.getHeight();
+        return height > 0 ? height : getResources().getDisplayMetrics().heightPixels;
+    }
+
+    /**
+     * 按当前播放顺序预取接下来的图片
+     */
+    private void planSlideshowPrefetch() {
+        if (slideshowPrefetcher == null || authRepository == null) {
+            return;
+        }
+        List<FileInfo> upcoming = new ArrayList<>();
+        for (int index : viewModel.getUpcomingIndices(NetworkQualityEstimator.getInstance().getPrefetchDepth())) {
+            FileInfo file = viewModel.getFileAt(index);
+            if (file != null) {
+                upcoming.add(file);
+            }
+        }
+        slideshowPrefetcher.plan(upcoming, authRepository.getAccessToken(),
+                getImageDisplayWidth(), getImageDisplayHeight());
+    }
+
+    /**
+     * 应用图片特效：把已就绪的图层切换到前面
      * 使用策略模式和工厂模式替代原来的switch-case语句
+     * @param layer 新图片所在的图层（ImageStageView的后层，已处于中性状态）
      * @param effect 图片特效类型
      */
-    private void applyImageEffect(ImageEffect effect) {
-        // 确保视图可见
-        ivImageDisplay.setVisibility(View.VISIBLE);
-        
-        // 先重置到中性状态，避免残留的变换影响新动画
-        ivImageDisplay.setScaleX(1.0f);
-        ivImageDisplay.setScaleY(1.0f);
-        ivImageDisplay.setTranslationX(0);
-        ivImageDisplay.setTranslationY(0);
-        ivImageDisplay.setRotation(0);
-        ivImageDisplay.setAlpha(1.0f);
-        
+    private void applyImageEffect(BlindsImageView layer, ImageEffect effect) {
         // 使用工厂方法创建特效策略并应用
         // 注意：这里的effect已经是从ImageEffect.getActualEffect()获取的实际特效
-        ImageEffectStrategy strategy = ImageEffectFactory.createEffectStrategy(effect);
-        strategy.applyEffect(ivImageDisplay);
+        ImageEffectStrategy strategy = ImageEffectFactory.createEffectStrategy(this, effect);
+        imageStage.showLayer(layer, strategy);
+    }
+
+    /**
+     * 图层上的档位过渡：第一档加载时图层不可见，直接显示；之后的档位在可见图层上交叉淡化
+     */
+    private static DrawableTransitionOptions layerTransition() {
+        com.bumptech.glide.request.transition.DrawableCrossFadeFactory crossFade =
+                new com.bumptech.glide.request.transition.DrawableCrossFadeFactory.Builder(300).build();
+        return DrawableTransitionOptions.with((dataSource, isFirstResource) -> isFirstResource
+                ? com.bumptech.glide.request.transition.NoTransition.<android.graphics.drawable.Drawable>get()
+                : crossFade.build(dataSource, false));
     }
     
     /**
@@ -1770,11 +2434,9 @@ public class PlaybackActivity extends FragmentActivity {
             return;
         }
         
-        // 获取当前图片URL用于缓存
-        String imageUrl = viewModel.getPreparedMediaUrl().getValue();
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            imageUrl = "unknown";
-        }
+        // 以媒体标识作为背景缓存键，dlink和access_token变化不影响命中
+        FileInfo currentFile = viewModel.getCurrentFile();
+        String imageKey = currentFile != null ? MediaIdentity.of(currentFile).getKey() : "unknown";
         
         // 从设置中获取背景模式
         // 0: 纯黑色背景, 1: 主色调背景, 2: 毛玻璃背景
@@ -1783,7 +2445,7 @@ public class PlaybackActivity extends FragmentActivity {
         // 使用工厂方法创建背景策略并应用
         com.baidu.gallery.car.background.ImageBackgroundStrategy strategy =
             com.baidu.gallery.car.background.ImageBackgroundFactory.getStrategy(backgroundMode);
-        strategy.applyBackground(this, ivBackground, imageUrl, imageDrawable);
+        strategy.applyBackground(this, ivBackground, imageKey, imageDrawable);
     }
     
 
@@ -1852,6 +2514,8 @@ public class PlaybackActivity extends FragmentActivity {
             imageHandler.removeCallbacks(imageRunnable);
         }
         
+        releaseTiledImage();
+        
         stopProgressUpdate();
     }
     
@@ -2130,6 +2794,7 @@ public class PlaybackActivity extends FragmentActivity {
                 vlcErrorCount = 0; // 重置计数器
                 viewModel.playNext();
             } else {
+                recordPlaybackFailure(PlayerOutcomeRepository.ENGINE_VLC);
                 // 尝试切换到ExoPlayer
                 Toast.makeText(this,
                     "VLC播放失败，尝试使用ExoPlayer" + (isHevc ? " (H.265)" : ""),
@@ -2141,7 +2806,7 @@ public class PlaybackActivity extends FragmentActivity {
                 
                 // 重新播放当前文件
                 if (currentMediaUrl != null) {
-                    playVideoWithUrl(currentMediaUrl);
+                    playVideoWithUrl(currentMediaUrl, false);
                 } else {
                     viewModel.playNext();
                 }
@@ -2152,47 +2817,18 @@ public class PlaybackActivity extends FragmentActivity {
                 "播放错误，尝试软解码" + (isHevc ? " (H.265视频)" : ""),
                 Toast.LENGTH_SHORT).show();
             
-            // 重新初始化VLC，使用软解码
+            // 换一个新的VLC播放器，下一次播放使用软解码
+            // LibVLC常驻进程，不再为重试重建（重建需要重新加载全部插件）
             try {
-                if (vlcMediaPlayer != null) {
-                    vlcMediaPlayer.stop();
-                    vlcMediaPlayer.release();
+                releaseVlcPlayer(false);
+                vlcSoftDecodeRetry = true;
+                if (!ensureVlcPlayer()) {
+                    throw new IllegalStateException("VLC不可用");
                 }
-                if (libVLC != null) {
-                    libVLC.release();
-                }
-                
-                // 使用软解码选项重新初始化
-                ArrayList<String> options = new ArrayList<>();
-                options.add("-vvv");
-                options.add("--avcodec-hw=none"); // 强制软解码
-                options.add("--network-caching=2000");
-                
-                libVLC = new LibVLC(this, options);
-                vlcMediaPlayer = new MediaPlayer(libVLC);
-                
-                IVLCVout vout = vlcMediaPlayer.getVLCVout();
-                vout.setVideoView(surfaceView);
-                vout.attachViews();
-                
-                // 重新设置事件监听
-                vlcMediaPlayer.setEventListener(event -> {
-                    switch (event.type) {
-                        case MediaPlayer.Event.Playing:
-                            loadingIndicator.setVisibility(View.GONE);
-                            updatePlayPauseButton(true);
-                            startProgressUpdate();
-                            break;
-                        case MediaPlayer.Event.EncounteredError:
-                            loadingIndicator.setVisibility(View.GONE);
-                            handleVlcError();
-                            break;
-                    }
-                });
                 
                 // 重新播放
                 if (currentMediaUrl != null) {
-                    playVideoWithUrl(currentMediaUrl);
+                    playVideoWithUrl(currentMediaUrl, false);
                 }
             } catch (Exception e) {
                 android.util.Log.e("PlaybackActivity", "[ERROR] 重新初始化VLC失败", e);
@@ -2314,18 +2950,20 @@ public class PlaybackActivity extends FragmentActivity {
         isActivityDestroyed = true;
         android.util.Log.d("PlaybackActivity", "onDestroy: isActivityDestroyed标志已设置");
         
-        // 停止并释放VLC资源
+        // 停止VLC并归还播放器，LibVLC由VlcEngine保留供下次使用
         if (vlcMediaPlayer != null) {
-            vlcMediaPlayer.stop();
-            vlcMediaPlayer.getVLCVout().detachViews();
-            vlcMediaPlayer.release();
-            vlcMediaPlayer = null;
-            android.util.Log.d("PlaybackActivity", "onDestroy: VLC播放器已释放");
+            releaseVlcPlayer(true);
+            android.util.Log.d("PlaybackActivity", "onDestroy: VLC播放器已归还");
         }
-        if (libVLC != null) {
-            libVLC.release();
-            libVLC = null;
-            android.util.Log.d("PlaybackActivity", "onDestroy: LibVLC已释放");
+        
+        if (slideshowPrefetcher != null) {
+            slideshowPrefetcher.cancel();
+        }
+        releaseTiledImage();
+
+        // 播放列表不再使用，移除本地代理条目
+        if (isFinishing()) {
+            MediaProxyServer.getInstance(this).release(viewModel.getPlayList().getValue());
         }
         
         // 停止并释放ExoPlayer资源
@@ -2335,6 +2973,7 @@ public class PlaybackActivity extends FragmentActivity {
             exoPlayer.release();
             exoPlayer = null;
             android.util.Log.d("PlaybackActivity", "onDestroy: ExoPlayer已释放");
+            android.util.Log.d("PlaybackActivity", "onDestroy: 媒体缓存统计 " + MediaCache.getInstance(this).getStatsSummary());
         }
         
         // 清理所有Handler的回调
@@ -13,6 +13,10 @@ import com.baidu.gallery.car.model.FileInfo;
 import com.baidu.gallery.car.model.ImageEffect;
 import com.baidu.gallery.car.model.PlayMode;
 import com.baidu.gallery.car.model.Playlist;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
+import com.baidu.gallery.car.network.RequestPriority;
+import com.baidu.gallery.car.player.MediaMetadataIndexer;
+import com.baidu.gallery.car.player.MediaPrebuffer;
 import com.baidu.gallery.car.repository.FileRepository;
 import com.baidu.gallery.car.repository.PlaylistRepository;
 import com.baidu.gallery.car.utils.PreferenceUtils;
@@ -21,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.regex.Matcher;
 
 /**
  * 播放器ViewModel
@@ -55,6 +60,8 @@ public class PlaybackViewModel extends AndroidViewModel {
     // 预加载相关
     private String preloadedDlink = null;
     private int preloadedIndex = -1;
+    // 下一个文件dlink就绪通知（值为文件索引），供ExoPlayer队列模式提前排队
+    private MutableLiveData<Integer> preloadedNextIndex = new MutableLiveData<>(-1);
 
     public PlaybackViewModel(@NonNull Application application) {
         super(application);
@@ -157,20 +164,17 @@ public class PlaybackViewModel extends AndroidViewModel {
             Log.w("PlaybackViewModel", "尝试准备目录的媒体URL: " + file.getPath());
             return;
         }
+        
+        // 当前文件开始准备，停止上一轮的预缓冲（已写入缓存的部分保留）
+        MediaPrebuffer.getInstance(getApplication()).cancel();
 
         // 1. 检查是否有预加载的dlink
         Integer currentIndexVal = currentIndex.getValue();
         if (currentIndexVal != null && currentIndexVal == preloadedIndex && preloadedDlink != null) {
             Log.d("PlaybackViewModel", "命中预加载缓存，索引: " + preloadedIndex);
             
-            String finalUrl = preloadedDlink;
             // 确保token是最新的
-            if (finalUrl.contains("access_token=")) {
-                // 替换现有token
-                finalUrl = finalUrl.replaceAll("access_token=[^&]*", "access_token=" + accessToken);
-            } else {
-                finalUrl += (finalUrl.contains("?") ? "&" : "?") + "access_token=" + accessToken;
-            }
+            String finalUrl = withAccessToken(preloadedDlink, accessToken);
             
             preparedMediaUrl.setValue(finalUrl);
             
@@ -250,6 +254,7 @@ public class PlaybackViewModel extends AndroidViewModel {
 
     /**
      * 预加载下一个文件
+     * 按网络质量决定预加载深度：下一个文件的dlink放入预加载缓存，更后面的文件直接回填dlink
      */
     private void preloadNextFile(String accessToken) {
         List<FileInfo> files = playList.getValue();
@@ -258,41 +263,85 @@ public class PlaybackViewModel extends AndroidViewModel {
         Integer current = currentIndex.getValue();
         if (current == null) return;
         
-        // 计算下一个索引
-        int nextIndex;
         PlayMode mode = playMode.getValue();
         if (mode == null) mode = PlayMode.SEQUENTIAL;
         
+        // 如果只有一个文件且不是单曲循环，不需要预加载
+        if (files.size() <= 1 && mode != PlayMode.SINGLE) return;
+        
+        int nextIndex = getNextIndexInPlayOrder(current, files.size(), mode);
+        preloadDlink(accessToken, files, nextIndex);
+        // 下一个文件优先索引媒体信息，切换时可直接选对播放器
+        MediaMetadataIndexer.getInstance(getApplication()).enqueueUrgent(files.get(nextIndex));
+        
+        // 网络较好时沿播放顺序多准备几个
+        int depth = NetworkQualityEstimator.getInstance().getPrefetchDepth();
+        int index = nextIndex;
+        for (int i = 1; i < depth && mode != PlayMode.SINGLE; i++) {
+            index = getNextIndexInPlayOrder(index, files.size(), mode);
+            if (index == current) break;
+            prefetchDlink(accessToken, files.get(index), index);
+        }
+    }
+    
+    /**
+     * 按播放模式计算下一个索引
+     */
+    private int getNextIndexInPlayOrder(int from, int size, PlayMode mode) {
         switch (mode) {
             case SEQUENTIAL:
-                nextIndex = (current + 1) % files.size();
-                break;
+                return (from + 1) % size;
             case REVERSE:
-                nextIndex = (current - 1 + files.size()) % files.size();
-                break;
+                return (from - 1 + size) % size;
             case RANDOM:
-                nextIndex = getNextRandomIndex(current);
-                break;
+                return getNextRandomIndex(from);
             case SINGLE:
-                nextIndex = current; // 单曲循环预加载自己
-                break;
+                return from; // 单曲循环预加载自己
             default:
-                nextIndex = (current + 1) % files.size();
+                return (from + 1) % size;
         }
-        
-        // 如果只有一个文件且不是单曲循环，不需要预加载
-        if (files.size() <= 1 && mode != PlayMode.SINGLE) return;
-        
+    }
+    
+    /**
+     * 当前文件之后按播放顺序的接下来几个索引（不含当前文件，单曲循环时为空）
+     */
+    public List<Integer> getUpcomingIndices(int count) {
+        List<Integer> result = new ArrayList<>();
+        List<FileInfo> files = playList.getValue();
+        Integer current = currentIndex.getValue();
+        PlayMode mode = playMode.getValue();
+        if (files == null || files.size() <= 1 || current == null || mode == PlayMode.SINGLE) {
+            return result;
+        }
+        if (mode == null) mode = PlayMode.SEQUENTIAL;
+        int index = current;
+        for (int i = 0; i < count; i++) {
+            index = getNextIndexInPlayOrder(index, files.size(), mode);
+            if (index == current || result.contains(index)) break;
+            result.add(index);
+        }
+        return result;
+    }
+    
+    /**
+     * 预加载紧接着播放的文件的dlink到预加载缓存
+     */
+    private void preloadDlink(String accessToken, List<FileInfo> files, int nextIndex) {
         // 如果已经是预加载的索引，跳过
-        if (nextIndex == preloadedIndex && preloadedDlink != null) return;
-        
         FileInfo nextFile = files.get(nextIndex);
+        if (nextIndex == preloadedIndex && preloadedDlink != null) {
+            preloadedNextIndex.setValue(nextIndex);
+            prebufferMedia(accessToken, nextFile, preloadedDlink);
+            return;
+        }
         
         // 如果已经有dlink，不需要请求API，但可以缓存索引
         if (nextFile.getDlink() != null && nextFile.getDlink().startsWith("http")) {
             preloadedDlink = nextFile.getDlink();
             preloadedIndex = nextIndex;
             Log.d("PlaybackViewModel", "预加载完成(使用现有dlink)，索引: " + nextIndex);
+            preloadedNextIndex.setValue(nextIndex);
+            prebufferMedia(accessToken, nextFile, preloadedDlink);
             return;
         }
         
@@ -300,14 +349,22 @@ public class PlaybackViewModel extends AndroidViewModel {
         
         // 异步获取详情
         final int targetIndex = nextIndex;
-        fileRepository.fetchFileDetail(accessToken, nextFile.getFsId(), new FileRepository.FileDetailCallback() {
+        fileRepository.fetchFileDetail(accessToken, nextFile.getFsId(), RequestPriority.PREFETCH, new FileRepository.FileDetailCallback() {
             @Override
             public void onSuccess(FileInfo fileInfo) {
                 String dlink = fileInfo.getDlink();
                 if (dlink != null && !dlink.isEmpty() && dlink.startsWith("http")) {
+                    // 幻灯片预取可能已回填过dlink，沿用同一个地址以命中图片内存缓存
+                    if (nextFile.getDlink() != null && nextFile.getDlink().startsWith("http")) {
+                        dlink = nextFile.getDlink();
+                    } else {
+                        nextFile.setDlink(dlink);
+                    }
                     preloadedDlink = dlink;
                     preloadedIndex = targetIndex;
                     Log.d("PlaybackViewModel", "预加载成功，索引: " + targetIndex);
+                    preloadedNextIndex.postValue(targetIndex);
+                    prebufferMedia(accessToken, nextFile, dlink);
                 }
             }
 
@@ -317,6 +374,71 @@ public class PlaybackViewModel extends AndroidViewModel {
             }
         });
     }
+    
+    /**
+     * 预缓冲紧接着播放的视频的开头部分到磁盘缓存
+     */
+    private void prebufferMedia(String accessToken, FileInfo file, String dlink) {
+        if (!file.isVideo()) {
+            return;
+        }
+        MediaPrebuffer.getInstance(getApplication()).prebuffer(file, withAccessToken(dlink, accessToken));
+    }
+    
+    /**
+     * 给dlink附加（或替换为）最新的access_token，播放、预缓冲和幻灯片预取共用
+     */
+    static String withAccessToken(String dlink, String accessToken) {
+        if (dlink.contains("access_token=")) {
+            return dlink.replaceAll("access_token=[^&]*",
+                    Matcher.quoteReplacement("access_token=" + accessToken));
+        }
+        return dlink + (dlink.contains("?") ? "&" : "?") + "access_token=" + accessToken;
+    }
+    
+    /**
+     * 下一个文件dlink就绪通知
+     */
+    public LiveData<Integer> getPreloadedNextIndex() {
+        return preloadedNextIndex;
+    }
+    
+    /**
+     * 获取已预加载的下一个文件的播放地址，索引不匹配时返回null
+     */
+    public String getPreloadedMediaUrl(int index, String accessToken) {
+        if (index != preloadedIndex || preloadedDlink == null) {
+            return null;
+        }
+        return withAccessToken(preloadedDlink, accessToken);
+    }
+    
+    /**
+     * 提前获取更后面文件的dlink，直接回填到FileInfo（prepareMediaUrl会直接使用已有dlink）
+     */
+    private void prefetchDlink(String accessToken, FileInfo file, int index) {
+        if (file.isDirectory() || (file.getDlink() != null && file.getDlink().startsWith("http"))) {
+            return;
+        }
+        fileRepository.fetchFileDetail(accessToken, file.getFsId(), RequestPriority.PREFETCH, new FileRepository.FileDetailCallback() {
+            @Override
+            public void onSuccess(FileInfo fileInfo) {
+                String dlink = fileInfo.getDlink();
+                if (dlink != null && dlink.startsWith("http")) {
+                    file.setDlink(dlink);
+                    if (fileInfo.getThumbs() != null) {
+                        file.setThumbs(fileInfo.getThumbs());
+                    }
+                    Log.d("PlaybackViewModel", "深度预加载成功，索引: " + index);
+                }
+            }
+
+            @Override
+            public void onFailure(String error) {
+                Log.w("PlaybackViewModel", "深度预加载失败，索引: " + index + ", " + error);
+            }
+        });
+    }
 
     /**
      * 设置播放列表
@@ -333,6 +455,11 @@ public class PlaybackViewModel extends AndroidViewModel {
     public void setPlayList(List<FileInfo> files, boolean resetIndex) {
         playList.setValue(files);
         
+        // 后台索引视频的媒体信息（编码、分辨率、时长等）
+        if (files != null) {
+            MediaMetadataIndexer.getInstance(getApplication()).enqueue(files);
+        }
+        
         // 如果是随机模式，需要生成随机索引列表
         if (playMode.getValue() == PlayMode.RANDOM) {
             generateRandomIndices();
@@ -449,6 +576,7 @@ public class PlaybackViewModel extends AndroidViewModel {
         if (preloadedIndex != nextIndex) {
             preloadedDlink = null;
             preloadedIndex = -1;
+            MediaPrebuffer.getInstance(getApplication()).cancel();
         }
     }
 
@@ -491,6 +619,7 @@ public class PlaybackViewModel extends AndroidViewModel {
         if (preloadedIndex != prevIndex) {
             preloadedDlink = null;
             preloadedIndex = -1;
+            MediaPrebuffer.getInstance(getApplication()).cancel();
         }
     }
 
@@ -500,6 +629,9 @@ public class PlaybackViewModel extends AndroidViewModel {
     public void seekTo(int index) {
         List<FileInfo> files = playList.getValue();
         if (files != null && index >= 0 && index < files.size()) {
+            if (index != preloadedIndex) {
+                MediaPrebuffer.getInstance(getApplication()).cancel();
+            }
             currentIndex.setValue(index);
             updatePlaylistProgress(index);
         }
@@ -511,6 +643,9 @@ public class PlaybackViewModel extends AndroidViewModel {
     public void setCurrentIndex(int index) {
         List<FileInfo> files = playList.getValue();
         if (files != null && index >= 0 && index < files.size()) {
+            if (index != preloadedIndex) {
+                MediaPrebuffer.getInstance(getApplication()).cancel();
+            }
             currentIndex.setValue(index);
             updatePlaylistProgress(index);
         }
@@ -623,6 +758,17 @@ public class PlaybackViewModel extends AndroidViewModel {
         return randomIndices.get(prevPos);
     }
 
+    /**
+     * 获取指定索引的文件
+     */
+    public FileInfo getFileAt(int index) {
+        List<FileInfo> files = playList.getValue();
+        if (files != null && index >= 0 && index < files.size()) {
+            return files.get(index);
+        }
+        return null;
+    }
+
     /**
      * 获取当前播放的文件
      */
@@ -665,4 +811,11 @@ public class PlaybackViewModel extends AndroidViewModel {
             }
         }).start();
     }
-}
\ No newline at end of file
+    
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        // 离开播放页，停止预缓冲
+        MediaPrebuffer.getInstance(getApplication()).cancel();
+    }
+}
@@ -0,0 +1,205 @@
+package com.baidu.gallery.car.ui.playback;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaIdentity;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
+import com.baidu.gallery.car.network.RequestPriority;
+import com.baidu.gallery.car.repository.FileRepository;
+import com.baidu.gallery.car.utils.GlideMemoryProfile;
+import com.baidu.gallery.car.utils.ImageBackgroundUtils;
+import com.baidu.gallery.car.utils.PreferenceUtils;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 幻灯片预取
+ * 按当前播放模式的顺序，提前为接下来的几张图片获取dlink，并按显示尺寸解码进Glide内存缓存，
+ * 轮到时直接从内存命中，2秒间隔、蜂窝网络下也能准时切换。
+ * 解码完成时顺带生成背景（主色调、毛玻璃）存入BackgroundCache。
+ * 预取张数受网络质量和Glide内存缓存容量限制；播放模式变化或用户跳转时重新规划，取消不再需要的请求
+ */
+public class SlideshowPrefetcher {
+    private static final String TAG = "SlideshowPrefetcher";
+
+    // 最多预取的张数
+    private static final int MAX_PREFETCH = 4;
+    private final Context context;
+    private final FileRepository fileRepository;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final long memoryCacheBytes;
+    private final int bytesPerPixel;
+
+    // 正在预取的条目：fsId -> Glide预加载目标（dlink解析中时为null）
+    private final Map<Long, Target<Drawable>> inFlight = new HashMap<>();
+
+    public SlideshowPrefetcher(Context context) {
+        this.context = context;
+        this.fileRepository = FileRepository.getInstance();
+        GlideMemoryProfile profile = GlideMemoryProfile.getInstance(context);
+        this.memoryCacheBytes = profile.getMemoryCacheBytes();
+        this.bytesPerPixel = profile.getBytesPerPixel();
+    }
+
+    /**
+     * 按新的播放顺序重新规划预取
+     * @param upcoming 按播放顺序排列的接下来的文件
+     * @param accessToken 访问令牌
+     * @param width 显示宽度
+     * @param height 显示高度
+     */
+    public void plan(List<FileInfo> upcoming, String accessToken, int width, int height) {
+        int count = Math.min(getBudget(width, height), upcoming.size());
+        List<FileInfo> targets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            FileInfo file = upcoming.get(i);
+            if (file != null && file.isImage()) {
+                targets.add(file);
+            }
+        }
+
+        // 取消不在新规划中的请求
+        List<Long> keep = new ArrayList<>();
+        for (FileInfo file : targets) {
+            keep.add(file.getFsId());
+        }
+        for (Long fsId : new ArrayList<>(inFlight.keySet())) {
+            if (!keep.contains(fsId)) {
+                Target<Drawable> target = inFlight.remove(fsId);
+                if (target != null) {
+                    Glide.with(context).clear(target);
+                }
+            }
+        }
+
+        for (FileInfo file : targets) {
+            if (inFlight.containsKey(file.getFsId())) {
+                continue;
+            }
+            String dlink = file.getDlink();
+            if (dlink != null && dlink.startsWith("http")) {
+                preload(file, PlaybackViewModel.withAccessToken(dlink, accessToken), width, height);
+            } else {
+                resolveAndPreload(file, accessToken, width, height);
+            }
+        }
+        if (!targets.isEmpty()) {
+            Log.d(TAG, "预取规划: " + targets.size() + " 张 (预算 " + count + ")");
+        }
+    }
+
+    /**
+     * 取消所有预取
+     */
+    public void cancel() {
+        for (Target<Drawable> target : inFlight.values()) {
+            if (target != null) {
+                Glide.with(context).clear(target);
+            }
+        }
+        inFlight.clear();
+    }
+
+    /**
+     * 预取张数：网络质量给出的深度，且内存缓存至少还要放得下当前显示的一张
+     */
+    private int getBudget(int width, int height) {
+        int depth = Math.min(MAX_PREFETCH, NetworkQualityEstimator.getInstance().getPrefetchDepth());
+        int targetLongEdge = NetworkQualityEstimator.getInstance().getImageTargetLongEdge();
+        long imageBytes = targetLongEdge > 0
+                ? (long) targetLongEdge * targetLongEdge * bytesPerPixel
+                : (long) Math.max(1, width) * Math.max(1, height) * bytesPerPixel;
+        int fit = (int) (memoryCacheBytes / imageBytes) - 1;
+        return Math.max(0, Math.min(depth, fit));
+    }
+
+    private void resolveAndPreload(FileInfo file, String accessToken, int width, int height) {
+        inFlight.put(file.getFsId(), null);
+        fileRepository.fetchFileDetail(accessToken, file.getFsId(), RequestPriority.PREFETCH,
+                new FileRepository.FileDetailCallback() {
+                    @Override
+                    public void onSuccess(FileInfo fileInfo) {
+                        String dlink = fileInfo.getDlink();
+                        if (dlink == null || !dlink.startsWith("http")) {
+                            return;
+                        }
+                        mainHandler.post(() -> {
+                            // 回填dlink，轮到该文件时prepareMediaUrl直接使用；已被其他预加载回填时沿用已有地址
+                            String resolved = file.getDlink();
+                            if (resolved == null || !resolved.startsWith("http")) {
+                                resolved = dlink;
+                                file.setDlink(dlink);
+                            }
+                            if (fileInfo.getThumbs() != null) {
+                                file.setThumbs(fileInfo.getThumbs());
+                            }
+                            // 解析期间被重新规划取消，或已经开始预取
+                            if (!inFlight.containsKey(file.getFsId()) || inFlight.get(file.getFsId()) != null) {
+                                return;
+                            }
+                            preload(file, PlaybackViewModel.withAccessToken(resolved, accessToken), width, height);
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(String error) {
+                        mainHandler.post(() -> inFlight.remove(file.getFsId()));
+                        Log.w(TAG, "预取dlink失败: " + file.getServerFilename() + ", " + error);
+                    }
+                });
+    }
+
+    private void preload(FileInfo file, String url, int width, int height) {
+        // 与显示使用同一个主请求（显示尺寸缩放图，必要时回退原图），内存缓存键一致
+        Target<Drawable> target = ImageLadder.buildRequest(context, file, url, width, height, backgroundListener(file))
+                .preload(width > 0 ? width : Target.SIZE_ORIGINAL, height > 0 ? height : Target.SIZE_ORIGINAL);
+        inFlight.put(file.getFsId(), target);
+        Log.d(TAG, "预取图片: " + file.getServerFilename());
+    }
+
+    /**
+     * 解码完成后立即生成背景（主色调、毛玻璃），显示时背景与图片同时出现；纯黑背景不需要
+     */
+    @Nullable
+    private ImageLadder.Listener backgroundListener(FileInfo file) {
+        int backgroundMode = PreferenceUtils.getBackgroundMode(context);
+        if (backgroundMode == ImageBackgroundUtils.BackgroundMode.BLACK.getValue()) {
+            return null;
+        }
+        boolean withBlur = backgroundMode == ImageBackgroundUtils.BackgroundMode.BLURRED.getValue();
+        String imageKey = MediaIdentity.of(file).getKey();
+        return new ImageLadder.Listener() {
+            @Override
+            public void onRungReady(ImageLadder.Rung rung, String url, Drawable resource, DataSource dataSource) {
+                // Glide在主线程回调；缩小在这里同步完成，之后该Bitmap可被回收复用
+                ImageBackgroundUtils.prepareBackground(context, imageKey, resource, withBlur);
+            }
+
+            @Override
+            public void onRungFailed(ImageLadder.Rung rung) {
+            }
+        };
+    }
+
+    /**
+     * 当前显示的文件不再需要追踪
+     */
+    public void onDisplayed(@Nullable FileInfo file) {
+        if (file != null) {
+            inFlight.remove(file.getFsId());
+        }
+    }
+}
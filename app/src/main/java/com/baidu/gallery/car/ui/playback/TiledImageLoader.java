@@ -0,0 +1,256 @@
+package com.baidu.gallery.car.ui.playback;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.media.ExifInterface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.model.FileInfo;
+import com.baidu.gallery.car.model.MediaIdentity;
+import com.baidu.gallery.car.ui.view.TiledImageDrawable;
+import com.baidu.gallery.car.utils.GlideMemoryProfile;
+import com.baidu.gallery.car.utils.MediaGlideUrl;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 超大图片的分块显示
+ * 原图下载到Glide磁盘缓存（按媒体标识，和普通加载共用），下载完成即由Glide按长边2048采样解码出底图，
+ * 先回调onBase替换缩略图，不等区域解码器建索引；随后读取尺寸判断：
+ * - 像素数超过阈值的照片：分块解码，整图适应显示
+ * - 全景图（宽高比远大于屏幕）：按屏幕高度铺满，分块解码可见区域并平移
+ * 其余图片回调onNotTiled，由调用方走普通Glide加载（此时原图已在磁盘缓存中）。
+ * 带EXIF旋转的图片也走普通加载：区域解码不处理旋转
+ */
+public class TiledImageLoader {
+    private static final String TAG = "TiledImageLoader";
+
+    // 超过该像素数按分块显示（约5000万像素）
+    private static final long HUGE_IMAGE_PIXELS = 50_000_000L;
+    // 宽高比超过屏幕宽高比的该倍数按全景图平移显示
+    private static final float PANORAMA_ASPECT_FACTOR = 2f;
+    // 底图长边上限
+    private static final int BASE_MAX_LONG_EDGE = 2048;
+    // 块缓存：可见区域的屏数
+    private static final int TILE_CACHE_SCREENS = 2;
+
+    /**
+     * 回调（主线程）
+     */
+    public interface Callback {
+        /**
+         * 底图已解码，分块判断仍在进行；之后一定还会回调onTiled或onNotTiled
+         */
+        void onBase(Bitmap base, DataSource dataSource);
+
+        void onTiled(TiledImageDrawable drawable, DataSource dataSource);
+
+        void onNotTiled();
+    }
+
+    // 进程内共用：每个播放界面各建线程池且没有关闭时，界面重建会不断泄漏线程
+    private static final ExecutorService prepareExecutor = Executors.newSingleThreadExecutor();
+    private static final ExecutorService tileExecutor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int generation = 0;
+
+    public TiledImageLoader(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * 按显示区域判断是否为全景图
+     */
+    public static boolean isPanorama(int width, int height, int viewWidth, int viewHeight) {
+        if (width <= 0 || height <= 0 || viewWidth <= 0 || viewHeight <= 0) {
+            return false;
+        }
+        return (float) width / height >= PANORAMA_ASPECT_FACTOR * viewWidth / viewHeight;
+    }
+
+    /**
+     * 下载原图并判断是否分块显示
+     */
+    public void prepare(@NonNull FileInfo file, String url, int viewWidth, int viewHeight, Callback callback) {
+        int token = ++generation;
+        prepareExecutor.execute(() -> {
+            AtomicReference<DataSource> dataSource = new AtomicReference<>(DataSource.REMOTE);
+            // 底图和原图文件共用磁盘缓存中的同一份数据，只下载一次
+            Bitmap base = fetch(baseRequest(file, url), file, dataSource);
+            if (base != null) {
+                DataSource baseSource = dataSource.get();
+                mainHandler.post(() -> {
+                    if (token == generation) {
+                        callback.onBase(base, baseSource);
+                    }
+                });
+            }
+            File source = fetch(Glide.with(context).asFile().load(new MediaGlideUrl(url, MediaIdentity.of(file))),
+                    file, base != null ? new AtomicReference<>() : dataSource);
+            TiledImageDrawable drawable = source != null ? decode(file, source, base, viewWidth, viewHeight) : null;
+            mainHandler.post(() -> {
+                if (token != generation) {
+                    if (drawable != null) {
+                        drawable.release();
+                    }
+                    return;
+                }
+                if (drawable != null) {
+                    callback.onTiled(drawable, dataSource.get());
+                } else {
+                    callback.onNotTiled();
+                }
+            });
+        });
+    }
+
+    /**
+     * 取消未完成的准备
+     */
+    public void cancel() {
+        generation++;
+    }
+
+    /**
+     * 底图请求：原图按长边上限采样解码（JPEG在解码时缩小，比区域解码整图快），原始数据写入磁盘缓存供区域解码
+     */
+    private RequestBuilder<Bitmap> baseRequest(FileInfo file, String url) {
+        GlideMemoryProfile profile = GlideMemoryProfile.getInstance(context);
+        return Glide.with(context)
+                .asBitmap()
+                .load(new MediaGlideUrl(url, MediaIdentity.of(file)))
+                .apply(new RequestOptions()
+                        .format(profile.getDecodeFormat())
+                        // 背景策略要读底图像素
+                        .disallowHardwareConfig()
+                        .downsample(DownsampleStrategy.CENTER_INSIDE)
+                        .override(BASE_MAX_LONG_EDGE)
+                        .diskCacheStrategy(DiskCacheStrategy.DATA)
+                        // 底图由分块Drawable持有，不进内存缓存
+                        .skipMemoryCache(true));
+    }
+
+    @Nullable
+    private <T> T fetch(RequestBuilder<T> request, FileInfo file, AtomicReference<DataSource> dataSource) {
+        try {
+            return request
+                    .listener(new RequestListener<T>() {
+                        @Override
+                        public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                                    @NonNull Target<T> target, boolean isFirstResource) {
+                            return false;
+                        }
+
+                        @Override
+                        public boolean onResourceReady(@NonNull T resource, @NonNull Object model,
+                                                       @NonNull Target<T> target, @NonNull DataSource source,
+                                                       boolean isFirstResource) {
+                            dataSource.set(source);
+                            return false;
+                        }
+                    })
+                    .submit()
+                    .get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "原图下载失败: " + file.getServerFilename() + ", " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 需要分块时创建Drawable，否则返回null
+     * @param base 已解码的底图；为空时（Glide解码失败）用区域解码器解码
+     */
+    @Nullable
+    private TiledImageDrawable decode(FileInfo file, File source, @Nullable Bitmap base,
+                                      int viewWidth, int viewHeight) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getAbsolutePath(), bounds);
+        int width = bounds.outWidth;
+        int height = bounds.outHeight;
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        boolean panorama = isPanorama(width, height, viewWidth, viewHeight);
+        if (!panorama && (long) width * height < HUGE_IMAGE_PIXELS) {
+            return null;
+        }
+        if (isRotated(source)) {
+            Log.d(TAG, "带EXIF旋转，使用普通加载: " + file.getServerFilename());
+            return null;
+        }
+
+        BitmapRegionDecoder decoder;
+        try {
+            decoder = BitmapRegionDecoder.newInstance(source.getAbsolutePath(), false);
+        } catch (IOException e) {
+            Log.w(TAG, "不支持区域解码: " + file.getServerFilename() + ", " + e.getMessage());
+            return null;
+        }
+
+        GlideMemoryProfile profile = GlideMemoryProfile.getInstance(context);
+        Bitmap.Config config = profile.getBytesPerPixel() == 2 ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        if (base == null) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = config;
+            options.inSampleSize = 1;
+            while (Math.max(width, height) / options.inSampleSize > BASE_MAX_LONG_EDGE) {
+                options.inSampleSize *= 2;
+            }
+            try {
+                base = decoder.decodeRegion(new Rect(0, 0, width, height), options);
+            } catch (IllegalArgumentException e) {
+                base = null;
+            }
+            if (base == null) {
+                decoder.recycle();
+                return null;
+            }
+        }
+
+        int tileCacheBytes = (int) Math.min(Integer.MAX_VALUE,
+                (long) viewWidth * viewHeight * profile.getBytesPerPixel() * TILE_CACHE_SCREENS);
+        Log.d(TAG, String.format("分块显示: %s %dx%d, %s, 底图 %dx%d",
+                file.getServerFilename(), width, height, panorama ? "全景平移" : "超大照片",
+                base.getWidth(), base.getHeight()));
+        return new TiledImageDrawable(decoder, width, height, base, panorama, config, tileCacheBytes, tileExecutor);
+    }
+
+    private static boolean isRotated(File source) {
+        try {
+            int orientation = new ExifInterface(source.getAbsolutePath())
+                    .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            return orientation != ExifInterface.ORIENTATION_NORMAL && orientation != ExifInterface.ORIENTATION_UNDEFINED;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
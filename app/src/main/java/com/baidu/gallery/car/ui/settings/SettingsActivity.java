@@ -7,27 +7,46 @@ import android.widget.RadioGroup;
 import android.widget.SeekBar;
 import android.widget.Switch;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.fragment.app.FragmentActivity;
 
 import com.baidu.gallery.car.R;
 import com.baidu.gallery.car.auth.LoginActivity;
+import com.baidu.gallery.car.effects.ImageEffectFactory;
 import com.baidu.gallery.car.model.ImageEffect;
 import com.baidu.gallery.car.model.PlayMode;
+import com.baidu.gallery.car.player.PlaybackTracer;
+import com.baidu.gallery.car.utils.FrameTimeStats;
+import com.baidu.gallery.car.utils.GlideMemoryProfile;
+import com.baidu.gallery.car.utils.ImageTransferStats;
 import com.baidu.gallery.car.utils.PreferenceUtils;
 
+import java.io.File;
+
 /**
  * 设置Activity
  */
 public class SettingsActivity extends FragmentActivity {
     
+    // 视频缓存上限滑块每档的大小
+    private static final int MEDIA_CACHE_STEP_MB = 256;
+    
     private RadioGroup rgImageEffectRow1;
     private RadioGroup rgImageEffectRow2;
     private SeekBar seekbarDisplayDuration;
     private TextView tvDisplayDuration;
     private Switch switchShowLocation;
+    private Switch switchGpuEffects;
+    private SeekBar seekbarSegmentedConnections;
+    private TextView tvSegmentedConnections;
+    private SeekBar seekbarSegmentedReadAhead;
+    private TextView tvSegmentedReadAhead;
+    private SeekBar seekbarMediaCacheSize;
+    private TextView tvMediaCacheSize;
     private RadioGroup rgPlayMode;
     private RadioGroup rgBackgroundMode;
+    private Button btnPlaybackTrace;
     private Button btnLogout;
     
     private boolean isUpdatingEffectSelection = false; // 防止递归触发
@@ -48,8 +67,16 @@ public class SettingsActivity extends FragmentActivity {
         seekbarDisplayDuration = findViewById(R.id.seekbar_display_duration);
         tvDisplayDuration = findViewById(R.id.tv_display_duration);
         switchShowLocation = findViewById(R.id.switch_show_location);
+        switchGpuEffects = findViewById(R.id.switch_gpu_effects);
+        seekbarSegmentedConnections = findViewById(R.id.seekbar_segmented_connections);
+        tvSegmentedConnections = findViewById(R.id.tv_segmented_connections);
+        seekbarSegmentedReadAhead = findViewById(R.id.seekbar_segmented_read_ahead);
+        tvSegmentedReadAhead = findViewById(R.id.tv_segmented_read_ahead);
+        seekbarMediaCacheSize = findViewById(R.id.seekbar_media_cache_size);
+        tvMediaCacheSize = findViewById(R.id.tv_media_cache_size);
         rgPlayMode = findViewById(R.id.rg_play_mode);
         rgBackgroundMode = findViewById(R.id.rg_background_mode);
+        btnPlaybackTrace = findViewById(R.id.btn_playback_trace);
         btnLogout = findViewById(R.id.btn_logout);
     }
 
@@ -98,6 +125,24 @@ public class SettingsActivity extends FragmentActivity {
         // 加载地点显示设置
         boolean showLocation = PreferenceUtils.getShowLocation(this);
         switchShowLocation.setChecked(showLocation);
+
+        // 加载GPU特效设置（系统不支持时不可选）
+        switchGpuEffects.setChecked(PreferenceUtils.getGpuEffectsEnabled(this)
+                && ImageEffectFactory.isShaderEffectSupported());
+        switchGpuEffects.setEnabled(ImageEffectFactory.isShaderEffectSupported());
+
+        // 加载视频分段下载设置
+        int connections = PreferenceUtils.getSegmentedConnections(this);
+        seekbarSegmentedConnections.setProgress(connections);
+        tvSegmentedConnections.setText(connections + "个连接");
+        int readAheadMb = PreferenceUtils.getSegmentedReadAheadMb(this);
+        seekbarSegmentedReadAhead.setProgress(readAheadMb);
+        tvSegmentedReadAhead.setText(readAheadMb + "MB");
+        
+        // 加载视频缓存上限设置（每档256MB）
+        int cacheSizeMb = PreferenceUtils.getMediaCacheSizeMb(this);
+        seekbarMediaCacheSize.setProgress(Math.max(1, cacheSizeMb / MEDIA_CACHE_STEP_MB));
+        tvMediaCacheSize.setText(cacheSizeMb + "MB");
         
         // 加载播放模式设置
         int playMode = PreferenceUtils.getPlayMode(this);
@@ -176,6 +221,66 @@ public class SettingsActivity extends FragmentActivity {
         switchShowLocation.setOnCheckedChangeListener((buttonView, isChecked) -> {
             PreferenceUtils.saveShowLocation(this, isChecked);
         });
+
+        // GPU特效开关
+        switchGpuEffects.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            PreferenceUtils.saveGpuEffectsEnabled(this, isChecked);
+        });
+
+        // 视频分段下载并行连接数
+        seekbarSegmentedConnections.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                tvSegmentedConnections.setText(progress + "个连接");
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+                // 不需要处理
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                PreferenceUtils.saveSegmentedConnections(SettingsActivity.this, seekBar.getProgress());
+            }
+        });
+
+        // 视频分段下载预读
+        seekbarSegmentedReadAhead.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                tvSegmentedReadAhead.setText(progress + "MB");
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+                // 不需要处理
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                PreferenceUtils.saveSegmentedReadAheadMb(SettingsActivity.this, seekBar.getProgress());
+            }
+        });
+        
+        // 视频缓存上限
+        seekbarMediaCacheSize.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                tvMediaCacheSize.setText(progress * MEDIA_CACHE_STEP_MB + "MB");
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+                // 不需要处理
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                PreferenceUtils.saveMediaCacheSizeMb(SettingsActivity.this,
+                        seekBar.getProgress() * MEDIA_CACHE_STEP_MB);
+            }
+        });
         
         // 播放模式选择
         rgPlayMode.setOnCheckedChangeListener((group, modeCheckedId) -> {
@@ -209,6 +314,9 @@ public class SettingsActivity extends FragmentActivity {
             PreferenceUtils.saveBackgroundMode(this, mode);
         });
         
+        // 起播耗时统计
+        btnPlaybackTrace.setOnClickListener(v -> showPlaybackTraceDialog());
+        
         // 退出登录
         btnLogout.setOnClickListener(v -> {
             // 清除认证信息
@@ -222,6 +330,26 @@ public class SettingsActivity extends FragmentActivity {
         });
     }
     
+    /**
+     * 显示起播耗时统计和图片流量节省，起播耗时可导出为文件
+     */
+    private void showPlaybackTraceDialog() {
+        new android.app.AlertDialog.Builder(this)
+            .setTitle("起播耗时统计")
+            .setMessage(PlaybackTracer.getInstance().getReport()
+                + "\n" + ImageTransferStats.getInstance().getSummary()
+                + "\n\n" + GlideMemoryProfile.getInstance(this).getSummary()
+                + "\n\n" + FrameTimeStats.getInstance().getSummary())
+            .setPositiveButton("导出", (dialog, which) -> {
+                File file = PlaybackTracer.getInstance().exportToFile(this);
+                Toast.makeText(this,
+                    file != null ? "已导出到 " + file.getAbsolutePath() : "导出失败",
+                    Toast.LENGTH_LONG).show();
+            })
+            .setNegativeButton("关闭", null)
+            .show();
+    }
+    
     /**
      * 保存图片特效
      */
@@ -10,6 +10,7 @@ import androidx.fragment.app.FragmentActivity;
 import com.baidu.gallery.car.R;
 import com.baidu.gallery.car.auth.BaiduAuthService;
 import com.baidu.gallery.car.auth.LoginActivity;
+import com.baidu.gallery.car.network.ConnectionWarmer;
 import com.baidu.gallery.car.ui.main.MainActivity;
 
 /**
@@ -30,6 +31,9 @@ public class SplashActivity extends FragmentActivity {
         
         handler = new Handler(Looper.getMainLooper());
         
+        // 利用启动页停留时间预热网盘API连接，首次加载列表时省去DNS和握手
+        ConnectionWarmer.getInstance(this).warmUpApiHost();
+        
         // 延迟跳转到主页面
         navigateRunnable = this::checkLoginStatusAndNavigate;
         handler.postDelayed(navigateRunnable, SPLASH_DURATION);
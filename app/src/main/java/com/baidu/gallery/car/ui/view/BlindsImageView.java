@@ -1,46 +1,132 @@
 package com.baidu.gallery.car.ui.view;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ValueAnimator;
+import android.app.Activity;
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Rect;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.util.AttributeSet;
+import android.view.Display;
+import android.view.Window;
 import android.view.animation.DecelerateInterpolator;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.appcompat.widget.AppCompatImageView;
 
+import com.baidu.gallery.car.utils.FrameTimeStats;
+
 /**
  * 支持百叶窗效果的ImageView
+ * 百叶窗动画期间，图片内容（按ImageView自身的scaleType和矩阵绘制）只录制一次到RenderNode，
+ * 每帧只对每一条做裁剪并引用同一个RenderNode，不再逐条重新绘制Drawable；
+ * 图片内容变化（换图、尺寸变化、分块图片解码出新块）时才重新录制。
+ * Android 10以下或软件绘制时没有RenderNode，逐条裁剪后直接绘制图片内容。
+ * 条的边界在尺寸或条数变化时预先计算，onDraw不分配对象。
+ * 作为ImageStageView的图层时，也承载着色器特效等由策略驱动的切换动画
  */
 public class BlindsImageView extends AppCompatImageView {
-    private static final int BLINDS_COUNT = 8; // 百叶窗条数
-    private static final int ANIMATION_DURATION = 1000; // 动画时长（毫秒）
-    
-    private Paint clipPaint;
+    private static final int DEFAULT_BLINDS_COUNT = 8; // 默认百叶窗条数
+    private static final long DEFAULT_ANIMATION_DURATION = 1000; // 默认动画时长（毫秒）
+    private static final String FRAME_STATS_LABEL = "百叶窗";
+
+    private int blindsCount = DEFAULT_BLINDS_COUNT;
+    private long blindsDuration = DEFAULT_ANIMATION_DURATION;
+    // 每条的上下边界，长度为条数+1
+    private int[] stripEdges = new int[0];
+
     private float blindsProgress = 1.0f; // 百叶窗进度，0为完全关闭，1为完全打开
     private boolean isBlindsAnimating = false;
     private ValueAnimator blindsAnimator;
 
+    // 图片内容的显示列表（Android 10及以上）
+    private RenderNode contentNode;
+    private boolean contentDirty = true;
+
+    // 特效策略驱动的切换动画
+    @Nullable
+    private Animator transitionAnimator;
+
+    @Nullable
+    private FrameTimeStats.Session frameStatsSession;
+
     public BlindsImageView(Context context) {
         super(context);
-        init();
     }
 
     public BlindsImageView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        init();
     }
 
     public BlindsImageView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init();
     }
 
-    private void init() {
-        clipPaint = new Paint();
-        clipPaint.setAntiAlias(true);
+    /**
+     * 设置百叶窗条数（至少1条），下一次动画生效
+     * 偶数序号的条从左到右展开，奇数序号的条从右到左展开
+     */
+    public void setBlindsCount(int count) {
+        int newCount = Math.max(1, count);
+        if (newCount != blindsCount) {
+            blindsCount = newCount;
+            computeStripEdges(getHeight());
+        }
+    }
+
+    public int getBlindsCount() {
+        return blindsCount;
+    }
+
+    /**
+     * 设置百叶窗动画时长（毫秒），下一次动画生效
+     */
+    public void setBlindsDuration(long durationMs) {
+        blindsDuration = Math.max(0, durationMs);
+    }
+
+    public long getBlindsDuration() {
+        return blindsDuration;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        computeStripEdges(h);
+        contentDirty = true;
+    }
+
+    @Override
+    public void setImageDrawable(@Nullable Drawable drawable) {
+        super.setImageDrawable(drawable);
+        contentDirty = true;
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable dr) {
+        // 图片自身刷新（例如分块图片解码出新块），需要重新录制
+        if (dr == getDrawable()) {
+            contentDirty = true;
+        }
+        super.invalidateDrawable(dr);
+    }
+
+    private void computeStripEdges(int height) {
+        if (stripEdges.length != blindsCount + 1) {
+            stripEdges = new int[blindsCount + 1];
+        }
+        int stripHeight = height / blindsCount;
+        for (int i = 0; i < blindsCount; i++) {
+            stripEdges[i] = i * stripHeight;
+        }
+        // 最后一条收纳除不尽的部分
+        stripEdges[blindsCount] = height;
     }
 
     @Override
@@ -56,48 +142,32 @@ public class BlindsImageView extends AppCompatImageView {
 
     /**
      * 绘制百叶窗效果
-     * 奇数条（0,2,4,6...）从左到右显示
-     * 偶数条（1,3,5,7...）从右到左显示
+     * 偶数条（0,2,4,6...）从左到右显示
+     * 奇数条（1,3,5,7...）从右到左显示
      */
     private void drawBlindsEffect(Canvas canvas) {
         int width = getWidth();
         int height = getHeight();
-        
-        if (width == 0 || height == 0) {
+        if (width == 0 || height == 0 || getDrawable() == null) {
             return;
         }
-
-        Drawable drawable = getDrawable();
-        if (drawable == null) {
-            return;
+        if (stripEdges.length != blindsCount + 1 || stripEdges[blindsCount] != height) {
+            computeStripEdges(height);
         }
 
-        // 计算每条百叶窗的高度
-        int blindHeight = height / BLINDS_COUNT;
-        
-        // 保存画布状态
-        canvas.save();
-        
-        // 计算图片在ImageView中的绘制区域（保持缩放类型一致）
-        Rect drawableRect = calculateDrawableBounds(width, height, drawable);
-        
-        // 保存原始bounds
-        Rect originalBounds = drawable.copyBounds();
-        // 设置新的bounds用于绘制
-        drawable.setBounds(drawableRect.left, drawableRect.top, drawableRect.right, drawableRect.bottom);
-        
-        // 绘制每条百叶窗
-        for (int i = 0; i < BLINDS_COUNT; i++) {
-            int top = i * blindHeight;
-            int bottom = (i == BLINDS_COUNT - 1) ? height : (i + 1) * blindHeight;
-            
-            // 计算当前百叶窗条的显示宽度
-            int visibleWidth = (int) (width * blindsProgress);
-            
-            // 裁剪区域
+        RenderNode node = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas instanceof RecordingCanvas
+                ? prepareContentNode(width, height) : null;
+
+        // 当前百叶窗条的显示宽度
+        int visibleWidth = (int) (width * blindsProgress);
+        for (int i = 0; i < blindsCount; i++) {
+            int top = stripEdges[i];
+            int bottom = stripEdges[i + 1];
+            if (bottom <= top) {
+                continue;
+            }
+
             canvas.save();
-            
-            // 奇数条从左到右，偶数条从右到左
             if (i % 2 == 0) {
                 // 偶数条：从左到右
                 canvas.clipRect(0, top, visibleWidth, bottom);
@@ -105,66 +175,34 @@ public class BlindsImageView extends AppCompatImageView {
                 // 奇数条：从右到左
                 canvas.clipRect(width - visibleWidth, top, width, bottom);
             }
-            
-            // 绘制图片
-            drawable.draw(canvas);
-            
+            if (node != null) {
+                ((RecordingCanvas) canvas).drawRenderNode(node);
+            } else {
+                super.onDraw(canvas);
+            }
             canvas.restore();
         }
-        
-        // 恢复原始bounds，避免影响super.onDraw
-        drawable.setBounds(originalBounds);
-        
-        canvas.restore();
     }
-    
+
     /**
-     * 计算图片在ImageView中的绘制区域，保持与ImageView的scaleType一致
+     * 需要时重新录制图片内容（按ImageView自身的scaleType和矩阵绘制，与动画结束后的正常绘制一致）
      */
-    private Rect calculateDrawableBounds(int viewWidth, int viewHeight, Drawable drawable) {
-        int drawableWidth = drawable.getIntrinsicWidth();
-        int drawableHeight = drawable.getIntrinsicHeight();
-        
-        if (drawableWidth <= 0 || drawableHeight <= 0) {
-            return new Rect(0, 0, viewWidth, viewHeight);
-        }
-        
-        // 计算缩放比例
-        float scale;
-        float dx = 0, dy = 0;
-        
-        // 判断图片是横屏还是竖屏
-        boolean isLandscape = drawableWidth >= drawableHeight;
-        
-        if (isLandscape) {
-            // 横屏图片：尽量充满全屏 (CenterCrop 模式)
-            // 取宽和高中缩放比例较大的那个，保证填满屏幕
-            float scaleX = (float) viewWidth / (float) drawableWidth;
-            float scaleY = (float) viewHeight / (float) drawableHeight;
-            scale = Math.max(scaleX, scaleY);
-        } else {
-            // 竖屏图片：等比占满纵轴 (FitCenter 模式)
-            // 保持原有逻辑，确保完整显示
-            if (drawableWidth * viewHeight > viewWidth * drawableHeight) {
-                scale = (float) viewWidth / (float) drawableWidth;
-            } else {
-                scale = (float) viewHeight / (float) drawableHeight;
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private RenderNode prepareContentNode(int width, int height) {
+        if (contentNode == null) {
+            contentNode = new RenderNode("BlindsContent");
+        }
+        if (contentDirty || contentNode.getWidth() != width || contentNode.getHeight() != height) {
+            contentNode.setPosition(0, 0, width, height);
+            RecordingCanvas recordingCanvas = contentNode.beginRecording(width, height);
+            try {
+                super.onDraw(recordingCanvas);
+            } finally {
+                contentNode.endRecording();
             }
+            contentDirty = false;
         }
-        
-        // 计算居中位置
-        float scaledWidth = drawableWidth * scale;
-        float scaledHeight = drawableHeight * scale;
-        
-        dx = (viewWidth - scaledWidth) * 0.5f;
-        dy = (viewHeight - scaledHeight) * 0.5f;
-        
-        int left = Math.round(dx);
-        int top = Math.round(dy);
-        int right = Math.round(dx + scaledWidth);
-        int bottom = Math.round(dy + scaledHeight);
-        
-        return new Rect(left, top, right, bottom);
+        return contentNode;
     }
 
     /**
@@ -177,9 +215,10 @@ public class BlindsImageView extends AppCompatImageView {
 
         isBlindsAnimating = true;
         blindsProgress = 0.0f;
+        contentDirty = true;
 
         blindsAnimator = ValueAnimator.ofFloat(0.0f, 1.0f);
-        blindsAnimator.setDuration(ANIMATION_DURATION);
+        blindsAnimator.setDuration(blindsDuration);
         blindsAnimator.setInterpolator(new DecelerateInterpolator());
         blindsAnimator.addUpdateListener(animation -> {
             blindsProgress = (float) animation.getAnimatedValue();
@@ -193,23 +232,20 @@ public class BlindsImageView extends AppCompatImageView {
             @Override
             public void onAnimationEnd(android.animation.Animator animation) {
                 // 动画结束后，停止百叶窗绘制，切换回正常绘制模式
-                isBlindsAnimating = false;
-                blindsProgress = 1.0f;
-                invalidate();
+                finishBlinds();
             }
 
             @Override
             public void onAnimationCancel(android.animation.Animator animation) {
                 // 动画取消时也停止百叶窗绘制
-                isBlindsAnimating = false;
-                blindsProgress = 1.0f;
-                invalidate();
+                finishBlinds();
             }
 
             @Override
             public void onAnimationRepeat(android.animation.Animator animation) {
             }
         });
+        startFrameStats(FRAME_STATS_LABEL);
         blindsAnimator.start();
     }
 
@@ -220,17 +256,100 @@ public class BlindsImageView extends AppCompatImageView {
         if (blindsAnimator != null && blindsAnimator.isRunning()) {
             blindsAnimator.cancel();
         }
-        isBlindsAnimating = false;
-        blindsProgress = 1.0f;
-        invalidate();
+        finishBlinds();
     }
 
     /**
      * 重置百叶窗状态
      */
     public void resetBlinds() {
+        finishBlinds();
+    }
+
+    private void finishBlinds() {
+        if (isBlindsAnimating) {
+            finishFrameStats();
+        }
         isBlindsAnimating = false;
         blindsProgress = 1.0f;
+        // 不再持有图片的显示列表
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && contentNode != null) {
+            contentNode.discardDisplayList();
+        }
+        contentDirty = true;
         invalidate();
     }
-}
\ No newline at end of file
+
+    // ========== 外部驱动的切换动画 ==========
+
+    /**
+     * 启动由特效策略驱动的切换动画（例如着色器特效逐帧更新RenderEffect）
+     * 开始新动画或resetTransition时取消上一个；动画期间记录帧耗时
+     * @param animator 未启动的动画
+     * @param frameStatsLabel 帧耗时统计名称
+     */
+    public void startTransitionAnimator(Animator animator, String frameStatsLabel) {
+        resetTransition();
+        transitionAnimator = animator;
+        animator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (transitionAnimator == animation) {
+                    transitionAnimator = null;
+                    finishFrameStats();
+                }
+            }
+        });
+        startFrameStats(frameStatsLabel);
+        animator.start();
+    }
+
+    /**
+     * 取消切换动画并清除RenderEffect，恢复为普通绘制
+     */
+    public void resetTransition() {
+        if (transitionAnimator != null) {
+            // 取消时同样回调onAnimationEnd，结束帧耗时记录
+            transitionAnimator.cancel();
+            transitionAnimator = null;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            setRenderEffect(null);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        stopBlindsAnimation();
+        resetTransition();
+        super.onDetachedFromWindow();
+    }
+
+    // ========== 帧耗时统计 ==========
+
+    private void startFrameStats(String label) {
+        finishFrameStats();
+        Display display = getDisplay();
+        frameStatsSession = FrameTimeStats.getInstance().start(label,
+                findWindow(), display != null ? display.getRefreshRate() : 60f);
+    }
+
+    private void finishFrameStats() {
+        if (frameStatsSession != null) {
+            frameStatsSession.finish();
+            frameStatsSession = null;
+        }
+    }
+
+    @Nullable
+    private Window findWindow() {
+        Context context = getContext();
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return ((Activity) context).getWindow();
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+}
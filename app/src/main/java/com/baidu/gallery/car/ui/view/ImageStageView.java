@@ -0,0 +1,168 @@
+package com.baidu.gallery.car.ui.view;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import androidx.annotation.Nullable;
+
+import com.baidu.gallery.car.effects.ImageEffectStrategy;
+
+/**
+ * 双缓冲图片舞台
+ * 两个图层交替使用：当前图片显示在前层，下一张图片加载到不可见的后层（与前层同尺寸，已完成布局），
+ * 解码完成后才把后层提到上面，由特效策略在两个已就绪的图层之间做切换动画；
+ * 切换结束后旧图层隐藏、恢复中性状态并释放图片，作为下一张的后层。
+ * 图片的加载和变换都发生在不可见的图层上，不会出现半变换或空白的帧
+ */
+public class ImageStageView extends FrameLayout {
+
+    /**
+     * 图层回收回调：图层不再显示，调用方应释放其上的图片（例如Glide.clear）
+     */
+    public interface LayerListener {
+        void onLayerRetired(BlindsImageView layer);
+    }
+
+    private final BlindsImageView[] layers = new BlindsImageView[2];
+    private int frontIndex = 0;
+    @Nullable
+    private LayerListener layerListener;
+    // 正在切换时，到时回收旧图层
+    @Nullable
+    private Runnable pendingRetire;
+
+    public ImageStageView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public ImageStageView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public ImageStageView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    private void init(Context context) {
+        for (int i = 0; i < layers.length; i++) {
+            BlindsImageView layer = new BlindsImageView(context);
+            layer.setScaleType(ImageView.ScaleType.FIT_CENTER);
+            layer.setVisibility(View.INVISIBLE);
+            addView(layer, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+            layers[i] = layer;
+        }
+    }
+
+    public void setLayerListener(@Nullable LayerListener listener) {
+        this.layerListener = listener;
+    }
+
+    /**
+     * 当前显示的图层
+     */
+    public BlindsImageView getFrontLayer() {
+        return layers[frontIndex];
+    }
+
+    /**
+     * 准备后层用于加载下一张图片
+     * 上一次切换还没结束时立即结束（旧图层回收），返回的后层不可见且处于中性状态，
+     * 上面可能还有一个尚未显示完成的加载，调用方直接在其上发起新的加载即可替换
+     */
+    public BlindsImageView prepareBackLayer() {
+        finishPendingRetire();
+        BlindsImageView back = layers[1 - frontIndex];
+        resetLayer(back);
+        back.setVisibility(View.INVISIBLE);
+        return back;
+    }
+
+    /**
+     * 后层已就绪，切换为前层并执行切换动画
+     * @param layer prepareBackLayer返回的图层；已不是后层时（又准备了新的一张）忽略
+     * @param strategy 切换特效
+     */
+    public void showLayer(BlindsImageView layer, ImageEffectStrategy strategy) {
+        BlindsImageView outgoing = layers[frontIndex];
+        if (layer == outgoing) {
+            return;
+        }
+        finishPendingRetire();
+        frontIndex = 1 - frontIndex;
+
+        // 新图层在上
+        layer.setTranslationZ(1f);
+        outgoing.setTranslationZ(0f);
+        layer.setVisibility(View.VISIBLE);
+
+        if (outgoing.getVisibility() == View.VISIBLE && outgoing.getDrawable() != null) {
+            strategy.applyEffect(layer, outgoing);
+            pendingRetire = () -> {
+                pendingRetire = null;
+                retire(outgoing);
+            };
+            postDelayed(pendingRetire, strategy.getTransitionDuration());
+        } else {
+            // 没有旧图（第一张或视频之后），只对新图层做特效
+            retire(outgoing);
+            strategy.applyEffect(layer, null);
+        }
+    }
+
+    /**
+     * 清空两个图层（切换到视频时释放图片）
+     */
+    public void clearLayers() {
+        finishPendingRetire();
+        for (BlindsImageView layer : layers) {
+            retire(layer);
+        }
+    }
+
+    private void finishPendingRetire() {
+        if (pendingRetire != null) {
+            Runnable retire = pendingRetire;
+            removeCallbacks(retire);
+            retire.run();
+        }
+    }
+
+    private void retire(BlindsImageView layer) {
+        resetLayer(layer);
+        layer.setVisibility(View.INVISIBLE);
+        if (layerListener != null) {
+            layerListener.onLayerRetired(layer);
+        }
+        layer.setImageDrawable(null);
+    }
+
+    /**
+     * 取消动画并恢复中性状态
+     */
+    private static void resetLayer(BlindsImageView layer) {
+        layer.animate().cancel();
+        layer.stopBlindsAnimation();
+        layer.resetTransition();
+        layer.setScaleX(1.0f);
+        layer.setScaleY(1.0f);
+        layer.setTranslationX(0);
+        layer.setTranslationY(0);
+        layer.setRotation(0);
+        layer.setAlpha(1.0f);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (pendingRetire != null) {
+            removeCallbacks(pendingRetire);
+            pendingRetire = null;
+        }
+        super.onDetachedFromWindow();
+    }
+}
@@ -0,0 +1,422 @@
+package com.baidu.gallery.car.ui.view;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LongSparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * 分块解码的超大图片
+ * 用BitmapRegionDecoder只解码可见区域、且只按显示需要的采样率解码，解码结果按块缓存（LRU，按字节限制）。
+ * 绘制路径不分配对象：块对象、解码参数都复用，淘汰下来的整块位图作为inBitmap给后续解码。
+ * 整图先以低分辨率底图铺底，块解码完成后逐块替换，不会出现空洞。
+ * 绘制时只画与当前裁剪区域相交的块：百叶窗特效每条只画自己那一条里的块。
+ * 两种视口：
+ * - 适应：整图等比缩放居中（超大像素的照片）
+ * - 平移：按显示高度铺满，随进度从左平移到右（全景图）
+ * 固有尺寸为-1，ImageView把整个视图区域交给本Drawable，由本Drawable自己计算映射
+ */
+public class TiledImageDrawable extends Drawable {
+    private static final String TAG = "TiledImageDrawable";
+
+    // 每块在采样后的边长（像素）
+    private static final int TILE_SIZE = 512;
+    // 留作inBitmap复用的整块位图数量上限（不计入块缓存）
+    private static final int MAX_REUSABLE_TILES = 4;
+
+    /**
+     * 一个块：bitmap为空表示已提交解码、尚未完成
+     */
+    private static final class Tile {
+        long key;
+        Bitmap bitmap;
+        // 解码线程交回的结果，在交接队列锁内读写
+        Bitmap decoded;
+        // 最近一次绘制的帧序号，按此淘汰
+        long lastDrawn;
+    }
+
+    private final BitmapRegionDecoder decoder;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final Bitmap base;
+    private final boolean pan;
+    private final Bitmap.Config tileConfig;
+    private final Executor decodeExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 块缓存（主线程）：键由采样率和行列号组成，含解码中的块
+    private final LongSparseArray<Tile> tiles = new LongSparseArray<>();
+    // 淘汰下来的块对象，请求新块时复用（主线程）
+    private final ArrayDeque<Tile> freeTiles = new ArrayDeque<>();
+    private final int tileCacheBytes;
+    private int tileBytes = 0;
+    private long frame = 0;
+
+    // 主线程与解码线程的交接队列，以queueLock保护
+    private final Object queueLock = new Object();
+    private final ArrayDeque<Tile> decodeQueue = new ArrayDeque<>();
+    private final ArrayDeque<Tile> decodedQueue = new ArrayDeque<>();
+    private final ArrayDeque<Bitmap> reusableBitmaps = new ArrayDeque<>();
+    private boolean decodeScheduled = false;
+    private boolean deliverScheduled = false;
+    private final Runnable decodeTask = this::decodeQueued;
+    private final Runnable deliverTask = this::deliverDecoded;
+
+    // 只在解码线程使用
+    private final Rect decodeRegion = new Rect();
+    private final BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private float panProgress = 0f;
+    private volatile boolean released = false;
+
+    // 绘制时复用的对象，避免每帧分配
+    private final RectF imageRect = new RectF();
+    private final Rect clipRect = new Rect();
+    private final RectF clipRectF = new RectF();
+    private final Rect tileSource = new Rect();
+    private final RectF tileDest = new RectF();
+
+    /**
+     * @param decoder 区域解码器（由本Drawable负责释放）
+     * @param imageWidth 原图宽
+     * @param imageHeight 原图高
+     * @param base 整图的低分辨率底图
+     * @param pan 是否按高度铺满并平移
+     * @param tileConfig 块的解码格式
+     * @param tileCacheBytes 块缓存上限
+     * @param decodeExecutor 块解码线程
+     */
+    public TiledImageDrawable(BitmapRegionDecoder decoder, int imageWidth, int imageHeight, Bitmap base,
+                              boolean pan, Bitmap.Config tileConfig, int tileCacheBytes, Executor decodeExecutor) {
+        this.decoder = decoder;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.base = base;
+        this.pan = pan;
+        this.tileConfig = tileConfig;
+        this.decodeExecutor = decodeExecutor;
+        this.tileCacheBytes = tileCacheBytes;
+        decodeOptions.inPreferredConfig = tileConfig;
+        // 解码结果可变，淘汰后才能作为inBitmap
+        decodeOptions.inMutable = true;
+    }
+
+    /**
+     * 低分辨率底图（供背景策略提取颜色、生成模糊背景）
+     */
+    public Bitmap getBaseBitmap() {
+        return base;
+    }
+
+    public boolean isPan() {
+        return pan;
+    }
+
+    /**
+     * 平移进度，0为最左，1为最右
+     */
+    public void setPanProgress(float progress) {
+        float clamped = Math.max(0f, Math.min(1f, progress));
+        if (clamped != panProgress) {
+            panProgress = clamped;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * 释放解码器和块缓存；之后只绘制底图
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        tiles.clear();
+        freeTiles.clear();
+        tileBytes = 0;
+        synchronized (queueLock) {
+            decodeQueue.clear();
+            decodedQueue.clear();
+            reusableBitmaps.clear();
+        }
+        mainHandler.removeCallbacks(deliverTask);
+        // 解码器只在解码线程使用，在同一线程上释放，避免与进行中的解码冲突
+        decodeExecutor.execute(decoder::recycle);
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        Rect bounds = getBounds();
+        if (bounds.isEmpty()) {
+            return;
+        }
+        frame++;
+        float scale = computeImageRect(bounds);
+        canvas.drawBitmap(base, null, imageRect, paint);
+        if (released) {
+            return;
+        }
+
+        // 只处理与裁剪区域相交的块
+        if (!canvas.getClipBounds(clipRect)) {
+            return;
+        }
+        clipRectF.set(clipRect);
+        if (!RectF.intersects(imageRect, clipRectF)) {
+            return;
+        }
+        int sample = sampleSizeFor(scale);
+        int sourceTile = TILE_SIZE * sample;
+        float left = Math.max(imageRect.left, clipRect.left);
+        float top = Math.max(imageRect.top, clipRect.top);
+        float right = Math.min(imageRect.right, clipRect.right);
+        float bottom = Math.min(imageRect.bottom, clipRect.bottom);
+        int firstCol = Math.max(0, (int) ((left - imageRect.left) / scale) / sourceTile);
+        int lastCol = Math.min((imageWidth - 1) / sourceTile, (int) ((right - imageRect.left) / scale) / sourceTile);
+        int firstRow = Math.max(0, (int) ((top - imageRect.top) / scale) / sourceTile);
+        int lastRow = Math.min((imageHeight - 1) / sourceTile, (int) ((bottom - imageRect.top) / scale) / sourceTile);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                long key = tileKey(sample, col, row);
+                Tile tile = tiles.get(key);
+                if (tile == null) {
+                    requestTile(key);
+                    continue;
+                }
+                tile.lastDrawn = frame;
+                if (tile.bitmap == null) {
+                    continue;
+                }
+                tileSource.set(col * sourceTile, row * sourceTile,
+                        Math.min(imageWidth, (col + 1) * sourceTile), Math.min(imageHeight, (row + 1) * sourceTile));
+                tileDest.set(imageRect.left + tileSource.left * scale, imageRect.top + tileSource.top * scale,
+                        imageRect.left + tileSource.right * scale, imageRect.top + tileSource.bottom * scale);
+                canvas.drawBitmap(tile.bitmap, null, tileDest, paint);
+            }
+        }
+    }
+
+    /**
+     * 计算原图在bounds中的位置，返回缩放比例
+     */
+    private float computeImageRect(Rect bounds) {
+        float scale;
+        if (pan) {
+            scale = (float) bounds.height() / imageHeight;
+        } else {
+            scale = Math.min((float) bounds.width() / imageWidth, (float) bounds.height() / imageHeight);
+        }
+        float width = imageWidth * scale;
+        float height = imageHeight * scale;
+        float dx = pan && width > bounds.width()
+                ? -(width - bounds.width()) * panProgress
+                : (bounds.width() - width) * 0.5f;
+        float dy = (bounds.height() - height) * 0.5f;
+        imageRect.set(bounds.left + dx, bounds.top + dy, bounds.left + dx + width, bounds.top + dy + height);
+        return scale;
+    }
+
+    /**
+     * 登记块并交给解码线程；解码线程空闲时才提交任务，同一批请求由一个任务依次解码
+     */
+    private void requestTile(long key) {
+        Tile tile = freeTiles.poll();
+        if (tile == null) {
+            tile = new Tile();
+        }
+        tile.key = key;
+        tile.bitmap = null;
+        tile.lastDrawn = frame;
+        tiles.put(key, tile);
+        boolean schedule;
+        synchronized (queueLock) {
+            decodeQueue.add(tile);
+            schedule = !decodeScheduled;
+            decodeScheduled = true;
+        }
+        if (schedule) {
+            decodeExecutor.execute(decodeTask);
+        }
+    }
+
+    /**
+     * 解码线程：依次解码排队的块，结果交回主线程
+     */
+    private void decodeQueued() {
+        while (true) {
+            Tile tile;
+            synchronized (queueLock) {
+                tile = decodeQueue.poll();
+                if (tile == null) {
+                    decodeScheduled = false;
+                    return;
+                }
+            }
+            Bitmap bitmap = released ? null : decodeTile(tile.key);
+            boolean deliver;
+            synchronized (queueLock) {
+                tile.decoded = bitmap;
+                decodedQueue.add(tile);
+                deliver = !deliverScheduled;
+                deliverScheduled = true;
+            }
+            if (deliver) {
+                mainHandler.post(deliverTask);
+            }
+        }
+    }
+
+    @Nullable
+    private Bitmap decodeTile(long key) {
+        int sample = (int) (key >>> 40);
+        int col = (int) ((key >> 20) & 0xFFFFF);
+        int row = (int) (key & 0xFFFFF);
+        int sourceTile = TILE_SIZE * sample;
+        decodeRegion.set(col * sourceTile, row * sourceTile,
+                Math.min(imageWidth, (col + 1) * sourceTile), Math.min(imageHeight, (row + 1) * sourceTile));
+        // 区域解码写入inBitmap左上角，只有整块才能复用同尺寸的位图
+        Bitmap reuse = null;
+        if (decodeRegion.width() == sourceTile && decodeRegion.height() == sourceTile) {
+            synchronized (queueLock) {
+                reuse = reusableBitmaps.poll();
+            }
+        }
+        decodeOptions.inSampleSize = sample;
+        decodeOptions.inBitmap = reuse;
+        try {
+            return decoder.decodeRegion(decodeRegion, decodeOptions);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Log.w(TAG, "块解码失败: " + decodeRegion + ", " + e.getMessage());
+            return null;
+        } finally {
+            decodeOptions.inBitmap = null;
+        }
+    }
+
+    /**
+     * 主线程：解码完成的块放入缓存，超出上限时淘汰最久未绘制的块
+     */
+    private void deliverDecoded() {
+        boolean changed = false;
+        while (true) {
+            Tile tile;
+            Bitmap bitmap;
+            synchronized (queueLock) {
+                tile = decodedQueue.poll();
+                if (tile == null) {
+                    deliverScheduled = false;
+                    break;
+                }
+                bitmap = tile.decoded;
+                tile.decoded = null;
+            }
+            if (released) {
+                continue;
+            }
+            if (bitmap == null) {
+                // 解码失败：移除登记，下次绘制时重新请求
+                tiles.remove(tile.key);
+                freeTiles.add(tile);
+                continue;
+            }
+            tile.bitmap = bitmap;
+            tileBytes += bitmap.getByteCount();
+            changed = true;
+        }
+        if (changed) {
+            trimToSize();
+            invalidateSelf();
+        }
+    }
+
+    private void trimToSize() {
+        while (tileBytes > tileCacheBytes) {
+            int oldest = -1;
+            long oldestFrame = Long.MAX_VALUE;
+            for (int i = 0; i < tiles.size(); i++) {
+                Tile tile = tiles.valueAt(i);
+                if (tile.bitmap != null && tile.lastDrawn < oldestFrame) {
+                    oldest = i;
+                    oldestFrame = tile.lastDrawn;
+                }
+            }
+            if (oldest < 0) {
+                return;
+            }
+            Tile tile = tiles.valueAt(oldest);
+            tiles.removeAt(oldest);
+            Bitmap bitmap = tile.bitmap;
+            tileBytes -= bitmap.getByteCount();
+            tile.bitmap = null;
+            freeTiles.add(tile);
+            if (bitmap.getWidth() == TILE_SIZE && bitmap.getHeight() == TILE_SIZE && bitmap.isMutable()) {
+                synchronized (queueLock) {
+                    if (reusableBitmaps.size() < MAX_REUSABLE_TILES) {
+                        reusableBitmaps.add(bitmap);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 采样率：不超过显示缩放倒数的最大2的幂
+     */
+    private static int sampleSizeFor(float scale) {
+        int sample = 1;
+        while (sample * 2 * scale <= 1f) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static long tileKey(int sample, int col, int row) {
+        return ((long) sample << 40) | ((long) col << 20) | row;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return -1;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return -1;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        paint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        paint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -11,21 +11,21 @@ import java.util.Map;
 /**
  * 背景缓存管理器
  * 缓存图片的主色调和模糊背景，避免重复计算
+ * 以媒体标识为键（见MediaIdentity），dlink或access_token变化后仍能命中
  */
 public class BackgroundCache {
     private static final String TAG = "BackgroundCache";
     private static BackgroundCache instance;
     
-    // 颜色缓存：key = 图片URL, value = 主色调
+    // 颜色缓存：key = 媒体标识, value = 主色调
     private final LruCache<String, Integer> colorCache;
     
-    // 模糊背景缓存：key = 图片URL, value = 模糊后的Bitmap
+    // 模糊背景缓存：key = 媒体标识, value = 模糊后的Bitmap
     private final LruCache<String, Bitmap> blurCache;
     
     // 缓存大小限制
     private static final int MAX_COLOR_CACHE_SIZE = 100; // 最多缓存100个颜色
-    private static final int MAX_BLUR_CACHE_SIZE = 20;   // 最多缓存20个模糊背景（占用内存较大）
-    private static final int BLUR_CACHE_BYTES = 10 * 1024 * 1024; // 10MB
+    private static final int BLUR_CACHE_BYTES = 10 * 1024 * 1024; // 模糊背景按字节限制，10MB
     
     private BackgroundCache() {
         // 使用 LRU 策略的颜色缓存
@@ -37,7 +37,7 @@ public class BackgroundCache {
         };
         
         // 使用 LRU 策略的模糊背景缓存（基于内存大小）
-        blurCache = new LruCache<String, Bitmap>(MAX_BLUR_CACHE_SIZE) {
+        blurCache = new LruCache<String, Bitmap>(BLUR_CACHE_BYTES) {
             @Override
             protected int sizeOf(String key, Bitmap value) {
                 return value.getByteCount();
@@ -60,24 +60,24 @@ public class BackgroundCache {
     /**
      * 缓存主色调
      */
-    public void putColor(String imageUrl, int color) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
+    public void putColor(String imageKey, int color) {
+        if (imageKey == null || imageKey.isEmpty()) {
             return;
         }
-        colorCache.put(imageUrl, color);
-        Log.d(TAG, String.format("缓存主色调: %s -> #%06X", imageUrl, (0xFFFFFF & color)));
+        colorCache.put(imageKey, color);
+        Log.d(TAG, String.format("缓存主色调: %s -> #%06X", imageKey, (0xFFFFFF & color)));
     }
     
     /**
      * 获取缓存的主色调
      */
-    public Integer getColor(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
+    public Integer getColor(String imageKey) {
+        if (imageKey == null || imageKey.isEmpty()) {
             return null;
         }
-        Integer color = colorCache.get(imageUrl);
+        Integer color = colorCache.get(imageKey);
         if (color != null) {
-            Log.d(TAG, String.format("命中颜色缓存: %s -> #%06X", imageUrl, (0xFFFFFF & color)));
+            Log.d(TAG, String.format("命中颜色缓存: %s -> #%06X", imageKey, (0xFFFFFF & color)));
         }
         return color;
     }
@@ -85,30 +85,24 @@ public class BackgroundCache {
     /**
      * 缓存模糊背景
      */
-    public void putBlur(String imageUrl, Bitmap bitmap) {
-        if (imageUrl == null || imageUrl.isEmpty() || bitmap == null) {
+    public void putBlur(String imageKey, Bitmap bitmap) {
+        if (imageKey == null || imageKey.isEmpty() || bitmap == null) {
             return;
         }
-        
-        // 检查缓存大小
-        if (blurCache.size() >= MAX_BLUR_CACHE_SIZE) {
-            Log.d(TAG, "模糊背景缓存已满，将自动清理最旧的项");
-        }
-        
-        blurCache.put(imageUrl, bitmap);
-        Log.d(TAG, String.format("缓存模糊背景: %s (大小: %d bytes)", imageUrl, bitmap.getByteCount()));
+        blurCache.put(imageKey, bitmap);
+        Log.d(TAG, String.format("缓存模糊背景: %s (大小: %d bytes)", imageKey, bitmap.getByteCount()));
     }
     
     /**
      * 获取缓存的模糊背景
      */
-    public Bitmap getBlur(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
+    public Bitmap getBlur(String imageKey) {
+        if (imageKey == null || imageKey.isEmpty()) {
             return null;
         }
-        Bitmap bitmap = blurCache.get(imageUrl);
+        Bitmap bitmap = blurCache.get(imageKey);
         if (bitmap != null) {
-            Log.d(TAG, String.format("命中模糊背景缓存: %s (大小: %d bytes)", imageUrl, bitmap.getByteCount()));
+            Log.d(TAG, String.format("命中模糊背景缓存: %s (大小: %d bytes)", imageKey, bitmap.getByteCount()));
         }
         return bitmap;
     }
@@ -116,16 +110,16 @@ public class BackgroundCache {
     /**
      * 清除指定图片的缓存
      */
-    public void remove(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
+    public void remove(String imageKey) {
+        if (imageKey == null || imageKey.isEmpty()) {
             return;
         }
-        colorCache.remove(imageUrl);
-        Bitmap bitmap = blurCache.remove(imageUrl);
+        colorCache.remove(imageKey);
+        Bitmap bitmap = blurCache.remove(imageKey);
         if (bitmap != null && !bitmap.isRecycled()) {
             bitmap.recycle();
         }
-        Log.d(TAG, "清除缓存: " + imageUrl);
+        Log.d(TAG, "清除缓存: " + imageKey);
     }
     
     /**
@@ -145,16 +139,16 @@ public class BackgroundCache {
      */
     public String getCacheStats() {
         int colorCount = colorCache.size();
-        int blurCount = blurCache.size();
+        int blurCount = blurCache.snapshot().size();
         long blurBytes = blurCache.size();
         
         return String.format(
             "背景缓存统计:\n" +
             "- 颜色缓存: %d/%d\n" +
-            "- 模糊缓存: %d/%d (约 %.2f MB)\n" +
+            "- 模糊缓存: %d 个 (约 %.2f/%.0f MB)\n" +
             "- 总内存占用: 约 %.2f MB",
             colorCount, MAX_COLOR_CACHE_SIZE,
-            blurCount, MAX_BLUR_CACHE_SIZE, blurBytes / (1024.0 * 1024.0),
+            blurCount, blurBytes / (1024.0 * 1024.0), BLUR_CACHE_BYTES / (1024.0 * 1024.0),
             blurBytes / (1024.0 * 1024.0)
         );
     }
@@ -164,6 +158,6 @@ public class BackgroundCache {
      */
     public boolean isFull() {
         return colorCache.size() >= MAX_COLOR_CACHE_SIZE && 
-               blurCache.size() >= MAX_BLUR_CACHE_SIZE;
+               blurCache.size() >= BLUR_CACHE_BYTES;
     }
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+package com.baidu.gallery.car.utils;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 切换特效帧耗时统计
+ * 特效动画期间通过Window的FrameMetrics回调记录每帧总耗时（输入、动画、测量布局、绘制、同步、GPU提交），
+ * 按特效名称累计帧数、平均值、P95、最大值，以及超过一个刷新周期（60Hz为16.7ms）的帧数和丢帧数，
+ * 用于确认特效在车机上能否稳定保持刷新率。每帧只更新计数和直方图，不分配对象
+ */
+public class FrameTimeStats {
+    private static final String TAG = "FrameTimeStats";
+
+    // 直方图：每格0.5ms，最后一格收纳所有更长的帧
+    private static final int BUCKET_COUNT = 200;
+    private static final long BUCKET_NANOS = 500_000L;
+    // 超过刷新周期的帧占比不超过该值，认为保持了刷新率
+    private static final float MAX_JANK_RATIO = 0.05f;
+
+    private static volatile FrameTimeStats instance;
+
+    private final Handler metricsHandler;
+    // 特效名称 -> 累计统计（按首次出现顺序）
+    private final Map<String, Aggregate> aggregates = new LinkedHashMap<>();
+
+    private FrameTimeStats() {
+        HandlerThread thread = new HandlerThread("frame-metrics");
+        thread.start();
+        metricsHandler = new Handler(thread.getLooper());
+    }
+
+    public static FrameTimeStats getInstance() {
+        if (instance == null) {
+            synchronized (FrameTimeStats.class) {
+                if (instance == null) {
+                    instance = new FrameTimeStats();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 一个特效的累计统计
+     */
+    private static final class Aggregate {
+        final int[] histogram = new int[BUCKET_COUNT];
+        long frames;
+        long jankFrames;
+        long droppedReports;
+        long totalNanos;
+        long maxNanos;
+        long budgetNanos;
+        int sessions;
+
+        void record(long nanos) {
+            frames++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            if (nanos > budgetNanos) {
+                jankFrames++;
+            }
+            histogram[(int) Math.min(BUCKET_COUNT - 1, nanos / BUCKET_NANOS)]++;
+        }
+
+        long percentileNanos(float percentile) {
+            long target = (long) Math.ceil(frames * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += histogram[i];
+                if (seen >= target) {
+                    return (i + 1) * BUCKET_NANOS;
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    /**
+     * 开始记录一次特效动画（主线程调用）
+     * @param label 特效名称
+     * @param window 特效所在窗口，为null时不记录
+     * @param refreshRate 屏幕刷新率，用于确定每帧预算
+     * @return 记录会话，动画结束时调用finish；window为null时返回null
+     */
+    @Nullable
+    public Session start(@NonNull String label, @Nullable Window window, float refreshRate) {
+        if (window == null) {
+            return null;
+        }
+        long budgetNanos = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+        Aggregate aggregate;
+        synchronized (aggregates) {
+            aggregate = aggregates.get(label);
+            if (aggregate == null) {
+                aggregate = new Aggregate();
+                aggregates.put(label, aggregate);
+            }
+            aggregate.budgetNanos = budgetNanos;
+            aggregate.sessions++;
+        }
+        Session session = new Session(label, window, aggregate);
+        try {
+            window.addOnFrameMetricsAvailableListener(session, metricsHandler);
+        } catch (IllegalStateException e) {
+            // 窗口未开启硬件加速
+            Log.w(TAG, "无法记录帧耗时: " + e.getMessage());
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * 一次特效动画的记录
+     */
+    public final class Session implements Window.OnFrameMetricsAvailableListener {
+        private final String label;
+        private final Window window;
+        private final Aggregate aggregate;
+        private long frames;
+        private long jankFrames;
+        private long maxNanos;
+        private boolean finished;
+
+        Session(String label, Window window, Aggregate aggregate) {
+            this.label = label;
+            this.window = window;
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+            long nanos = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            synchronized (aggregates) {
+                aggregate.record(nanos);
+                aggregate.droppedReports += dropCountSinceLastInvocation;
+            }
+            frames++;
+            maxNanos = Math.max(maxNanos, nanos);
+            if (nanos > aggregate.budgetNanos) {
+                jankFrames++;
+            }
+        }
+
+        /**
+         * 动画结束（主线程调用），只统计到此为止已回调的帧
+         */
+        public void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                window.removeOnFrameMetricsAvailableListener(this);
+            } catch (IllegalArgumentException ignored) {
+                // 已移除
+            }
+            // 回调在统计线程上，日志也在该线程输出，保证读取到最后一帧
+            metricsHandler.post(() -> Log.d(TAG, String.format(Locale.US, "%s: %d 帧, 超时 %d 帧, 最长 %.1fms",
+                    label, frames, jankFrames, maxNanos / 1_000_000.0)));
+        }
+    }
+
+    /**
+     * 清除某个名称的累计统计，之后的记录重新开始累计
+     * 进行中的会话仍写入旧的统计对象，不影响新的结果
+     */
+    public void reset(@NonNull String label) {
+        synchronized (aggregates) {
+            aggregates.remove(label);
+        }
+    }
+
+    /**
+     * 某个名称的累计结果（毫秒），没有记录到帧时返回null
+     */
+    @Nullable
+    public Result getResult(@NonNull String label) {
+        synchronized (aggregates) {
+            Aggregate aggregate = aggregates.get(label);
+            if (aggregate == null || aggregate.frames == 0) {
+                return null;
+            }
+            return new Result(aggregate);
+        }
+    }
+
+    /**
+     * 累计结果快照
+     */
+    public static final class Result {
+        public final int sessions;
+        public final long frames;
+        public final long jankFrames;
+        public final long droppedReports;
+        public final double averageMs;
+        public final double p50Ms;
+        public final double p95Ms;
+        public final double p99Ms;
+        public final double maxMs;
+        public final double budgetMs;
+
+        Result(Aggregate aggregate) {
+            sessions = aggregate.sessions;
+            frames = aggregate.frames;
+            jankFrames = aggregate.jankFrames;
+            droppedReports = aggregate.droppedReports;
+            averageMs = aggregate.totalNanos / (double) aggregate.frames / 1_000_000.0;
+            p50Ms = aggregate.percentileNanos(0.50f) / 1_000_000.0;
+            p95Ms = aggregate.percentileNanos(0.95f) / 1_000_000.0;
+            p99Ms = aggregate.percentileNanos(0.99f) / 1_000_000.0;
+            maxMs = aggregate.maxNanos / 1_000_000.0;
+            budgetMs = aggregate.budgetNanos / 1_000_000.0;
+        }
+
+        public float getJankRatio() {
+            return frames > 0 ? (float) jankFrames / frames : 0f;
+        }
+
+        /**
+         * 超过刷新周期的帧占比是否在允许范围内
+         */
+        public boolean meetsBudget() {
+            return getJankRatio() <= MAX_JANK_RATIO;
+        }
+    }
+
+    /**
+     * 各特效的累计统计
+     */
+    @NonNull
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder("特效帧耗时:");
+        synchronized (aggregates) {
+            if (aggregates.isEmpty()) {
+                return "暂无特效帧耗时记录";
+            }
+            for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+                Aggregate aggregate = entry.getValue();
+                if (aggregate.frames == 0) {
+                    continue;
+                }
+                float jankRatio = (float) aggregate.jankFrames / aggregate.frames;
+                sb.append(String.format(Locale.US,
+                        "\n%s: %d 次 %d 帧, 平均 %.1fms, P95 %.1fms, 最长 %.1fms, 超过%.1fms %d 帧, 丢失回调 %d (%s)",
+                        entry.getKey(), aggregate.sessions, aggregate.frames,
+                        aggregate.totalNanos / (double) aggregate.frames / 1_000_000.0,
+                        aggregate.percentileNanos(0.95f) / 1_000_000.0,
+                        aggregate.maxNanos / 1_000_000.0,
+                        aggregate.budgetNanos / 1_000_000.0, aggregate.jankFrames, aggregate.droppedReports,
+                        jankRatio <= MAX_JANK_RATIO ? "达标" : "未达标"));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -5,10 +5,14 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.GlideBuilder;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.module.AppGlideModule;
@@ -26,7 +30,7 @@ import okhttp3.logging.HttpLoggingInterceptor;
 
 /**
  * Glide 配置模块
- * 用于配置更长的超时时间和重试机制
+ * 用于配置更长的超时时间和重试机制，内存/磁盘缓存和解码参数按设备配置（见GlideMemoryProfile）
  */
 @GlideModule
 public class GlideConfiguration extends AppGlideModule {
@@ -36,6 +40,21 @@ public class GlideConfiguration extends AppGlideModule {
     public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
         // 设置日志级别
         builder.setLogLevel(Log.INFO);
+        
+        GlideMemoryProfile profile = GlideMemoryProfile.getInstance(context);
+        builder.setMemoryCache(new LruResourceCache(profile.getMemoryCacheBytes()));
+        builder.setBitmapPool(profile.createBitmapPool());
+        // 原图磁盘缓存：图片按媒体标识缓存（见MediaGlideUrl），重播播放列表时主要从磁盘读取
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, profile.getDiskCacheBytes()));
+        // 限制并发解码数，每个解码线程都会占用一张大图的缓冲
+        builder.setSourceExecutor(GlideExecutor.newSourceBuilder()
+                .setThreadCount(profile.getSourceThreads())
+                .build());
+        builder.setDiskCacheExecutor(GlideExecutor.newDiskCacheBuilder()
+                .setThreadCount(1)
+                .build());
+        builder.setDefaultRequestOptions(profile.defaultRequestOptions());
+        builder.addGlobalRequestListener(profile.requestListener());
     }
 
     @Override
@@ -58,6 +77,8 @@ public class GlideConfiguration extends AppGlideModule {
                 .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES)) // 保持连接5分钟
                 .protocols(Collections.singletonList(Protocol.HTTP_1_1)) // 强制使用HTTP/1.1避免HTTP/2的一些问题
                 .addInterceptor(loggingInterceptor)    // 添加日志拦截器
+                .addInterceptor(ImageTransferStats.getInstance().interceptor()) // 记录每个图片档位的下载字节数
+                .eventListenerFactory(NetworkQualityEstimator.getInstance().eventListenerFactory()) // 图片下载是主要的吞吐样本来源
                 .build();
 
         // 替换 Glide 的网络组件
@@ -0,0 +1,229 @@
+package com.baidu.gallery.car.utils;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.StatFs;
+import android.util.DisplayMetrics;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Glide内存配置
+ * Glide默认参数按手机设定，部分车机只有1.5GB内存，幻灯片播放时频繁GC。
+ * 这里按ActivityManager的内存等级、低内存标记和屏幕尺寸，确定内存缓存、Bitmap池、磁盘缓存、
+ * 解码线程数和解码格式，并统计缓存命中和Bitmap复用情况
+ */
+public class GlideMemoryProfile {
+    private static final String TAG = "GlideMemoryProfile";
+
+    // 总内存不超过该值的设备按受限设备处理（很多车机没有设置低内存标记）
+    private static final long CONSTRAINED_TOTAL_MEM = 2L * 1024 * 1024 * 1024;
+    // 应用内存等级不超过该值（MB）按受限设备处理
+    private static final int CONSTRAINED_MEMORY_CLASS = 128;
+
+    private static final long DISK_CACHE_BYTES = 512L * 1024 * 1024;
+    private static final long CONSTRAINED_DISK_CACHE_BYTES = 256L * 1024 * 1024;
+    // 磁盘缓存最多占用可用空间的比例
+    private static final float DISK_CACHE_FREE_SPACE_RATIO = 0.1f;
+    private static final long MIN_DISK_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private static volatile GlideMemoryProfile instance;
+
+    private final boolean constrained;
+    private final int memoryClass;
+    private final long memoryCacheBytes;
+    private final long bitmapPoolBytes;
+    private final long diskCacheBytes;
+    private final int sourceThreads;
+    private final DecodeFormat decodeFormat;
+
+    private LruBitmapPool bitmapPool;
+
+    // 按DataSource统计的加载完成次数，最后一位是失败次数
+    private final AtomicLongArray loadCounts = new AtomicLongArray(DataSource.values().length + 1);
+
+    private GlideMemoryProfile(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        memoryClass = activityManager.getMemoryClass();
+        constrained = activityManager.isLowRamDevice()
+                || memoryInfo.totalMem <= CONSTRAINED_TOTAL_MEM
+                || memoryClass <= CONSTRAINED_MEMORY_CLASS;
+
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        long screenBytes = (long) metrics.widthPixels * metrics.heightPixels * 4;
+        long heapBytes = (long) memoryClass * 1024 * 1024;
+
+        // 内存缓存：当前显示的一张 + 预取的几张（受限设备只保证当前张和下一张）
+        // Bitmap池：受限设备解码为RGB_565且只保留一屏，避免池本身占满堆
+        float cacheScreens = constrained ? 3 : 6;
+        float poolScreens = constrained ? 1 : 2;
+        float maxHeapRatio = constrained ? 0.25f : 0.4f;
+        long maxTotal = (long) (heapBytes * maxHeapRatio);
+        long wantedCache = (long) (screenBytes * cacheScreens);
+        long wantedPool = (long) (screenBytes * poolScreens);
+        if (wantedCache + wantedPool > maxTotal) {
+            float scale = (float) maxTotal / (wantedCache + wantedPool);
+            wantedCache = (long) (wantedCache * scale);
+            wantedPool = (long) (wantedPool * scale);
+        }
+        memoryCacheBytes = wantedCache;
+        bitmapPoolBytes = wantedPool;
+
+        long diskBudget = constrained ? CONSTRAINED_DISK_CACHE_BYTES : DISK_CACHE_BYTES;
+        try {
+            StatFs stat = new StatFs(context.getCacheDir().getAbsolutePath());
+            long byFreeSpace = (long) (stat.getAvailableBytes() * DISK_CACHE_FREE_SPACE_RATIO);
+            diskBudget = Math.max(MIN_DISK_CACHE_BYTES, Math.min(diskBudget, byFreeSpace));
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "无法读取缓存目录可用空间: " + e.getMessage());
+        }
+        diskCacheBytes = diskBudget;
+
+        // 解码线程：每个线程同时持有一张大图的解码缓冲，受限设备只开2个
+        int cores = Runtime.getRuntime().availableProcessors();
+        sourceThreads = constrained ? 2 : Math.max(2, Math.min(4, cores));
+        decodeFormat = constrained ? DecodeFormat.PREFER_RGB_565 : DecodeFormat.PREFER_ARGB_8888;
+
+        Log.i(TAG, String.format(Locale.US,
+                "%s设备: 内存等级 %dMB, 总内存 %dMB, 屏幕 %dx%d -> 内存缓存 %.1fMB, Bitmap池 %.1fMB, 磁盘缓存 %dMB, 解码线程 %d, 格式 %s",
+                constrained ? "受限" : "标准", memoryClass, memoryInfo.totalMem / (1024 * 1024),
+                metrics.widthPixels, metrics.heightPixels,
+                memoryCacheBytes / (1024.0 * 1024.0), bitmapPoolBytes / (1024.0 * 1024.0),
+                diskCacheBytes / (1024 * 1024), sourceThreads, decodeFormat));
+    }
+
+    public static GlideMemoryProfile getInstance(Context context) {
+        if (instance == null) {
+            synchronized (GlideMemoryProfile.class) {
+                if (instance == null) {
+                    instance = new GlideMemoryProfile(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isConstrained() {
+        return constrained;
+    }
+
+    public long getMemoryCacheBytes() {
+        return memoryCacheBytes;
+    }
+
+    public long getDiskCacheBytes() {
+        return diskCacheBytes;
+    }
+
+    public int getSourceThreads() {
+        return sourceThreads;
+    }
+
+    public DecodeFormat getDecodeFormat() {
+        return decodeFormat;
+    }
+
+    /**
+     * 解码后每像素字节数（用于估算缓存能放下几张图）
+     */
+    public int getBytesPerPixel() {
+        return decodeFormat == DecodeFormat.PREFER_RGB_565 ? 2 : 4;
+    }
+
+    /**
+     * 由GlideConfiguration创建Bitmap池时登记，用于统计复用率
+     */
+    public LruBitmapPool createBitmapPool() {
+        bitmapPool = new LruBitmapPool(bitmapPoolBytes);
+        return bitmapPool;
+    }
+
+    /**
+     * 全局默认请求参数
+     */
+    public RequestOptions defaultRequestOptions() {
+        return new RequestOptions().format(decodeFormat);
+    }
+
+    /**
+     * 幻灯片图片的解码参数
+     * 硬件Bitmap不占Java堆，但CPU无法读取像素：主色调、毛玻璃背景需要读像素，只有纯黑背景时允许。
+     * 所有切换特效都在硬件加速画布上绘制，不受影响。
+     * 显示和预取必须使用相同参数，内存缓存键才能一致
+     */
+    public RequestOptions slideRequestOptions(Context context) {
+        RequestOptions options = new RequestOptions().format(decodeFormat);
+        if (PreferenceUtils.getBackgroundMode(context) != ImageBackgroundUtils.BackgroundMode.BLACK.getValue()) {
+            options = options.disallowHardwareConfig();
+        }
+        return options;
+    }
+
+    // ========== 统计 ==========
+
+    /**
+     * 全局请求监听：按数据来源统计命中
+     */
+    public RequestListener<Object> requestListener() {
+        return new RequestListener<Object>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                        @NonNull Target<Object> target, boolean isFirstResource) {
+                loadCounts.incrementAndGet(DataSource.values().length);
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(@NonNull Object resource, @NonNull Object model,
+                                           @NonNull Target<Object> target, @NonNull DataSource dataSource,
+                                           boolean isFirstResource) {
+                loadCounts.incrementAndGet(dataSource.ordinal());
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 缓存命中和Bitmap复用统计
+     */
+    @NonNull
+    public String getSummary() {
+        long memory = loadCounts.get(DataSource.MEMORY_CACHE.ordinal());
+        long resourceDisk = loadCounts.get(DataSource.RESOURCE_DISK_CACHE.ordinal());
+        long dataDisk = loadCounts.get(DataSource.DATA_DISK_CACHE.ordinal());
+        long remote = loadCounts.get(DataSource.REMOTE.ordinal());
+        long failed = loadCounts.get(DataSource.values().length);
+        long total = memory + resourceDisk + dataDisk + remote + loadCounts.get(DataSource.LOCAL.ordinal());
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "Glide(%s): 加载 %d 次, 内存命中 %d, 磁盘命中 %d, 网络 %d, 失败 %d",
+                constrained ? "受限" : "标准", total, memory, resourceDisk + dataDisk, remote, failed));
+        if (total > 0) {
+            sb.append(String.format(Locale.US, " (缓存命中率 %.0f%%)",
+                    (memory + resourceDisk + dataDisk) * 100.0 / total));
+        }
+        LruBitmapPool pool = bitmapPool;
+        if (pool != null) {
+            long hits = pool.hitCount();
+            long misses = pool.missCount();
+            sb.append(String.format(Locale.US, "\nBitmap池: 复用 %d, 新分配 %d, 淘汰 %d, 当前 %.1f/%.1fMB",
+                    hits, misses, pool.evictionCount(),
+                    pool.getCurrentSize() / (1024.0 * 1024.0), pool.getMaxSize() / (1024.0 * 1024.0)));
+        }
+        return sb.toString();
+    }
+}
@@ -5,21 +5,33 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.renderscript.Allocation;
 import android.renderscript.Element;
 import android.renderscript.RenderScript;
 import android.renderscript.ScriptIntrinsicBlur;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.palette.graphics.Palette;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * 图片背景处理工具类
  * 提供两种解决图片切换时亮暗刺眼问题的方案：
  * 1. 提取图片主色调作为背景色
  * 2. 生成图片的毛玻璃虚化背景
+ * 两种背景从同一张缩小图生成（只缩小一次），在预取阶段就处理好，显示时直接命中缓存
  */
 public class ImageBackgroundUtils {
     private static final String TAG = "ImageBackgroundUtils";
@@ -57,43 +69,169 @@ public class ImageBackgroundUtils {
     }
     
     /**
-     * 从图片提取主色调（带缓存）
-     * 使用 Palette 库进行智能颜色提取
-     * 
-     * @param context 上下文
-     * @param imageUrl 图片URL（用于缓存键）
-     * @param drawable 源图片
-     * @return 主色调颜色值，如果提取失败返回黑色
+     * 背景处理结果回调（主线程）
      */
-    public static int extractDominantColor(Context context, String imageUrl, Drawable drawable) {
-        if (drawable == null) {
-            return Color.BLACK;
+    public interface BackgroundCallback {
+        /**
+         * @param color 压暗后的主色调，提取失败时为黑色
+         * @param blurred 压暗后的模糊背景，未请求或生成失败时为null
+         */
+        void onBackgroundReady(int color, @Nullable Bitmap blurred);
+    }
+
+    // 缩小后的长边：主色调和模糊背景共用这一张小图
+    private static final int BACKGROUND_LONG_EDGE = 240;
+    private static final float BLUR_RADIUS = 15.0f;
+    // 模糊背景压暗：叠加半透明黑色，相当于亮度乘0.5
+    private static final int BLUR_DIM_COLOR = Color.argb(128, 0, 0, 0);
+
+    // 单线程处理：RenderScript上下文和模糊脚本只在该线程创建和使用，整个进程共用一份
+    private static final ExecutorService processExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static RenderScript renderScript;
+    private static ScriptIntrinsicBlur blurScript;
+
+    // 正在处理的媒体（只在主线程访问），避免预取和显示重复处理同一张图
+    private static final Map<String, PendingJob> pendingJobs = new HashMap<>();
+
+    private static final class PendingJob {
+        final boolean withBlur;
+        final List<BackgroundCallback> callbacks = new ArrayList<>();
+
+        PendingJob(boolean withBlur) {
+            this.withBlur = withBlur;
         }
-        
-        // 检查缓存
+    }
+
+    /**
+     * 预先生成背景（预取时调用，必须在主线程）
+     * 图片解码完成后立即缩小一次，主色调和模糊背景在后台线程从这张小图生成并存入BackgroundCache，
+     * 轮到该图片显示时背景直接命中缓存，与图片同时出现
+     *
+     * @param imageKey 媒体标识（缓存键，见MediaIdentity）
+     * @param drawable 解码后的图片（只在本方法内读取，之后可被Glide回收复用）
+     * @param withBlur 是否生成模糊背景（主色调总是生成，作为模糊失败时的回退）
+     */
+    public static void prepareBackground(Context context, String imageKey, Drawable drawable, boolean withBlur) {
+        requestBackground(context, imageKey, drawable, withBlur, null);
+    }
+
+    /**
+     * 获取图片背景（必须在主线程）
+     * 缓存命中时同步回调；否则缩小后交给后台线程处理，完成后在主线程回调
+     *
+     * @param imageKey 媒体标识（缓存键，见MediaIdentity）
+     * @param drawable 源图片（只在本方法内读取）
+     * @param withBlur 是否需要模糊背景
+     * @param callback 回调，可为null（只生成缓存）
+     */
+    public static void requestBackground(Context context, String imageKey, @Nullable Drawable drawable,
+                                         boolean withBlur, @Nullable BackgroundCallback callback) {
         BackgroundCache cache = BackgroundCache.getInstance();
-        Integer cachedColor = cache.getColor(imageUrl);
-        if (cachedColor != null) {
-            return cachedColor;
+        Integer cachedColor = cache.getColor(imageKey);
+        Bitmap cachedBlur = withBlur ? cache.getBlur(imageKey) : null;
+        if (cachedBlur != null && cachedBlur.isRecycled()) {
+            cachedBlur = null;
         }
-        
-        try {
-            Bitmap bitmap = drawableToBitmap(drawable);
-            if (bitmap == null) {
-                return Color.BLACK;
+        if (cachedColor != null && (!withBlur || cachedBlur != null)) {
+            if (callback != null) {
+                callback.onBackgroundReady(cachedColor, cachedBlur);
+            }
+            return;
+        }
+
+        PendingJob pending = pendingJobs.get(imageKey);
+        if (pending != null && (pending.withBlur || !withBlur)) {
+            if (callback != null) {
+                pending.callbacks.add(callback);
+            }
+            return;
+        }
+
+        Bitmap small = drawable != null ? downscale(drawable) : null;
+        if (small == null) {
+            if (callback != null) {
+                callback.onBackgroundReady(Color.BLACK, null);
             }
-            
-            // 缩小图片以提高性能
-            Bitmap scaledBitmap = scaleBitmapForColorExtraction(bitmap);
-            
-            // 使用 Palette 提取颜色
-            Palette palette = Palette.from(scaledBitmap).generate();
-            
-            // 回收缩放后的 bitmap
-            if (scaledBitmap != bitmap) {
-                scaledBitmap.recycle();
+            return;
+        }
+
+        PendingJob job = new PendingJob(withBlur);
+        if (callback != null) {
+            job.callbacks.add(callback);
+        }
+        pendingJobs.put(imageKey, job);
+        Context appContext = context.getApplicationContext();
+        processExecutor.execute(() -> {
+            int color = extractColor(small);
+            Bitmap blurred = withBlur ? blurAndDim(appContext, small) : null;
+            if (blurred == null) {
+                small.recycle();
             }
-            
+            cache.putColor(imageKey, color);
+            if (blurred != null) {
+                cache.putBlur(imageKey, blurred);
+            }
+            mainHandler.post(() -> {
+                if (pendingJobs.get(imageKey) == job) {
+                    pendingJobs.remove(imageKey);
+                }
+                for (BackgroundCallback pendingCallback : job.callbacks) {
+                    pendingCallback.onBackgroundReady(color, blurred);
+                }
+            });
+        });
+    }
+
+    /**
+     * 缩小为长边BACKGROUND_LONG_EDGE的ARGB_8888小图（模糊需要ARGB_8888，受限设备解码为RGB_565时在这一步一并转换）
+     * 硬件Bitmap无法读取像素，返回null
+     */
+    @Nullable
+    private static Bitmap downscale(Drawable drawable) {
+        Bitmap source = drawable instanceof BitmapDrawable ? ((BitmapDrawable) drawable).getBitmap() : null;
+        int width = source != null ? source.getWidth() : drawable.getIntrinsicWidth();
+        int height = source != null ? source.getHeight() : drawable.getIntrinsicHeight();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        if (source != null && (source.isRecycled() || source.getConfig() == Bitmap.Config.HARDWARE)) {
+            Log.w(TAG, "图片不可读取像素，跳过背景处理");
+            return null;
+        }
+
+        float scale = Math.min(1f, (float) BACKGROUND_LONG_EDGE / Math.max(width, height));
+        int smallWidth = Math.max(1, Math.round(width * scale));
+        int smallHeight = Math.max(1, Math.round(height * scale));
+        try {
+            Bitmap small = Bitmap.createBitmap(smallWidth, smallHeight, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(small);
+            if (source != null) {
+                canvas.drawBitmap(source, null, new Rect(0, 0, smallWidth, smallHeight),
+                        new Paint(Paint.FILTER_BITMAP_FLAG));
+            } else {
+                // 不改动正在显示的Drawable的bounds，用画布缩放代替
+                Rect bounds = drawable.copyBounds();
+                drawable.setBounds(0, 0, width, height);
+                canvas.scale((float) smallWidth / width, (float) smallHeight / height);
+                drawable.draw(canvas);
+                drawable.setBounds(bounds);
+            }
+            return small;
+        } catch (RuntimeException | OutOfMemoryError e) {
+            Log.e(TAG, "缩小图片失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 使用 Palette 从小图提取主色调并压暗
+     * 小图已经足够小，不再让Palette二次缩放
+     */
+    private static int extractColor(Bitmap small) {
+        try {
+            Palette palette = Palette.from(small).resizeBitmapArea(0).generate();
+
             // 优先获取柔和的暗色调（适合做背景）
             int dominantColor = palette.getDarkMutedColor(Color.BLACK);
             if (dominantColor == Color.BLACK) {
@@ -102,169 +240,44 @@ public class ImageBackgroundUtils {
             if (dominantColor == Color.BLACK) {
                 dominantColor = palette.getDominantColor(Color.BLACK);
             }
-            
+
             // 降低亮度，使背景更暗，不那么刺眼
             dominantColor = darkenColor(dominantColor, 0.4f);
-            
             Log.d(TAG, String.format("提取主色调: #%06X", (0xFFFFFF & dominantColor)));
-            
-            // 缓存结果
-            cache.putColor(imageUrl, dominantColor);
-            
             return dominantColor;
-            
         } catch (Exception e) {
             Log.e(TAG, "提取主色调失败", e);
             return Color.BLACK;
         }
     }
-    
+
     /**
-     * 生成图片的模糊背景（带缓存）
-     * 使用 RenderScript 进行高效模糊处理
-     * 
-     * @param context 上下文
-     * @param imageUrl 图片URL（用于缓存键）
-     * @param drawable 源图片
-     * @param blurRadius 模糊半径 (1-25)
-     * @param downScale 缩小倍数，用于提高性能 (建议 4-8)
-     * @return 模糊后的 Bitmap，如果失败返回 null
+     * 在小图上原地模糊并压暗，失败返回null
      */
-    public static Bitmap createBlurredBackground(Context context, String imageUrl, Drawable drawable, 
-                                                  float blurRadius, int downScale) {
-        if (drawable == null || context == null) {
-            return null;
-        }
-        
-        // 检查缓存
-        BackgroundCache cache = BackgroundCache.getInstance();
-        Bitmap cachedBitmap = cache.getBlur(imageUrl);
-        if (cachedBitmap != null && !cachedBitmap.isRecycled()) {
-            return cachedBitmap;
-        }
-        
+    @Nullable
+    private static Bitmap blurAndDim(Context context, Bitmap small) {
         try {
-            Bitmap bitmap = drawableToBitmap(drawable);
-            if (bitmap == null) {
-                return null;
-            }
-            
-            // 缩小图片以提高性能
-            int width = bitmap.getWidth() / downScale;
-            int height = bitmap.getHeight() / downScale;
-            Bitmap scaledBitmap = Bitmap.createScaledBitmap(bitmap, width, height, false);
-            
-            // 使用 RenderScript 进行模糊
-            Bitmap blurredBitmap = blurBitmap(context, scaledBitmap, blurRadius);
-            
-            // 回收缩放后的 bitmap
-            if (scaledBitmap != blurredBitmap) {
-                scaledBitmap.recycle();
-            }
-            
-            // 降低整体亮度
-            if (blurredBitmap != null) {
-                blurredBitmap = adjustBrightness(blurredBitmap, 0.5f);
-            }
-            
-            // 缓存结果
-            if (blurredBitmap != null) {
-                cache.putBlur(imageUrl, blurredBitmap);
+            if (renderScript == null) {
+                renderScript = RenderScript.create(context);
+                blurScript = ScriptIntrinsicBlur.create(renderScript, Element.U8_4(renderScript));
+                blurScript.setRadius(BLUR_RADIUS);
             }
-            
-            return blurredBitmap;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "生成模糊背景失败", e);
-            return null;
-        }
-    }
-    
-    /**
-     * 使用 RenderScript 对 Bitmap 进行模糊处理
-     */
-    private static Bitmap blurBitmap(Context context, Bitmap bitmap, float blurRadius) {
-        if (bitmap == null) {
-            return null;
-        }
-        
-        RenderScript rs = null;
-        try {
-            // 创建 RenderScript 上下文
-            rs = RenderScript.create(context);
-            
-            // 创建输入输出 Allocation
-            Allocation input = Allocation.createFromBitmap(rs, bitmap);
-            Allocation output = Allocation.createTyped(rs, input.getType());
-            
-            // 创建模糊脚本
-            ScriptIntrinsicBlur blurScript = ScriptIntrinsicBlur.create(rs, Element.U8_4(rs));
-            blurScript.setRadius(Math.min(25f, Math.max(1f, blurRadius))); // 限制在 1-25
+            Allocation input = Allocation.createFromBitmap(renderScript, small);
+            Allocation output = Allocation.createTyped(renderScript, input.getType());
             blurScript.setInput(input);
             blurScript.forEach(output);
-            
-            // 将结果复制回 bitmap
-            output.copyTo(bitmap);
-            
-            // 清理资源
+            output.copyTo(small);
             input.destroy();
             output.destroy();
-            blurScript.destroy();
-            
-            return bitmap;
-            
+
+            new Canvas(small).drawColor(BLUR_DIM_COLOR);
+            return small;
         } catch (Exception e) {
             Log.e(TAG, "RenderScript 模糊失败", e);
-            return bitmap;
-        } finally {
-            if (rs != null) {
-                rs.destroy();
-            }
-        }
-    }
-    
-    /**
-     * 调整 Bitmap 的亮度
-     * 
-     * @param bitmap 源 bitmap
-     * @param factor 亮度因子 (0-1，0 为全黑，1 为原始亮度)
-     * @return 调整后的 bitmap
-     */
-    private static Bitmap adjustBrightness(Bitmap bitmap, float factor) {
-        if (bitmap == null || factor >= 1.0f) {
-            return bitmap;
-        }
-        
-        try {
-            Bitmap adjustedBitmap = Bitmap.createBitmap(
-                bitmap.getWidth(), 
-                bitmap.getHeight(), 
-                bitmap.getConfig()
-            );
-            
-            Canvas canvas = new Canvas(adjustedBitmap);
-            Paint paint = new Paint();
-            
-            // 使用 ColorMatrix 调整亮度
-            android.graphics.ColorMatrix cm = new android.graphics.ColorMatrix();
-            cm.setScale(factor, factor, factor, 1f);
-            paint.setColorFilter(new android.graphics.ColorMatrixColorFilter(cm));
-            
-            canvas.drawBitmap(bitmap, 0, 0, paint);
-            
-            // 回收原 bitmap
-            if (!bitmap.isRecycled()) {
-                bitmap.recycle();
-            }
-            
-            return adjustedBitmap;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "调整亮度失败", e);
-            return bitmap;
+            return null;
         }
     }
-    
+
     /**
      * 降低颜色亮度
      * 
@@ -279,61 +292,6 @@ public class ImageBackgroundUtils {
         return Color.HSVToColor(Color.alpha(color), hsv);
     }
     
-    /**
-     * 将 Drawable 转换为 Bitmap
-     */
-    private static Bitmap drawableToBitmap(Drawable drawable) {
-        if (drawable instanceof BitmapDrawable) {
-            BitmapDrawable bitmapDrawable = (BitmapDrawable) drawable;
-            if (bitmapDrawable.getBitmap() != null) {
-                return bitmapDrawable.getBitmap();
-            }
-        }
-        
-        // 创建 Bitmap 并绘制 Drawable
-        Bitmap bitmap;
-        if (drawable.getIntrinsicWidth() <= 0 || drawable.getIntrinsicHeight() <= 0) {
-            bitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
-        } else {
-            bitmap = Bitmap.createBitmap(
-                drawable.getIntrinsicWidth(),
-                drawable.getIntrinsicHeight(),
-                Bitmap.Config.ARGB_8888
-            );
-        }
-        
-        Canvas canvas = new Canvas(bitmap);
-        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        drawable.draw(canvas);
-        
-        return bitmap;
-    }
-    
-    /**
-     * 缩小 Bitmap 以提高颜色提取性能
-     * 颜色提取不需要高分辨率
-     */
-    private static Bitmap scaleBitmapForColorExtraction(Bitmap bitmap) {
-        if (bitmap == null) {
-            return null;
-        }
-        
-        final int MAX_SIZE = 100; // 最大尺寸
-        
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        
-        if (width <= MAX_SIZE && height <= MAX_SIZE) {
-            return bitmap; // 已经足够小
-        }
-        
-        float scale = Math.min((float) MAX_SIZE / width, (float) MAX_SIZE / height);
-        int newWidth = Math.round(width * scale);
-        int newHeight = Math.round(height * scale);
-        
-        return Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, false);
-    }
-    
     /**
      * 计算两种背景模式的性能影响
      * 
@@ -358,11 +316,11 @@ public class ImageBackgroundUtils {
                "   - 内存: 中等 (~2-4MB 临时占用)\n" +
                "   - 适用场景: 中高端设备\n" +
                "   - 技术: RenderScript 模糊 + 亮度调整\n" +
-               "   - 优化: 图片缩小到 1/8 后再模糊，使用 LRU 缓存\n\n" +
+               "   - 优化: 与主色调共用同一张缩小图（长边240像素），预取时生成，使用 LRU 缓存\n\n" +
                
                "缓存策略：\n" +
                "   - 主色调缓存: 最多100个颜色\n" +
-               "   - 模糊背景缓存: 最多20个背景（约10MB）\n" +
+               "   - 模糊背景缓存: 最多约10MB\n" +
                "   - 自动LRU清理，避免内存溢出\n\n" +
                
                "总结: 主色调背景性能最佳，视觉效果良好；毛玻璃背景视觉效果最佳，性能开销可接受。";
@@ -0,0 +1,213 @@
+package com.baidu.gallery.car.utils;
+
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.DataSource;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * 图片流量统计
+ * 记录每张幻灯片实际从网络下载的字节数，和"直接下载原图"相比节省了多少。
+ * 下载字节数由Glide的OkHttp拦截器按请求URL记录（实际读取的响应体字节数，分块传输时没有Content-Length），
+ * 每次下载只计入一次：
+ * 预取时下载、显示时从内存命中的图片，在显示时计入
+ */
+public class ImageTransferStats {
+    private static final String TAG = "ImageTransferStats";
+    private static final int MAX_TRACKED_URLS = 100;
+
+    private static volatile ImageTransferStats instance;
+
+    // URL -> 已读取的响应体字节数
+    private final LruCache<String, Long> transferredBytes = new LruCache<>(MAX_TRACKED_URLS);
+
+    // 本次进程内的累计值（只在主线程更新）
+    private int slideCount;
+    private int skippedOriginalCount;
+    private long totalOriginalBytes;
+    private long totalFetchedBytes;
+
+    private Slide current;
+
+    private ImageTransferStats() {
+    }
+
+    public static ImageTransferStats getInstance() {
+        if (instance == null) {
+            synchronized (ImageTransferStats.class) {
+                if (instance == null) {
+                    instance = new ImageTransferStats();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Glide下载客户端使用的应用拦截器（按重定向前的URL记录，与Glide加载的URL一致）
+     * 响应体读完或关闭时记录实际读取的字节数
+     */
+    public Interceptor interceptor() {
+        return chain -> {
+            Response response = chain.proceed(chain.request());
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                return response;
+            }
+            CountingSource counting = new CountingSource(body.source(), chain.request().url().toString());
+            ResponseBody countedBody = ResponseBody.create(Okio.buffer(counting), body.contentType(),
+                    body.contentLength());
+            return response.newBuilder().body(countedBody).build();
+        };
+    }
+
+    /**
+     * 统计响应体读取字节数，读到末尾或关闭时记录一次
+     */
+    private final class CountingSource extends ForwardingSource {
+        private final String url;
+        private long bytesRead;
+        private boolean recorded;
+
+        CountingSource(Source delegate, String url) {
+            super(delegate);
+            this.url = url;
+        }
+
+        @Override
+        public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read == -1) {
+                record();
+            } else {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            record();
+            super.close();
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                transferredBytes.put(url, bytesRead);
+            }
+        }
+    }
+
+    /**
+     * 开始一张幻灯片；上一张还没到最终档位时按已下载的部分结算
+     * @param name 文件名（日志用）
+     * @param originalBytes 原图文件大小
+     */
+    public Slide beginSlide(String name, long originalBytes) {
+        if (current != null) {
+            current.finish(false);
+        }
+        current = new Slide(name, originalBytes);
+        return current;
+    }
+
+    /**
+     * 一张幻灯片的流量记录
+     */
+    public final class Slide {
+        private final String name;
+        private final long originalBytes;
+        private long fetchedBytes;
+        private boolean originalLoaded;
+        private boolean finished;
+
+        Slide(String name, long originalBytes) {
+            this.name = name;
+            this.originalBytes = originalBytes;
+        }
+
+        /**
+         * 某个档位加载完成
+         * @param url 该档位的下载地址
+         * @param original 是否为原图
+         * @param dataSource Glide报告的数据来源
+         */
+        public void onLoaded(String url, boolean original, DataSource dataSource) {
+            if (finished) {
+                return;
+            }
+            if (original) {
+                originalLoaded = true;
+            }
+            Long bytes = consume(url);
+            if (bytes == null && original && dataSource == DataSource.REMOTE) {
+                // 没有记录到读取字节数（响应体还未关闭）
+                bytes = originalBytes;
+            }
+            if (bytes != null) {
+                fetchedBytes += bytes;
+            }
+        }
+
+        /**
+         * 已到最终档位
+         */
+        public void finish() {
+            finish(true);
+        }
+
+        void finish(boolean complete) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            slideCount++;
+            totalOriginalBytes += originalBytes;
+            totalFetchedBytes += fetchedBytes;
+            if (complete && !originalLoaded) {
+                skippedOriginalCount++;
+            }
+            Log.d(TAG, String.format(Locale.US, "%s: 原图 %dKB, 实际下载 %dKB, 节省 %dKB%s",
+                    name, originalBytes / 1024, fetchedBytes / 1024,
+                    Math.max(0, originalBytes - fetchedBytes) / 1024,
+                    complete ? (originalLoaded ? "" : " (未下载原图)") : " (未加载完即切换)"));
+        }
+    }
+
+    private Long consume(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        return transferredBytes.remove(parsed != null ? parsed.toString() : url);
+    }
+
+    /**
+     * 累计统计
+     */
+    @NonNull
+    public String getSummary() {
+        if (slideCount == 0) {
+            return "暂无图片流量记录";
+        }
+        long saved = Math.max(0, totalOriginalBytes - totalFetchedBytes);
+        return String.format(Locale.US,
+                "图片 %d 张（%d 张未下载原图）\n原图合计 %.1fMB，实际下载 %.1fMB，节省 %.1fMB (%.0f%%)",
+                slideCount, skippedOriginalCount,
+                totalOriginalBytes / (1024.0 * 1024.0), totalFetchedBytes / (1024.0 * 1024.0),
+                saved / (1024.0 * 1024.0),
+                totalOriginalBytes > 0 ? saved * 100.0 / totalOriginalBytes : 0);
+    }
+}
@@ -10,6 +10,7 @@ import android.util.Log;
 
 import com.baidu.gallery.car.config.BaiduConfig;
 import com.baidu.gallery.car.geocoding.GeocodingFactory;
+import com.baidu.gallery.car.network.NetworkQualityEstimator;
 import com.coremedia.iso.IsoFile;
 import com.coremedia.iso.boxes.Box;
 import com.coremedia.iso.boxes.MovieBox;
@@ -79,6 +80,7 @@ public class LocationUtils {
                     .readTimeout(READ_TIMEOUT, TimeUnit.MILLISECONDS)
                     .writeTimeout(READ_TIMEOUT, TimeUnit.MILLISECONDS)
                     .retryOnConnectionFailure(true)
+                    .eventListenerFactory(NetworkQualityEstimator.getInstance().eventListenerFactory())
                     .build();
         }
         return okHttpClient;
@@ -0,0 +1,40 @@
+package com.baidu.gallery.car.utils;
+
+import androidx.annotation.NonNull;
+
+import com.baidu.gallery.car.model.MediaIdentity;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.Headers;
+
+/**
+ * 以媒体标识为缓存键的GlideUrl
+ * URL只用于下载；内存缓存和磁盘缓存都按媒体标识命中，
+ * dlink重新解析或access_token刷新后，已下载过的图片仍从缓存读取
+ */
+public class MediaGlideUrl extends GlideUrl {
+    private final String cacheKey;
+
+    public MediaGlideUrl(String url, MediaIdentity identity) {
+        super(url);
+        this.cacheKey = identity.getKey();
+    }
+
+    /**
+     * @param variant 同一媒体的不同形态（如缩略图），避免和原图共用一个键
+     */
+    public MediaGlideUrl(String url, MediaIdentity identity, String variant) {
+        super(url);
+        this.cacheKey = identity.getKey(variant);
+    }
+
+    public MediaGlideUrl(String url, Headers headers, MediaIdentity identity, String variant) {
+        super(url, headers);
+        this.cacheKey = identity.getKey(variant);
+    }
+
+    @NonNull
+    @Override
+    public String getCacheKey() {
+        return cacheKey;
+    }
+}
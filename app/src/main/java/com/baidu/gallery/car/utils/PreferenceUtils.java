@@ -22,6 +22,9 @@ public class PreferenceUtils {
     
     // 地点显示
     private static final String KEY_SHOW_LOCATION = "show_location";
+
+    // GPU特效
+    private static final String KEY_GPU_EFFECTS = "gpu_effects";
     
     // 文件排序相关
     private static final String KEY_FILE_SORT_MODE = "file_sort_mode";
@@ -31,13 +34,25 @@ public class PreferenceUtils {
     
     // 背景模式相关
     private static final String KEY_BACKGROUND_MODE = "background_mode";
+    
+    // 网络相关
+    private static final String KEY_LAST_MEDIA_HOST = "last_media_host";
+    
+    // 缓存相关
+    private static final String KEY_MEDIA_CACHE_SIZE_MB = "media_cache_size_mb";
+    private static final String KEY_SEGMENTED_CONNECTIONS = "segmented_connections";
+    private static final String KEY_SEGMENTED_READ_AHEAD_MB = "segmented_read_ahead_mb";
 
     // 默认值
     private static final int DEFAULT_IMAGE_EFFECT = 0; // 淡入淡出
     private static final int DEFAULT_IMAGE_DISPLAY_DURATION = 10000; // 10秒
     private static final int DEFAULT_IMAGE_TRANSITION_DURATION = 1000; // 1秒
     private static final boolean DEFAULT_SHOW_LOCATION = true;
+    private static final boolean DEFAULT_GPU_EFFECTS = true;
     private static final int DEFAULT_BACKGROUND_MODE = 1; // 主色调背景
+    private static final int DEFAULT_MEDIA_CACHE_SIZE_MB = 1024; // 1GB
+    private static final int DEFAULT_SEGMENTED_CONNECTIONS = 4;
+    private static final int DEFAULT_SEGMENTED_READ_AHEAD_MB = 8;
 
     /**
      * 获取SharedPreferences实例
@@ -209,6 +224,24 @@ public class PreferenceUtils {
     public static boolean getShowLocation(Context context) {
         return getPreferences(context).getBoolean(KEY_SHOW_LOCATION, DEFAULT_SHOW_LOCATION);
     }
+
+    // ========== GPU特效相关 ==========
+
+    /**
+     * 保存是否使用GPU着色器渲染图片切换特效
+     */
+    public static void saveGpuEffectsEnabled(Context context, boolean enabled) {
+        getPreferences(context).edit()
+                .putBoolean(KEY_GPU_EFFECTS, enabled)
+                .apply();
+    }
+
+    /**
+     * 获取是否使用GPU着色器渲染图片切换特效（系统不支持时不生效）
+     */
+    public static boolean getGpuEffectsEnabled(Context context) {
+        return getPreferences(context).getBoolean(KEY_GPU_EFFECTS, DEFAULT_GPU_EFFECTS);
+    }
     
     // ========== 文件排序相关 ==========
     
@@ -277,4 +310,72 @@ public class PreferenceUtils {
         // 默认为1 (主色调背景)
         return getPreferences(context).getInt(KEY_BACKGROUND_MODE, DEFAULT_BACKGROUND_MODE);
     }
-}
\ No newline at end of file
+    
+    // ========== 网络相关 ==========
+    
+    /**
+     * 保存上次播放时实际提供媒体数据的主机（重定向后的CDN节点）
+     */
+    public static void saveLastMediaHost(Context context, String host) {
+        getPreferences(context).edit()
+                .putString(KEY_LAST_MEDIA_HOST, host)
+                .apply();
+    }
+    
+    /**
+     * 获取上次播放时的媒体主机，没有时返回null
+     */
+    public static String getLastMediaHost(Context context) {
+        return getPreferences(context).getString(KEY_LAST_MEDIA_HOST, null);
+    }
+    
+    // ========== 缓存相关 ==========
+    
+    /**
+     * 保存视频磁盘缓存上限（MB），下次启动生效
+     */
+    public static void saveMediaCacheSizeMb(Context context, int sizeMb) {
+        getPreferences(context).edit()
+                .putInt(KEY_MEDIA_CACHE_SIZE_MB, sizeMb)
+                .apply();
+    }
+    
+    /**
+     * 获取视频磁盘缓存上限（MB）
+     */
+    public static int getMediaCacheSizeMb(Context context) {
+        return getPreferences(context).getInt(KEY_MEDIA_CACHE_SIZE_MB, DEFAULT_MEDIA_CACHE_SIZE_MB);
+    }
+    
+    /**
+     * 保存分段下载的并行连接数
+     */
+    public static void saveSegmentedConnections(Context context, int connections) {
+        getPreferences(context).edit()
+                .putInt(KEY_SEGMENTED_CONNECTIONS, connections)
+                .apply();
+    }
+    
+    /**
+     * 获取分段下载的并行连接数
+     */
+    public static int getSegmentedConnections(Context context) {
+        return getPreferences(context).getInt(KEY_SEGMENTED_CONNECTIONS, DEFAULT_SEGMENTED_CONNECTIONS);
+    }
+    
+    /**
+     * 保存分段下载的预读窗口（MB）
+     */
+    public static void saveSegmentedReadAheadMb(Context context, int sizeMb) {
+        getPreferences(context).edit()
+                .putInt(KEY_SEGMENTED_READ_AHEAD_MB, sizeMb)
+                .apply();
+    }
+    
+    /**
+     * 获取分段下载的预读窗口（MB）
+     */
+    public static int getSegmentedReadAheadMb(Context context) {
+        return getPreferences(context).getInt(KEY_SEGMENTED_READ_AHEAD_MB, DEFAULT_SEGMENTED_READ_AHEAD_MB);
+    }
+}
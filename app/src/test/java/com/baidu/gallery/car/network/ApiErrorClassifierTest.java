@@ -0,0 +1,64 @@
+package com.baidu.gallery.car.network;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * 错误分类：HTTP状态码、errno、网络异常
+ */
+public class ApiErrorClassifierTest {
+
+    @Test
+    public void classifiesHttpStatus() {
+        assertEquals(ApiErrorClassifier.ErrorClass.SUCCESS, ApiErrorClassifier.classifyHttp(200));
+        assertEquals(ApiErrorClassifier.ErrorClass.SUCCESS, ApiErrorClassifier.classifyHttp(206));
+        assertEquals(ApiErrorClassifier.ErrorClass.RATE_LIMITED, ApiErrorClassifier.classifyHttp(429));
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE, ApiErrorClassifier.classifyHttp(408));
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE, ApiErrorClassifier.classifyHttp(500));
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE, ApiErrorClassifier.classifyHttp(503));
+        assertEquals(ApiErrorClassifier.ErrorClass.FATAL, ApiErrorClassifier.classifyHttp(403));
+        assertEquals(ApiErrorClassifier.ErrorClass.FATAL, ApiErrorClassifier.classifyHttp(404));
+    }
+
+    @Test
+    public void classifiesErrno() {
+        assertEquals(ApiErrorClassifier.ErrorClass.SUCCESS, ApiErrorClassifier.classifyErrno(0));
+        assertEquals(ApiErrorClassifier.ErrorClass.RATE_LIMITED, ApiErrorClassifier.classifyErrno(31034));
+        int[] fatal = {-6, -7, -9, 2, 6, 111, 31023, 31024, 31066};
+        for (int errno : fatal) {
+            assertEquals("errno=" + errno, ApiErrorClassifier.ErrorClass.FATAL, ApiErrorClassifier.classifyErrno(errno));
+        }
+        // 未知errno交给重试次数兜底
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE, ApiErrorClassifier.classifyErrno(-3));
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE, ApiErrorClassifier.classifyErrno(31299));
+    }
+
+    @Test
+    public void classifiesExceptions() {
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE,
+                ApiErrorClassifier.classifyException(new SocketTimeoutException()));
+        assertEquals(ApiErrorClassifier.ErrorClass.FATAL,
+                ApiErrorClassifier.classifyException(new InterruptedIOException()));
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE,
+                ApiErrorClassifier.classifyException(new UnknownHostException("pan.baidu.com")));
+        assertEquals(ApiErrorClassifier.ErrorClass.RETRYABLE,
+                ApiErrorClassifier.classifyException(new IOException("connection reset")));
+    }
+
+    @Test
+    public void parsesErrnoFromBodySnippet() {
+        assertEquals(31034, ApiErrorClassifier.parseErrno("{\"errno\":31034,\"request_id\":1}"));
+        assertEquals(-9, ApiErrorClassifier.parseErrno("{\"errno\" : -9, \"list\":[]}"));
+        assertEquals(0, ApiErrorClassifier.parseErrno("{\"list\":[]}"));
+        assertEquals(0, ApiErrorClassifier.parseErrno(""));
+        assertEquals(0, ApiErrorClassifier.parseErrno(null));
+        // 超出int范围时按解析不到处理
+        assertEquals(0, ApiErrorClassifier.parseErrno("{\"errno\":99999999999}"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.baidu.gallery.car.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 熔断器状态转换
+ */
+public class CircuitBreakerTest {
+    private static final String ENDPOINT = "/file/list";
+    private static final long OPEN_MS = 50;
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MS);
+        breaker.recordFailure(ENDPOINT);
+        breaker.recordFailure(ENDPOINT);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ENDPOINT));
+        assertTrue(breaker.allowRequest(ENDPOINT));
+
+        breaker.recordFailure(ENDPOINT);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(ENDPOINT));
+        assertFalse(breaker.allowRequest(ENDPOINT));
+        assertTrue(breaker.getRemainingOpenMs(ENDPOINT) > 0);
+        assertTrue(breaker.getMaxRemainingOpenMs() <= OPEN_MS);
+    }
+
+    @Test
+    public void successResetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MS);
+        breaker.recordFailure(ENDPOINT);
+        breaker.recordFailure(ENDPOINT);
+        breaker.recordSuccess(ENDPOINT);
+        breaker.recordFailure(ENDPOINT);
+        breaker.recordFailure(ENDPOINT);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ENDPOINT));
+    }
+
+    @Test
+    public void endpointsAreIndependent() {
+        CircuitBreaker breaker = new CircuitBreaker(1, OPEN_MS);
+        breaker.recordFailure(ENDPOINT);
+        assertFalse(breaker.allowRequest(ENDPOINT));
+        assertTrue(breaker.allowRequest("/file/meta"));
+        assertEquals(0, breaker.getRemainingOpenMs("/file/meta"));
+    }
+
+    @Test
+    public void halfOpenAllowsSingleProbe() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MS + 10);
+
+        assertTrue(breaker.allowRequest(ENDPOINT));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(ENDPOINT));
+        assertEquals(0, breaker.getRemainingOpenMs(ENDPOINT));
+        // 探测请求未结束前拒绝其它请求
+        assertFalse(breaker.allowRequest(ENDPOINT));
+    }
+
+    @Test
+    public void probeSuccessCloses() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MS + 10);
+        assertTrue(breaker.allowRequest(ENDPOINT));
+
+        breaker.recordSuccess(ENDPOINT);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(ENDPOINT));
+        assertTrue(breaker.allowRequest(ENDPOINT));
+        assertTrue(breaker.allowRequest(ENDPOINT));
+    }
+
+    @Test
+    public void probeFailureReopens() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MS + 10);
+        assertTrue(breaker.allowRequest(ENDPOINT));
+
+        breaker.recordFailure(ENDPOINT);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(ENDPOINT));
+        assertFalse(breaker.allowRequest(ENDPOINT));
+    }
+
+    @Test
+    public void releasedProbeAllowsNextProbe() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker();
+        Thread.sleep(OPEN_MS + 10);
+        assertTrue(breaker.allowRequest(ENDPOINT));
+        assertFalse(breaker.allowRequest(ENDPOINT));
+
+        // 探测请求被取消：保持半开，下一个请求接替探测
+        breaker.releaseProbe(ENDPOINT);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(ENDPOINT));
+        assertTrue(breaker.allowRequest(ENDPOINT));
+        assertFalse(breaker.allowRequest(ENDPOINT));
+    }
+
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(2, OPEN_MS);
+        breaker.recordFailure(ENDPOINT);
+        breaker.recordFailure(ENDPOINT);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(ENDPOINT));
+        return breaker;
+    }
+}
@@ -0,0 +1,76 @@
+package com.baidu.gallery.car.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 重试策略：重试条件和退避抖动范围
+ */
+public class RetryPolicyTest {
+    private static final int SAMPLES = 2000;
+
+    @Test
+    public void retriesOnlyTransientErrorsWithinAttempts() {
+        RetryPolicy policy = new RetryPolicy(3, 100, 1000, 400, 1500);
+        assertTrue(policy.shouldRetry(1, ApiErrorClassifier.ErrorClass.RETRYABLE));
+        assertTrue(policy.shouldRetry(2, ApiErrorClassifier.ErrorClass.RATE_LIMITED));
+        assertFalse(policy.shouldRetry(3, ApiErrorClassifier.ErrorClass.RETRYABLE));
+        assertFalse(policy.shouldRetry(1, ApiErrorClassifier.ErrorClass.FATAL));
+        assertFalse(policy.shouldRetry(1, ApiErrorClassifier.ErrorClass.SUCCESS));
+    }
+
+    @Test
+    public void jitterStaysWithinExponentialCap() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 400, 1500);
+        long[] caps = {100, 200, 400, 800, 1000, 1000};
+        for (int attempt = 1; attempt <= caps.length; attempt++) {
+            long max = 0;
+            for (int i = 0; i < SAMPLES; i++) {
+                long delay = policy.getDelayMs(attempt, ApiErrorClassifier.ErrorClass.RETRYABLE);
+                assertTrue("attempt=" + attempt + " delay=" + delay, delay >= 0 && delay <= caps[attempt - 1]);
+                max = Math.max(max, delay);
+            }
+            // full jitter应覆盖大部分区间，而不是固定值
+            assertTrue("attempt=" + attempt + " max=" + max, max > caps[attempt - 1] / 2);
+        }
+    }
+
+    @Test
+    public void rateLimitedWaitsAtLeastBase() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 5000, 400, 1500);
+        for (int attempt = 1; attempt <= 6; attempt++) {
+            long cap = Math.min(5000, 400L << (attempt - 1));
+            for (int i = 0; i < SAMPLES; i++) {
+                long delay = policy.getDelayMs(attempt, ApiErrorClassifier.ErrorClass.RATE_LIMITED);
+                assertTrue("attempt=" + attempt + " delay=" + delay, delay >= 400 && delay <= cap);
+            }
+        }
+    }
+
+    @Test
+    public void largeAttemptDoesNotOverflow() {
+        RetryPolicy policy = new RetryPolicy(100, 500, 10000, 2000, 1500);
+        for (int i = 0; i < SAMPLES; i++) {
+            long delay = policy.getDelayMs(80, ApiErrorClassifier.ErrorClass.RETRYABLE);
+            assertTrue(delay >= 0 && delay <= 10000);
+        }
+    }
+
+    @Test
+    public void inlineWaitIsBounded() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 10000, 2000, 1500);
+        assertTrue(policy.canWaitInline(0, 1500));
+        assertTrue(policy.canWaitInline(1000, 500));
+        assertFalse(policy.canWaitInline(1000, 501));
+        // 频控的最短退避超过上限，不在拦截器内等待
+        assertFalse(policy.canWaitInline(0, policy.getDelayMs(1, ApiErrorClassifier.ErrorClass.RATE_LIMITED)));
+    }
+
+    @Test
+    public void defaultPolicyAllowsFourAttempts() {
+        assertEquals(4, RetryPolicy.defaultPolicy().getMaxAttempts());
+    }
+}
@@ -0,0 +1,110 @@
+package com.baidu.gallery.car.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 自适应缓冲阈值：按带宽余量调整、字节上限封顶、卡顿后加大
+ */
+public class AdaptiveLoadControlTest {
+    private static final long MB = 1024L * 1024;
+
+    private static AdaptiveLoadControl.Thresholds base(long bitrate) {
+        return new AdaptiveLoadControl.Thresholds(15000, 50000, 2500, 5000,
+                AdaptiveLoadControl.targetBytesFor(bitrate));
+    }
+
+    @Test
+    public void targetBytesWithinMemoryBounds() {
+        assertEquals(128 * MB, AdaptiveLoadControl.targetBytesFor(-1));
+        assertEquals(16 * MB, AdaptiveLoadControl.targetBytesFor(100_000));
+        assertEquals(128 * MB, AdaptiveLoadControl.targetBytesFor(100_000_000));
+        // 8Mbps：一分钟的数据量
+        assertEquals(60_000_000, AdaptiveLoadControl.targetBytesFor(8_000_000));
+    }
+
+    @Test
+    public void unknownBitrateKeepsNetworkDefaults() {
+        AdaptiveLoadControl.Thresholds t = AdaptiveLoadControl.thresholdsFor(-1, 0, 10_000_000, base(-1));
+        assertEquals(15000, t.minBufferMs);
+        assertEquals(50000, t.maxBufferMs);
+        assertEquals(2500, t.bufferForPlaybackMs);
+        assertEquals(5000, t.bufferForPlaybackAfterRebufferMs);
+    }
+
+    @Test
+    public void unknownBandwidthKeepsNetworkDefaults() {
+        AdaptiveLoadControl.Thresholds t = AdaptiveLoadControl.thresholdsFor(2_000_000, 0, 0, base(2_000_000));
+        assertEquals(15000, t.minBufferMs);
+        assertEquals(50000, t.maxBufferMs);
+    }
+
+    @Test
+    public void tightBandwidthBuffersMoreBeforeStart() {
+        long bitrate = 8_000_000;
+        AdaptiveLoadControl.Thresholds t = AdaptiveLoadControl.thresholdsFor(bitrate, 600_000, 6_000_000, base(bitrate));
+        assertEquals(30000, t.minBufferMs);
+        assertEquals(60000, t.maxBufferMs);
+        // 长视频余量不足：起播缓冲封顶
+        assertEquals(15000, t.bufferForPlaybackMs);
+        assertEquals(15000, t.bufferForPlaybackAfterRebufferMs);
+    }
+
+    @Test
+    public void slightlyTightBandwidthStartBufferWithinBounds() {
+        long bitrate = 1_000_000;
+        AdaptiveLoadControl.Thresholds t = AdaptiveLoadControl.thresholdsFor(bitrate, 0, 1_200_000, base(bitrate));
+        assertTrue(t.bufferForPlaybackMs >= 3000 && t.bufferForPlaybackMs < 15000);
+        assertTrue(t.bufferForPlaybackAfterRebufferMs >= t.bufferForPlaybackMs);
+        assertTrue(t.bufferForPlaybackAfterRebufferMs <= 15000);
+    }
+
+    @Test
+    public void ampleBandwidthStartsFast() {
+        long bitrate = 1_000_000;
+        AdaptiveLoadControl.Thresholds t = AdaptiveLoadControl.thresholdsFor(bitrate, 60_000, 10_000_000, base(bitrate));
+        assertEquals(5000, t.minBufferMs);
+        assertEquals(15000, t.maxBufferMs);
+        assertEquals(300, t.bufferForPlaybackMs);
+        assertEquals(1000, t.bufferForPlaybackAfterRebufferMs);
+    }
+
+    @Test
+    public void moderateBandwidthKeepsNetworkDefaults() {
+        long bitrate = 2_000_000;
+        AdaptiveLoadControl.Thresholds t = AdaptiveLoadControl.thresholdsFor(bitrate, 60_000, 4_000_000, base(bitrate));
+        assertEquals(15000, t.minBufferMs);
+        assertEquals(50000, t.maxBufferMs);
+        assertEquals(2500, t.bufferForPlaybackMs);
+    }
+
+    @Test
+    public void highBitrateCappedByBufferBytes() {
+        long bitrate = 100_000_000;
+        AdaptiveLoadControl.Thresholds t = AdaptiveLoadControl.thresholdsFor(bitrate, 60_000, 200_000_000, base(bitrate));
+        long capMs = 128 * MB * 8 * 1000 / bitrate;
+        assertEquals(capMs, t.maxBufferMs);
+        assertTrue(t.minBufferMs <= t.maxBufferMs);
+        assertTrue(t.bufferForPlaybackMs <= t.maxBufferMs);
+        assertTrue((long) t.maxBufferMs * bitrate / 8 / 1000 <= t.targetBufferBytes);
+    }
+
+    @Test
+    public void rebufferRaisesThresholdsUpToLimits() {
+        AdaptiveLoadControl.Thresholds t = new AdaptiveLoadControl.Thresholds(5000, 15000, 300, 1000, 64 * MB);
+        AdaptiveLoadControl.Thresholds next = AdaptiveLoadControl.afterRebuffer(t, -1);
+        assertEquals(7500, next.minBufferMs);
+        assertEquals(15000, next.maxBufferMs);
+        assertEquals(300, next.bufferForPlaybackMs);
+        assertEquals(2000, next.bufferForPlaybackAfterRebufferMs);
+
+        for (int i = 0; i < 20; i++) {
+            next = AdaptiveLoadControl.afterRebuffer(next, -1);
+        }
+        assertEquals(60000, next.minBufferMs);
+        assertEquals(60000, next.maxBufferMs);
+        assertEquals(15000, next.bufferForPlaybackAfterRebufferMs);
+    }
+}